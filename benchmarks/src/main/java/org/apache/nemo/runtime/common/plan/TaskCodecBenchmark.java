@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.plan;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.dag.DAGBuilder;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataFlowProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.apache.nemo.common.ir.vertex.executionproperty.ScheduleGroupProperty;
+import org.apache.nemo.common.test.EmptyComponents;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.nemo.common.test.EmptyComponents.EMPTY_TRANSFORM;
+
+/**
+ * Compares {@link TaskCodec} with Java serialization, for the stage template of a reducer
+ * which reads a shuffle from a number of mappers. The score is the number of templates per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TaskCodecBenchmark {
+  @Param({"10", "1000"})
+  private int numMappers;
+
+  private StageTemplate template;
+  private byte[] encodedTemplate;
+  private byte[] serializedTemplate;
+
+  /**
+   * Builds the stage template, and its encodings to decode.
+   * @throws InjectionException if failed to create the physical plan generator.
+   */
+  @Setup
+  public final void setUp() throws InjectionException {
+    final IRVertex mapper = new EmptyComponents.EmptySourceVertex<>("source");
+    mapper.setProperty(ScheduleGroupProperty.of(0));
+    mapper.setProperty(ParallelismProperty.of(numMappers));
+    final IRVertex reducer = new OperatorVertex(EMPTY_TRANSFORM);
+    reducer.setProperty(ScheduleGroupProperty.of(1));
+    reducer.setProperty(ParallelismProperty.of(numMappers));
+    final IREdge shuffleEdge = new IREdge(CommunicationPatternProperty.Value.Shuffle, mapper, reducer);
+    shuffleEdge.setProperty(DataFlowProperty.of(DataFlowProperty.Value.Pull));
+    final DAG<IRVertex, IREdge> irDAG = new DAGBuilder<IRVertex, IREdge>()
+        .addVertex(mapper)
+        .addVertex(reducer)
+        .connectVertices(shuffleEdge)
+        .buildWithoutSourceSinkCheck();
+    final DAG<Stage, StageEdge> stageDAG =
+        Tang.Factory.getTang().newInjector().getInstance(PhysicalPlanGenerator.class).apply(irDAG);
+    final Stage mapperStage = stageDAG.getRootVertices().get(0);
+    final Stage reducerStage = stageDAG.getChildren(mapperStage.getId()).get(0);
+
+    template = new StageTemplate("template", "plan", 1, reducerStage.getExecutionProperties(),
+        reducerStage.getSerializedIRDAG(), stageDAG.getIncomingEdgesOf(reducerStage),
+        stageDAG.getOutgoingEdgesOf(reducerStage));
+    encodedTemplate = TaskCodec.encodeStageTemplate(template);
+    serializedTemplate = SerializationUtils.serialize(template);
+  }
+
+  /**
+   * @return the encoded template.
+   */
+  @Benchmark
+  public final byte[] encode() {
+    return TaskCodec.encodeStageTemplate(template);
+  }
+
+  /**
+   * @return the decoded template.
+   */
+  @Benchmark
+  public final StageTemplate decode() {
+    return TaskCodec.decodeStageTemplate(encodedTemplate);
+  }
+
+  /**
+   * @return the serialized template.
+   */
+  @Benchmark
+  public final byte[] javaSerialize() {
+    return SerializationUtils.serialize(template);
+  }
+
+  /**
+   * @return the deserialized template.
+   */
+  @Benchmark
+  public final StageTemplate javaDeserialize() {
+    return SerializationUtils.deserialize(serializedTemplate);
+  }
+}
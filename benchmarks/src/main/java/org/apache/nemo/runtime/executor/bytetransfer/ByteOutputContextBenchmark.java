@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.bytetransfer;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.apache.nemo.common.ir.edge.executionproperty.CompressionProperty;
+import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferDataDirection;
+import org.apache.nemo.runtime.executor.data.BenchmarkRecords;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
+import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the framing of the bytes written to a {@link ByteOutputContext}.
+ * Each operation sends {@link BenchmarkRecords#BYTES_PER_OPERATION} bytes over a new context.
+ * The bytes are sent either to an embedded channel, which measures the framing alone,
+ * or over a loopback TCP connection to a server which discards them, which also measures the backpressure
+ * of the write buffer water marks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ByteOutputContextBenchmark {
+  // The defaults of JobConf.
+  private static final int FRAME_SIZE = 65536;
+  private static final int WRITE_BUFFER_LOW_WATER_MARK = 2097152;
+  private static final int WRITE_BUFFER_HIGH_WATER_MARK = 4194304;
+
+  @Param({"1", "64", "4096", "65536"})
+  private int writeSize;
+
+  @Param({"Embedded", "Loopback"})
+  private String transport;
+
+  private byte[] bytes;
+  private DirectBufferPool bufferPool;
+  private SerializedPartition<Integer> serializedPartition;
+  private EventLoopGroup eventLoopGroup;
+  private ChannelGroup channelGroup;
+  private Channel channel;
+  private volatile ContextManager contextManager;
+  private int nextTransferIndex = 0;
+
+  /**
+   * Sets up the channel, and the bytes to send.
+   * @throws InjectionException if failed to create the data frame encoder or the buffer pool.
+   * @throws IOException if failed to write the partition to send.
+   * @throws InterruptedException if interrupted while connecting.
+   */
+  @Setup
+  public final void setUp() throws InjectionException, IOException, InterruptedException {
+    bytes = new byte[writeSize];
+    Arrays.fill(bytes, (byte) 1);
+    bufferPool = Tang.Factory.getTang().newInjector().getInstance(DirectBufferPool.class);
+    serializedPartition = new SerializedPartition<>(0,
+        BenchmarkRecords.serializer(CompressionProperty.Value.None), bufferPool);
+    for (final byte[] record : BenchmarkRecords.generate(
+        BenchmarkRecords.numRecordsPerOperation(writeSize), writeSize, 0)) {
+      serializedPartition.write(record);
+    }
+    serializedPartition.commit();
+
+    final DataFrameEncoder dataFrameEncoder = Tang.Factory.getTang().newInjector().getInstance(DataFrameEncoder.class);
+    channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    if ("Embedded".equals(transport)) {
+      channel = new EmbeddedChannel(dataFrameEncoder);
+      contextManager = new ContextManager(null, null, channelGroup, "local", FRAME_SIZE, channel);
+    } else {
+      eventLoopGroup = new NioEventLoopGroup(2);
+      final Channel serverChannel = new ServerBootstrap()
+          .group(eventLoopGroup)
+          .channel(NioServerSocketChannel.class)
+          .childHandler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(final SocketChannel ch) {
+              ch.pipeline().addLast(new DiscardHandler());
+            }
+          })
+          .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+      channelGroup.add(serverChannel);
+      channel = new Bootstrap()
+          .group(eventLoopGroup)
+          .channel(NioSocketChannel.class)
+          .option(ChannelOption.TCP_NODELAY, true)
+          .option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+              new WriteBufferWaterMark(WRITE_BUFFER_LOW_WATER_MARK, WRITE_BUFFER_HIGH_WATER_MARK))
+          .handler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(final SocketChannel ch) {
+              contextManager = new ContextManager(null, null, channelGroup, "local", FRAME_SIZE, ch);
+              ch.pipeline().addLast(dataFrameEncoder).addLast(contextManager);
+            }
+          })
+          .connect(serverChannel.localAddress()).sync().channel();
+    }
+    channelGroup.add(channel);
+  }
+
+  /**
+   * Closes the channels.
+   */
+  @TearDown
+  public final void tearDown() {
+    serializedPartition.release();
+    channelGroup.close().syncUninterruptibly();
+    if (eventLoopGroup != null) {
+      eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+  }
+
+  /**
+   * Writes the bytes in chunks of the write size.
+   * @throws IOException if failed to write.
+   */
+  @Benchmark
+  public final void writeBytes() throws IOException {
+    final ByteOutputContext context = newContext();
+    try (ByteOutputContext.ByteOutputStream stream = context.newOutputStream()) {
+      for (int i = 0; i < BenchmarkRecords.BYTES_PER_OPERATION / writeSize; i++) {
+        stream.write(bytes, 0, writeSize);
+      }
+    }
+    context.close();
+    drain();
+  }
+
+  /**
+   * Writes a serialized partition of records of the write size, without copying it.
+   * @throws IOException if failed to write.
+   */
+  @Benchmark
+  public final void writeSerializedPartition() throws IOException {
+    final ByteOutputContext context = newContext();
+    try (ByteOutputContext.ByteOutputStream stream = context.newOutputStream()) {
+      stream.writeSerializedPartition(serializedPartition);
+    }
+    context.close();
+    drain();
+  }
+
+  /**
+   * @return a new output context on the channel.
+   */
+  private ByteOutputContext newContext() {
+    final ByteTransferContext.ContextId contextId = new ByteTransferContext.ContextId("local", "remote",
+        ByteTransferDataDirection.INITIATOR_SENDS_DATA, nextTransferIndex++);
+    return new ByteOutputContext("remote", contextId, new byte[0], contextManager);
+  }
+
+  /**
+   * Releases the frames written to the embedded channel.
+   */
+  private void drain() {
+    if (channel instanceof EmbeddedChannel) {
+      Object frame;
+      while ((frame = ((EmbeddedChannel) channel).readOutbound()) != null) {
+        ReferenceCountUtil.release(frame);
+      }
+    }
+  }
+
+  /**
+   * Discards the received bytes.
+   */
+  private static final class DiscardHandler extends ChannelInboundHandlerAdapter {
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+      ReferenceCountUtil.release(msg);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.CompressionProperty;
+import org.apache.nemo.runtime.executor.data.streamchainer.CompressionStreamChainer;
+import org.apache.nemo.runtime.executor.data.streamchainer.DecodeStreamChainer;
+import org.apache.nemo.runtime.executor.data.streamchainer.DecompressionStreamChainer;
+import org.apache.nemo.runtime.executor.data.streamchainer.EncodeStreamChainer;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Records and serializers shared by the benchmarks of the data plane.
+ * A record is an array of bytes of a fixed size, which is encoded with its length.
+ * The bytes are drawn from a 16-letter alphabet, so that the records are about as compressible as text.
+ */
+public final class BenchmarkRecords {
+  /**
+   * The number of bytes of the records written or read by a single benchmark operation.
+   */
+  public static final int BYTES_PER_OPERATION = 1 << 20;
+  private static final int ALPHABET_SIZE = 16;
+
+  /**
+   * Private constructor.
+   */
+  private BenchmarkRecords() {
+  }
+
+  /**
+   * @param recordSize the size of a record, in bytes.
+   * @return the number of records of a benchmark operation.
+   */
+  public static int numRecordsPerOperation(final int recordSize) {
+    return Math.max(1, BYTES_PER_OPERATION / recordSize);
+  }
+
+  /**
+   * Generates records.
+   * @param numRecords the number of records.
+   * @param recordSize the size of a record, in bytes.
+   * @param seed       the seed of the random bytes.
+   * @return the records.
+   */
+  public static List<byte[]> generate(final int numRecords, final int recordSize, final long seed) {
+    final Random random = new Random(seed);
+    final List<byte[]> records = new ArrayList<>(numRecords);
+    for (int i = 0; i < numRecords; i++) {
+      final byte[] record = new byte[recordSize];
+      for (int j = 0; j < recordSize; j++) {
+        record[j] = (byte) ('a' + random.nextInt(ALPHABET_SIZE));
+      }
+      records.add(record);
+    }
+    return records;
+  }
+
+  /**
+   * Builds a serializer of records, in the same way as {@link SerializerManager}.
+   * @param compression the compression of the serialized records.
+   * @return the serializer.
+   */
+  public static Serializer<byte[], byte[]> serializer(final CompressionProperty.Value compression) {
+    final List<EncodeStreamChainer> encodeStreamChainers = new ArrayList<>();
+    final List<DecodeStreamChainer> decodeStreamChainers = new ArrayList<>();
+    if (compression != CompressionProperty.Value.None) {
+      encodeStreamChainers.add(new CompressionStreamChainer(compression));
+      decodeStreamChainers.add(new DecompressionStreamChainer(compression));
+    }
+    return new Serializer<>(new RecordEncoderFactory(), new RecordDecoderFactory(),
+        encodeStreamChainers, decodeStreamChainers);
+  }
+
+  /**
+   * Encodes a record as its length followed by its bytes.
+   */
+  private static final class RecordEncoderFactory implements EncoderFactory<byte[]> {
+    @Override
+    public Encoder<byte[]> create(final OutputStream outputStream) {
+      final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+      return value -> {
+        dataOutputStream.writeInt(value.length);
+        dataOutputStream.write(value);
+      };
+    }
+  }
+
+  /**
+   * Decodes the records encoded by {@link RecordEncoderFactory}.
+   */
+  private static final class RecordDecoderFactory implements DecoderFactory<byte[]> {
+    @Override
+    public Decoder<byte[]> create(final InputStream inputStream) throws IOException {
+      final DataInputStream dataInputStream = new DataInputStream(inputStream);
+      return () -> {
+        final byte[] value = new byte[dataInputStream.readInt()];
+        dataInputStream.readFully(value);
+        return value;
+      };
+    }
+  }
+}
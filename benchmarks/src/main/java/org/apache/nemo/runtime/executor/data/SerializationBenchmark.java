@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import io.netty.buffer.ByteBufInputStream;
+import org.apache.nemo.common.ir.edge.executionproperty.CompressionProperty;
+import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of records into a {@link SerializedPartition}, and their deserialization by
+ * {@link DataUtil.InputStreamIterator}, with each compression of {@link CompressionProperty}.
+ * An operation writes or reads {@link BenchmarkRecords#BYTES_PER_OPERATION} bytes of records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SerializationBenchmark {
+  @Param({"16", "128", "1024"})
+  private int recordSize;
+
+  @Param({"None", "LZ4", "Gzip"})
+  private CompressionProperty.Value compression;
+
+  private List<byte[]> records;
+  private Serializer<byte[], byte[]> serializer;
+  private DirectBufferPool bufferPool;
+  private SerializedPartition<Integer> serializedPartition;
+
+  /**
+   * Generates the records, and a partition of them to read.
+   * @throws InjectionException if failed to create the buffer pool.
+   * @throws IOException if failed to write the partition.
+   */
+  @Setup
+  public final void setUp() throws InjectionException, IOException {
+    records = BenchmarkRecords.generate(BenchmarkRecords.numRecordsPerOperation(recordSize), recordSize, 0);
+    serializer = BenchmarkRecords.serializer(compression);
+    bufferPool = Tang.Factory.getTang().newInjector().getInstance(DirectBufferPool.class);
+    serializedPartition = writePartition();
+  }
+
+  /**
+   * Releases the partition to read.
+   */
+  @TearDown
+  public final void tearDown() {
+    serializedPartition.release();
+  }
+
+  /**
+   * Writes the records into a partition, and commits it.
+   * @return the size of the partition.
+   * @throws IOException if failed to write the partition.
+   */
+  @Benchmark
+  public final int write() throws IOException {
+    final SerializedPartition<Integer> partition = writePartition();
+    final int length = partition.getLength();
+    partition.release();
+    return length;
+  }
+
+  /**
+   * Reads the records from a partition.
+   * @param blackhole consumes the records.
+   * @throws IOException if failed to read the partition.
+   */
+  @Benchmark
+  public final void read(final Blackhole blackhole) throws IOException {
+    final InputStream inputStream = new ByteBufInputStream(serializedPartition.getDataBuffer().duplicate());
+    final DataUtil.InputStreamIterator<byte[]> iterator =
+        new DataUtil.InputStreamIterator<>(Collections.singletonList(inputStream).iterator(), serializer);
+    while (iterator.hasNext()) {
+      blackhole.consume(iterator.next());
+    }
+  }
+
+  /**
+   * @return a committed partition of the records.
+   * @throws IOException if failed to write the partition.
+   */
+  private SerializedPartition<Integer> writePartition() throws IOException {
+    final SerializedPartition<Integer> partition = new SerializedPartition<>(0, serializer, bufferPool);
+    for (final byte[] record : records) {
+      partition.write(record);
+    }
+    partition.commit();
+    return partition;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data.block;
+
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.ir.edge.executionproperty.CompressionProperty;
+import org.apache.nemo.runtime.executor.data.BenchmarkRecords;
+import org.apache.nemo.runtime.executor.data.DataUtil;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
+import org.apache.nemo.runtime.executor.data.metadata.LocalFileMetadata;
+import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reads of a committed {@link FileBlock}, which holds {@link BenchmarkRecords#BYTES_PER_OPERATION}
+ * bytes of records spread over its partitions. The partitions are either materialized by
+ * {@link FileBlock#readPartitions}, or streamed by {@link FileBlock#readElements}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FileBlockBenchmark {
+  @Param({"16", "1024"})
+  private int recordSize;
+
+  @Param({"1", "16", "256"})
+  private int numPartitions;
+
+  private File directory;
+  private FileBlock<Integer> block;
+
+  /**
+   * Writes and commits the block.
+   * @throws InjectionException if failed to create the buffer pool.
+   * @throws IOException if failed to create the directory of the block.
+   */
+  @Setup
+  public final void setUp() throws InjectionException, IOException {
+    directory = Files.createTempDirectory("nemo-benchmark").toFile();
+    final DirectBufferPool bufferPool = Tang.Factory.getTang().newInjector().getInstance(DirectBufferPool.class);
+    block = new FileBlock<>("block", BenchmarkRecords.serializer(CompressionProperty.Value.None), bufferPool,
+        new File(directory, "block").getPath(), new LocalFileMetadata<>());
+    final List<byte[]> records =
+        BenchmarkRecords.generate(BenchmarkRecords.numRecordsPerOperation(recordSize), recordSize, 0);
+    for (int i = 0; i < records.size(); i++) {
+      block.write(i % numPartitions, records.get(i));
+    }
+    block.commit();
+  }
+
+  /**
+   * Deletes the block.
+   * @throws IOException if failed to delete the file of the block.
+   */
+  @TearDown
+  public final void tearDown() throws IOException {
+    block.deleteFile();
+    Files.deleteIfExists(directory.toPath());
+  }
+
+  /**
+   * Reads all partitions, decoding each of them into a list.
+   * @param blackhole consumes the records.
+   * @throws IOException if failed to decode a partition.
+   */
+  @Benchmark
+  public final void readPartitions(final Blackhole blackhole) throws IOException {
+    for (final NonSerializedPartition<Integer> partition : block.readPartitions(HashRange.all())) {
+      for (final Object record : partition.getData()) {
+        blackhole.consume(record);
+      }
+    }
+  }
+
+  /**
+   * Reads all partitions, decoding the records while iterating them.
+   * @param blackhole consumes the records.
+   */
+  @Benchmark
+  public final void readElements(final Blackhole blackhole) {
+    final DataUtil.IteratorWithNumBytes iterator = block.readElements(HashRange.all());
+    while (iterator.hasNext()) {
+      blackhole.consume(iterator.next());
+    }
+  }
+
+  /**
+   * Reads the first half of the key range, as a reducer of a skewed shuffle would.
+   * @param blackhole consumes the records.
+   */
+  @Benchmark
+  public final void readElementsOfKeyRange(final Blackhole blackhole) {
+    final DataUtil.IteratorWithNumBytes iterator =
+        block.readElements(HashRange.of(0, Math.max(1, numPartitions / 2), false));
+    while (iterator.hasNext()) {
+      blackhole.consume(iterator.next());
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data.partitioner;
+
+import org.apache.nemo.common.KeyExtractor;
+import org.apache.nemo.common.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the partitioning of key-value elements by {@link HashPartitioner} and {@link DataSkewHashPartitioner}.
+ * The score is the number of elements partitioned per microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PartitionerBenchmark {
+  private static final int NUM_ELEMENTS = 4096;
+  private static final int HASH_RANGE_MULTIPLIER = 10;
+
+  @Param({"10", "100", "1000"})
+  private int numPartitions;
+
+  @Param({"Long", "String"})
+  private String keyType;
+
+  private Object[] elements;
+  private HashPartitioner hashPartitioner;
+  private DataSkewHashPartitioner dataSkewHashPartitioner;
+
+  /**
+   * Generates the elements and the partitioners.
+   */
+  @Setup
+  public final void setUp() {
+    final Random random = new Random(0);
+    elements = new Object[NUM_ELEMENTS];
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      final long key = random.nextLong();
+      elements[i] = Pair.of("Long".equals(keyType) ? key : Long.toHexString(key), i);
+    }
+    final KeyExtractor keyExtractor = element -> ((Pair) element).left();
+    hashPartitioner = new HashPartitioner(numPartitions, keyExtractor);
+    dataSkewHashPartitioner = new DataSkewHashPartitioner(HASH_RANGE_MULTIPLIER, numPartitions, keyExtractor);
+  }
+
+  /**
+   * @param blackhole consumes the partitions.
+   */
+  @Benchmark
+  @OperationsPerInvocation(NUM_ELEMENTS)
+  public final void hashPartition(final Blackhole blackhole) {
+    for (final Object element : elements) {
+      blackhole.consume(hashPartitioner.partition(element));
+    }
+  }
+
+  /**
+   * @param blackhole consumes the partitions.
+   */
+  @Benchmark
+  @OperationsPerInvocation(NUM_ELEMENTS)
+  public final void dataSkewHashPartition(final Blackhole blackhole) {
+    for (final Object element : elements) {
+      blackhole.consume(dataSkewHashPartitioner.partition(element));
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.task;
+
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.dag.DAGBuilder;
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.ir.edge.executionproperty.AdditionalOutputTagProperty;
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.InMemorySourceVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.message.MessageContext;
+import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.apache.nemo.runtime.common.message.MessageListener;
+import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.nemo.runtime.common.message.local.LocalMessageDispatcher;
+import org.apache.nemo.runtime.common.message.local.LocalMessageEnvironment;
+import org.apache.nemo.runtime.common.plan.RuntimeEdge;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.executor.MetricManagerWorker;
+import org.apache.nemo.runtime.executor.TaskStateManager;
+import org.apache.reef.tang.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the per-element dispatch of {@link TaskExecutor} through the routing tables of the vertex harnesses,
+ * for a task whose operator fans out to a number of main children and additional output tags.
+ * The vertices do nothing but relaying the elements, so the score is dominated by the routing.
+ * Run with "-prof gc" to see the allocation per element, which should stay flat as the fan-out grows.
+ * A sampling interval of 0 disables the latency sampling of the vertex metrics, which shows its overhead
+ * against the default interval.
+ * The score is the number of source elements per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TaskExecutorBenchmark {
+  private static final int NUM_ELEMENTS = 1 << 16;
+  private static final String EXECUTOR_ID = "executor";
+
+  @Param({"1", "4"})
+  private int numMainChildren;
+
+  @Param({"0", "2"})
+  private int numTags;
+
+  @Param({"1", "64"})
+  private int batchSize;
+
+  @Param({"0", "1024"})
+  private int samplingInterval;
+
+  private MessageEnvironment masterMessageEnvironment;
+  private PersistentConnectionToMasterMap persistentConnectionToMasterMap;
+  private MetricManagerWorker metricManagerWorker;
+  private IRVertex sourceVertex;
+  private Readable sourceReadable;
+  private DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag;
+  private int stageIndex;
+
+  /**
+   * Sets up the connections to a local master which ignores the messages, and the DAG of the task.
+   * @throws Exception if failed to set up.
+   */
+  @Setup
+  public final void setUp() throws Exception {
+    final Injector dispatcherInjector = LocalMessageDispatcher.getInjector();
+    masterMessageEnvironment = LocalMessageEnvironment.forkInjector(dispatcherInjector,
+        MessageEnvironment.MASTER_COMMUNICATION_ID).getInstance(MessageEnvironment.class);
+    masterMessageEnvironment.setupListener(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID,
+        new MessageListener<Object>() {
+          @Override
+          public void onMessage(final Object message) {
+            // Ignore the task states and the metrics.
+          }
+
+          @Override
+          public void onMessageWithContext(final Object message, final MessageContext messageContext) {
+            // Ignore the task states and the metrics.
+          }
+        });
+    final Injector executorInjector = LocalMessageEnvironment.forkInjector(dispatcherInjector, EXECUTOR_ID);
+    persistentConnectionToMasterMap = executorInjector.getInstance(PersistentConnectionToMasterMap.class);
+    metricManagerWorker = executorInjector.getInstance(MetricManagerWorker.class);
+
+    final List<Integer> elements = IntStream.range(0, NUM_ELEMENTS).boxed().collect(Collectors.toList());
+    final InMemorySourceVertex<Integer> source = new InMemorySourceVertex<>(elements);
+    sourceVertex = source;
+    sourceReadable = source.getReadables(1).get(0);
+
+    final IRVertex routerVertex = new OperatorVertex(new RoutingTransform(numTags));
+    final DAGBuilder<IRVertex, RuntimeEdge<IRVertex>> builder = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+        .addVertex(sourceVertex)
+        .addVertex(routerVertex)
+        .connectVertices(createEdge(sourceVertex, routerVertex));
+    for (int i = 0; i < numMainChildren; i++) {
+      final IRVertex child = new OperatorVertex(new RelayTransform());
+      builder.addVertex(child).connectVertices(createEdge(routerVertex, child));
+    }
+    for (int tag = 0; tag < numTags; tag++) {
+      final IRVertex child = new OperatorVertex(new RelayTransform());
+      final RuntimeEdge<IRVertex> edge = createEdge(routerVertex, child);
+      edge.getExecutionProperties().put(AdditionalOutputTagProperty.of(String.valueOf(tag)));
+      builder.addVertex(child).connectVertices(edge);
+    }
+    taskDag = builder.buildWithoutSourceSinkCheck();
+    stageIndex = 0;
+  }
+
+  /**
+   * Stops the metric sender and the local master.
+   * @throws Exception if failed to close the message environment.
+   */
+  @TearDown
+  public final void tearDown() throws Exception {
+    metricManagerWorker.close();
+    masterMessageEnvironment.close();
+  }
+
+  /**
+   * Prepares and executes a task which reads all elements from the source.
+   * The preparation of the task is amortized over the elements.
+   */
+  @Benchmark
+  @OperationsPerInvocation(NUM_ELEMENTS)
+  public final void execute() {
+    final String taskId = RuntimeIdManager.generateTaskId(RuntimeIdManager.generateStageId(stageIndex++), 0, 0);
+    final Task task = new Task("plan", taskId, new ExecutionPropertyMap<>(taskId), new byte[0],
+        Collections.emptyList(), Collections.emptyList(),
+        Collections.singletonMap(sourceVertex.getId(), sourceReadable));
+    final TaskStateManager taskStateManager =
+        new TaskStateManager(task, EXECUTOR_ID, persistentConnectionToMasterMap, metricManagerWorker);
+    new TaskExecutor(task, taskDag, taskStateManager, null, null, metricManagerWorker,
+        persistentConnectionToMasterMap, batchSize, samplingInterval, System.getProperty("java.io.tmpdir")).execute();
+  }
+
+  /**
+   * @param src the source vertex.
+   * @param dst the destination vertex.
+   * @return an intra-task edge between the vertices.
+   */
+  private static RuntimeEdge<IRVertex> createEdge(final IRVertex src, final IRVertex dst) {
+    final String edgeId = src.getId() + "-" + dst.getId();
+    return new RuntimeEdge<>(edgeId, new ExecutionPropertyMap<EdgeExecutionProperty>(edgeId), src, dst);
+  }
+
+  /**
+   * Routes the elements to the main output and the additional output tags in a round-robin manner.
+   */
+  private static final class RoutingTransform implements Transform<Integer, Integer> {
+    private final int numTags;
+    private final List<String> tagVertices;
+    private OutputCollector<Integer> outputCollector;
+
+    /**
+     * Constructor.
+     * @param numTags the number of additional output tags.
+     */
+    RoutingTransform(final int numTags) {
+      this.numTags = numTags;
+      this.tagVertices = new ArrayList<>(numTags);
+    }
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Integer> collector) {
+      this.outputCollector = collector;
+      final Map<String, String> tagToVertex = context.getTagToAdditionalChildren();
+      tagVertices.clear();
+      for (int tag = 0; tag < numTags; tag++) {
+        tagVertices.add(tagToVertex.get(String.valueOf(tag)));
+      }
+    }
+
+    @Override
+    public void onData(final Integer element) {
+      final int route = element % (numTags + 1);
+      if (route == numTags) {
+        outputCollector.emit(element);
+      } else {
+        outputCollector.emit(tagVertices.get(route), element);
+      }
+    }
+
+    @Override
+    public void close() {
+      // Do nothing.
+    }
+  }
+
+  /**
+   * Emits the input elements as they are.
+   */
+  private static final class RelayTransform implements Transform<Integer, Integer> {
+    private OutputCollector<Integer> outputCollector;
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Integer> collector) {
+      this.outputCollector = collector;
+    }
+
+    @Override
+    public void onData(final Integer element) {
+      outputCollector.emit(element);
+    }
+
+    @Override
+    public void close() {
+      // Do nothing.
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.scheduler;
+
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
+import org.apache.nemo.runtime.master.resource.ResourceSpecification;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the task dispatcher finds the executors of a container type with a free slot in
+ * {@link ExecutorRegistry}: from its indexes, or by testing each executor.
+ * Half of the executors are of the looked-up container type, and the registry is updated for each lookup,
+ * as the dispatcher does when it books a slot. The score is the number of lookups per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExecutorRegistryBenchmark {
+  private static final String CONTAINER_TYPE = "Compute";
+  private static final int EXECUTORS_PER_NODE = 10;
+
+  @Param({"10", "100", "1000"})
+  private int numExecutors;
+
+  private ExecutorRegistry executorRegistry;
+  private int nextExecutorIndex = 0;
+
+  /**
+   * Registers the executors.
+   * @throws InjectionException if failed to create the registry.
+   */
+  @Setup
+  public final void setUp() throws InjectionException {
+    executorRegistry = Tang.Factory.getTang().newInjector().getInstance(ExecutorRegistry.class);
+    for (int i = 0; i < numExecutors; i++) {
+      final String containerType = i % 2 == 0 ? CONTAINER_TYPE : "Transient";
+      executorRegistry.registerExecutor(new ExecutorRepresenter("executor" + i,
+          new ResourceSpecification(containerType, 1, 1024), null, null, null, "node" + i / EXECUTORS_PER_NODE));
+    }
+  }
+
+  /**
+   * Looks up the executors from the indexes.
+   * @param blackhole consumes the executors.
+   */
+  @Benchmark
+  public final void lookUpIndexes(final Blackhole blackhole) {
+    updateExecutor();
+    executorRegistry.viewExecutors(executors -> {
+      final Set<ExecutorRepresenter> candidates =
+          new HashSet<>(executorRegistry.getRunningExecutorsOfContainerType(CONTAINER_TYPE));
+      candidates.retainAll(executorRegistry.getRunningExecutorsWithFreeSlots());
+      blackhole.consume(candidates);
+    });
+  }
+
+  /**
+   * Tests each executor.
+   * @param blackhole consumes the executors.
+   */
+  @Benchmark
+  public final void testEachExecutor(final Blackhole blackhole) {
+    updateExecutor();
+    executorRegistry.viewExecutors(executors -> {
+      final Set<ExecutorRepresenter> candidates = new HashSet<>();
+      for (final ExecutorRepresenter executor : executors) {
+        if (CONTAINER_TYPE.equals(executor.getContainerType())
+            && executor.getNumOfComplyingRunningTasks() < executor.getExecutorCapacity()) {
+          candidates.add(executor);
+        }
+      }
+      blackhole.consume(candidates);
+    });
+  }
+
+  /**
+   * Updates an executor, which refreshes its indexes.
+   */
+  private void updateExecutor() {
+    executorRegistry.updateExecutor("executor" + nextExecutorIndex, Pair::of);
+    nextExecutorIndex = (nextExecutorIndex + 1) % numExecutors;
+  }
+}
@@ -328,7 +328,23 @@ public final class JobLauncher {
     cl.registerShortNameOfClass(JobConf.PartitionTransportServerNumListeningThreads.class);
     cl.registerShortNameOfClass(JobConf.PartitionTransportServerNumWorkingThreads.class);
     cl.registerShortNameOfClass(JobConf.PartitionTransportClientNumThreads.class);
+    cl.registerShortNameOfClass(JobConf.PartitionTransportFrameSize.class);
+    cl.registerShortNameOfClass(JobConf.PartitionTransportTcpNoDelay.class);
+    cl.registerShortNameOfClass(JobConf.PartitionTransportSocketBufferSize.class);
+    cl.registerShortNameOfClass(JobConf.PartitionTransportWriteBufferHighWaterMark.class);
+    cl.registerShortNameOfClass(JobConf.PartitionTransportWriteBufferLowWaterMark.class);
+    cl.registerShortNameOfClass(JobConf.PartitionTransportServerReusePort.class);
     cl.registerShortNameOfClass(JobConf.MaxNumDownloadsForARuntimeEdge.class);
+    cl.registerShortNameOfClass(JobConf.MaxBytesInFlightForDownloads.class);
+    cl.registerShortNameOfClass(JobConf.ReadAheadDecodeThreads.class);
+    cl.registerShortNameOfClass(JobConf.ReadAheadBatchSize.class);
+    cl.registerShortNameOfClass(JobConf.ReadAheadMaxBatchesPerTask.class);
+    cl.registerShortNameOfClass(JobConf.OffHeapCapacityMb.class);
+    cl.registerShortNameOfClass(JobConf.MemoryStoreCapacityMb.class);
+    cl.registerShortNameOfClass(JobConf.TaskBatchSize.class);
+    cl.registerShortNameOfClass(JobConf.TaskMetricSamplingInterval.class);
+    cl.registerShortNameOfClass(JobConf.NumRetainedJobMetrics.class);
+    cl.registerShortNameOfClass(JobConf.MetricDumpPath.class);
     cl.processCommandLine(args);
     return confBuilder.build();
   }
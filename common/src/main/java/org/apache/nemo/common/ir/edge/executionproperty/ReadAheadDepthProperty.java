@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.common.ir.edge.executionproperty;
+
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+
+/**
+ * ReadAheadDepth ExecutionProperty.
+ * The number of decoded batches to buffer ahead of the consumption, for each block read through this edge.
+ * The read-ahead decoding is disabled when this property is absent or not positive.
+ */
+public final class ReadAheadDepthProperty extends EdgeExecutionProperty<Integer> {
+  /**
+   * Constructor.
+   *
+   * @param value value of the execution property.
+   */
+  private ReadAheadDepthProperty(final Integer value) {
+    super(value);
+  }
+
+  /**
+   * Static method exposing the constructor.
+   *
+   * @param value value of the new execution property.
+   * @return the newly created execution property.
+   */
+  public static ReadAheadDepthProperty of(final Integer value) {
+    return new ReadAheadDepthProperty(value);
+  }
+}
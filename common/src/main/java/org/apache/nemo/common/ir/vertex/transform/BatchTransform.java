@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.common.ir.vertex.transform;
+
+import java.util.List;
+
+/**
+ * A {@link Transform} which can process a batch of data elements at once.
+ * When the runtime executes tasks in the batch mode, the elements are handed to this transform in batches,
+ * instead of one by one.
+ * @param <I> input type.
+ * @param <O> output type.
+ */
+public interface BatchTransform<I, O> extends Transform<I, O> {
+  /**
+   * On a batch of data received.
+   * The result must be the same with calling {@link #onData(Object)} for each element in order.
+   * The batch is reused by the runtime, so it must not be retained after this call.
+   * @param elements data received.
+   */
+  void onBatch(List<I> elements);
+}
@@ -17,12 +17,14 @@ package org.apache.nemo.common.ir.vertex.transform;
 
 import org.apache.nemo.common.ir.OutputCollector;
 
+import java.util.List;
+
 /**
  * A {@link Transform} relays input data from upstream vertex to downstream vertex promptly.
  * This transform can be used for merging input data into the {@link OutputCollector}.
  * @param <T> input/output type.
  */
-public final class RelayTransform<T> implements Transform<T, T> {
+public final class RelayTransform<T> implements BatchTransform<T, T> {
   private OutputCollector<T> outputCollector;
 
   /**
@@ -42,6 +44,13 @@ public final class RelayTransform<T> implements Transform<T, T> {
     outputCollector.emit(element);
   }
 
+  @Override
+  public void onBatch(final List<T> elements) {
+    for (final T element : elements) {
+      outputCollector.emit(element);
+    }
+  }
+
   @Override
   public void close() {
     // Do nothing.
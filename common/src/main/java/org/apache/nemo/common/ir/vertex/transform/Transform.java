@@ -67,5 +67,11 @@ public interface Transform<I, O> extends Serializable {
      * @return the serialized data.
      */
     Optional<String> getSerializedData();
+
+    /**
+     * @return the directory on the local disk of the executor, where the transform can write temporary files.
+     *         (empty if the executor does not provide one)
+     */
+    Optional<String> getLocalDirectory();
   }
 }
@@ -15,10 +15,25 @@
  */
 package org.apache.nemo.compiler.frontend.beam;
 
+import org.apache.beam.sdk.options.Default;
+import org.apache.beam.sdk.options.Description;
 import org.apache.beam.sdk.options.PipelineOptions;
 
 /**
  * NemoPipelineOptions.
  */
 public interface NemoPipelineOptions extends PipelineOptions {
+  @Description("The size in megabytes of the values that a GroupByKey buffers in memory per task before spilling"
+      + " them to local files, estimated by their encoded size. Spilling is disabled if not positive.")
+  @Default.Long(256)
+  long getGroupByKeySpillThresholdMb();
+
+  void setGroupByKeySpillThresholdMb(long value);
+
+  @Description("The number of keys that a partial aggregation before shuffle holds in memory per task."
+      + " The partial aggregates are emitted whenever the number is reached.")
+  @Default.Long(100000)
+  long getPartialAggregationMaxKeys();
+
+  void setPartialAggregationMaxKeys(long value);
 }
@@ -163,7 +163,8 @@ public final class PipelineTranslator
   private static void groupByKeyTranslator(final TranslationContext ctx,
                                            final PrimitiveTransformVertex transformVertex,
                                            final GroupByKey<?, ?> transform) {
-    final IRVertex vertex = new OperatorVertex(new GroupByKeyTransform());
+    final IRVertex vertex = new OperatorVertex(createGroupByKeyTransform(ctx,
+        getCoder(transformVertex.getNode().getInputs().values().iterator().next(), ctx.pipeline)));
     ctx.addVertex(vertex);
     transformVertex.getNode().getInputs().values().forEach(input -> ctx.addEdgeTo(vertex, input));
     transformVertex.getNode().getOutputs().values().forEach(output -> ctx.registerMainOutputFrom(vertex, output));
@@ -242,8 +243,11 @@ public final class PipelineTranslator
       .map(kvCoder -> kvCoder.getValueCoder().getEncodedTypeDescriptor()) // We're interested in the 'Value' of KV
       .anyMatch(valueTypeDescriptor -> TypeDescriptor.of(Row.class).equals(valueTypeDescriptor));
     if (handlesBeamRow) {
-      transformVertex.getDAG().topologicalDo(ctx::translate);
-      return; // return early and give up optimization - TODO #209: Enable Local Combiner for BeamSQL
+      // The combined Rows cannot be combined again, so we combine the accumulators instead.
+      if (!partialAggregationTranslator(ctx, transformVertex, transform)) {
+        transformVertex.getDAG().topologicalDo(ctx::translate);
+      }
+      return; // return early and skip the local combiner optimization below
     }
 
     // Local combiner optimization
@@ -259,7 +263,8 @@ public final class PipelineTranslator
       // Attempt to translate the CompositeTransform again.
       // Add GroupByKey, which is the first transform in the given CompositeTransform.
       // Make sure it consumes the output from the last vertex in OneToOneEdge-translated hierarchy.
-      final IRVertex groupByKeyIRVertex = new OperatorVertex(new GroupByKeyTransform());
+      final IRVertex groupByKeyIRVertex = new OperatorVertex(createGroupByKeyTransform(ctx,
+          getCoder(last.getNode().getOutputs().values().iterator().next(), ctx.pipeline)));
       ctx.addVertex(groupByKeyIRVertex);
       last.getNode().getOutputs().values().forEach(outputFromCombiner
           -> ctx.addEdgeTo(groupByKeyIRVertex, outputFromCombiner));
@@ -273,6 +278,76 @@ public final class PipelineTranslator
     }
   }
 
+  /**
+   * Translates {@link Combine.PerKey} into partial aggregation, shuffle, and final aggregation.
+   * Unlike the local combiner optimization, the accumulators of the {@link Combine.CombineFn} are shuffled,
+   * so that this works even when the output of the combine function cannot be combined again. (e.g., BeamSQL Rows)
+   *
+   * @param ctx provides translation context
+   * @param transformVertex the given CompositeTransform to translate
+   * @param transform transform which can be obtained from {@code transformVertex}
+   * @return false if the transform cannot be translated in this way.
+   */
+  private static boolean partialAggregationTranslator(final TranslationContext ctx,
+                                                      final CompositeTransformVertex transformVertex,
+                                                      final PTransform<?, ?> transform) {
+    if (!(transform instanceof Combine.PerKey)) {
+      return false;
+    }
+    final Combine.PerKey perKey = (Combine.PerKey) transform;
+    if (!(perKey.getFn() instanceof Combine.CombineFn) || !perKey.getSideInputs().isEmpty()
+        || transformVertex.getNode().getInputs().size() != 1) {
+      return false;
+    }
+    final Combine.CombineFn combineFn = (Combine.CombineFn) perKey.getFn();
+    final PValue input = transformVertex.getNode().getInputs().values().iterator().next();
+    final Coder<?> inputCoder = getCoder(input, ctx.pipeline);
+    if (!(inputCoder instanceof KvCoder)) {
+      return false;
+    }
+    final Coder keyCoder = ((KvCoder) inputCoder).getKeyCoder();
+    final Coder accumulatorCoder;
+    try {
+      // Use the registry of the pipeline, which includes the coders registered by the user.
+      accumulatorCoder = combineFn.getAccumulatorCoder(input.getPipeline().getCoderRegistry(),
+          ((KvCoder) inputCoder).getValueCoder());
+    } catch (final CannotProvideCoderException e) {
+      LOG.warn("Cannot provide the accumulator coder of {}, skipping partial aggregation", combineFn, e);
+      return false;
+    }
+    final Coder partialAggregateCoder = KvCoder.of(keyCoder, accumulatorCoder);
+    final long maxKeys = ctx.pipelineOptions.as(NemoPipelineOptions.class).getPartialAggregationMaxKeys();
+
+    final IRVertex partialVertex = new OperatorVertex(new CombineFnPartialTransform(combineFn, maxKeys));
+    ctx.addVertex(partialVertex);
+    ctx.addEdgeTo(partialVertex, input);
+
+    final IRVertex groupByKeyVertex = new OperatorVertex(createGroupByKeyTransform(ctx, partialAggregateCoder));
+    ctx.addVertex(groupByKeyVertex);
+    ctx.addEdge(partialVertex, groupByKeyVertex, partialAggregateCoder);
+
+    final IRVertex finalVertex = new OperatorVertex(new CombineFnFinalTransform(combineFn));
+    ctx.addVertex(finalVertex);
+    ctx.addEdge(groupByKeyVertex, finalVertex, KvCoder.of(keyCoder, IterableCoder.of(accumulatorCoder)));
+    transformVertex.getNode().getOutputs().values()
+        .forEach(output -> ctx.registerMainOutputFrom(finalVertex, output));
+    return true;
+  }
+
+  /**
+   * Creates a {@link GroupByKeyTransform}, which spills using the coder of its input.
+   *
+   * @param ctx        provides translation context
+   * @param inputCoder the coder of the input of the GroupByKey
+   * @return the transform
+   */
+  private static GroupByKeyTransform createGroupByKeyTransform(final TranslationContext ctx,
+                                                               final Coder<?> inputCoder) {
+    final long spillThresholdMb =
+        ctx.pipelineOptions.as(NemoPipelineOptions.class).getGroupByKeySpillThresholdMb();
+    return new GroupByKeyTransform(inputCoder, spillThresholdMb * 1024 * 1024);
+  }
+
   /**
    * Pushes the loop vertex to the stack before translating the inner DAG, and pops it after the translation.
    *
@@ -484,12 +559,6 @@ public final class PipelineTranslator
               + "and the corresponding PTransform was not found", input));
         }
       }
-      final CommunicationPatternProperty.Value communicationPattern = communicationPatternSelector.apply(src, dst);
-      if (communicationPattern == null) {
-        throw new RuntimeException(String.format("%s have failed to determine communication pattern "
-            + "for an edge from %s to %s", communicationPatternSelector, src, dst));
-      }
-      final IREdge edge = new IREdge(communicationPattern, src, dst);
       final Coder<?> coder;
       if (input instanceof PCollection) {
         coder = ((PCollection) input).getCoder();
@@ -502,16 +571,7 @@ public final class PipelineTranslator
         throw new RuntimeException(String.format("While adding an edge from %s, to %s, coder for PValue %s cannot "
             + "be determined", src, dst, input));
       }
-
-      edge.setProperty(KeyExtractorProperty.of(new BeamKeyExtractor()));
-
-      if (coder instanceof KvCoder) {
-        Coder keyCoder = ((KvCoder) coder).getKeyCoder();
-        edge.setProperty(KeyEncoderProperty.of(new BeamEncoderFactory(keyCoder)));
-        edge.setProperty(KeyDecoderProperty.of(new BeamDecoderFactory(keyCoder)));
-      }
-      edge.setProperty(EncoderProperty.of(new BeamEncoderFactory<>(coder)));
-      edge.setProperty(DecoderProperty.of(new BeamDecoderFactory<>(coder)));
+      final IREdge edge = createEdge(src, dst, coder);
 
       if (pValueToTag.containsKey(input)) {
         edge.setProperty(AdditionalOutputTagProperty.of(pValueToTag.get(input).getId()));
@@ -524,6 +584,45 @@ public final class PipelineTranslator
       builder.connectVertices(edge);
     }
 
+    /**
+     * Add IR edge, which does not correspond to any {@link PValue}, to the builder.
+     *
+     * @param src the source IR vertex.
+     * @param dst the destination IR vertex.
+     * @param coder the coder of the elements on the edge.
+     */
+    private void addEdge(final IRVertex src, final IRVertex dst, final Coder<?> coder) {
+      builder.connectVertices(createEdge(src, dst, coder));
+    }
+
+    /**
+     * Create IR edge with the communication pattern and the coders.
+     *
+     * @param src the source IR vertex.
+     * @param dst the destination IR vertex.
+     * @param coder the coder of the elements on the edge.
+     * @return the IR edge.
+     */
+    private IREdge createEdge(final IRVertex src, final IRVertex dst, final Coder<?> coder) {
+      final CommunicationPatternProperty.Value communicationPattern = communicationPatternSelector.apply(src, dst);
+      if (communicationPattern == null) {
+        throw new RuntimeException(String.format("%s have failed to determine communication pattern "
+            + "for an edge from %s to %s", communicationPatternSelector, src, dst));
+      }
+      final IREdge edge = new IREdge(communicationPattern, src, dst);
+
+      edge.setProperty(KeyExtractorProperty.of(new BeamKeyExtractor()));
+
+      if (coder instanceof KvCoder) {
+        Coder keyCoder = ((KvCoder) coder).getKeyCoder();
+        edge.setProperty(KeyEncoderProperty.of(new BeamEncoderFactory(keyCoder)));
+        edge.setProperty(KeyDecoderProperty.of(new BeamDecoderFactory(keyCoder)));
+      }
+      edge.setProperty(EncoderProperty.of(new BeamEncoderFactory<>(coder)));
+      edge.setProperty(DecoderProperty.of(new BeamDecoderFactory<>(coder)));
+      return edge;
+    }
+
     /**
      * Registers a {@link PValue} as a main output from the specified {@link IRVertex}.
      *
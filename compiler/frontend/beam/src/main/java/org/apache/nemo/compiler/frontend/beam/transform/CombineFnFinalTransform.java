@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+
+/**
+ * Merges the partial aggregates of each key emitted by {@link CombineFnPartialTransform},
+ * and extracts the final output with a {@link Combine.CombineFn}.
+ * The input is grouped by key, so all of the partial aggregates of a key arrive in a single element,
+ * and no state is kept across elements.
+ *
+ * @param <K> key type.
+ * @param <A> accumulator type.
+ * @param <O> output value type.
+ */
+public final class CombineFnFinalTransform<K, A, O> implements Transform<KV<K, Iterable<A>>, KV<K, O>> {
+  private final Combine.CombineFn<?, A, O> combineFn;
+  private OutputCollector<KV<K, O>> outputCollector;
+
+  /**
+   * Constructor.
+   *
+   * @param combineFn combine function.
+   */
+  public CombineFnFinalTransform(final Combine.CombineFn<?, A, O> combineFn) {
+    this.combineFn = combineFn;
+  }
+
+  @Override
+  public void prepare(final Context context, final OutputCollector<KV<K, O>> oc) {
+    this.outputCollector = oc;
+  }
+
+  @Override
+  public void onData(final KV<K, Iterable<A>> element) {
+    final A merged = combineFn.mergeAccumulators(element.getValue());
+    outputCollector.emit(KV.of(element.getKey(), combineFn.extractOutput(merged)));
+  }
+
+  @Override
+  public void close() {
+    // Nothing to emit or release: every key has been emitted in onData.
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("CombineFnFinalTransform:");
+    sb.append(super.toString());
+    return sb.toString();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.transform.BatchTransform;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partially aggregates Beam KVs with a {@link Combine.CombineFn} before shuffling them.
+ * The accumulators are kept in a hash table bounded by the given number of keys,
+ * which is flushed as partial aggregates when it is full and when this transform is closed.
+ * The partial aggregates are merged by {@link CombineFnFinalTransform} after shuffling.
+ *
+ * @param <K> key type.
+ * @param <I> input value type.
+ * @param <A> accumulator type.
+ */
+public final class CombineFnPartialTransform<K, I, A> implements BatchTransform<KV<K, I>, KV<K, A>> {
+  private final Combine.CombineFn<I, A, ?> combineFn;
+  private final long maxKeys;
+  private final Map<K, A> keyToAccumulator;
+  private OutputCollector<KV<K, A>> outputCollector;
+
+  /**
+   * Constructor.
+   *
+   * @param combineFn combine function.
+   * @param maxKeys   the maximum number of keys to hold the accumulators of.
+   */
+  public CombineFnPartialTransform(final Combine.CombineFn<I, A, ?> combineFn, final long maxKeys) {
+    this.combineFn = combineFn;
+    this.maxKeys = Math.max(1, maxKeys);
+    this.keyToAccumulator = new HashMap<>();
+  }
+
+  @Override
+  public void prepare(final Context context, final OutputCollector<KV<K, A>> oc) {
+    this.outputCollector = oc;
+  }
+
+  @Override
+  public void onData(final KV<K, I> element) {
+    A accumulator = keyToAccumulator.get(element.getKey());
+    if (accumulator == null) {
+      if (keyToAccumulator.size() >= maxKeys) {
+        flush();
+      }
+      accumulator = combineFn.createAccumulator();
+    }
+    keyToAccumulator.put(element.getKey(), combineFn.addInput(accumulator, element.getValue()));
+  }
+
+  @Override
+  public void onBatch(final List<KV<K, I>> elements) {
+    for (final KV<K, I> element : elements) {
+      onData(element);
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+  }
+
+  /**
+   * Emits and clears all of the accumulators.
+   */
+  private void flush() {
+    keyToAccumulator.forEach((key, accumulator) -> outputCollector.emit(KV.of(key, combineFn.compact(accumulator))));
+    keyToAccumulator.clear();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("CombineFnPartialTransform:");
+    sb.append(super.toString());
+    return sb.toString();
+  }
+}
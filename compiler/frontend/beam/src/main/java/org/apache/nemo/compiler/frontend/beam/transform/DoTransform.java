@@ -18,7 +18,7 @@ package org.apache.nemo.compiler.frontend.beam.transform;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.beam.sdk.state.ValueState;
 import org.apache.nemo.common.ir.OutputCollector;
-import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.ir.vertex.transform.BatchTransform;
 import org.apache.nemo.runtime.executor.datatransfer.OutputCollectorImpl;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.state.State;
@@ -48,7 +48,7 @@ import java.util.Map;
  * @param <I> input type.
  * @param <O> output type.
  */
-public final class DoTransform<I, O> implements Transform<I, O> {
+public final class DoTransform<I, O> implements BatchTransform<I, O> {
   private final DoFn doFn;
   private final ObjectMapper mapper;
   private final String serializedOptions;
@@ -91,6 +91,14 @@ public final class DoTransform<I, O> implements Transform<I, O> {
     invoker.invokeProcessElement(processContext);
   }
 
+  @Override
+  public void onBatch(final List<I> elements) {
+    for (final I element : elements) {
+      processContext.setElement(element);
+      invoker.invokeProcessElement(processContext);
+    }
+  }
+
   @Override
   public void close() {
     invoker.invokeFinishBundle(finishBundleContext);
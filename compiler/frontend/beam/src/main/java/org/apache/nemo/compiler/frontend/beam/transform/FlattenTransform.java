@@ -16,15 +16,16 @@
 package org.apache.nemo.compiler.frontend.beam.transform;
 
 import org.apache.nemo.common.ir.OutputCollector;
-import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.ir.vertex.transform.BatchTransform;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Flatten transform implementation.
  * @param <T> input/output type.
  */
-public final class FlattenTransform<T> implements Transform<T, T> {
+public final class FlattenTransform<T> implements BatchTransform<T, T> {
   private final ArrayList<T> collectedElements;
   private OutputCollector<T> outputCollector;
 
@@ -45,6 +46,11 @@ public final class FlattenTransform<T> implements Transform<T, T> {
     collectedElements.add(element);
   }
 
+  @Override
+  public void onBatch(final List<T> elements) {
+    collectedElements.addAll(elements);
+  }
+
   @Override
   public void close() {
     collectedElements.forEach(outputCollector::emit);
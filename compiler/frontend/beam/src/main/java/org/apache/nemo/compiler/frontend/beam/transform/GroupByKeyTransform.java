@@ -15,50 +15,370 @@
  */
 package org.apache.nemo.compiler.frontend.beam.transform;
 
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.nemo.common.ir.OutputCollector;
-import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.ir.vertex.transform.BatchTransform;
 import org.apache.beam.sdk.values.KV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
 import java.util.*;
 
 /**
  * Group Beam KVs.
+ * The values are buffered in memory, until the estimated size of the buffered values exceeds the given threshold.
+ * Then the buffered values are sorted by their encoded keys and spilled to a local file as a run.
+ * When closed, the runs are merged and the values are emitted for one key at a time.
+ * Note that the keys are compared by their encoded forms when spilling is enabled,
+ * as in Beam which requires deterministic key coders for grouping.
+ * The values of a single key are still collected in memory before they are emitted,
+ * so spilling bounds the memory used by many keys, but not by a single hot key.
+ *
  * @param <I> input type.
  */
-public final class GroupByKeyTransform<I> implements Transform<I, KV<Object, List>> {
+public final class GroupByKeyTransform<I> implements BatchTransform<I, KV<Object, List>> {
   private static final Logger LOG = LoggerFactory.getLogger(GroupByKeyTransform.class.getName());
+  private static final int FILE_BUFFER_SIZE = 64 * 1024;
+  // One in this number of KVs is encoded to estimate the size of the buffered values.
+  private static final int SIZE_SAMPLING_INTERVAL = 16;
   private final Map<Object, List> keyToValues;
+  @Nullable private final Coder keyCoder;
+  @Nullable private final Coder valueCoder;
+  private final long maxBufferedBytes;
   private OutputCollector<KV<Object, List>> outputCollector;
+  private File spillBaseDirectory;
+  private long numBufferedValues;
+  private long numObservedValues;
+  private long numSampledValues;
+  private long numSampledBytes;
+  private File spillDirectory;
+  private List<File> runs;
 
   /**
-   * GroupByKey constructor.
+   * GroupByKey constructor, which buffers all values in memory.
    */
   public GroupByKeyTransform() {
+    this(null, -1);
+  }
+
+  /**
+   * GroupByKey constructor.
+   *
+   * @param inputCoder       the coder of the input KVs, which is used to spill the buffered values.
+   *                         (spilling is disabled if it is not a {@link KvCoder})
+   * @param maxBufferedBytes the estimated number of bytes of the values to buffer in memory before spilling.
+   *                         The size of a value is estimated by its encoded size. (disabled if not positive)
+   */
+  public GroupByKeyTransform(@Nullable final Coder inputCoder, final long maxBufferedBytes) {
     this.keyToValues = new HashMap<>();
+    if (inputCoder instanceof KvCoder && maxBufferedBytes > 0) {
+      this.keyCoder = ((KvCoder) inputCoder).getKeyCoder();
+      this.valueCoder = ((KvCoder) inputCoder).getValueCoder();
+      this.maxBufferedBytes = maxBufferedBytes;
+    } else {
+      this.keyCoder = null;
+      this.valueCoder = null;
+      this.maxBufferedBytes = -1;
+    }
   }
 
   @Override
   public void prepare(final Context context, final OutputCollector<KV<Object, List>> oc) {
     this.outputCollector = oc;
+    // Spill to the local directory of the executor, if it provides one.
+    this.spillBaseDirectory = new File(context.getLocalDirectory().orElse(System.getProperty("java.io.tmpdir")));
+    this.numBufferedValues = 0;
+    this.numObservedValues = 0;
+    this.numSampledValues = 0;
+    this.numSampledBytes = 0;
+    this.runs = new ArrayList<>();
   }
 
   @Override
   public void onData(final I element) {
-    final KV kv = (KV) element;
-    keyToValues.putIfAbsent(kv.getKey(), new ArrayList());
-    keyToValues.get(kv.getKey()).add(kv.getValue());
+    buffer((KV) element);
+    spillIfNeeded();
+  }
+
+  @Override
+  public void onBatch(final List<I> elements) {
+    for (final I element : elements) {
+      buffer((KV) element);
+    }
+    spillIfNeeded();
   }
 
   @Override
   public void close() {
-    if (keyToValues.isEmpty()) {
-      LOG.warn("Beam GroupByKeyTransform received no data!");
+    if (runs.isEmpty()) {
+      if (keyToValues.isEmpty()) {
+        LOG.warn("Beam GroupByKeyTransform received no data!");
+      } else {
+        keyToValues.entrySet().stream().map(entry -> KV.of(entry.getKey(), entry.getValue()))
+            .forEach(outputCollector::emit);
+        keyToValues.clear();
+      }
     } else {
-      keyToValues.entrySet().stream().map(entry -> KV.of(entry.getKey(), entry.getValue()))
-          .forEach(outputCollector::emit);
-      keyToValues.clear();
+      try {
+        if (!keyToValues.isEmpty()) {
+          spill();
+        }
+        mergeRuns();
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      } finally {
+        deleteRuns();
+      }
+    }
+  }
+
+  /**
+   * Buffers a KV, and samples its encoded size if spilling is enabled.
+   *
+   * @param kv the KV to buffer.
+   */
+  private void buffer(final KV kv) {
+    keyToValues.computeIfAbsent(kv.getKey(), key -> new ArrayList()).add(kv.getValue());
+    numBufferedValues++;
+    if (maxBufferedBytes > 0 && numObservedValues++ % SIZE_SAMPLING_INTERVAL == 0) {
+      final ByteCountingOutputStream counter = new ByteCountingOutputStream();
+      try {
+        keyCoder.encode(kv.getKey(), counter);
+        valueCoder.encode(kv.getValue(), counter);
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      }
+      numSampledValues++;
+      numSampledBytes += counter.getCount();
+    }
+  }
+
+  /**
+   * @return the estimated number of bytes of the buffered values.
+   */
+  private long getEstimatedBufferedBytes() {
+    return numSampledValues == 0 ? 0 : numBufferedValues * numSampledBytes / numSampledValues;
+  }
+
+  /**
+   * Spills the buffered values if they are estimated to be too large.
+   */
+  private void spillIfNeeded() {
+    if (maxBufferedBytes > 0 && getEstimatedBufferedBytes() >= maxBufferedBytes) {
+      try {
+        spill();
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * Writes the buffered values to a new run file, sorted by the encoded keys.
+   * A run is a sequence of (encoded key, the number of values, encoded values) records.
+   *
+   * @throws IOException if failed to write.
+   */
+  private void spill() throws IOException {
+    final List<Map.Entry<byte[], List>> sorted = new ArrayList<>(keyToValues.size());
+    for (final Map.Entry<Object, List> entry : keyToValues.entrySet()) {
+      final ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+      keyCoder.encode(entry.getKey(), keyBytes);
+      sorted.add(new AbstractMap.SimpleImmutableEntry<>(keyBytes.toByteArray(), entry.getValue()));
+    }
+    sorted.sort((left, right) -> compareBytes(left.getKey(), right.getKey()));
+
+    if (spillDirectory == null) {
+      Files.createDirectories(spillBaseDirectory.toPath());
+      spillDirectory = Files.createTempDirectory(spillBaseDirectory.toPath(), "nemo-gbk-").toFile();
+    }
+    final File run = new File(spillDirectory, "run-" + runs.size());
+    runs.add(run);
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(run), FILE_BUFFER_SIZE))) {
+      for (final Map.Entry<byte[], List> entry : sorted) {
+        out.writeInt(entry.getKey().length);
+        out.write(entry.getKey());
+        out.writeInt(entry.getValue().size());
+        for (final Object value : entry.getValue()) {
+          valueCoder.encode(value, out);
+        }
+      }
+    }
+    LOG.info("Spilled {} values of {} keys (about {} bytes) to {}",
+        numBufferedValues, keyToValues.size(), getEstimatedBufferedBytes(), run);
+    keyToValues.clear();
+    numBufferedValues = 0;
+  }
+
+  /**
+   * Merges the runs and emits the values for one key at a time.
+   *
+   * @throws IOException if failed to read.
+   */
+  private void mergeRuns() throws IOException {
+    // The runs of the same key are read in the order of spilling, to keep the order of the values.
+    final PriorityQueue<RunReader> heads = new PriorityQueue<>(runs.size(), (left, right) -> {
+      final int result = compareBytes(left.getKey(), right.getKey());
+      return result != 0 ? result : Integer.compare(left.getRunIndex(), right.getRunIndex());
+    });
+    final List<RunReader> readers = new ArrayList<>(runs.size());
+    try {
+      for (int runIndex = 0; runIndex < runs.size(); runIndex++) {
+        final RunReader reader = new RunReader(runs.get(runIndex), runIndex);
+        readers.add(reader);
+        if (reader.advance()) {
+          heads.add(reader);
+        }
+      }
+      while (!heads.isEmpty()) {
+        final byte[] key = heads.peek().getKey();
+        final List values = new ArrayList();
+        while (!heads.isEmpty() && compareBytes(heads.peek().getKey(), key) == 0) {
+          final RunReader reader = heads.poll();
+          reader.readValues(values);
+          if (reader.advance()) {
+            heads.add(reader);
+          }
+        }
+        outputCollector.emit(KV.of(keyCoder.decode(new ByteArrayInputStream(key)), values));
+      }
+    } finally {
+      for (final RunReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  /**
+   * Deletes the run files.
+   */
+  private void deleteRuns() {
+    for (final File run : runs) {
+      if (!run.delete()) {
+        LOG.warn("Failed to delete {}", run);
+      }
+    }
+    runs.clear();
+    if (spillDirectory != null && !spillDirectory.delete()) {
+      LOG.warn("Failed to delete {}", spillDirectory);
+    }
+    spillDirectory = null;
+  }
+
+  /**
+   * Compares byte arrays in the unsigned lexicographical order.
+   *
+   * @param left  a byte array.
+   * @param right another byte array.
+   * @return the comparison result.
+   */
+  private static int compareBytes(final byte[] left, final byte[] right) {
+    final int minLength = Math.min(left.length, right.length);
+    for (int i = 0; i < minLength; i++) {
+      final int result = Integer.compare(left[i] & 0xff, right[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(left.length, right.length);
+  }
+
+  /**
+   * Reads the records of a run one by one.
+   */
+  private final class RunReader implements Closeable {
+    private final DataInputStream in;
+    private final int runIndex;
+    private byte[] key;
+    private int numValues;
+
+    /**
+     * @param run      the run file to read.
+     * @param runIndex the index of the run, in the order of spilling.
+     * @throws IOException if failed to open the file.
+     */
+    RunReader(final File run, final int runIndex) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), FILE_BUFFER_SIZE));
+      this.runIndex = runIndex;
+    }
+
+    /**
+     * @return the index of the run, in the order of spilling.
+     */
+    int getRunIndex() {
+      return runIndex;
+    }
+
+    /**
+     * Reads the key of the next record. The values of the current record should have been read.
+     *
+     * @return false if there is no more record.
+     * @throws IOException if failed to read.
+     */
+    boolean advance() throws IOException {
+      final int keyLength;
+      try {
+        keyLength = in.readInt();
+      } catch (final EOFException e) {
+        return false;
+      }
+      key = new byte[keyLength];
+      in.readFully(key);
+      numValues = in.readInt();
+      return true;
+    }
+
+    /**
+     * @return the encoded key of the current record.
+     */
+    byte[] getKey() {
+      return key;
+    }
+
+    /**
+     * Reads the values of the current record.
+     *
+     * @param values the list to add the values to.
+     * @throws IOException if failed to read.
+     */
+    void readValues(final List values) throws IOException {
+      for (int i = 0; i < numValues; i++) {
+        values.add(valueCoder.decode(in));
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Counts the bytes written, without storing them.
+   */
+  private static final class ByteCountingOutputStream extends OutputStream {
+    private long count = 0;
+
+    @Override
+    public void write(final int b) {
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      count += len;
+    }
+
+    /**
+     * @return the number of bytes written.
+     */
+    long getCount() {
+      return count;
     }
   }
 
@@ -70,4 +390,3 @@ public final class GroupByKeyTransform<I> implements Transform<I, KV<Object, Lis
     return sb.toString();
   }
 }
-
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.optimizer.pass.compiletime.annotating;
+
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.ReadAheadDepthProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.Requires;
+
+/**
+ * A pass for decoding the data of shuffle edges ahead of its consumption,
+ * so that the decoding overlaps with the processing of the receiving task.
+ * Jobs opt in with {@link org.apache.nemo.compiler.optimizer.policy.ReadAheadPolicy},
+ * or by registering this pass after the default passes of their own policy.
+ */
+@Annotates(ReadAheadDepthProperty.class)
+@Requires(CommunicationPatternProperty.class)
+public final class ReadAheadPass extends AnnotatingPass {
+  private final int readAheadDepth;
+
+  /**
+   * Default constructor. Buffers 4 batches ahead by default.
+   */
+  public ReadAheadPass() {
+    this(4);
+  }
+
+  /**
+   * Constructor.
+   * @param readAheadDepth the number of decoded batches to buffer ahead for each block.
+   */
+  public ReadAheadPass(final int readAheadDepth) {
+    super(ReadAheadPass.class);
+    this.readAheadDepth = readAheadDepth;
+  }
+
+  @Override
+  public DAG<IRVertex, IREdge> apply(final DAG<IRVertex, IREdge> dag) {
+    dag.topologicalDo(vertex -> dag.getIncomingEdgesOf(vertex).stream()
+        .filter(edge -> edge.getPropertyValue(CommunicationPatternProperty.class).get()
+            .equals(CommunicationPatternProperty.Value.Shuffle))
+        .filter(edge -> !edge.getPropertyValue(ReadAheadDepthProperty.class).isPresent())
+        .forEach(edge -> edge.setProperty(ReadAheadDepthProperty.of(readAheadDepth))));
+
+    return dag;
+  }
+}
@@ -42,6 +42,12 @@ public final class PolicyBuilderTest {
     assertEquals(1, DataSkewPolicy.BUILDER.getRuntimePasses().size());
   }
 
+  @Test
+  public void testReadAheadPolicy() {
+    assertEquals(18, ReadAheadPolicy.BUILDER.getCompileTimePasses().size());
+    assertEquals(0, ReadAheadPolicy.BUILDER.getRuntimePasses().size());
+  }
+
   @Test
   public void testShouldFailPolicy() {
     try {
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam;
+
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.coders.AtomicCoder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.RowCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.Row;
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.compiler.frontend.beam.transform.CombineFnFinalTransform;
+import org.apache.nemo.compiler.frontend.beam.transform.CombineFnPartialTransform;
+import org.apache.nemo.compiler.frontend.beam.transform.GroupByKeyTransform;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the translation of {@link PipelineTranslator}.
+ */
+public final class PipelineTranslatorTest {
+  private static final Schema SCHEMA = Schema.builder().addInt64Field("value").build();
+
+  /**
+   * A combine of Beam Rows is translated into partial aggregation, shuffle, and final aggregation,
+   * with the accumulator coder registered to the pipeline.
+   */
+  @Test
+  public void testPartialAggregationOfRows() {
+    final NemoPipelineOptions options = PipelineOptionsFactory.create().as(NemoPipelineOptions.class);
+    options.setRunner(NemoPipelineRunner.class);
+    final Pipeline pipeline = Pipeline.create(options);
+    // The accumulator has no default coder, so its coder can be provided only by the registry of the pipeline.
+    pipeline.getCoderRegistry().registerCoderForClass(SumAccumulator.class, new SumAccumulatorCoder());
+    final KvCoder<String, Row> kvCoder = KvCoder.of(StringUtf8Coder.of(), RowCoder.of(SCHEMA));
+    pipeline
+        .apply(Create.of(KV.of("a", row(1)), KV.of("b", row(2)), KV.of("a", row(3))).withCoder(kvCoder))
+        .apply(Combine.perKey(new SumRowFn()))
+        .setCoder(kvCoder);
+
+    final PipelineVisitor pipelineVisitor = new PipelineVisitor();
+    pipeline.traverseTopologically(pipelineVisitor);
+    final DAG<IRVertex, IREdge> dag = PipelineTranslator.translate(pipelineVisitor.getConvertedPipeline(), options);
+
+    final IRVertex partialVertex = getVertexOf(dag, CombineFnPartialTransform.class);
+    final IRVertex groupByKeyVertex = getVertexOf(dag, GroupByKeyTransform.class);
+    final IRVertex finalVertex = getVertexOf(dag, CombineFnFinalTransform.class);
+    assertEquals(CommunicationPatternProperty.Value.Shuffle,
+        dag.getEdgeBetween(partialVertex.getId(), groupByKeyVertex.getId())
+            .getPropertyValue(CommunicationPatternProperty.class).get());
+    assertEquals(CommunicationPatternProperty.Value.OneToOne,
+        dag.getEdgeBetween(groupByKeyVertex.getId(), finalVertex.getId())
+            .getPropertyValue(CommunicationPatternProperty.class).get());
+    assertTrue(dag.getOutgoingEdgesOf(finalVertex).isEmpty());
+  }
+
+  private static IRVertex getVertexOf(final DAG<IRVertex, IREdge> dag, final Class<?> transformClass) {
+    final List<IRVertex> vertices = dag.filterVertices(vertex -> vertex instanceof OperatorVertex
+        && transformClass.isInstance(((OperatorVertex) vertex).getTransform()));
+    assertEquals(1, vertices.size());
+    return vertices.get(0);
+  }
+
+  private static Row row(final long value) {
+    return Row.withSchema(SCHEMA).addValue(value).build();
+  }
+
+  /**
+   * The accumulator of {@link SumRowFn}.
+   */
+  private static final class SumAccumulator {
+    private long sum;
+  }
+
+  /**
+   * Coder for {@link SumAccumulator}.
+   */
+  private static final class SumAccumulatorCoder extends AtomicCoder<SumAccumulator> {
+    @Override
+    public void encode(final SumAccumulator value, final OutputStream outStream) throws IOException {
+      VarLongCoder.of().encode(value.sum, outStream);
+    }
+
+    @Override
+    public SumAccumulator decode(final InputStream inStream) throws IOException {
+      final SumAccumulator accumulator = new SumAccumulator();
+      accumulator.sum = VarLongCoder.of().decode(inStream);
+      return accumulator;
+    }
+  }
+
+  /**
+   * Sums the values of Rows into a Row.
+   */
+  private static final class SumRowFn extends Combine.CombineFn<Row, SumAccumulator, Row> {
+    @Override
+    public SumAccumulator createAccumulator() {
+      return new SumAccumulator();
+    }
+
+    @Override
+    public SumAccumulator addInput(final SumAccumulator accumulator, final Row input) {
+      accumulator.sum += input.getInt64("value");
+      return accumulator;
+    }
+
+    @Override
+    public SumAccumulator mergeAccumulators(final Iterable<SumAccumulator> accumulators) {
+      final SumAccumulator merged = new SumAccumulator();
+      accumulators.forEach(accumulator -> merged.sum += accumulator.sum);
+      return merged;
+    }
+
+    @Override
+    public Row extractOutput(final SumAccumulator accumulator) {
+      return row(accumulator.sum);
+    }
+  }
+}
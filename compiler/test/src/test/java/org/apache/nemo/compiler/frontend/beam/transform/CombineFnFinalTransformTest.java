@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link CombineFnFinalTransform}, also with the partial aggregates of {@link CombineFnPartialTransform}.
+ */
+public final class CombineFnFinalTransformTest {
+  private static final double DELTA = 1e-9;
+
+  private Map<String, Double> outputs;
+  private OutputCollector<KV<String, Double>> outputCollector;
+
+  @Before
+  public void setUp() {
+    outputs = new HashMap<>();
+    outputCollector = new OutputCollector<KV<String, Double>>() {
+      @Override
+      public void emit(final KV<String, Double> output) {
+        // Every key must be emitted only once.
+        assertEquals(null, outputs.put(output.getKey(), output.getValue()));
+      }
+
+      @Override
+      public <T> void emit(final String dstVertexId, final T output) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Test
+  public void testMergesAccumulatorsPerKey() {
+    final CombineFnFinalTransform<String, long[], Double> transform = new CombineFnFinalTransform<>(new MeanFn());
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    transform.onData(KV.of("a", Arrays.asList(new long[] {10, 2}, new long[] {2, 2})));
+    transform.onData(KV.of("b", Arrays.asList(new long[] {9, 3})));
+    transform.onData(KV.of("c", Arrays.asList(new long[] {1, 1}, new long[] {0, 0}, new long[] {5, 1})));
+    // Nothing is held across elements.
+    assertEquals(3, outputs.size());
+    transform.close();
+
+    assertEquals(3, outputs.size());
+    assertEquals(3.0, outputs.get("a"), DELTA);
+    assertEquals(3.0, outputs.get("b"), DELTA);
+    assertEquals(3.0, outputs.get("c"), DELTA);
+  }
+
+  @Test
+  public void testPartialAndFinalAggregation() {
+    final int numKeys = 7;
+    final int numValuesPerKey = 13;
+    final List<KV<String, Integer>> input = new ArrayList<>();
+    for (int value = 0; value < numValuesPerKey; value++) {
+      for (int key = 0; key < numKeys; key++) {
+        input.add(KV.of("key-" + key, key + value));
+      }
+    }
+
+    // Two partial aggregations, each with a table smaller than the number of keys.
+    final Map<String, List<long[]>> shuffled = new HashMap<>();
+    final OutputCollector<KV<String, long[]>> shuffleCollector = new OutputCollector<KV<String, long[]>>() {
+      @Override
+      public void emit(final KV<String, long[]> output) {
+        shuffled.computeIfAbsent(output.getKey(), key -> new ArrayList<>()).add(output.getValue());
+      }
+
+      @Override
+      public <T> void emit(final String dstVertexId, final T output) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    final int half = input.size() / 2;
+    final List<List<KV<String, Integer>>> splits =
+        Arrays.asList(input.subList(0, half), input.subList(half, input.size()));
+    for (final List<KV<String, Integer>> split : splits) {
+      final CombineFnPartialTransform<String, Integer, long[]> partial =
+          new CombineFnPartialTransform<>(new MeanFn(), 3);
+      partial.prepare(mock(Transform.Context.class), shuffleCollector);
+      partial.onBatch(split);
+      partial.close();
+    }
+
+    final CombineFnFinalTransform<String, long[], Double> transform = new CombineFnFinalTransform<>(new MeanFn());
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    shuffled.forEach((key, accumulators) -> transform.onData(KV.of(key, accumulators)));
+    transform.close();
+
+    assertEquals(numKeys, outputs.size());
+    for (int key = 0; key < numKeys; key++) {
+      assertEquals(key + (numValuesPerKey - 1) / 2.0, outputs.get("key-" + key), DELTA);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link CombineFnPartialTransform}.
+ */
+public final class CombineFnPartialTransformTest {
+  private static final int NUM_KEYS = 5;
+  private static final int NUM_VALUES_PER_KEY = 10;
+
+  private List<KV<String, long[]>> outputs;
+  private OutputCollector<KV<String, long[]>> outputCollector;
+
+  @Before
+  public void setUp() {
+    outputs = new ArrayList<>();
+    outputCollector = new OutputCollector<KV<String, long[]>>() {
+      @Override
+      public void emit(final KV<String, long[]> output) {
+        outputs.add(output);
+      }
+
+      @Override
+      public <T> void emit(final String dstVertexId, final T output) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Test
+  public void testCombinesPerKey() {
+    final CombineFnPartialTransform<String, Integer, long[]> transform =
+        new CombineFnPartialTransform<>(new MeanFn(), NUM_KEYS);
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    getInput().forEach(transform::onData);
+    // All keys fit in the table, so nothing is emitted until close.
+    assertEquals(0, outputs.size());
+    transform.close();
+
+    assertEquals(NUM_KEYS, outputs.size());
+    assertCombined(mergePerKey(outputs));
+  }
+
+  @Test
+  public void testCombinesBatchesPerKey() {
+    final CombineFnPartialTransform<String, Integer, long[]> transform =
+        new CombineFnPartialTransform<>(new MeanFn(), NUM_KEYS);
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    final List<KV<String, Integer>> input = getInput();
+    for (int i = 0; i < input.size(); i += 3) {
+      transform.onBatch(input.subList(i, Math.min(i + 3, input.size())));
+    }
+    transform.close();
+
+    assertEquals(NUM_KEYS, outputs.size());
+    assertCombined(mergePerKey(outputs));
+  }
+
+  @Test
+  public void testFlushesWhenTableIsFull() {
+    final int maxKeys = 2;
+    final CombineFnPartialTransform<String, Integer, long[]> transform =
+        new CombineFnPartialTransform<>(new MeanFn(), maxKeys);
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    getInput().forEach(transform::onData);
+    // The table has been flushed whenever a new key arrived at a full table.
+    assertTrue(outputs.size() > NUM_KEYS);
+    final int numOutputsBeforeClose = outputs.size();
+    transform.close();
+    assertTrue(outputs.size() - numOutputsBeforeClose <= maxKeys);
+
+    // The partial aggregates of a key are emitted multiple times, but add up to the same totals.
+    assertCombined(mergePerKey(outputs));
+  }
+
+  /**
+   * @return the values of all keys, interleaved.
+   */
+  private static List<KV<String, Integer>> getInput() {
+    final List<KV<String, Integer>> input = new ArrayList<>();
+    for (int value = 0; value < NUM_VALUES_PER_KEY; value++) {
+      for (int key = 0; key < NUM_KEYS; key++) {
+        input.add(KV.of(getKey(key), key * value));
+      }
+    }
+    return input;
+  }
+
+  private static String getKey(final int key) {
+    return "key-" + key;
+  }
+
+  private static Map<String, long[]> mergePerKey(final List<KV<String, long[]>> partialAggregates) {
+    final Map<String, long[]> merged = new HashMap<>();
+    partialAggregates.forEach(kv -> merged.merge(kv.getKey(), kv.getValue(),
+        (a, b) -> new long[] {a[0] + b[0], a[1] + b[1]}));
+    return merged;
+  }
+
+  private static void assertCombined(final Map<String, long[]> keyToAccumulator) {
+    assertEquals(NUM_KEYS, keyToAccumulator.size());
+    final long sumOfValues = NUM_VALUES_PER_KEY * (NUM_VALUES_PER_KEY - 1) / 2;
+    for (int key = 0; key < NUM_KEYS; key++) {
+      assertArrayEquals(new long[] {key * sumOfValues, NUM_VALUES_PER_KEY}, keyToAccumulator.get(getKey(key)));
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link GroupByKeyTransform}.
+ */
+public final class GroupByKeyTransformTest {
+  private static final KvCoder<String, Integer> CODER = KvCoder.of(StringUtf8Coder.of(), VarIntCoder.of());
+  private static final int NUM_KEYS = 50;
+  private static final int NUM_VALUES_PER_KEY = 20;
+  // Far less than the encoded size of the input, which is about 10 bytes per KV.
+  private static final long MAX_BUFFERED_BYTES = 500;
+
+  @Rule
+  public final TemporaryFolder localDirectory = new TemporaryFolder();
+
+  private Transform.Context context;
+  private List<KV<Object, List>> outputs;
+  private OutputCollector<KV<Object, List>> outputCollector;
+
+  @Before
+  public void setUp() {
+    context = mock(Transform.Context.class);
+    when(context.getLocalDirectory()).thenReturn(Optional.of(localDirectory.getRoot().getPath()));
+    outputs = new ArrayList<>();
+    outputCollector = new OutputCollector<KV<Object, List>>() {
+      @Override
+      public void emit(final KV<Object, List> output) {
+        outputs.add(output);
+      }
+
+      @Override
+      public <T> void emit(final String dstVertexId, final T output) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Test
+  public void testInMemoryGrouping() {
+    final GroupByKeyTransform<KV<String, Integer>> transform = new GroupByKeyTransform<>();
+    transform.prepare(context, outputCollector);
+    getInput().forEach(transform::onData);
+    assertEquals(0, countRuns());
+    transform.close();
+
+    assertGrouped(toMap(outputs));
+  }
+
+  @Test
+  public void testSpillAndMergeRuns() {
+    final GroupByKeyTransform<KV<String, Integer>> transform =
+        new GroupByKeyTransform<>(CODER, MAX_BUFFERED_BYTES);
+    transform.prepare(context, outputCollector);
+    getInput().forEach(transform::onData);
+    // Every key spans multiple runs, which are merged on close.
+    assertTrue(countRuns() > 1);
+    transform.close();
+
+    final Map<String, List> grouped = toMap(outputs);
+    assertEquals(NUM_KEYS, outputs.size());
+    assertGrouped(grouped);
+    assertEquals(0, countRuns());
+  }
+
+  @Test
+  public void testSpillAndMergeRunsOfBatches() {
+    final GroupByKeyTransform<KV<String, Integer>> transform =
+        new GroupByKeyTransform<>(CODER, MAX_BUFFERED_BYTES);
+    transform.prepare(context, outputCollector);
+    final List<KV<String, Integer>> input = getInput();
+    for (int i = 0; i < input.size(); i += 7) {
+      transform.onBatch(input.subList(i, Math.min(i + 7, input.size())));
+    }
+    assertTrue(countRuns() > 1);
+    transform.close();
+
+    assertEquals(NUM_KEYS, outputs.size());
+    assertGrouped(toMap(outputs));
+    assertEquals(0, countRuns());
+  }
+
+  @Test
+  public void testKeyOrderOfMergedRuns() {
+    final GroupByKeyTransform<KV<String, Integer>> transform =
+        new GroupByKeyTransform<>(CODER, MAX_BUFFERED_BYTES);
+    transform.prepare(context, outputCollector);
+    getInput().forEach(transform::onData);
+    transform.close();
+
+    // The keys have the same length, so the order of their encoded forms is the lexicographical order.
+    final List<Object> keys = outputs.stream().map(KV::getKey).collect(Collectors.toList());
+    final List<Object> sortedKeys = IntStream.range(0, NUM_KEYS).mapToObj(GroupByKeyTransformTest::getKey)
+        .collect(Collectors.toList());
+    assertEquals(sortedKeys, keys);
+  }
+
+  /**
+   * @return the KVs of all keys, interleaved so that every run contains many keys.
+   */
+  private static List<KV<String, Integer>> getInput() {
+    final List<KV<String, Integer>> input = new ArrayList<>();
+    for (int value = 0; value < NUM_VALUES_PER_KEY; value++) {
+      // Feed the keys in a reverse order, so that the merged order is not the arrival order.
+      for (int key = NUM_KEYS - 1; key >= 0; key--) {
+        input.add(KV.of(getKey(key), value));
+      }
+    }
+    return input;
+  }
+
+  private static String getKey(final int index) {
+    return String.format("key-%03d", index);
+  }
+
+  private static Map<String, List> toMap(final List<KV<Object, List>> groups) {
+    final Map<String, List> grouped = new HashMap<>();
+    groups.forEach(kv -> grouped.put((String) kv.getKey(), kv.getValue()));
+    return grouped;
+  }
+
+  /**
+   * Checks that every key has all of its values, in the order of their arrival.
+   * @param grouped the grouped values.
+   */
+  private static void assertGrouped(final Map<String, List> grouped) {
+    assertEquals(NUM_KEYS, grouped.size());
+    final List<Integer> expectedValues = IntStream.range(0, NUM_VALUES_PER_KEY).boxed().collect(Collectors.toList());
+    for (int key = 0; key < NUM_KEYS; key++) {
+      assertEquals(expectedValues, grouped.get(getKey(key)));
+    }
+  }
+
+  /**
+   * @return the number of run files in the local directory.
+   */
+  private int countRuns() {
+    final File[] spillDirectories = localDirectory.getRoot().listFiles();
+    return spillDirectories == null ? 0 : Arrays.stream(spillDirectories)
+        .filter(File::isDirectory)
+        .mapToInt(directory -> directory.list().length)
+        .sum();
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.transforms.Combine;
+
+/**
+ * A {@link Combine.CombineFn} computing the mean of integers, for the tests of the combine transforms.
+ * The accumulator holds the sum and the count.
+ */
+final class MeanFn extends Combine.CombineFn<Integer, long[], Double> {
+  @Override
+  public long[] createAccumulator() {
+    return new long[2];
+  }
+
+  @Override
+  public long[] addInput(final long[] accumulator, final Integer input) {
+    accumulator[0] += input;
+    accumulator[1]++;
+    return accumulator;
+  }
+
+  @Override
+  public long[] mergeAccumulators(final Iterable<long[]> accumulators) {
+    final long[] merged = createAccumulator();
+    for (final long[] accumulator : accumulators) {
+      merged[0] += accumulator[0];
+      merged[1] += accumulator[1];
+    }
+    return merged;
+  }
+
+  @Override
+  public Double extractOutput(final long[] accumulator) {
+    return accumulator[1] == 0 ? 0.0 : (double) accumulator[0] / accumulator[1];
+  }
+}
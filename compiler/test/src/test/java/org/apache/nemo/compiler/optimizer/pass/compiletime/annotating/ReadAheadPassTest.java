@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.compiler.optimizer.pass.compiletime.annotating;
+
+import org.apache.nemo.client.JobLauncher;
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.ReadAheadDepthProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.compiler.CompilerTestUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link ReadAheadPass}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(JobLauncher.class)
+public class ReadAheadPassTest {
+  private DAG<IRVertex, IREdge> compiledDAG;
+
+  @Before
+  public void setUp() throws Exception {
+    compiledDAG = CompilerTestUtil.compileWordCountDAG();
+  }
+
+  @Test
+  public void testAnnotatingPass() {
+    final AnnotatingPass readAheadPass = new ReadAheadPass();
+    assertTrue(readAheadPass.getExecutionPropertiesToAnnotate().contains(ReadAheadDepthProperty.class));
+  }
+
+  @Test
+  public void testReadAhead() {
+    final DAG<IRVertex, IREdge> processedDAG = new ReadAheadPass(3).apply(compiledDAG);
+    final List<IREdge> edges = processedDAG.getVertices().stream()
+        .flatMap(vertex -> processedDAG.getIncomingEdgesOf(vertex).stream())
+        .collect(Collectors.toList());
+    assertTrue(edges.stream().anyMatch(edge -> isShuffle(edge)));
+    assertTrue(edges.stream().anyMatch(edge -> !isShuffle(edge)));
+
+    // Only the shuffle edges are decoded ahead.
+    edges.forEach(edge -> {
+      if (isShuffle(edge)) {
+        assertEquals(3, (int) edge.getPropertyValue(ReadAheadDepthProperty.class).get());
+      } else {
+        assertFalse(edge.getPropertyValue(ReadAheadDepthProperty.class).isPresent());
+      }
+    });
+  }
+
+  @Test
+  public void testNotOverride() {
+    final IREdge shuffleEdge = compiledDAG.getVertices().stream()
+        .flatMap(vertex -> compiledDAG.getIncomingEdgesOf(vertex).stream())
+        .filter(ReadAheadPassTest::isShuffle)
+        .findFirst().get();
+    shuffleEdge.setProperty(ReadAheadDepthProperty.of(1));
+
+    new ReadAheadPass(3).apply(compiledDAG);
+    assertEquals(1, (int) shuffleEdge.getPropertyValue(ReadAheadDepthProperty.class).get());
+  }
+
+  private static boolean isShuffle(final IREdge edge) {
+    return CommunicationPatternProperty.Value.Shuffle
+        .equals(edge.getPropertyValue(CommunicationPatternProperty.class).get());
+  }
+}
@@ -184,13 +184,120 @@ public final class JobConf extends ConfigurationModuleBuilder {
   }
 
   /**
-   * Maximum number of parallel downloads for a runtime edge.
+   * Time to wait for the master to push the locations of the subscribed blocks.
+   * The locations which are not pushed by then are requested from the master explicitly.
    */
-  @NamedParameter(doc = "Maximum number of parallel downloads for a runtime edge.", short_name = "max_downloads",
+  @NamedParameter(doc = "Time to wait for pushed block locations before requesting them (ms).",
+      short_name = "block_location_push_timeout", default_value = "30000")
+  public final class BlockLocationPushTimeoutMs implements Name<Long> {
+  }
+
+  /**
+   * Initial number of parallel downloads for a runtime edge.
+   * The number adapts to the aggregate goodput of the downloads of the edge, up to eight times this value.
+   */
+  @NamedParameter(doc = "Initial number of parallel downloads for a runtime edge.", short_name = "max_downloads",
       default_value = "5")
   public final class MaxNumDownloadsForARuntimeEdge implements Name<Integer> {
   }
 
+  /**
+   * Maximum number of bytes being downloaded at the same time by an executor, over all runtime edges.
+   * The size of a download is the size of the block reported to the master, or if not reported,
+   * the average of the previous downloads of the same runtime edge, or a share of this budget.
+   */
+  @NamedParameter(doc = "Maximum number of bytes being downloaded by an executor at the same time.",
+      short_name = "max_download_bytes", default_value = "268435456")
+  public final class MaxBytesInFlightForDownloads implements Name<Long> {
+  }
+
+  /**
+   * Number of threads for decoding input data ahead of its consumption.
+   * Only used for the edges annotated with a read-ahead depth.
+   */
+  @NamedParameter(doc = "Number of threads for read-ahead decoding.", short_name = "read_ahead_threads",
+      default_value = "4")
+  public final class ReadAheadDecodeThreads implements Name<Integer> {
+  }
+
+  /**
+   * Number of elements in a batch decoded ahead of its consumption.
+   */
+  @NamedParameter(doc = "Number of elements in a read-ahead batch.", short_name = "read_ahead_batch_size",
+      default_value = "256")
+  public final class ReadAheadBatchSize implements Name<Integer> {
+  }
+
+  /**
+   * Maximum number of batches decoded ahead of their consumption for a task, over all the blocks it reads.
+   */
+  @NamedParameter(doc = "Maximum number of read-ahead batches of a task.", short_name = "read_ahead_task_batches",
+      default_value = "32")
+  public final class ReadAheadMaxBatchesPerTask implements Name<Integer> {
+  }
+
+  /**
+   * Maximum amount of off-heap memory for serialized partitions in an executor, in megabytes.
+   */
+  @NamedParameter(doc = "Maximum off-heap memory for serialized partitions (MB)", short_name = "offheap_capacity_mb",
+      default_value = "512")
+  public final class OffHeapCapacityMb implements Name<Integer> {
+  }
+
+  /**
+   * Maximum size of the blocks kept in the memory stores of an executor, in megabytes.
+   * The blocks beyond this size are spilled to the local disk.
+   */
+  @NamedParameter(doc = "Maximum size of in-memory blocks before spilling (MB, -1 for half of the heap)",
+      short_name = "memory_store_capacity_mb", default_value = "-1")
+  public final class MemoryStoreCapacityMb implements Name<Integer> {
+  }
+
+  /**
+   * Number of elements processed at once by the vertices in a task.
+   * A value larger than 1 enables the batch mode, and 1 processes the elements one by one.
+   */
+  @NamedParameter(doc = "Number of elements in a batch processed by a task (1 to disable batching)",
+      short_name = "task_batch_size", default_value = "1")
+  public final class TaskBatchSize implements Name<Integer> {
+  }
+
+  /**
+   * One in this number of elements is timed by the per-vertex latency histograms of a task.
+   * The number is rounded up to a power of two, and 0 disables the timing. Element counts are always exact.
+   */
+  @NamedParameter(doc = "One in this number of elements is timed for the per-vertex metrics (0 to disable timing)",
+      short_name = "task_metric_sampling_interval", default_value = "1024")
+  public final class TaskMetricSamplingInterval implements Name<Integer> {
+  }
+
+  /**
+   * The number of most recent jobs whose metrics the driver retains.
+   * The job, stage and task metrics of older jobs are removed.
+   */
+  @NamedParameter(doc = "The number of most recent jobs whose metrics are retained",
+      short_name = "metric_retained_jobs", default_value = "16")
+  public final class NumRetainedJobMetrics implements Name<Integer> {
+  }
+
+  /**
+   * The file to which the driver dumps all the metrics of the job, as JSON, when it terminates.
+   * An empty path disables the dump.
+   */
+  @NamedParameter(doc = "The file to dump the metrics to at termination (empty to disable)",
+      short_name = "metric_dump_path", default_value = "")
+  public final class MetricDumpPath implements Name<String> {
+  }
+
+  /**
+   * Number of tasks an executor runs at once, i.e., the capacity of its resource specification.
+   * Set by the driver for each executor. A non-positive value uses the number of available processors.
+   */
+  @NamedParameter(doc = "Number of task slots of an executor (non-positive to use the number of processors)",
+      default_value = "-1")
+  public final class ExecutorCapacity implements Name<Integer> {
+  }
+
   /**
    * The number of serialization threads for scheduling.
    */
@@ -253,6 +360,58 @@ public final class JobConf extends ConfigurationModuleBuilder {
   public final class PartitionTransportClientNumThreads implements Name<Integer> {
   }
 
+  /**
+   * The number of bytes written to a block transfer stream which are gathered into a single data frame,
+   * and the number of unflushed bytes after which a block transfer channel is flushed.
+   */
+  @NamedParameter(doc = "The size of data frames and flushes of PartitionTransport, in bytes",
+      short_name = "block_frame_size", default_value = "65536")
+  public final class PartitionTransportFrameSize implements Name<Integer> {
+  }
+
+  /**
+   * Whether to disable Nagle's algorithm on block transfer connections.
+   */
+  @NamedParameter(doc = "Whether to set TCP_NODELAY on PartitionTransport connections",
+      short_name = "block_tcp_nodelay", default_value = "true")
+  public final class PartitionTransportTcpNoDelay implements Name<Boolean> {
+  }
+
+  /**
+   * The size of the socket send and receive buffers of block transfer connections.
+   * Zero leaves the buffer sizes to the operating system.
+   */
+  @NamedParameter(doc = "The size of SO_SNDBUF and SO_RCVBUF of PartitionTransport connections, in bytes",
+      short_name = "block_socket_buffer", default_value = "0")
+  public final class PartitionTransportSocketBufferSize implements Name<Integer> {
+  }
+
+  /**
+   * The number of bytes queued on a block transfer connection above which the senders wait,
+   * until the queue drains below {@link PartitionTransportWriteBufferLowWaterMark}.
+   */
+  @NamedParameter(doc = "The high water mark of the write buffer of PartitionTransport connections, in bytes",
+      short_name = "block_write_high_water_mark", default_value = "4194304")
+  public final class PartitionTransportWriteBufferHighWaterMark implements Name<Integer> {
+  }
+
+  /**
+   * The number of bytes queued on a block transfer connection below which the waiting senders resume.
+   */
+  @NamedParameter(doc = "The low water mark of the write buffer of PartitionTransport connections, in bytes",
+      short_name = "block_write_low_water_mark", default_value = "2097152")
+  public final class PartitionTransportWriteBufferLowWaterMark implements Name<Integer> {
+  }
+
+  /**
+   * Whether each listening thread of the block transfer server binds its own socket to the server port,
+   * so that accepting connections is spread over the threads. Needs the native epoll transport.
+   */
+  @NamedParameter(doc = "Whether to bind a PartitionTransport server socket per listening thread with SO_REUSEPORT",
+      short_name = "block_reuseport", default_value = "false")
+  public final class PartitionTransportServerReusePort implements Name<Boolean> {
+  }
+
   //////////////////////////////// Intermediate Configurations
 
   /**
@@ -34,8 +34,12 @@ import org.apache.nemo.examples.beam.GenericSourceSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
@@ -134,21 +138,22 @@ public final class Tpch {
 
 
   /**
-   * @param args arguments.
+   * @param args arguments: the query (a TPC-H query number, or the path of a query file),
+   *             the input directory and the output file path.
    */
   public static void main(final String[] args) {
-    final String queryFilePath = args[0];
+    final String query = args[0];
     final String inputDirectory = args[1];
     final String outputFilePath = args[2];
 
-    LOG.info("{} / {} / {}", queryFilePath, inputDirectory, outputFilePath);
+    LOG.info("{} / {} / {}", query, inputDirectory, outputFilePath);
 
     final PipelineOptions options = PipelineOptionsFactory.create().as(NemoPipelineOptions.class);
     options.setRunner(NemoPipelineRunner.class);
     options.setJobName("TPC-H");
     final Pipeline p = Pipeline.create(options);
 
-    final String queryString = getQueryString(queryFilePath);
+    final String queryString = getQueryString(query);
     // Create tables
     final CSVFormat csvFormat = CSVFormat.MYSQL
       .withDelimiter('|')
@@ -163,7 +168,6 @@ public final class Tpch {
       new SerializableFunction<Row, String>() {
         @Override
         public String apply(final Row input) {
-          System.out.println(input.getValues().toString());
           return input.getValues().toString();
         }
       }));
@@ -174,29 +178,40 @@ public final class Tpch {
     p.run();
   }
 
-  private static String getQueryString(final String queryFilePath) {
-    final List<String> lines = new ArrayList<>();
-    try (final Stream<String> stream  = Files.lines(Paths.get(queryFilePath))) {
-      stream.forEach(lines::add);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  /**
+   * Reads a query, either from the bundled TPC-H query set (the /tpch/q"number".sql resources)
+   * if the argument is a query number, or from the given file otherwise.
+   * SQL comment lines are dropped, and the lines are joined into a single line.
+   *
+   * @param query the query number, or the path of the query file.
+   * @return the query string.
+   */
+  static String getQueryString(final String query) {
+    final List<String> lines;
+    if (query.matches("\\d+")) {
+      final String resource = "/tpch/q" + Integer.parseInt(query) + ".sql";
+      final InputStream stream = Tpch.class.getResourceAsStream(resource);
+      if (stream == null) {
+        throw new IllegalArgumentException("No TPC-H query " + query);
+      }
+      try (final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+        lines = reader.lines().collect(Collectors.toList());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    } else {
+      try (final Stream<String> stream = Files.lines(Paths.get(query))) {
+        lines = stream.collect(Collectors.toList());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
     }
 
-    System.out.println(lines);
-
-    final StringBuilder sb = new StringBuilder();
-    lines.forEach(line -> {
-      sb.append(" ");
-      sb.append(line);
-    });
-
-    final String concate = sb.toString();
-    System.out.println(concate);
-    final String cleanOne = concate.replaceAll("\n", " ");
-    System.out.println(cleanOne);
-    final String cleanTwo = cleanOne.replaceAll("\t", " ");
-    System.out.println(cleanTwo);
-
-    return cleanTwo;
+    final String queryString = lines.stream()
+      .filter(line -> !line.trim().startsWith("--"))
+      .map(line -> line.replaceAll("\t", " "))
+      .collect(Collectors.joining(" "));
+    LOG.debug("Query {}: {}", query, queryString);
+    return queryString;
   }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.examples.beam.tpch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.nemo.client.JobLauncher;
+import org.apache.nemo.common.test.ArgBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the TPC-H queries with {@link Tpch} on the local runtime, under each of the given optimization policies,
+ * over data generated by {@link TpchDataGenerator}, and writes a JSON report of each run.
+ * For each query and policy, the report has the status of the run, its wall time, the job time from the
+ * job metric, the bytes written to blocks by the tasks (over all the edges, not only the shuffle edges), and the
+ * largest peak heap usage reported by an executor.
+ * A failing query is reported as failed, and does not stop the other runs.
+ */
+public final class TpchBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(TpchBenchmark.class.getName());
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final int NUM_QUERIES = 22;
+  private static final String POLICY_PACKAGE = "org.apache.nemo.compiler.optimizer.policy.";
+  private static final List<String> DEFAULT_POLICIES = Arrays.asList(
+      POLICY_PACKAGE + "DefaultPolicy", POLICY_PACKAGE + "DataSkewPolicy", POLICY_PACKAGE + "LargeShufflePolicy");
+  private static final String DEFAULT_EXECUTOR_JSON =
+      "[{\"type\":\"Transient\",\"memory_mb\":512,\"capacity\":5},"
+      + "{\"type\":\"Reserved\",\"memory_mb\":512,\"capacity\":5}]";
+
+  /**
+   * Private Constructor.
+   */
+  private TpchBenchmark() {
+  }
+
+  /**
+   * @param args arguments: the scale factor, the working directory (for the data, the outputs and the metric dumps),
+   *             the path of the report, and optionally the comma-separated query numbers (all by default),
+   *             the comma-separated optimization policies
+   *             (the default, the data skew and the large shuffle policies by default),
+   *             and the executor resource file (small local executors by default).
+   * @throws IOException when failed to generate the data or to write the report.
+   */
+  public static void main(final String[] args) throws IOException {
+    final double scaleFactor = Double.parseDouble(args[0]);
+    final File workDirectory = new File(args[1]).getAbsoluteFile();
+    final String reportPath = args[2];
+    final List<Integer> queries = args.length > 3
+        ? Arrays.stream(args[3].split(",")).map(Integer::parseInt).collect(Collectors.toList())
+        : IntStream.rangeClosed(1, NUM_QUERIES).boxed().collect(Collectors.toList());
+    final List<String> policies = args.length > 4 ? Arrays.asList(args[4].split(",")) : DEFAULT_POLICIES;
+
+    final File dataDirectory = new File(workDirectory, "data");
+    LOG.info("Generating the TPC-H data at scale factor {} in {}", scaleFactor, dataDirectory);
+    TpchDataGenerator.generate(scaleFactor, dataDirectory);
+
+    final String executorJson;
+    if (args.length > 5) {
+      executorJson = args[5];
+    } else {
+      final File executorJsonFile = new File(workDirectory, "executors.json");
+      Files.write(executorJsonFile.toPath(), DEFAULT_EXECUTOR_JSON.getBytes(StandardCharsets.UTF_8));
+      executorJson = executorJsonFile.getPath();
+    }
+
+    final ObjectNode report = OBJECT_MAPPER.createObjectNode();
+    report.put("scaleFactor", scaleFactor);
+    final ArrayNode results = report.putArray("results");
+    for (final String policy : policies) {
+      for (final int query : queries) {
+        results.add(run(query, policy, workDirectory, dataDirectory, executorJson));
+        // Keep the report up to date, so that the finished runs are reported even if the benchmark is stopped.
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(reportPath), report);
+      }
+    }
+  }
+
+  /**
+   * Runs a query under a policy.
+   * @param query the query number.
+   * @param policy the optimization policy.
+   * @param workDirectory the working directory.
+   * @param dataDirectory the directory of the generated data.
+   * @param executorJson the executor resource file.
+   * @return the result of the run.
+   */
+  private static ObjectNode run(final int query,
+                                final String policy,
+                                final File workDirectory,
+                                final File dataDirectory,
+                                final String executorJson) {
+    final String policyName = policy.substring(policy.lastIndexOf('.') + 1);
+    final String runName = "q" + query + "-" + policyName;
+    final File metricFile = new File(workDirectory, "metrics/" + runName + ".json");
+    final File outputDirectory = new File(workDirectory, "output/" + policyName);
+    metricFile.getParentFile().mkdirs();
+    metricFile.delete();
+    outputDirectory.mkdirs();
+
+    final ObjectNode result = OBJECT_MAPPER.createObjectNode();
+    result.put("query", query);
+    result.put("policy", policy);
+
+    final String[] args = new ArgBuilder()
+        .addJobId("tpch-" + runName)
+        .addUserMain(Tpch.class.getCanonicalName())
+        .addUserArgs(String.valueOf(query), dataDirectory.getPath() + File.separator,
+            new File(outputDirectory, "q" + query).getPath())
+        .addOptimizationPolicy(policy)
+        .addResourceJson(executorJson)
+        .build();
+    final List<String> argList = new ArrayList<>(Arrays.asList(args));
+    argList.add("-metric_dump_path");
+    argList.add(metricFile.getPath());
+
+    LOG.info("Running TPC-H query {} under {}", query, policy);
+    String error = null;
+    final long startTime = System.currentTimeMillis();
+    try {
+      JobLauncher.main(argList.toArray(new String[0]));
+    } catch (final Exception e) {
+      LOG.warn("TPC-H query " + query + " failed under " + policy, e);
+      error = e.toString();
+    }
+    result.put("wallTimeMs", System.currentTimeMillis() - startTime);
+
+    try {
+      if (metricFile.exists()) {
+        addMetrics(result, OBJECT_MAPPER.readTree(metricFile));
+      } else if (error == null) {
+        error = "No metrics were dumped";
+      }
+    } catch (final IOException e) {
+      LOG.warn("Failed to read the metrics of " + runName, e);
+      error = error == null ? e.toString() : error;
+    }
+    if (error == null && !"COMPLETE".equals(result.path("jobState").asText())) {
+      error = "The job ended in state " + result.path("jobState").asText();
+    }
+
+    result.put("status", error == null ? "SUCCEEDED" : "FAILED");
+    if (error != null) {
+      result.put("error", error);
+    }
+    return result;
+  }
+
+  /**
+   * Adds the job time, the bytes written to blocks and the peak executor heap usage to the result of a run.
+   * @param result the result of the run.
+   * @param metrics the metrics dumped by the driver.
+   */
+  private static void addMetrics(final ObjectNode result, final JsonNode metrics) {
+    final Iterator<JsonNode> jobMetrics = metrics.path("JobMetric").elements();
+    if (jobMetrics.hasNext()) {
+      final JsonNode events = jobMetrics.next().path("data").path("stateTransitionEvents");
+      if (events.size() > 0) {
+        final JsonNode lastEvent = events.get(events.size() - 1);
+        result.put("jobState", lastEvent.path("newState").asText());
+        result.put("jobTimeMs", lastEvent.path("timestamp").asLong() - events.get(0).path("timestamp").asLong());
+      }
+    }
+
+    long blockWrittenBytes = 0;
+    for (final JsonNode taskMetric : metrics.path("TaskMetric")) {
+      blockWrittenBytes += Math.max(0, taskMetric.path("data").path("writtenBytes").asLong());
+    }
+    result.put("blockWrittenBytes", blockWrittenBytes);
+
+    long peakExecutorHeapBytes = 0;
+    for (final JsonNode executorMetric : metrics.path("ExecutorMetric")) {
+      peakExecutorHeapBytes =
+          Math.max(peakExecutorHeapBytes, executorMetric.path("data").path("peakHeapBytes").asLong());
+    }
+    result.put("peakExecutorHeapBytes", peakExecutorHeapBytes);
+  }
+}
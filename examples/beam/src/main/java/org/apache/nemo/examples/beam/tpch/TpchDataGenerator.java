@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.examples.beam.tpch;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Generates the TPC-H tables at a scale factor, in the '|'-separated .tbl format read by {@link Tpch}.
+ * The cardinalities, keys and value domains follow the TPC-H specification (as in its dbgen tool), while the
+ * free-text columns are drawn from a smaller vocabulary that still contains the words the queries look for.
+ * The data only depends on the scale factor: each table is generated from its own fixed seed.
+ */
+public final class TpchDataGenerator {
+  private static final LocalDate START_DATE = LocalDate.of(1992, 1, 1);
+  private static final LocalDate CURRENT_DATE = LocalDate.of(1995, 6, 17);
+  // The last order date, 151 days before the end date 1998-12-31.
+  private static final int NUM_ORDER_DAYS = (int) (LocalDate.of(1998, 8, 2).toEpochDay() - START_DATE.toEpochDay());
+
+  private static final String[] REGIONS = {"AFRICA", "AMERICA", "ASIA", "EUROPE", "MIDDLE EAST"};
+  private static final String[] NATIONS = {"ALGERIA", "ARGENTINA", "BRAZIL", "CANADA", "EGYPT", "ETHIOPIA", "FRANCE",
+      "GERMANY", "INDIA", "INDONESIA", "IRAN", "IRAQ", "JAPAN", "JORDAN", "KENYA", "MOROCCO", "MOZAMBIQUE", "PERU",
+      "CHINA", "ROMANIA", "SAUDI ARABIA", "VIETNAM", "RUSSIA", "UNITED KINGDOM", "UNITED STATES"};
+  private static final int[] NATION_REGIONS = {0, 1, 1, 1, 4, 0, 3, 3, 2, 2, 4, 4, 2, 4, 0, 0, 0, 1, 2, 3, 4, 2, 3, 3,
+      1};
+  private static final String[] COLORS = {"almond", "antique", "aquamarine", "azure", "beige", "bisque", "black",
+      "blanched", "blue", "blush", "brown", "burlywood", "burnished", "chartreuse", "chiffon", "chocolate", "coral",
+      "cornflower", "cornsilk", "cream", "cyan", "dark", "deep", "dim", "dodger", "drab", "firebrick", "floral",
+      "forest", "frosted", "gainsboro", "ghost", "goldenrod", "green", "grey", "honeydew", "hot", "indian", "ivory",
+      "khaki", "lace", "lavender", "lawn", "lemon", "light", "lime", "linen", "magenta", "maroon", "medium",
+      "metallic", "midnight", "mint", "misty", "moccasin", "navajo", "navy", "olive", "orange", "orchid", "pale",
+      "papaya", "peach", "peru", "pink", "plum", "powder", "puff", "purple", "red", "rose", "rosy", "royal",
+      "saddle", "salmon", "sandy", "seashell", "sienna", "sky", "slate", "smoke", "snow", "spring", "steel", "tan",
+      "thistle", "tomato", "turquoise", "violet", "wheat", "white", "yellow"};
+  private static final String[] TYPE_SIZES = {"STANDARD", "SMALL", "MEDIUM", "LARGE", "ECONOMY", "PROMO"};
+  private static final String[] TYPE_FINISHES = {"ANODIZED", "BURNISHED", "PLATED", "POLISHED", "BRUSHED"};
+  private static final String[] TYPE_MATERIALS = {"TIN", "NICKEL", "BRASS", "STEEL", "COPPER"};
+  private static final String[] CONTAINER_SIZES = {"SM", "LG", "MED", "JUMBO", "WRAP"};
+  private static final String[] CONTAINER_TYPES = {"CASE", "BOX", "BAG", "JAR", "PKG", "PACK", "CAN", "DRUM"};
+  private static final String[] SEGMENTS = {"AUTOMOBILE", "BUILDING", "FURNITURE", "MACHINERY", "HOUSEHOLD"};
+  private static final String[] PRIORITIES = {"1-URGENT", "2-HIGH", "3-MEDIUM", "4-NOT SPECIFIED", "5-LOW"};
+  private static final String[] INSTRUCTIONS = {"DELIVER IN PERSON", "COLLECT COD", "NONE", "TAKE BACK RETURN"};
+  private static final String[] MODES = {"REG AIR", "AIR", "RAIL", "SHIP", "TRUCK", "MAIL", "FOB"};
+  private static final String[] WORDS = {"furiously", "quickly", "carefully", "blithely", "slyly", "ironic",
+      "final", "regular", "express", "pending", "bold", "even", "silent", "unusual", "special", "packages",
+      "requests", "accounts", "deposits", "foxes", "ideas", "theodolites", "pinto", "beans", "instructions",
+      "dependencies", "excuses", "platelets", "asymptotes", "courts", "dolphins", "sleep", "wake", "are", "haggle",
+      "nag", "use", "boost", "affix", "detect", "integrate", "cajole", "among", "across", "about", "after"};
+
+  /**
+   * Private constructor.
+   */
+  private TpchDataGenerator() {
+  }
+
+  /**
+   * Generates all tables into a directory, as "table name".tbl files.
+   * @param scaleFactor the TPC-H scale factor, e.g. 1 for the 1GB data set. Fractions are allowed.
+   * @param directory   the directory to write the tables to. Created if it does not exist.
+   * @throws IOException if a table could not be written.
+   */
+  public static void generate(final double scaleFactor, final File directory) throws IOException {
+    if (scaleFactor <= 0) {
+      throw new IllegalArgumentException("Invalid scale factor " + scaleFactor);
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create " + directory);
+    }
+
+    final long numSuppliers = Math.max(1, (long) (10000 * scaleFactor));
+    final long numParts = Math.max(1, (long) (200000 * scaleFactor));
+    final long numCustomers = Math.max(1, (long) (150000 * scaleFactor));
+    final long numOrders = Math.max(1, (long) (1500000 * scaleFactor));
+    final long numClerks = Math.max(1, (long) (1000 * scaleFactor));
+
+    try (final BufferedWriter writer = newWriter(directory, "region")) {
+      final Random random = new Random(1);
+      for (int i = 0; i < REGIONS.length; i++) {
+        writeRow(writer, i, REGIONS[i], comment(random, 31, 115));
+      }
+    }
+
+    try (final BufferedWriter writer = newWriter(directory, "nation")) {
+      final Random random = new Random(2);
+      for (int i = 0; i < NATIONS.length; i++) {
+        writeRow(writer, i, NATIONS[i], NATION_REGIONS[i], comment(random, 31, 114));
+      }
+    }
+
+    try (final BufferedWriter writer = newWriter(directory, "supplier")) {
+      final Random random = new Random(3);
+      for (long suppKey = 1; suppKey <= numSuppliers; suppKey++) {
+        final int nationKey = random.nextInt(NATIONS.length);
+        String comment = comment(random, 25, 100);
+        // As in dbgen, a few suppliers have complaints or recommendations (Q16).
+        final int remark = random.nextInt(2000);
+        if (remark < 5) {
+          comment = comment + " Customer " + WORDS[random.nextInt(WORDS.length)] + " Complaints";
+        } else if (remark < 10) {
+          comment = comment + " Customer " + WORDS[random.nextInt(WORDS.length)] + " Recommends";
+        }
+        writeRow(writer, suppKey, String.format("Supplier#%09d", suppKey), address(random), nationKey,
+            phone(random, nationKey), money(random, -99999, 999999), comment);
+      }
+    }
+
+    try (final BufferedWriter writer = newWriter(directory, "part")) {
+      final Random random = new Random(4);
+      for (long partKey = 1; partKey <= numParts; partKey++) {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+          name.append(i == 0 ? "" : " ").append(COLORS[random.nextInt(COLORS.length)]);
+        }
+        final int manufacturer = 1 + random.nextInt(5);
+        writeRow(writer, partKey, name, "Manufacturer#" + manufacturer,
+            "Brand#" + manufacturer + (1 + random.nextInt(5)),
+            TYPE_SIZES[random.nextInt(TYPE_SIZES.length)] + " " + TYPE_FINISHES[random.nextInt(TYPE_FINISHES.length)]
+                + " " + TYPE_MATERIALS[random.nextInt(TYPE_MATERIALS.length)],
+            1 + random.nextInt(50),
+            CONTAINER_SIZES[random.nextInt(CONTAINER_SIZES.length)] + " "
+                + CONTAINER_TYPES[random.nextInt(CONTAINER_TYPES.length)],
+            formatMoney(retailPriceCents(partKey)), comment(random, 5, 22));
+      }
+    }
+
+    try (final BufferedWriter writer = newWriter(directory, "partsupp")) {
+      final Random random = new Random(5);
+      for (long partKey = 1; partKey <= numParts; partKey++) {
+        for (int i = 0; i < 4; i++) {
+          writeRow(writer, partKey, supplierOfPart(partKey, i, numSuppliers), 1 + random.nextInt(9999),
+              money(random, 100, 100000), comment(random, 49, 198));
+        }
+      }
+    }
+
+    try (final BufferedWriter writer = newWriter(directory, "customer")) {
+      final Random random = new Random(6);
+      for (long custKey = 1; custKey <= numCustomers; custKey++) {
+        final int nationKey = random.nextInt(NATIONS.length);
+        writeRow(writer, custKey, String.format("Customer#%09d", custKey), address(random), nationKey,
+            phone(random, nationKey), money(random, -99999, 999999), SEGMENTS[random.nextInt(SEGMENTS.length)],
+            comment(random, 29, 116));
+      }
+    }
+
+    try (final BufferedWriter orderWriter = newWriter(directory, "orders");
+         final BufferedWriter lineItemWriter = newWriter(directory, "lineitem")) {
+      final Random random = new Random(7);
+      final StringBuilder lineItems = new StringBuilder();
+      for (long i = 0; i < numOrders; i++) {
+        // As in dbgen, only the first 8 of every 32 keys are used.
+        final long orderKey = (i / 8) * 32 + (i % 8) + 1;
+        // As in dbgen, customers whose key is a multiple of 3 have no order (Q13, Q22).
+        long custKey = 1 + (long) (random.nextDouble() * numCustomers);
+        if (custKey % 3 == 0) {
+          custKey = custKey == numCustomers ? 1 : custKey + 1;
+        }
+        final LocalDate orderDate = START_DATE.plusDays(random.nextInt(NUM_ORDER_DAYS + 1));
+
+        lineItems.setLength(0);
+        long totalPriceCents = 0;
+        int numShipped = 0;
+        final int numLineItems = 1 + random.nextInt(7);
+        for (int lineNumber = 1; lineNumber <= numLineItems; lineNumber++) {
+          final long partKey = 1 + (long) (random.nextDouble() * numParts);
+          final long suppKey = supplierOfPart(partKey, random.nextInt(4), numSuppliers);
+          final int quantity = 1 + random.nextInt(50);
+          final long extendedPriceCents = quantity * retailPriceCents(partKey);
+          final int discount = random.nextInt(11);
+          final int tax = random.nextInt(9);
+          final LocalDate shipDate = orderDate.plusDays(1 + random.nextInt(121));
+          final LocalDate commitDate = orderDate.plusDays(30 + random.nextInt(61));
+          final LocalDate receiptDate = shipDate.plusDays(1 + random.nextInt(30));
+          final String returnFlag = receiptDate.isAfter(CURRENT_DATE) ? "N" : (random.nextBoolean() ? "R" : "A");
+          final boolean isShipped = !shipDate.isAfter(CURRENT_DATE);
+          numShipped += isShipped ? 1 : 0;
+          totalPriceCents += extendedPriceCents * (100 + tax) * (100 - discount) / 10000;
+          appendRow(lineItems, orderKey, partKey, suppKey, lineNumber, quantity, formatMoney(extendedPriceCents),
+              formatMoney(discount), formatMoney(tax), returnFlag, isShipped ? "F" : "O", shipDate, commitDate,
+              receiptDate, INSTRUCTIONS[random.nextInt(INSTRUCTIONS.length)], MODES[random.nextInt(MODES.length)],
+              comment(random, 10, 43));
+        }
+
+        final String orderStatus = numShipped == numLineItems ? "F" : (numShipped == 0 ? "O" : "P");
+        writeRow(orderWriter, orderKey, custKey, orderStatus, formatMoney(totalPriceCents), orderDate,
+            PRIORITIES[random.nextInt(PRIORITIES.length)],
+            String.format("Clerk#%09d", 1 + (long) (random.nextDouble() * numClerks)), 0,
+            orderComment(random));
+        lineItemWriter.append(lineItems);
+      }
+    }
+  }
+
+  private static BufferedWriter newWriter(final File directory, final String table) throws IOException {
+    return Files.newBufferedWriter(new File(directory, table + ".tbl").toPath(), StandardCharsets.UTF_8);
+  }
+
+  private static void writeRow(final BufferedWriter writer, final Object... values) throws IOException {
+    final StringBuilder row = new StringBuilder();
+    appendRow(row, values);
+    writer.append(row);
+  }
+
+  private static void appendRow(final StringBuilder row, final Object... values) {
+    for (final Object value : values) {
+      row.append(value).append('|');
+    }
+    row.append('\n');
+  }
+
+  /**
+   * @param partKey the key of a part.
+   * @return the retail price of the part in cents, as defined by the specification.
+   */
+  private static long retailPriceCents(final long partKey) {
+    return 90000 + ((partKey / 10) % 20001) + 100 * (partKey % 1000);
+  }
+
+  /**
+   * @param partKey      the key of a part.
+   * @param index        the index of the supplier of the part, from 0 to 3.
+   * @param numSuppliers the number of suppliers.
+   * @return the key of the supplier, as defined by the specification.
+   */
+  private static long supplierOfPart(final long partKey, final int index, final long numSuppliers) {
+    return (partKey + index * (numSuppliers / 4 + (partKey - 1) / numSuppliers)) % numSuppliers + 1;
+  }
+
+  private static String formatMoney(final long cents) {
+    return String.format("%s%d.%02d", cents < 0 ? "-" : "", Math.abs(cents) / 100, Math.abs(cents) % 100);
+  }
+
+  private static String money(final Random random, final int minCents, final int maxCents) {
+    return formatMoney(minCents + random.nextInt(maxCents - minCents + 1));
+  }
+
+  private static String phone(final Random random, final int nationKey) {
+    return String.format("%d-%03d-%03d-%04d", 10 + nationKey,
+        100 + random.nextInt(900), 100 + random.nextInt(900), 1000 + random.nextInt(9000));
+  }
+
+  private static String address(final Random random) {
+    final int length = 10 + random.nextInt(31);
+    final StringBuilder address = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      final int c = random.nextInt(62);
+      address.append((char) (c < 10 ? '0' + c : (c < 36 ? 'a' + c - 10 : 'A' + c - 36)));
+    }
+    return address.toString();
+  }
+
+  private static String comment(final Random random, final int minLength, final int maxLength) {
+    final int length = minLength + random.nextInt(maxLength - minLength + 1);
+    final StringBuilder comment = new StringBuilder(maxLength + 16);
+    while (comment.length() < length) {
+      comment.append(comment.length() == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    comment.setLength(Math.min(comment.length(), maxLength));
+    return comment.toString().trim();
+  }
+
+  private static String orderComment(final Random random) {
+    // Some order comments mention special requests (Q13).
+    return random.nextInt(100) == 0
+        ? comment(random, 5, 20) + " special " + comment(random, 5, 20) + " requests"
+        : comment(random, 19, 78);
+  }
+}
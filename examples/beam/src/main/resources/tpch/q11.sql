@@ -0,0 +1,56 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- The scalar subquery is joined on the nation, and the parts are compared with it after grouping them.
+select
+  ps_partkey,
+  max(part_value) as part_value
+from
+  (
+    select
+      ps_partkey,
+      n_name,
+      sum(ps_supplycost * ps_availqty) as part_value
+    from
+      partsupp,
+      supplier,
+      nation
+    where
+      ps_suppkey = s_suppkey
+      and s_nationkey = n_nationkey
+      and n_name = 'GERMANY'
+    group by
+      ps_partkey,
+      n_name
+  ) as part_values,
+  (
+    select
+      n_name as total_nation,
+      sum(ps_supplycost * ps_availqty) * 0.0001 as threshold
+    from
+      partsupp,
+      supplier,
+      nation
+    where
+      ps_suppkey = s_suppkey
+      and s_nationkey = n_nationkey
+      and n_name = 'GERMANY'
+    group by
+      n_name
+  ) as total_value
+where
+  n_name = total_nation
+group by
+  ps_partkey
+having
+  max(part_value) > max(threshold)
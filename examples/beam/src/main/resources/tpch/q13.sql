@@ -0,0 +1,30 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+select
+  c_count,
+  count(*) as custdist
+from
+  (
+    select
+      c_custkey,
+      count(o_orderkey) as c_count
+    from
+      customer left outer join orders on
+        c_custkey = o_custkey
+        and o_comment not like '%special%requests%'
+    group by
+      c_custkey
+  ) as c_orders
+group by
+  c_count
@@ -0,0 +1,51 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+select
+  s_suppkey,
+  s_name,
+  s_address,
+  s_phone,
+  total_revenue
+from
+  supplier,
+  (
+    select
+      l_suppkey as supplier_no,
+      sum(l_extendedprice * (1 - l_discount)) as total_revenue
+    from
+      lineitem
+    where
+      l_shipdate >= '1996-01-01'
+      and l_shipdate < '1996-04-01'
+    group by
+      l_suppkey
+  ) as revenue0
+where
+  s_suppkey = supplier_no
+  and total_revenue = (
+    select
+      max(total_revenue)
+    from
+      (
+        select
+          sum(l_extendedprice * (1 - l_discount)) as total_revenue
+        from
+          lineitem
+        where
+          l_shipdate >= '1996-01-01'
+          and l_shipdate < '1996-04-01'
+        group by
+          l_suppkey
+      ) as revenue1
+  )
@@ -0,0 +1,33 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- The correlated subquery is decorrelated into the average quantity of each part, compared within the sum.
+select
+  sum(case when l_quantity < avg_quantity then l_extendedprice else 0 end) / 7.0 as avg_yearly
+from
+  lineitem,
+  part,
+  (
+    select
+      l_partkey as agg_partkey,
+      0.2 * avg(l_quantity) as avg_quantity
+    from
+      lineitem
+    group by
+      l_partkey
+  ) as part_agg
+where
+  p_partkey = l_partkey
+  and agg_partkey = p_partkey
+  and p_brand = 'Brand#23'
+  and p_container = 'MED BOX'
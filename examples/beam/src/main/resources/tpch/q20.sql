@@ -0,0 +1,55 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- The subqueries are decorrelated into the shipped quantity of each part and supplier,
+-- and the suppliers with excess parts are grouped, so that joining them keeps each supplier once.
+select
+  s_name,
+  s_address
+from
+  supplier,
+  nation,
+  (
+    select
+      ps_suppkey as excess_suppkey
+    from
+      partsupp,
+      part,
+      (
+        select
+          l_partkey as agg_partkey,
+          l_suppkey as agg_suppkey,
+          0.5 * sum(l_quantity) as agg_quantity
+        from
+          lineitem
+        where
+          l_shipdate >= '1994-01-01'
+          and l_shipdate < '1995-01-01'
+        group by
+          l_partkey,
+          l_suppkey
+      ) as shipped
+    where
+      ps_partkey = p_partkey
+      and p_name like 'forest%'
+      and agg_partkey = ps_partkey
+      and agg_suppkey = ps_suppkey
+    group by
+      ps_suppkey
+    having
+      max(case when ps_availqty > agg_quantity then 1 else 0 end) = 1
+  ) as excess
+where
+  s_suppkey = excess_suppkey
+  and s_nationkey = n_nationkey
+  and n_name = 'CANADA'
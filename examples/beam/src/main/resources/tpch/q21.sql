@@ -0,0 +1,50 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- The subqueries are decorrelated into the orders with several suppliers, only one of which was late:
+-- the supplier of the late line item. The line items on time are mapped to bounds of the (positive)
+-- supplier keys rather than to nulls, which the aggregations do not accept.
+select
+  s_name,
+  count(*) as numwait
+from
+  supplier,
+  lineitem l1,
+  orders,
+  nation,
+  (
+    select
+      l_orderkey as multi_orderkey
+    from
+      lineitem
+    group by
+      l_orderkey
+    having
+      max(l_suppkey) > min(l_suppkey)
+      and max(case when l_receiptdate > l_commitdate then l_suppkey else 0 end)
+        = min(case when l_receiptdate > l_commitdate then l_suppkey else 9223372036854775807 end)
+  ) as multi
+where
+  s_suppkey = l1.l_suppkey
+  and o_orderkey = l1.l_orderkey
+  and multi_orderkey = l1.l_orderkey
+  and o_orderstatus = 'F'
+  and l1.l_receiptdate > l1.l_commitdate
+  and s_nationkey = n_nationkey
+  and n_name = 'SAUDI ARABIA'
+group by
+  s_name
+order by
+  numwait desc,
+  s_name
+limit 100
@@ -0,0 +1,57 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- The customers without orders are found by an outer join on the grouped orders, instead of NOT EXISTS,
+-- and the scalar subquery is joined on a constant key, and compared within the aggregates.
+select
+  cntrycode,
+  sum(case when c_acctbal > avg_acctbal then 1 else 0 end) as numcust,
+  sum(case when c_acctbal > avg_acctbal then c_acctbal else 0 end) as totacctbal
+from
+  (
+    select
+      substring(c_phone from 1 for 2) as cntrycode,
+      c_acctbal,
+      1 as join_key
+    from
+      customer
+      left outer join (
+        select
+          o_custkey
+        from
+          orders
+        group by
+          o_custkey
+      ) as ordered on c_custkey = o_custkey
+    where
+      substring(c_phone from 1 for 2) in
+        ('13', '31', '23', '29', '30', '18', '17')
+      and o_custkey is null
+  ) as custsale,
+  (
+    select
+      avg(c_acctbal) as avg_acctbal,
+      1 as avg_key
+    from
+      customer
+    where
+      c_acctbal > 0.00
+      and substring(c_phone from 1 for 2) in
+        ('13', '31', '23', '29', '30', '18', '17')
+  ) as avg_customer
+where
+  join_key = avg_key
+group by
+  cntrycode
+having
+  sum(case when c_acctbal > avg_acctbal then 1 else 0 end) > 0
@@ -0,0 +1,53 @@
+-- Copyright (C) 2018 Seoul National University
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- The nation pairs are matched by an equi-join on a table of the pairs, instead of a disjunction.
+-- The names are cast to VARCHAR so that the join keys are plain columns rather than CHAR casts.
+select
+  supp_nation,
+  cust_nation,
+  l_year,
+  sum(volume) as revenue
+from
+  (
+    select
+      n1.n_name as supp_nation,
+      n2.n_name as cust_nation,
+      substring(l_shipdate from 1 for 4) as l_year,
+      l_extendedprice * (1 - l_discount) as volume
+    from
+      supplier,
+      lineitem,
+      orders,
+      customer,
+      nation n1,
+      nation n2,
+      (
+        values
+          (cast('FRANCE' as varchar), cast('GERMANY' as varchar)),
+          (cast('GERMANY' as varchar), cast('FRANCE' as varchar))
+      ) as nation_pair (supp_name, cust_name)
+    where
+      s_suppkey = l_suppkey
+      and o_orderkey = l_orderkey
+      and c_custkey = o_custkey
+      and s_nationkey = n1.n_nationkey
+      and c_nationkey = n2.n_nationkey
+      and n1.n_name = supp_name
+      and n2.n_name = cust_name
+      and l_shipdate between '1995-01-01' and '1996-12-31'
+  ) as shipping
+group by
+  supp_nation,
+  cust_nation,
+  l_year
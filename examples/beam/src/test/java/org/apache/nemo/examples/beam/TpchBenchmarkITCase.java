@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.examples.beam;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.nemo.client.JobLauncher;
+import org.apache.nemo.examples.beam.policy.DefaultPolicyParallelismFive;
+import org.apache.nemo.examples.beam.policy.LargeShufflePolicyParallelismFive;
+import org.apache.nemo.examples.beam.tpch.TpchBenchmark;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the TPC-H benchmark harness on a small generated data set.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(JobLauncher.class)
+public final class TpchBenchmarkITCase {
+  private static final int TIMEOUT = 300000;
+  private static final String fileBasePath = System.getProperty("user.dir") + "/../resources/";
+  private static final String executorResourceFileName = fileBasePath + "beam_test_executor_resources.json";
+  private Path workDirectory;
+
+  @Before
+  public void setUp() throws Exception {
+    workDirectory = Files.createTempDirectory("nemo-tpch");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try (final Stream<Path> paths = Files.walk(workDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Test (timeout = TIMEOUT)
+  public void test() throws Exception {
+    final JsonNode results = runBenchmark("1,6", DefaultPolicyParallelismFive.class.getCanonicalName() + ","
+        + LargeShufflePolicyParallelismFive.class.getCanonicalName());
+    assertEquals(4, results.size());
+    // Query 1 aggregates the line items by their flags, which writes the shuffled data to blocks.
+    assertTrue(results.get(0).get("blockWrittenBytes").asLong() > 0);
+    assertTrue(results.get(2).get("blockWrittenBytes").asLong() > 0);
+  }
+
+  @Test (timeout = TIMEOUT)
+  public void testRewrittenQueries() throws Exception {
+    // Queries rewritten to the subset of SQL that Beam SQL plans: the nation pairs of query 7 are joined,
+    // and the correlated subqueries of queries 17, 21 and 22 are decorrelated into grouped derived tables.
+    final JsonNode results = runBenchmark("7,17,21,22", DefaultPolicyParallelismFive.class.getCanonicalName());
+    assertEquals(4, results.size());
+  }
+
+  /**
+   * Runs the benchmark at a small scale factor, and checks that every run succeeded.
+   * @param queries the comma-separated query numbers.
+   * @param policies the comma-separated optimization policies.
+   * @return the results of the runs.
+   * @throws Exception when failed to run the benchmark or to read the report.
+   */
+  private JsonNode runBenchmark(final String queries, final String policies) throws Exception {
+    final File report = workDirectory.resolve("report.json").toFile();
+    TpchBenchmark.main(new String[] {"0.001", workDirectory.toString(), report.getPath(), queries, policies,
+        executorResourceFileName});
+
+    final JsonNode results = new ObjectMapper().readTree(report).get("results");
+    for (final JsonNode result : results) {
+      assertEquals(result.toString(), "SUCCEEDED", result.get("status").asText());
+      assertTrue(result.get("jobTimeMs").asLong() > 0);
+      assertTrue(result.get("peakExecutorHeapBytes").asLong() > 0);
+    }
+    return results;
+  }
+}
@@ -88,6 +88,15 @@ public final class WordCountITCase {
         .build());
   }
 
+  @Test (timeout = TIMEOUT)
+  public void testReadAhead() throws Exception {
+    JobLauncher.main(builder
+        .addResourceJson(executorResourceFileName)
+        .addJobId(WordCountITCase.class.getSimpleName() + "_readAhead")
+        .addOptimizationPolicy(ReadAheadPolicyParallelismFive.class.getCanonicalName())
+        .build());
+  }
+
   @Test (timeout = TIMEOUT)
   public void testConditionalLargeShuffle() throws Exception {
     JobLauncher.main(builder
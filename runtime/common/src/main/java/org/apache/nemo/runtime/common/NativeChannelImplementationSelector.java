@@ -15,10 +15,12 @@
  */
 package org.apache.nemo.runtime.common;
 
+import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.epoll.EpollSocketChannel;
@@ -69,4 +71,13 @@ public final class NativeChannelImplementationSelector implements NettyChannelIm
   public Class<? extends Channel> getChannelClass() {
     return CHANNEL_CLASS;
   }
+
+  @Override
+  public boolean setReusePort(final ServerBootstrap serverBootstrap) {
+    if (!Epoll.isAvailable()) {
+      return false;
+    }
+    serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+    return true;
+  }
 }
@@ -15,6 +15,7 @@
  */
 package org.apache.nemo.runtime.common;
 
+import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
@@ -45,4 +46,11 @@ public interface NettyChannelImplementationSelector {
    * @return class for channel
    */
   Class<? extends Channel> getChannelClass();
+
+  /**
+   * Lets the server channels of the specified bootstrap bind to the same port, if supported.
+   * @param serverBootstrap the {@link ServerBootstrap} to configure
+   * @return whether multiple server channels can bind to the same port
+   */
+  boolean setReusePort(ServerBootstrap serverBootstrap);
 }
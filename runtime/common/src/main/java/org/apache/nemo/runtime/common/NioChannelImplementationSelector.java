@@ -15,6 +15,7 @@
  */
 package org.apache.nemo.runtime.common;
 
+import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
@@ -51,4 +52,9 @@ public final class NioChannelImplementationSelector implements NettyChannelImple
   public Class<? extends Channel> getChannelClass() {
     return NioSocketChannel.class;
   }
+
+  @Override
+  public boolean setReusePort(final ServerBootstrap serverBootstrap) {
+    return false;
+  }
 }
@@ -33,6 +33,7 @@ public interface MessageEnvironment {
   String RUNTIME_MASTER_MESSAGE_LISTENER_ID = "RUNTIME_MASTER_MESSAGE_LISTENER_ID";
   String BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID = "BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID";
   String EXECUTOR_MESSAGE_LISTENER_ID = "EXECUTOR_MESSAGE_LISTENER_ID";
+  String BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID = "BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID";
 
   /**
    * Set up a {@link MessageListener} with a listener id.
@@ -203,6 +203,10 @@ public final class NcsMessageEnvironment implements MessageEnvironment {
       case MetricMessageReceived:
       case RequestMetricFlush:
       case MetricFlushed:
+      case ExecutorLoad:
+      case SubscribeBlockLocations:
+      case BlockLocationUpdate:
+      case BlockLocationInvalidation:
         return MessageType.Send;
       case RequestBlockLocation:
       case RequestBroadcastVariable:
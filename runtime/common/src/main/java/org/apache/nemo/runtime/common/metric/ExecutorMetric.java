@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metric class for an executor.
+ */
+public class ExecutorMetric implements Metric {
+  private String id;
+  private long numSpilledBlocks = 0;
+  private long spilledBytes = 0;
+  private long peakHeapBytes = 0;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExecutorMetric.class.getName());
+
+  public ExecutorMetric(final String id) {
+    this.id = id;
+  }
+
+  public final long getNumSpilledBlocks() {
+    return numSpilledBlocks;
+  }
+
+  private void setNumSpilledBlocks(final long numSpilledBlocks) {
+    this.numSpilledBlocks = numSpilledBlocks;
+  }
+
+  public final long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  private void setSpilledBytes(final long spilledBytes) {
+    this.spilledBytes = spilledBytes;
+  }
+
+  /**
+   * @return the sum of the peak usages of the heap memory pools of the executor, an upper bound of its peak heap usage.
+   */
+  public final long getPeakHeapBytes() {
+    return peakHeapBytes;
+  }
+
+  private void setPeakHeapBytes(final long peakHeapBytes) {
+    this.peakHeapBytes = peakHeapBytes;
+  }
+
+  @Override
+  public final String getId() {
+    return id;
+  }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final byte[] metricValue) {
+    LOG.warn("metricField {} is not supported.", metricField);
+    return false;
+  }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final long metricValue) {
+    LOG.debug("metric {} is just arrived!", metricField);
+    switch (metricField) {
+      case "numSpilledBlocks":
+        setNumSpilledBlocks(metricValue);
+        break;
+      case "spilledBytes":
+        setSpilledBytes(metricValue);
+        break;
+      case "peakHeapBytes":
+        setPeakHeapBytes(metricValue);
+        break;
+      default:
+        LOG.warn("metricField {} is not supported.", metricField);
+        return false;
+    }
+    return true;
+  }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final String metricValue) {
+    LOG.warn("metricField {} is not supported.", metricField);
+    return false;
+  }
+}
@@ -33,6 +33,7 @@ public final class JobMetric implements StateMetric<PlanState.State> {
   private String id;
   private List<StateTransitionEvent<PlanState.State>> stateTransitionEvents = new ArrayList<>();
   private JsonNode stageDagJson;
+  private final TimeSeries numCompletedTasks = new TimeSeries(1000, 128);
 
   public JobMetric(final PhysicalPlan physicalPlan) {
     this.id = physicalPlan.getPlanId();
@@ -57,6 +58,13 @@ public final class JobMetric implements StateMetric<PlanState.State> {
     }
   }
 
+  /**
+   * @return the number of tasks completed over time, downsampled as the job runs longer.
+   */
+  public TimeSeries getNumCompletedTasks() {
+    return numCompletedTasks;
+  }
+
   @Override
   public String getId() {
     return id;
@@ -77,4 +85,16 @@ public final class JobMetric implements StateMetric<PlanState.State> {
     // do nothing
     return false;
   }
+
+  @Override
+  public boolean processMetricMessage(final String metricField, final long metricValue) {
+    // do nothing
+    return false;
+  }
+
+  @Override
+  public boolean processMetricMessage(final String metricField, final String metricValue) {
+    // do nothing
+    return false;
+  }
 }
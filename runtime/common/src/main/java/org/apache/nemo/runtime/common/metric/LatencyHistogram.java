@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * A histogram of latencies in nanoseconds, with buckets of logarithmically increasing widths.
+ * Each power of two is split into {@link #NUM_SUB_BUCKETS} buckets, so a reported value is within 12.5% of
+ * the recorded one. Recording a value is a few arithmetic operations on a fixed array, without allocation.
+ *
+ * <p>Only the non-empty buckets are serialized, as most of the buckets of a latency histogram stay empty.
+ * A histogram can also be summarized, which drops the buckets and keeps the reported statistics.</p>
+ *
+ * <p>Not thread-safe: a histogram is recorded by a single task thread, and merged after the recording is done.</p>
+ */
+public final class LatencyHistogram implements Serializable {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int NUM_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Values below NUM_SUB_BUCKETS have a bucket each, and larger ones NUM_SUB_BUCKETS buckets per power of two.
+  private static final int NUM_BUCKETS = NUM_SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * NUM_SUB_BUCKETS;
+
+  // The counts of the buckets, or null if summarized.
+  private transient long[] counts = new long[NUM_BUCKETS];
+  private long count = 0;
+  private long total = 0;
+  private long max = 0;
+  // The reported percentiles, which are kept only when summarized.
+  private long p50 = 0;
+  private long p90 = 0;
+  private long p99 = 0;
+
+  /**
+   * Records a latency.
+   * @param nanos the latency in nanoseconds. Negative values are recorded as zero.
+   */
+  public void record(final long nanos) {
+    record(nanos, 1);
+  }
+
+  /**
+   * Records the same latency multiple times.
+   * @param nanos       the latency in nanoseconds. Negative values are recorded as zero.
+   * @param repetitions the number of times to record the latency
+   */
+  public void record(final long nanos, final long repetitions) {
+    ensureNotSummarized();
+    final long value = Math.max(0, nanos);
+    counts[getBucketIndex(value)] += repetitions;
+    count += repetitions;
+    total += value * repetitions;
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Adds the latencies recorded in another histogram to this histogram.
+   * @param other the histogram to merge
+   */
+  public void merge(final LatencyHistogram other) {
+    ensureNotSummarized();
+    other.ensureNotSummarized();
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    total += other.total;
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * @return the number of recorded latencies.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the sum of recorded latencies, in nanoseconds.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * @return the maximum recorded latency, in nanoseconds.
+   */
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * @return the mean of recorded latencies, in nanoseconds.
+   */
+  public long getMean() {
+    return count == 0 ? 0 : total / count;
+  }
+
+  /**
+   * @return the median latency, in nanoseconds.
+   */
+  public long getP50() {
+    return isSummarized() ? p50 : getValueAtPercentile(50);
+  }
+
+  /**
+   * @return the 90th percentile latency, in nanoseconds.
+   */
+  public long getP90() {
+    return isSummarized() ? p90 : getValueAtPercentile(90);
+  }
+
+  /**
+   * @return the 99th percentile latency, in nanoseconds.
+   */
+  public long getP99() {
+    return isSummarized() ? p99 : getValueAtPercentile(99);
+  }
+
+  /**
+   * Drops the buckets, keeping the count, the total, the maximum and the reported percentiles.
+   * A summarized histogram can not be recorded, merged, or queried for other percentiles.
+   */
+  public void summarize() {
+    if (!isSummarized()) {
+      p50 = getP50();
+      p90 = getP90();
+      p99 = getP99();
+      counts = null;
+    }
+  }
+
+  private boolean isSummarized() {
+    return counts == null;
+  }
+
+  private void ensureNotSummarized() {
+    if (isSummarized()) {
+      throw new IllegalStateException("The buckets of the histogram are dropped");
+    }
+  }
+
+  /**
+   * Returns the latency below or at which the given percentage of the recorded latencies are.
+   * @param percentile the percentage, in (0, 100]
+   * @return the highest value of the bucket of the latency, capped by the maximum, in nanoseconds.
+   */
+  public long getValueAtPercentile(final double percentile) {
+    ensureNotSummarized();
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(max, getBucketUpperBound(i));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Writes the statistics, and the indices and the counts of the non-empty buckets.
+   * @param out the stream to write to
+   * @throws IOException if failed to write
+   */
+  private void writeObject(final ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    if (isSummarized()) {
+      out.writeInt(-1);
+      return;
+    }
+    int numNonEmptyBuckets = 0;
+    for (final long bucketCount : counts) {
+      if (bucketCount != 0) {
+        numNonEmptyBuckets++;
+      }
+    }
+    out.writeInt(numNonEmptyBuckets);
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      if (counts[i] != 0) {
+        out.writeShort(i);
+        out.writeLong(counts[i]);
+      }
+    }
+  }
+
+  /**
+   * Reads the statistics and the non-empty buckets written by {@link #writeObject(ObjectOutputStream)}.
+   * @param in the stream to read from
+   * @throws IOException            if failed to read
+   * @throws ClassNotFoundException if the class of a field is not found
+   */
+  private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    final int numNonEmptyBuckets = in.readInt();
+    if (numNonEmptyBuckets >= 0) {
+      counts = new long[NUM_BUCKETS];
+      for (int i = 0; i < numNonEmptyBuckets; i++) {
+        counts[in.readShort()] = in.readLong();
+      }
+    }
+  }
+
+  /**
+   * @param value a non-negative value
+   * @return the index of the bucket of the value.
+   */
+  private static int getBucketIndex(final long value) {
+    if (value < NUM_SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) - NUM_SUB_BUCKETS;
+    return NUM_SUB_BUCKETS + shift * NUM_SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @param index the index of a bucket
+   * @return the highest value of the bucket.
+   */
+  private static long getBucketUpperBound(final int index) {
+    if (index < NUM_SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = (index - NUM_SUB_BUCKETS) / NUM_SUB_BUCKETS;
+    final long subBucket = NUM_SUB_BUCKETS + (index - NUM_SUB_BUCKETS) % NUM_SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -32,4 +32,20 @@ public interface Metric {
    * @return true if the metric was changed or false if not.
    */
   boolean processMetricMessage(final String metricField, final byte[] metricValue);
+
+  /**
+   * Process metric message of a counter or gauge from evaluators.
+   * @param metricField field name of the metric.
+   * @param metricValue value of the metric.
+   * @return true if the metric was changed or false if not.
+   */
+  boolean processMetricMessage(final String metricField, final long metricValue);
+
+  /**
+   * Process metric message of a string-valued field from evaluators.
+   * @param metricField field name of the metric.
+   * @param metricValue value of the metric.
+   * @return true if the metric was changed or false if not.
+   */
+  boolean processMetricMessage(final String metricField, final String metricValue);
 }
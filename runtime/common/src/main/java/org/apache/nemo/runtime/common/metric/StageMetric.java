@@ -18,8 +18,12 @@ package org.apache.nemo.runtime.common.metric;
 import org.apache.nemo.runtime.common.plan.Stage;
 import org.apache.nemo.runtime.common.state.StageState;
 
+import org.apache.commons.lang3.SerializationUtils;
+
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Metric class for {@link Stage}.
@@ -27,6 +31,7 @@ import java.util.List;
 public class StageMetric implements StateMetric<StageState.State> {
   private String id;
   private List<StateTransitionEvent<StageState.State>> stateTransitionEvents = new ArrayList<>();
+  private Map<String, VertexExecutionMetric> vertexMetrics = new LinkedHashMap<>();
 
   public StageMetric(final Stage stage) {
     this.id = stage.getId();
@@ -41,6 +46,20 @@ public class StageMetric implements StateMetric<StageState.State> {
     return id;
   }
 
+  /**
+   * @return the execution statistics of the vertices, aggregated over the tasks of this stage.
+   */
+  public final Map<String, VertexExecutionMetric> getVertexMetrics() {
+    return vertexMetrics;
+  }
+
+  private void mergeVertexMetrics(final List<VertexExecutionMetric> taskVertexMetrics) {
+    for (final VertexExecutionMetric taskVertexMetric : taskVertexMetrics) {
+      vertexMetrics.computeIfAbsent(taskVertexMetric.getVertexId(), VertexExecutionMetric::new)
+          .merge(taskVertexMetric);
+    }
+  }
+
   @Override
   public final List<StateTransitionEvent<StageState.State>> getStateTransitionEvents() {
     return stateTransitionEvents;
@@ -53,7 +72,21 @@ public class StageMetric implements StateMetric<StageState.State> {
 
   @Override
   public final boolean processMetricMessage(final String metricField, final byte[] metricValue) {
-    // do nothing
+    if ("vertexMetrics".equals(metricField)) {
+      // The vertex metrics of a task of this stage.
+      mergeVertexMetrics(SerializationUtils.deserialize(metricValue));
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final long metricValue) {
+    return false;
+  }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final String metricValue) {
     return false;
   }
 }
@@ -15,11 +15,15 @@
  */
 package org.apache.nemo.runtime.common.metric;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.commons.lang3.SerializationUtils;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +40,7 @@ public class TaskMetric implements StateMetric<TaskState.State> {
   private long boundedSourceReadTime = -1;
   private int scheduleAttempt = -1;
   private String containerId = "";
+  private Map<String, VertexExecutionMetric> vertexMetrics = new LinkedHashMap<>();
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskMetric.class.getName());
 
@@ -91,6 +96,22 @@ public class TaskMetric implements StateMetric<TaskState.State> {
     this.containerId = containerId;
   }
 
+  public final Map<String, VertexExecutionMetric> getVertexMetrics() {
+    return vertexMetrics;
+  }
+
+  /**
+   * Sets the vertex metrics of this task, keeping only the summaries of the latency histograms.
+   * The histograms are aggregated in the {@link StageMetric} of the stage of this task.
+   * @param vertexMetrics the vertex metrics of this task
+   */
+  private void setVertexMetrics(final List<VertexExecutionMetric> vertexMetrics) {
+    for (final VertexExecutionMetric vertexMetric : vertexMetrics) {
+      vertexMetric.summarize();
+      this.vertexMetrics.put(vertexMetric.getVertexId(), vertexMetric);
+    }
+  }
+
   @Override
   public final List<StateTransitionEvent<TaskState.State>> getStateTransitionEvents() {
     return stateTransitionEvents;
@@ -112,30 +133,46 @@ public class TaskMetric implements StateMetric<TaskState.State> {
 
   @Override
   public final boolean processMetricMessage(final String metricField, final byte[] metricValue) {
+    LOG.debug("metric {} is just arrived!", metricField);
+    switch (metricField) {
+      case "stateTransitionEvent":
+        final ControlMessage.StateTransitionEventMsg eventMsg;
+        try {
+          eventMsg = ControlMessage.StateTransitionEventMsg.parseFrom(metricValue);
+        } catch (final InvalidProtocolBufferException e) {
+          throw new RuntimeException(e);
+        }
+        addEvent(new StateTransitionEvent<>(eventMsg.getTimestamp(), null,
+            TaskState.State.valueOf(eventMsg.getNewState())));
+        break;
+      case "vertexMetrics":
+        setVertexMetrics(SerializationUtils.deserialize(metricValue));
+        break;
+      default:
+        LOG.warn("metricField {} is not supported.", metricField);
+        return false;
+    }
+    return true;
+  }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final long metricValue) {
     LOG.debug("metric {} is just arrived!", metricField);
     switch (metricField) {
       case "serializedReadBytes":
-        setSerializedReadBytes(SerializationUtils.deserialize(metricValue));
+        setSerializedReadBytes(metricValue);
         break;
       case "encodedReadBytes":
-        setEncodedReadBytes(SerializationUtils.deserialize(metricValue));
+        setEncodedReadBytes(metricValue);
         break;
       case "boundedSourceReadTime":
-        setBoundedSourceReadTime(SerializationUtils.deserialize(metricValue));
+        setBoundedSourceReadTime(metricValue);
         break;
       case "writtenBytes":
-        setWrittenBytes(SerializationUtils.deserialize(metricValue));
-        break;
-      case "stateTransitionEvent":
-        final StateTransitionEvent<TaskState.State> newStateTransitionEvent =
-            SerializationUtils.deserialize(metricValue);
-        addEvent(newStateTransitionEvent);
+        setWrittenBytes(metricValue);
         break;
       case "scheduleAttempt":
-        setScheduleAttempt(SerializationUtils.deserialize(metricValue));
-        break;
-      case "containerId":
-        setContainerId(SerializationUtils.deserialize(metricValue));
+        setScheduleAttempt((int) metricValue);
         break;
       default:
         LOG.warn("metricField {} is not supported.", metricField);
@@ -143,4 +180,15 @@ public class TaskMetric implements StateMetric<TaskState.State> {
     }
     return true;
   }
+
+  @Override
+  public final boolean processMetricMessage(final String metricField, final String metricValue) {
+    LOG.debug("metric {} is just arrived!", metricField);
+    if ("containerId".equals(metricField)) {
+      setContainerId(metricValue);
+      return true;
+    }
+    LOG.warn("metricField {} is not supported.", metricField);
+    return false;
+  }
 }
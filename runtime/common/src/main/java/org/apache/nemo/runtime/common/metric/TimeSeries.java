@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A time series of values summed over fixed-width time buckets, with a bounded number of buckets.
+ * When a value falls beyond the last bucket, adjacent buckets are merged pairwise and the bucket width doubles,
+ * so the series always covers the whole recorded period at a resolution that decreases as the period grows.
+ *
+ * <p>Not thread-safe: it is updated and serialized under the lock of the metric that contains it.</p>
+ */
+public final class TimeSeries implements Serializable {
+  private final long[] values;
+  private long bucketWidthMs;
+  private long startTimeMs = -1;
+  private int numUsedBuckets = 0;
+
+  /**
+   * Constructor.
+   * @param initialBucketWidthMs the width of a bucket before any downsampling, in milliseconds.
+   * @param maxNumBuckets        the maximum number of buckets. Should be even.
+   */
+  public TimeSeries(final long initialBucketWidthMs, final int maxNumBuckets) {
+    if (initialBucketWidthMs <= 0 || maxNumBuckets < 2 || maxNumBuckets % 2 != 0) {
+      throw new IllegalArgumentException("Invalid bucket width " + initialBucketWidthMs
+          + " or number of buckets " + maxNumBuckets);
+    }
+    this.values = new long[maxNumBuckets];
+    this.bucketWidthMs = initialBucketWidthMs;
+  }
+
+  /**
+   * Adds a value to the bucket of the given time.
+   * Values earlier than the first recorded one are added to the first bucket.
+   * @param timeMs the time of the value, in milliseconds.
+   * @param value  the value to add.
+   */
+  public void record(final long timeMs, final long value) {
+    if (startTimeMs < 0) {
+      startTimeMs = timeMs - timeMs % bucketWidthMs;
+    }
+    long index = Math.max(0, timeMs - startTimeMs) / bucketWidthMs;
+    while (index >= values.length) {
+      downsample();
+      index = (timeMs - startTimeMs) / bucketWidthMs;
+    }
+    values[(int) index] += value;
+    numUsedBuckets = Math.max(numUsedBuckets, (int) index + 1);
+  }
+
+  /**
+   * Merges adjacent buckets pairwise, doubling the bucket width.
+   */
+  private void downsample() {
+    for (int i = 0; i < values.length / 2; i++) {
+      values[i] = values[2 * i] + values[2 * i + 1];
+    }
+    Arrays.fill(values, values.length / 2, values.length, 0);
+    numUsedBuckets = (numUsedBuckets + 1) / 2;
+    bucketWidthMs *= 2;
+  }
+
+  /**
+   * @return the start time of the first bucket in milliseconds, or -1 if nothing has been recorded.
+   */
+  public long getStartTimeMs() {
+    return startTimeMs;
+  }
+
+  /**
+   * @return the current width of a bucket in milliseconds.
+   */
+  public long getBucketWidthMs() {
+    return bucketWidthMs;
+  }
+
+  /**
+   * @return the sum of the values of each bucket, up to the last bucket with a recorded value.
+   */
+  public long[] getValues() {
+    return Arrays.copyOf(values, numUsedBuckets);
+  }
+}
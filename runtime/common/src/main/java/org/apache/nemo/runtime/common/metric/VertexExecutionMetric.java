@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import java.io.Serializable;
+
+/**
+ * Execution statistics of an {@link org.apache.nemo.common.ir.vertex.IRVertex} in a task, or aggregated in a stage.
+ * Element counts are exact, while latencies are recorded for samples of the elements.
+ */
+public final class VertexExecutionMetric implements Serializable {
+  private final String vertexId;
+  private long numProcessedElements = 0;
+  private long numWrittenElements = 0;
+  private final LatencyHistogram fetchWaitLatency = new LatencyHistogram();
+  private final LatencyHistogram fetchLatency = new LatencyHistogram();
+  private final LatencyHistogram transformLatency = new LatencyHistogram();
+  private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+  /**
+   * Constructor.
+   * @param vertexId the id of the vertex.
+   */
+  public VertexExecutionMetric(final String vertexId) {
+    this.vertexId = vertexId;
+  }
+
+  public String getVertexId() {
+    return vertexId;
+  }
+
+  /**
+   * @return the number of elements processed by the vertex.
+   */
+  public long getNumProcessedElements() {
+    return numProcessedElements;
+  }
+
+  /**
+   * @return the number of elements written by the vertex to the children tasks.
+   */
+  public long getNumWrittenElements() {
+    return numWrittenElements;
+  }
+
+  /**
+   * @return the time blocked on waiting for the input data of the vertex from the parent tasks.
+   */
+  public LatencyHistogram getFetchWaitLatency() {
+    return fetchWaitLatency;
+  }
+
+  /**
+   * @return the time to read or decode an input element of the vertex, excluding the waiting time.
+   */
+  public LatencyHistogram getFetchLatency() {
+    return fetchLatency;
+  }
+
+  /**
+   * @return the time for the transform of the vertex to process an element.
+   */
+  public LatencyHistogram getTransformLatency() {
+    return transformLatency;
+  }
+
+  /**
+   * @return the time to partition and serialize an output element of the vertex to the children tasks.
+   */
+  public LatencyHistogram getWriteLatency() {
+    return writeLatency;
+  }
+
+  /**
+   * Counts processed elements.
+   * @param numElements the number of elements to count
+   * @return the number of processed elements before counting.
+   */
+  public long countProcessedElements(final long numElements) {
+    final long previous = numProcessedElements;
+    numProcessedElements += numElements;
+    return previous;
+  }
+
+  /**
+   * Counts written elements.
+   * @param numElements the number of elements to count
+   * @return the number of written elements before counting.
+   */
+  public long countWrittenElements(final long numElements) {
+    final long previous = numWrittenElements;
+    numWrittenElements += numElements;
+    return previous;
+  }
+
+  /**
+   * Adds the statistics of the same vertex in another task to this metric.
+   * @param other the metric to merge
+   */
+  public void merge(final VertexExecutionMetric other) {
+    numProcessedElements += other.numProcessedElements;
+    numWrittenElements += other.numWrittenElements;
+    fetchWaitLatency.merge(other.fetchWaitLatency);
+    fetchLatency.merge(other.fetchLatency);
+    transformLatency.merge(other.transformLatency);
+    writeLatency.merge(other.writeLatency);
+  }
+
+  /**
+   * Drops the buckets of the latency histograms, keeping their reported statistics.
+   * @see LatencyHistogram#summarize()
+   */
+  public void summarize() {
+    fetchWaitLatency.summarize();
+    fetchLatency.summarize();
+    transformLatency.summarize();
+    writeLatency.summarize();
+  }
+}
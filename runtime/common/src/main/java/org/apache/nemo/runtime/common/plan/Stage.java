@@ -26,6 +26,7 @@ import org.apache.nemo.common.ir.vertex.executionproperty.ScheduleGroupProperty;
 import org.apache.commons.lang3.SerializationUtils;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -58,6 +59,21 @@ public final class Stage extends Vertex {
     this.vertexIdToReadables = vertexIdToReadables;
   }
 
+  /**
+   * Constructor for a stage decoded by {@link TaskCodec}, which only carries the id and the execution properties.
+   *
+   * @param stageId             ID of the stage.
+   * @param executionProperties set of {@link VertexExecutionProperty} for this stage
+   */
+  Stage(final String stageId,
+        final ExecutionPropertyMap<VertexExecutionProperty> executionProperties) {
+    super(stageId);
+    this.irDag = null;
+    this.serializedIRDag = null;
+    this.executionProperties = executionProperties;
+    this.vertexIdToReadables = Collections.emptyList();
+  }
+
   /**
    * @return the IRVertex DAG.
    */
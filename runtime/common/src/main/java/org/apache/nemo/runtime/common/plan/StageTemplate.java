@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.plan;
+
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The part of a {@link Task} that is shared by every task of a stage: the serialized IR DAG,
+ * the stage edges and the execution properties.
+ * A template is shipped to each executor once, and subsequent tasks of the stage only carry the template id.
+ */
+public final class StageTemplate implements Serializable {
+  private final String templateId;
+  private final String planId;
+  private final int planVersion;
+  private final List<StageEdge> taskIncomingEdges;
+  private final List<StageEdge> taskOutgoingEdges;
+  private final ExecutionPropertyMap<VertexExecutionProperty> executionProperties;
+  private final byte[] serializedIRDag;
+  private transient byte[] serializedTemplate;
+
+  /**
+   * Constructor.
+   *
+   * @param templateId          the id of this template. Must change whenever the stage changes.
+   * @param planId              the id of the physical plan.
+   * @param planVersion         the version of the plan this template is built from, which only increases.
+   * @param executionProperties {@link VertexExecutionProperty} map for the corresponding stage
+   * @param serializedIRDag     the serialized DAG of the stage.
+   * @param taskIncomingEdges   the incoming edges of the stage.
+   * @param taskOutgoingEdges   the outgoing edges of the stage.
+   */
+  public StageTemplate(final String templateId,
+                       final String planId,
+                       final int planVersion,
+                       final ExecutionPropertyMap<VertexExecutionProperty> executionProperties,
+                       final byte[] serializedIRDag,
+                       final List<StageEdge> taskIncomingEdges,
+                       final List<StageEdge> taskOutgoingEdges) {
+    this.templateId = templateId;
+    this.planId = planId;
+    this.planVersion = planVersion;
+    this.executionProperties = executionProperties;
+    this.serializedIRDag = serializedIRDag;
+    this.taskIncomingEdges = taskIncomingEdges;
+    this.taskOutgoingEdges = taskOutgoingEdges;
+  }
+
+  /**
+   * @return the id of this template.
+   */
+  public String getTemplateId() {
+    return templateId;
+  }
+
+  /**
+   * @return the id of the plan.
+   */
+  public String getPlanId() {
+    return planId;
+  }
+
+  /**
+   * @return the version of the plan this template is built from.
+   */
+  public int getPlanVersion() {
+    return planVersion;
+  }
+
+  /**
+   * Checks whether this template is outdated by another one, i.e., it is built from another plan or an older
+   * version of the plan. Executors do not receive the tasks of outdated templates from the master anymore.
+   *
+   * @param other the template to compare with.
+   * @return whether this template is outdated by the other template.
+   */
+  public boolean isOutdatedBy(final StageTemplate other) {
+    return !planId.equals(other.getPlanId()) || planVersion < other.getPlanVersion();
+  }
+
+  /**
+   * @return the serialized IR DAG of the stage.
+   */
+  public byte[] getSerializedIRDag() {
+    return serializedIRDag;
+  }
+
+  /**
+   * @return the incoming edges of the stage.
+   */
+  public List<StageEdge> getTaskIncomingEdges() {
+    return taskIncomingEdges;
+  }
+
+  /**
+   * @return the outgoing edges of the stage.
+   */
+  public List<StageEdge> getTaskOutgoingEdges() {
+    return taskOutgoingEdges;
+  }
+
+  /**
+   * @return {@link VertexExecutionProperty} map for the corresponding stage
+   */
+  public ExecutionPropertyMap<VertexExecutionProperty> getExecutionProperties() {
+    return executionProperties;
+  }
+
+  /**
+   * Encodes this template with {@link TaskCodec}, reusing the result for every executor the template is sent to.
+   *
+   * @return the encoded template.
+   */
+  public synchronized byte[] getSerializedTemplate() {
+    if (serializedTemplate == null) {
+      serializedTemplate = TaskCodec.encodeStageTemplate(this);
+    }
+    return serializedTemplate;
+  }
+
+  @Override
+  public String toString() {
+    return "templateId: " + templateId + " / planId: " + planId + " / planVersion: " + planVersion;
+  }
+}
@@ -27,16 +27,14 @@ import java.util.*;
  * A Task (attempt) is a self-contained executable that can be executed on a machine.
  */
 public final class Task implements Serializable {
-  private final String planId;
   private final String taskId;
-  private final List<StageEdge> taskIncomingEdges;
-  private final List<StageEdge> taskOutgoingEdges;
-  private final ExecutionPropertyMap<VertexExecutionProperty> executionProperties;
-  private final byte[] serializedIRDag;
+  private final StageTemplate stageTemplate;
   private final Map<String, Readable> irVertexIdToReadable;
 
   /**
-   * Constructor.
+   * Constructor, with a template of its own.
+   * The id of the template is derived from the task attempt, so that it never collides with the templates
+   * shared by the tasks of a stage, or with the template of another task built by this constructor.
    *
    * @param planId               the id of the physical plan.
    * @param taskId               the ID of this task attempt.
@@ -53,27 +51,46 @@ public final class Task implements Serializable {
               final List<StageEdge> taskIncomingEdges,
               final List<StageEdge> taskOutgoingEdges,
               final Map<String, Readable> irVertexIdToReadable) {
-    this.planId = planId;
+    this(taskId,
+        new StageTemplate(planId + "/" + taskId, planId, 0, executionProperties, serializedIRDag,
+            taskIncomingEdges, taskOutgoingEdges),
+        irVertexIdToReadable);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param taskId               the ID of this task attempt.
+   * @param stageTemplate        the template shared by the tasks of the corresponding stage.
+   * @param irVertexIdToReadable the map between IRVertex id to readable.
+   */
+  public Task(final String taskId,
+              final StageTemplate stageTemplate,
+              final Map<String, Readable> irVertexIdToReadable) {
     this.taskId = taskId;
-    this.executionProperties = executionProperties;
-    this.serializedIRDag = serializedIRDag;
-    this.taskIncomingEdges = taskIncomingEdges;
-    this.taskOutgoingEdges = taskOutgoingEdges;
+    this.stageTemplate = stageTemplate;
     this.irVertexIdToReadable = irVertexIdToReadable;
   }
 
+  /**
+   * @return the template shared by the tasks of the corresponding stage.
+   */
+  public StageTemplate getStageTemplate() {
+    return stageTemplate;
+  }
+
   /**
    * @return the id of the plan.
    */
   public String getPlanId() {
-    return planId;
+    return stageTemplate.getPlanId();
   }
 
   /**
    * @return the serialized IR DAG of the task.
    */
   public byte[] getSerializedIRDag() {
-    return serializedIRDag;
+    return stageTemplate.getSerializedIRDag();
   }
 
   /**
@@ -87,14 +104,14 @@ public final class Task implements Serializable {
    * @return the incoming edges of the task.
    */
   public List<StageEdge> getTaskIncomingEdges() {
-    return taskIncomingEdges;
+    return stageTemplate.getTaskIncomingEdges();
   }
 
   /**
    * @return the outgoing edges of the task.
    */
   public List<StageEdge> getTaskOutgoingEdges() {
-    return taskOutgoingEdges;
+    return stageTemplate.getTaskOutgoingEdges();
   }
 
   /**
@@ -108,7 +125,7 @@ public final class Task implements Serializable {
    * @return {@link VertexExecutionProperty} map for the corresponding stage
    */
   public ExecutionPropertyMap<VertexExecutionProperty> getExecutionProperties() {
-    return executionProperties;
+    return stageTemplate.getExecutionProperties();
   }
 
   /**
@@ -120,7 +137,7 @@ public final class Task implements Serializable {
    */
   public <T extends Serializable> Optional<T> getPropertyValue(
       final Class<? extends VertexExecutionProperty<T>> executionPropertyKey) {
-    return executionProperties.get(executionPropertyKey);
+    return stageTemplate.getExecutionProperties().get(executionPropertyKey);
   }
 
   /**
@@ -134,15 +151,15 @@ public final class Task implements Serializable {
   public String toString() {
     final StringBuilder sb = new StringBuilder();
     sb.append("planId: ");
-    sb.append(planId);
+    sb.append(getPlanId());
     sb.append(" / taskId: ");
     sb.append(taskId);
     sb.append(" / attempt: ");
     sb.append(getAttemptIdx());
     sb.append(" / incoming: ");
-    sb.append(taskIncomingEdges);
+    sb.append(getTaskIncomingEdges());
     sb.append(" / outgoing: ");
-    sb.append(taskOutgoingEdges);
+    sb.append(getTaskOutgoingEdges());
     sb.append("/ exec props: ");
     sb.append(getExecutionProperties());
     return sb.toString();
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.plan;
+
+import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.exception.IllegalMessageException;
+import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Binary codec for the parts of a {@link Task} sent from the master to executors.
+ *
+ * The structure of a {@link StageTemplate} (ids, edges and the stages they connect) is written field by field.
+ * Notably, a {@link StageEdge} is encoded with only the ids and execution properties of its stages,
+ * instead of dragging the whole stages (with their IR DAGs and readables of all tasks) along.
+ * User-provided objects such as IR vertices, readables and execution property values are only known to be
+ * {@link Serializable}, and thus are Java-serialized into the same stream,
+ * so that class descriptors and objects shared by the edges are written once per message.
+ * Every encoded message starts with {@link #VERSION}.
+ */
+public final class TaskCodec {
+  public static final int VERSION = 2;
+
+  /**
+   * Private constructor which will not be used.
+   */
+  private TaskCodec() {
+  }
+
+  /**
+   * @param stageTemplate the stage template to encode.
+   * @return the encoded stage template.
+   */
+  public static byte[] encodeStageTemplate(final StageTemplate stageTemplate) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeInt(VERSION);
+      out.writeUTF(stageTemplate.getTemplateId());
+      out.writeUTF(stageTemplate.getPlanId());
+      out.writeInt(stageTemplate.getPlanVersion());
+      writeObject(out, stageTemplate.getExecutionProperties());
+      writeBytes(out, stageTemplate.getSerializedIRDag());
+      final Set<String> writtenStageIds = new HashSet<>();
+      writeStageEdges(out, stageTemplate.getTaskIncomingEdges(), writtenStageIds);
+      writeStageEdges(out, stageTemplate.getTaskOutgoingEdges(), writtenStageIds);
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param encoded the stage template encoded by {@link #encodeStageTemplate(StageTemplate)}.
+   * @return the decoded stage template.
+   */
+  public static StageTemplate decodeStageTemplate(final byte[] encoded) {
+    try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(encoded))) {
+      checkVersion(in);
+      final String templateId = in.readUTF();
+      final String planId = in.readUTF();
+      final int planVersion = in.readInt();
+      final ExecutionPropertyMap<VertexExecutionProperty> executionProperties = readObject(in);
+      final byte[] serializedIRDag = readBytes(in);
+      final Map<String, Stage> readStages = new HashMap<>();
+      final List<StageEdge> incomingEdges = readStageEdges(in, readStages);
+      final List<StageEdge> outgoingEdges = readStageEdges(in, readStages);
+      return new StageTemplate(templateId, planId, planVersion, executionProperties, serializedIRDag,
+          incomingEdges, outgoingEdges);
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Encodes the readables of a task. Unlike the stage template, the readables differ from task to task,
+   * and thus are encoded per task. They are user-provided objects only known to be {@link Serializable},
+   * and thus are Java-serialized. As only the tasks of source stages have readables, the object stream
+   * (along with its header and class descriptors) is written only when there is a readable to write,
+   * and the readables of the other tasks are encoded in a few bytes.
+   *
+   * @param irVertexIdToReadable the readables of a task to encode.
+   * @return the encoded readables.
+   */
+  public static byte[] encodeReadables(final Map<String, Readable> irVertexIdToReadable) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(VERSION);
+      out.writeInt(irVertexIdToReadable.size());
+      if (!irVertexIdToReadable.isEmpty()) {
+        try (final ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+          for (final Map.Entry<String, Readable> entry : irVertexIdToReadable.entrySet()) {
+            objectOut.writeUTF(entry.getKey());
+            writeObject(objectOut, entry.getValue());
+          }
+        }
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param encoded the readables encoded by {@link #encodeReadables(Map)}.
+   * @return the decoded readables.
+   */
+  public static Map<String, Readable> decodeReadables(final byte[] encoded) {
+    try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      checkVersion(in);
+      final int size = in.readInt();
+      final Map<String, Readable> irVertexIdToReadable = new HashMap<>(size * 2);
+      if (size > 0) {
+        try (final ObjectInputStream objectIn = new ObjectInputStream(in)) {
+          for (int i = 0; i < size; i++) {
+            final String irVertexId = objectIn.readUTF();
+            irVertexIdToReadable.put(irVertexId, readObject(objectIn));
+          }
+        }
+      }
+      return irVertexIdToReadable;
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void writeStageEdges(final ObjectOutputStream out,
+                                      final List<StageEdge> stageEdges,
+                                      final Set<String> writtenStageIds) throws IOException {
+    out.writeInt(stageEdges.size());
+    for (final StageEdge stageEdge : stageEdges) {
+      out.writeUTF(stageEdge.getId());
+      writeObject(out, stageEdge.getExecutionProperties());
+      writeObject(out, stageEdge.getSrcIRVertex());
+      writeObject(out, stageEdge.getDstIRVertex());
+      writeStage(out, stageEdge.getSrc(), writtenStageIds);
+      writeStage(out, stageEdge.getDst(), writtenStageIds);
+      writeObject(out, new HashMap<>(stageEdge.getTaskIdxToKeyRange()));
+    }
+  }
+
+  private static List<StageEdge> readStageEdges(final ObjectInputStream in,
+                                                final Map<String, Stage> readStages) throws IOException {
+    final int size = in.readInt();
+    final List<StageEdge> stageEdges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final String edgeId = in.readUTF();
+      final ExecutionPropertyMap<EdgeExecutionProperty> executionProperties = readObject(in);
+      final IRVertex srcIRVertex = readObject(in);
+      final IRVertex dstIRVertex = readObject(in);
+      final Stage srcStage = readStage(in, readStages);
+      final Stage dstStage = readStage(in, readStages);
+      final HashMap<Integer, KeyRange> taskIdxToKeyRange = readObject(in);
+      final StageEdge stageEdge =
+          new StageEdge(edgeId, executionProperties, srcIRVertex, dstIRVertex, srcStage, dstStage);
+      stageEdge.setTaskIdxToKeyRange(taskIdxToKeyRange);
+      stageEdges.add(stageEdge);
+    }
+    return stageEdges;
+  }
+
+  /**
+   * Writes the id of the stage, followed by its execution properties if the stage has not been written yet.
+   */
+  private static void writeStage(final ObjectOutputStream out,
+                                 final Stage stage,
+                                 final Set<String> writtenStageIds) throws IOException {
+    out.writeUTF(stage.getId());
+    if (writtenStageIds.add(stage.getId())) {
+      writeObject(out, stage.getExecutionProperties());
+    }
+  }
+
+  private static Stage readStage(final ObjectInputStream in,
+                                 final Map<String, Stage> readStages) throws IOException {
+    final String stageId = in.readUTF();
+    final Stage readStage = readStages.get(stageId);
+    if (readStage != null) {
+      return readStage;
+    }
+    final ExecutionPropertyMap<VertexExecutionProperty> executionProperties = readObject(in);
+    final Stage stage = new Stage(stageId, executionProperties);
+    readStages.put(stageId, stage);
+    return stage;
+  }
+
+  private static void checkVersion(final DataInput in) throws IOException {
+    final int version = in.readInt();
+    if (version != VERSION) {
+      throw new IllegalMessageException(
+          new Exception("Unsupported task codec version " + version + ", expected " + VERSION));
+    }
+  }
+
+  private static void writeObject(final ObjectOutputStream out, final Serializable object) throws IOException {
+    out.writeObject(object);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T readObject(final ObjectInputStream in) throws IOException {
+    try {
+      return (T) in.readObject();
+    } catch (final ClassNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void writeBytes(final ObjectOutputStream out, final byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(final ObjectInputStream in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LatencyHistogram}.
+ */
+public final class LatencyHistogramTest {
+
+  @Test
+  public void testPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000, histogram.getMax());
+    assertEquals(500500, histogram.getMean());
+    // A reported value is at or above the recorded one, within the precision of the buckets.
+    assertWithinPrecision(500000, histogram.getP50());
+    assertWithinPrecision(900000, histogram.getP90());
+    assertWithinPrecision(990000, histogram.getP99());
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testSmallAndLargeValues() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-1);
+    histogram.record(3);
+    histogram.record(Long.MAX_VALUE / 2);
+    assertEquals(0, histogram.getValueAtPercentile(1));
+    assertEquals(3, histogram.getP50());
+    assertEquals(Long.MAX_VALUE / 2, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testMerge() {
+    final LatencyHistogram left = new LatencyHistogram();
+    final LatencyHistogram right = new LatencyHistogram();
+    left.record(100, 9);
+    right.record(10000);
+    left.merge(right);
+    assertEquals(10, left.getCount());
+    assertEquals(10900, left.getTotal());
+    assertWithinPrecision(100, left.getP50());
+    assertEquals(10000, left.getP99());
+  }
+
+  @Test
+  public void testSerialization() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100, 9);
+    histogram.record(10000);
+    final byte[] serialized = SerializationUtils.serialize(histogram);
+    // Only the two non-empty buckets are written, out of hundreds.
+    assertTrue(serialized.length + " bytes", serialized.length < 500);
+
+    final LatencyHistogram deserialized = SerializationUtils.deserialize(serialized);
+    assertEquals(10, deserialized.getCount());
+    assertEquals(histogram.getP50(), deserialized.getP50());
+    assertEquals(10000, deserialized.getP99());
+    deserialized.record(10000);
+    assertEquals(11, deserialized.getCount());
+  }
+
+  @Test
+  public void testSummarize() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+    final long p50 = histogram.getP50();
+    final long p90 = histogram.getP90();
+    final long p99 = histogram.getP99();
+    histogram.summarize();
+
+    final LatencyHistogram deserialized = SerializationUtils.deserialize(SerializationUtils.serialize(histogram));
+    for (final LatencyHistogram summarized : new LatencyHistogram[]{histogram, deserialized}) {
+      assertEquals(1000, summarized.getCount());
+      assertEquals(1000000, summarized.getMax());
+      assertEquals(500500, summarized.getMean());
+      assertEquals(p50, summarized.getP50());
+      assertEquals(p90, summarized.getP90());
+      assertEquals(p99, summarized.getP99());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRecordAfterSummarize() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.summarize();
+    histogram.record(1);
+  }
+
+  private void assertWithinPrecision(final long expected, final long actual) {
+    assertTrue(actual + " is not within the precision of " + expected,
+        actual >= expected && actual <= expected * 1.125);
+  }
+}
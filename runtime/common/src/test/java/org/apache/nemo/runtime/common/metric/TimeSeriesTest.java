@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link TimeSeries}.
+ */
+public final class TimeSeriesTest {
+
+  @Test
+  public void testRecord() {
+    final TimeSeries timeSeries = new TimeSeries(10, 4);
+    timeSeries.record(1005, 1);
+    timeSeries.record(1009, 2);
+    timeSeries.record(1025, 3);
+    assertEquals(1000, timeSeries.getStartTimeMs());
+    assertEquals(10, timeSeries.getBucketWidthMs());
+    assertArrayEquals(new long[]{3, 0, 3}, timeSeries.getValues());
+  }
+
+  @Test
+  public void testDownsample() {
+    final TimeSeries timeSeries = new TimeSeries(10, 4);
+    for (long time = 1000; time < 1040; time += 10) {
+      timeSeries.record(time, 1);
+    }
+    // Beyond the last bucket: adjacent buckets are merged, twice.
+    timeSeries.record(1150, 5);
+    assertEquals(1000, timeSeries.getStartTimeMs());
+    assertEquals(40, timeSeries.getBucketWidthMs());
+    assertArrayEquals(new long[]{4, 0, 0, 5}, timeSeries.getValues());
+  }
+}
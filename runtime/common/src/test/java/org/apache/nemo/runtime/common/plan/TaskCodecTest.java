@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.common.plan;
+
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.dag.DAGBuilder;
+import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataFlowProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.apache.nemo.common.ir.vertex.executionproperty.ScheduleGroupProperty;
+import org.apache.nemo.common.test.EmptyComponents;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.reef.tang.Tang;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.nemo.common.test.EmptyComponents.EMPTY_TRANSFORM;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TaskCodec}.
+ */
+public final class TaskCodecTest {
+
+  /**
+   * Test encoding and decoding a {@link StageTemplate} and the readables of a task.
+   * @throws Exception exceptions on the way
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    final IRVertex source = new EmptyComponents.EmptySourceVertex<>("source");
+    source.setProperty(ScheduleGroupProperty.of(0));
+    source.setProperty(ParallelismProperty.of(3));
+    final IRVertex reducer = new OperatorVertex(EMPTY_TRANSFORM);
+    reducer.setProperty(ScheduleGroupProperty.of(1));
+    reducer.setProperty(ParallelismProperty.of(2));
+    final IREdge shuffleEdge = new IREdge(CommunicationPatternProperty.Value.Shuffle, source, reducer);
+    shuffleEdge.setProperty(DataFlowProperty.of(DataFlowProperty.Value.Pull));
+    final DAG<IRVertex, IREdge> irDAG = new DAGBuilder<IRVertex, IREdge>()
+        .addVertex(source)
+        .addVertex(reducer)
+        .connectVertices(shuffleEdge)
+        .buildWithoutSourceSinkCheck();
+    final DAG<Stage, StageEdge> stageDAG =
+        Tang.Factory.getTang().newInjector().getInstance(PhysicalPlanGenerator.class).apply(irDAG);
+    final Stage sourceStage = stageDAG.getRootVertices().get(0);
+    final Stage reducerStage = stageDAG.getChildren(sourceStage.getId()).get(0);
+
+    final StageTemplate template = new StageTemplate("template", "plan", 1, reducerStage.getExecutionProperties(),
+        reducerStage.getSerializedIRDAG(), stageDAG.getIncomingEdgesOf(reducerStage),
+        stageDAG.getOutgoingEdgesOf(reducerStage));
+    final byte[] encoded = TaskCodec.encodeStageTemplate(template);
+    final StageTemplate decoded = TaskCodec.decodeStageTemplate(encoded);
+
+    assertEquals("template", decoded.getTemplateId());
+    assertEquals("plan", decoded.getPlanId());
+    assertEquals(1, decoded.getPlanVersion());
+    assertEquals(reducerStage.getExecutionProperties(), decoded.getExecutionProperties());
+    assertArrayEquals(reducerStage.getSerializedIRDAG(), decoded.getSerializedIRDag());
+    assertTrue(decoded.getTaskOutgoingEdges().isEmpty());
+    assertEquals(1, decoded.getTaskIncomingEdges().size());
+    final StageEdge originalEdge = template.getTaskIncomingEdges().get(0);
+    final StageEdge decodedEdge = decoded.getTaskIncomingEdges().get(0);
+    assertEquals(originalEdge.getId(), decodedEdge.getId());
+    // Coder factories do not override equals(), so compare the string representations.
+    assertEquals(originalEdge.getExecutionProperties().toString(), decodedEdge.getExecutionProperties().toString());
+    assertEquals(source.getId(), decodedEdge.getSrcIRVertex().getId());
+    assertEquals(reducer.getId(), decodedEdge.getDstIRVertex().getId());
+    assertEquals(sourceStage.getId(), decodedEdge.getSrc().getId());
+    assertEquals(3, decodedEdge.getSrc().getParallelism());
+    assertEquals(reducerStage.getId(), decodedEdge.getDst().getId());
+    assertEquals(originalEdge.getTaskIdxToKeyRange(), decodedEdge.getTaskIdxToKeyRange());
+
+    // The neighboring stages are not dragged along with the edges.
+    assertTrue(encoded.length < SerializationUtils.serialize(template).length);
+
+    final Map<String, Readable> readables = sourceStage.getVertexIdToReadables().get(0);
+    final Map<String, Readable> decodedReadables = TaskCodec.decodeReadables(TaskCodec.encodeReadables(readables));
+    assertEquals(readables.keySet(), decodedReadables.keySet());
+  }
+
+  /**
+   * Test that the decoded readables have the same locations and read the same data.
+   * @throws Exception exceptions on the way
+   */
+  @Test
+  public void testReadablesRoundTrip() throws Exception {
+    final Map<String, Readable> readables = new HashMap<>();
+    readables.put("source0", new ListReadable(Arrays.asList("node0", "node1"), Arrays.asList(1, 2, 3)));
+    readables.put("source1", new ListReadable(Collections.emptyList(), Collections.singletonList(4)));
+
+    final Map<String, Readable> decodedReadables = TaskCodec.decodeReadables(TaskCodec.encodeReadables(readables));
+    assertEquals(readables.keySet(), decodedReadables.keySet());
+    for (final Map.Entry<String, Readable> entry : readables.entrySet()) {
+      final Readable decodedReadable = decodedReadables.get(entry.getKey());
+      assertEquals(entry.getValue().getLocations(), decodedReadable.getLocations());
+      assertEquals(entry.getValue().read(), decodedReadable.read());
+    }
+  }
+
+  /**
+   * Test that the readables of the tasks without readables are encoded without an object stream.
+   */
+  @Test
+  public void testEmptyReadables() {
+    final byte[] encoded = TaskCodec.encodeReadables(Collections.emptyMap());
+    assertEquals(2 * Integer.BYTES, encoded.length);
+    assertTrue(TaskCodec.decodeReadables(encoded).isEmpty());
+  }
+
+  /**
+   * A readable of a list, which resides in the given locations.
+   */
+  private static final class ListReadable implements Readable<Integer> {
+    private final List<String> locations;
+    private final List<Integer> data;
+
+    ListReadable(final List<String> locations, final List<Integer> data) {
+      this.locations = new ArrayList<>(locations);
+      this.data = new ArrayList<>(data);
+    }
+
+    @Override
+    public Iterable<Integer> read() {
+      return data;
+    }
+
+    @Override
+    public List<String> getLocations() {
+      return locations;
+    }
+  }
+}
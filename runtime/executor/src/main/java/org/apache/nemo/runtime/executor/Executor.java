@@ -19,6 +19,7 @@ import com.google.protobuf.ByteString;
 import org.apache.nemo.common.dag.DAG;
 import org.apache.nemo.common.ir.edge.executionproperty.*;
 import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ResourceSlotProperty;
 import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.common.exception.IllegalMessageException;
 import org.apache.nemo.common.exception.UnknownFailureCauseException;
@@ -28,20 +29,26 @@ import org.apache.nemo.runtime.common.message.MessageContext;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.MessageListener;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.nemo.common.ir.Readable;
 import org.apache.nemo.runtime.common.plan.RuntimeEdge;
+import org.apache.nemo.runtime.common.plan.StageTemplate;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
+import org.apache.nemo.runtime.executor.data.ReadAheadDecoder;
 import org.apache.nemo.runtime.executor.data.SerializerManager;
+import org.apache.nemo.runtime.executor.data.stores.SpillManager;
 import org.apache.nemo.runtime.executor.datatransfer.DataTransferFactory;
 import org.apache.nemo.runtime.executor.task.TaskExecutor;
 import org.apache.commons.lang3.SerializationUtils;
-import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.reef.tang.annotations.Parameter;
 
 import javax.inject.Inject;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,13 +57,19 @@ import org.slf4j.LoggerFactory;
  */
 public final class Executor {
   private static final Logger LOG = LoggerFactory.getLogger(Executor.class.getName());
+  private static final String TRANSFORM_DIRECTORY_NAME = "transforms";
 
   private final String executorId;
 
   /**
    * To be used for a thread pool to execute tasks.
    */
-  private final ExecutorService executorService;
+  private final TaskExecutionPool taskExecutionPool;
+
+  /**
+   * The name of the node this executor runs on, to tell which readables are local.
+   */
+  private final String nodeName;
 
   /**
    * In charge of this executor's intermediate data transfer.
@@ -68,6 +81,11 @@ public final class Executor {
    */
   private final DataTransferFactory dataTransferFactory;
 
+  /**
+   * Decodes the input streams of the tasks ahead of their consumption.
+   */
+  private final ReadAheadDecoder readAheadDecoder;
+
   private final BroadcastManagerWorker broadcastManagerWorker;
 
   private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
@@ -76,25 +94,53 @@ public final class Executor {
 
   private final BlockManagerWorker blockManagerWorker;
 
+  private final SpillManager spillManager;
+
+  private final int taskBatchSize;
+  private final int taskMetricSamplingInterval;
+
+  /**
+   * The directory for the temporary files of the transforms, e.g., the spilled runs of a GroupByKey.
+   */
+  private final String transformDirectory;
+
+  /**
+   * The stage templates received so far, and the tasks whose template has not arrived yet.
+   */
+  private final StageTemplateCache stageTemplateCache;
+
   @Inject
   private Executor(@Parameter(JobConf.ExecutorId.class) final String executorId,
                    final PersistentConnectionToMasterMap persistentConnectionToMasterMap,
                    final MessageEnvironment messageEnvironment,
                    final SerializerManager serializerManager,
                    final DataTransferFactory dataTransferFactory,
+                   final ReadAheadDecoder readAheadDecoder,
                    final BroadcastManagerWorker broadcastManagerWorker,
                    final MetricManagerWorker metricMessageSender,
-                   final BlockManagerWorker blockManagerWorker) {
+                   final BlockManagerWorker blockManagerWorker,
+                   final SpillManager spillManager,
+                   @Parameter(JobConf.TaskBatchSize.class) final int taskBatchSize,
+                   @Parameter(JobConf.TaskMetricSamplingInterval.class) final int taskMetricSamplingInterval,
+                   @Parameter(JobConf.FileDirectory.class) final String fileDirectory,
+                   @Parameter(JobConf.ExecutorCapacity.class) final int executorCapacity) {
     this.executorId = executorId;
-    this.executorService = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
-        .namingPattern("TaskExecutor thread-%d")
-        .build());
+    this.taskExecutionPool = new TaskExecutionPool(
+        executorCapacity > 0 ? executorCapacity : Runtime.getRuntime().availableProcessors(),
+        this::sendLoadToMaster);
+    this.nodeName = getLocalNodeName();
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
     this.serializerManager = serializerManager;
     this.dataTransferFactory = dataTransferFactory;
+    this.readAheadDecoder = readAheadDecoder;
     this.broadcastManagerWorker = broadcastManagerWorker;
     this.metricMessageSender = metricMessageSender;
     this.blockManagerWorker = blockManagerWorker;
+    this.spillManager = spillManager;
+    this.taskBatchSize = taskBatchSize;
+    this.taskMetricSamplingInterval = taskMetricSamplingInterval;
+    this.transformDirectory = fileDirectory + "/" + TRANSFORM_DIRECTORY_NAME;
+    this.stageTemplateCache = new StageTemplateCache(this::registerSerializers);
     messageEnvironment.setupListener(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID, new ExecutorMessageReceiver());
   }
 
@@ -102,10 +148,94 @@ public final class Executor {
     return executorId;
   }
 
+  /**
+   * Builds the task from the schedule message and the cached stage template of it,
+   * or holds the message until the template arrives.
+   * @param scheduleTaskMsg the message to handle.
+   */
+  private synchronized void onScheduleTaskMsg(final ControlMessage.ScheduleTaskMsg scheduleTaskMsg) {
+    stageTemplateCache.onScheduleTaskMsg(scheduleTaskMsg).forEach(this::onTaskReceived);
+  }
+
+  /**
+   * Registers the coders of the stage edges and the intra-stage edges of a newly received stage template.
+   * @param stageTemplate the stage template.
+   */
+  private void registerSerializers(final StageTemplate stageTemplate) {
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> irDag =
+        SerializationUtils.deserialize(stageTemplate.getSerializedIRDag());
+    stageTemplate.getTaskIncomingEdges().forEach(e -> serializerManager.register(e.getId(),
+        e.getPropertyValue(EncoderProperty.class).get(),
+        e.getPropertyValue(DecoderProperty.class).get(),
+        e.getPropertyValue(CompressionProperty.class).orElse(null),
+        e.getPropertyValue(DecompressionProperty.class).orElse(null)));
+    stageTemplate.getTaskOutgoingEdges().forEach(e -> serializerManager.register(e.getId(),
+        e.getPropertyValue(EncoderProperty.class).get(),
+        e.getPropertyValue(DecoderProperty.class).get(),
+        e.getPropertyValue(CompressionProperty.class).orElse(null),
+        e.getPropertyValue(DecompressionProperty.class).orElse(null)));
+    irDag.getVertices().forEach(v -> {
+      irDag.getOutgoingEdgesOf(v).forEach(e -> serializerManager.register(e.getId(),
+          e.getPropertyValue(EncoderProperty.class).get(),
+          e.getPropertyValue(DecoderProperty.class).get(),
+          e.getPropertyValue(CompressionProperty.class).orElse(null),
+          e.getPropertyValue(DecompressionProperty.class).orElse(null)));
+    });
+  }
+
   private synchronized void onTaskReceived(final Task task) {
     LOG.debug("Executor [{}] received Task [{}] to execute.",
         new Object[]{executorId, task.getTaskId()});
-    executorService.execute(() -> launchTask(task));
+    taskExecutionPool.execute(() -> launchTask(task),
+        task.getPropertyValue(ResourceSlotProperty.class).orElse(true),
+        countRemoteReadables(task));
+  }
+
+  /**
+   * @param task the task to inspect.
+   * @return the number of readables of the task which are known to reside in other nodes.
+   */
+  private int countRemoteReadables(final Task task) {
+    int numRemoteReadables = 0;
+    for (final Readable readable : task.getIrVertexIdToReadable().values()) {
+      try {
+        final List<String> locations = readable.getLocations();
+        if (!locations.isEmpty() && !locations.contains(nodeName)) {
+          numRemoteReadables++;
+        }
+      } catch (final Exception e) {
+        // The locations are unknown (e.g., UnsupportedOperationException). Treat the readable as a local one.
+      }
+    }
+    return numRemoteReadables;
+  }
+
+  /**
+   * Reports the load of the task queue to the master, to be used when scheduling tasks.
+   * @param queueDepth  the number of tasks waiting for a slot.
+   * @param queueWaitMs the recent average time tasks waited for a slot.
+   */
+  private void sendLoadToMaster(final int queueDepth, final long queueWaitMs) {
+    persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
+        ControlMessage.Message.newBuilder()
+            .setId(RuntimeIdManager.generateMessageId())
+            .setListenerId(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID)
+            .setType(ControlMessage.MessageType.ExecutorLoad)
+            .setExecutorLoadMsg(ControlMessage.ExecutorLoadMsg.newBuilder()
+                .setExecutorId(executorId)
+                .setQueueDepth(queueDepth)
+                .setQueueWaitMs(queueWaitMs)
+                .build())
+            .build());
+  }
+
+  private static String getLocalNodeName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (final UnknownHostException e) {
+      LOG.warn("Cannot resolve the local host name", e);
+      return "";
+    }
   }
 
   /**
@@ -121,31 +251,15 @@ public final class Executor {
     }
     LOG.debug("Executor [{}] received Task [{}] to execute.", new Object[]{executorId, task.getTaskId()});
     try {
+      // Each task gets its own copy of the DAG, as the transforms in it keep per-task state.
       final DAG<IRVertex, RuntimeEdge<IRVertex>> irDag =
           SerializationUtils.deserialize(task.getSerializedIRDag());
       final TaskStateManager taskStateManager =
           new TaskStateManager(task, executorId, persistentConnectionToMasterMap, metricMessageSender);
 
-      task.getTaskIncomingEdges().forEach(e -> serializerManager.register(e.getId(),
-          e.getPropertyValue(EncoderProperty.class).get(),
-          e.getPropertyValue(DecoderProperty.class).get(),
-          e.getPropertyValue(CompressionProperty.class).orElse(null),
-          e.getPropertyValue(DecompressionProperty.class).orElse(null)));
-      task.getTaskOutgoingEdges().forEach(e -> serializerManager.register(e.getId(),
-          e.getPropertyValue(EncoderProperty.class).get(),
-          e.getPropertyValue(DecoderProperty.class).get(),
-          e.getPropertyValue(CompressionProperty.class).orElse(null),
-          e.getPropertyValue(DecompressionProperty.class).orElse(null)));
-      irDag.getVertices().forEach(v -> {
-        irDag.getOutgoingEdgesOf(v).forEach(e -> serializerManager.register(e.getId(),
-            e.getPropertyValue(EncoderProperty.class).get(),
-            e.getPropertyValue(DecoderProperty.class).get(),
-            e.getPropertyValue(CompressionProperty.class).orElse(null),
-            e.getPropertyValue(DecompressionProperty.class).orElse(null)));
-      });
-
       new TaskExecutor(task, irDag, taskStateManager, dataTransferFactory, broadcastManagerWorker,
-          metricMessageSender, persistentConnectionToMasterMap).execute();
+          metricMessageSender, persistentConnectionToMasterMap, taskBatchSize, taskMetricSamplingInterval,
+          transformDirectory).execute();
     } catch (final Exception e) {
       persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
           ControlMessage.Message.newBuilder()
@@ -162,6 +276,8 @@ public final class Executor {
   }
 
   public void terminate() {
+    taskExecutionPool.shutdown();
+    readAheadDecoder.close();
     try {
       metricMessageSender.close();
     } catch (final UnknownFailureCauseException e) {
@@ -170,6 +286,17 @@ public final class Executor {
     }
   }
 
+  /**
+   * The pools reach their peaks at different times, so the sum is an upper bound of the peak heap usage.
+   * @return the sum of the peak usages of the heap memory pools.
+   */
+  private static long getPeakHeapBytes() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+        .mapToLong(pool -> pool.getPeakUsage().getUsed())
+        .sum();
+  }
+
   /**
    * MessageListener for Executor.
    */
@@ -179,12 +306,13 @@ public final class Executor {
     public void onMessage(final ControlMessage.Message message) {
       switch (message.getType()) {
         case ScheduleTask:
-          final ControlMessage.ScheduleTaskMsg scheduleTaskMsg = message.getScheduleTaskMsg();
-          final Task task =
-              SerializationUtils.deserialize(scheduleTaskMsg.getTask().toByteArray());
-          onTaskReceived(task);
+          onScheduleTaskMsg(message.getScheduleTaskMsg());
           break;
         case RequestMetricFlush:
+          metricMessageSender.send("ExecutorMetric", executorId, "numSpilledBlocks",
+              spillManager.getNumSpilledBlocks());
+          metricMessageSender.send("ExecutorMetric", executorId, "spilledBytes", spillManager.getSpilledBytes());
+          metricMessageSender.send("ExecutorMetric", executorId, "peakHeapBytes", getPeakHeapBytes());
           metricMessageSender.flush();
           break;
         default:
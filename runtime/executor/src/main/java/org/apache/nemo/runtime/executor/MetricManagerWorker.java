@@ -24,6 +24,11 @@ import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
 import org.apache.reef.annotations.audience.EvaluatorSide;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 import org.slf4j.Logger;
@@ -31,12 +36,18 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Metric sender that periodically flushes the collected metrics to Driver.
+ * Counters and gauges are coalesced per flush: only the latest value of each field is sent,
+ * and only if it differs from the value sent by the previous flush.
+ * The flushed values of a metric are kept until the metric is released.
  */
 @EvaluatorSide
 public final class MetricManagerWorker implements MetricMessageSender {
 
   private final ScheduledExecutorService scheduledExecutorService;
   private final BlockingQueue<ControlMessage.Metric> metricMessageQueue;
+  private final ConcurrentMap<String, ControlMessage.Metric> pendingGauges;
+  private final Map<String, Map<String, ControlMessage.Metric>> lastFlushedGauges;
+  private final Queue<String> releasedMetrics;
   private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
 
   private static final int FLUSHING_PERIOD = 3000;
@@ -46,6 +57,9 @@ public final class MetricManagerWorker implements MetricMessageSender {
   private MetricManagerWorker(final PersistentConnectionToMasterMap persistentConnectionToMasterMap) {
     this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
     this.metricMessageQueue = new LinkedBlockingQueue<>();
+    this.pendingGauges = new ConcurrentHashMap<>();
+    this.lastFlushedGauges = new HashMap<>();
+    this.releasedMetrics = new ConcurrentLinkedQueue<>();
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
     final Runnable batchMetricMessages = () -> flushMetricMessageQueueToMaster();
     this.scheduledExecutorService.scheduleAtFixedRate(batchMetricMessages, 0,
@@ -64,19 +78,35 @@ public final class MetricManagerWorker implements MetricMessageSender {
   }
 
   private synchronized void flushMetricMessageQueueToMaster() {
-    if (!metricMessageQueue.isEmpty()) {
-      // Build batched metric messages
-      int size = metricMessageQueue.size();
+    final ControlMessage.MetricMsg.Builder metricMsgBuilder = ControlMessage.MetricMsg.newBuilder();
 
-      final ControlMessage.MetricMsg.Builder metricMsgBuilder = ControlMessage.MetricMsg.newBuilder();
+    // The gauges of a metric released before this point are all pending or already flushed
+    final List<String> released = new ArrayList<>();
+    for (String metricKey = releasedMetrics.poll(); metricKey != null; metricKey = releasedMetrics.poll()) {
+      released.add(metricKey);
+    }
 
-      LOG.debug("MetricManagerWorker Size: {}", size);
-      for (int i = 0; i < size; i++) {
-        final ControlMessage.Metric metric = metricMessageQueue.poll();
-        LOG.debug("MetricManagerWorker addMetric: {}, {}, {}", size, i, metric);
-        metricMsgBuilder.addMetric(i, metric);
+    // Send the gauges which changed since the last flush
+    for (final String key : pendingGauges.keySet()) {
+      final ControlMessage.Metric metric = pendingGauges.remove(key);
+      if (metric != null && !metric.equals(lastFlushedGauges
+          .computeIfAbsent(getMetricKey(metric.getMetricType(), metric.getMetricId()), k -> new HashMap<>())
+          .put(metric.getMetricField(), metric))) {
+        metricMsgBuilder.addMetric(metric);
       }
+    }
+    released.forEach(lastFlushedGauges::remove);
+
+    // Build batched metric messages
+    final int size = metricMessageQueue.size();
+    LOG.debug("MetricManagerWorker Size: {}", size);
+    for (int i = 0; i < size; i++) {
+      final ControlMessage.Metric metric = metricMessageQueue.poll();
+      LOG.debug("MetricManagerWorker addMetric: {}, {}, {}", size, i, metric);
+      metricMsgBuilder.addMetric(metric);
+    }
 
+    if (metricMsgBuilder.getMetricCount() > 0) {
       persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
           ControlMessage.Message.newBuilder()
               .setId(RuntimeIdManager.generateMessageId())
@@ -99,6 +129,50 @@ public final class MetricManagerWorker implements MetricMessageSender {
             .build());
   }
 
+  @Override
+  public void send(final String metricType, final String metricId,
+                   final String metricField, final long metricValue) {
+    pendingGauges.put(getGaugeKey(metricType, metricId, metricField),
+        ControlMessage.Metric.newBuilder()
+            .setMetricType(metricType)
+            .setMetricId(metricId)
+            .setMetricField(metricField)
+            .setLongValue(metricValue)
+            .build());
+  }
+
+  @Override
+  public void send(final String metricType, final String metricId,
+                   final String metricField, final String metricValue) {
+    pendingGauges.put(getGaugeKey(metricType, metricId, metricField),
+        ControlMessage.Metric.newBuilder()
+            .setMetricType(metricType)
+            .setMetricId(metricId)
+            .setMetricField(metricField)
+            .setStringValue(metricValue)
+            .build());
+  }
+
+  @Override
+  public void release(final String metricType, final String metricId) {
+    releasedMetrics.add(getMetricKey(metricType, metricId));
+  }
+
+  private static String getMetricKey(final String metricType, final String metricId) {
+    return metricType + '/' + metricId;
+  }
+
+  private static String getGaugeKey(final String metricType, final String metricId, final String metricField) {
+    return getMetricKey(metricType, metricId) + '/' + metricField;
+  }
+
+  /**
+   * @return the number of metrics whose flushed values are kept.
+   */
+  synchronized int getNumTrackedMetrics() {
+    return lastFlushedGauges.size();
+  }
+
   @Override
   public void close() throws UnknownFailureCauseException {
     scheduledExecutorService.shutdownNow();
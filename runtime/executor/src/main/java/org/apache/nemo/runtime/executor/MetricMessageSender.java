@@ -32,6 +32,33 @@ public interface MetricMessageSender extends AutoCloseable {
    */
   void send(final String metricType, final String metricId, final String metricField, final byte[] metricValue);
 
+  /**
+   * Send the latest value of a counter or gauge to master.
+   * Only the last value sent before a flush is delivered, and only if it changed since the previous flush.
+   * @param metricType type of the metric
+   * @param metricId id of the metric
+   * @param metricField field of the metric
+   * @param metricValue value of the metric
+   */
+  void send(final String metricType, final String metricId, final String metricField, final long metricValue);
+
+  /**
+   * Send the latest value of a string-valued field to master, with the same semantics as a gauge.
+   * @param metricType type of the metric
+   * @param metricId id of the metric
+   * @param metricField field of the metric
+   * @param metricValue value of the metric
+   */
+  void send(final String metricType, final String metricId, final String metricField, final String metricValue);
+
+  /**
+   * Notify that no more counters or gauges will be sent for a metric.
+   * The sender forgets the values of the metric once its latest values are flushed.
+   * @param metricType type of the metric
+   * @param metricId id of the metric
+   */
+  void release(final String metricType, final String metricId);
+
   /**
    * Flush all metric inside of the queue.
    */
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.plan.StageTemplate;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.common.plan.TaskCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Caches the {@link StageTemplate}s received by an executor, and builds the tasks from the schedule messages.
+ * A task may overtake the task carrying its template, as the master serializes messages with multiple threads.
+ * Such tasks are held until the template arrives.
+ * The templates are evicted when the master reports that they are outdated and no longer used.
+ */
+@ThreadSafe
+final class StageTemplateCache {
+  private static final Logger LOG = LoggerFactory.getLogger(StageTemplateCache.class.getName());
+
+  private final Consumer<StageTemplate> newTemplateHandler;
+  private final Map<String, StageTemplate> stageTemplates;
+  private final Map<String, List<ControlMessage.ScheduleTaskMsg>> tasksWaitingForTemplate;
+
+  /**
+   * Constructor.
+   *
+   * @param newTemplateHandler handles each template when it is received, e.g., registers the coders of its edges.
+   */
+  StageTemplateCache(final Consumer<StageTemplate> newTemplateHandler) {
+    this.newTemplateHandler = newTemplateHandler;
+    this.stageTemplates = new HashMap<>();
+    this.tasksWaitingForTemplate = new HashMap<>();
+  }
+
+  /**
+   * Handles a schedule message.
+   *
+   * @param scheduleTaskMsg the message to handle.
+   * @return the tasks which have become ready, i.e., the task of the message and the tasks waiting for its template
+   *         if the template has arrived. Empty if the template of the task has not arrived yet.
+   */
+  synchronized List<Task> onScheduleTaskMsg(final ControlMessage.ScheduleTaskMsg scheduleTaskMsg) {
+    for (final String evictedStageTemplateId : scheduleTaskMsg.getEvictedStageTemplateIdsList()) {
+      stageTemplates.remove(evictedStageTemplateId);
+      final List<ControlMessage.ScheduleTaskMsg> orphans = tasksWaitingForTemplate.remove(evictedStageTemplateId);
+      if (orphans != null) {
+        // Should not happen, as the master evicts only the templates without running tasks.
+        LOG.warn("Dropped {} tasks waiting for the evicted template {}", orphans.size(), evictedStageTemplateId);
+      }
+    }
+
+    final String templateId = scheduleTaskMsg.getStageTemplateId();
+    final List<ControlMessage.ScheduleTaskMsg> readyMsgs = new ArrayList<>();
+    readyMsgs.add(scheduleTaskMsg);
+    if (scheduleTaskMsg.hasStageTemplate()) {
+      final StageTemplate stageTemplate =
+          TaskCodec.decodeStageTemplate(scheduleTaskMsg.getStageTemplate().toByteArray());
+      newTemplateHandler.accept(stageTemplate);
+      stageTemplates.put(templateId, stageTemplate);
+      readyMsgs.addAll(tasksWaitingForTemplate.getOrDefault(templateId, Collections.emptyList()));
+      tasksWaitingForTemplate.remove(templateId);
+    }
+
+    final StageTemplate stageTemplate = stageTemplates.get(templateId);
+    if (stageTemplate == null) {
+      tasksWaitingForTemplate.computeIfAbsent(templateId, id -> new ArrayList<>()).add(scheduleTaskMsg);
+      return Collections.emptyList();
+    }
+    final List<Task> readyTasks = new ArrayList<>(readyMsgs.size());
+    for (final ControlMessage.ScheduleTaskMsg msg : readyMsgs) {
+      final Map<String, Readable> irVertexIdToReadable =
+          TaskCodec.decodeReadables(msg.getIrVertexIdToReadable().toByteArray());
+      readyTasks.add(new Task(msg.getTaskId(), stageTemplate, irVertexIdToReadable));
+    }
+    return readyTasks;
+  }
+
+  /**
+   * @return the number of the cached templates.
+   */
+  synchronized int getNumCachedTemplates() {
+    return stageTemplates.size();
+  }
+
+  /**
+   * @return the number of the tasks waiting for their templates.
+   */
+  synchronized int getNumWaitingTasks() {
+    return tasksWaitingForTemplate.values().stream().mapToInt(List::size).sum();
+  }
+}
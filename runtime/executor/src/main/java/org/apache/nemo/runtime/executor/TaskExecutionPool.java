@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs the tasks received by an executor.
+ *
+ * Tasks that comply with the slot restriction of the executor share a fixed number of threads, one per slot,
+ * and wait in a priority queue while all slots are busy. Among the waiting tasks, the ones with fewer remote inputs
+ * run first, and tasks with the same number of remote inputs run in the order they were received.
+ * Tasks that do not comply with the slot restriction are not counted against the capacity by the master either,
+ * and thus run on their own threads: they may have to run along with the tasks that feed them.
+ */
+@ThreadSafe
+final class TaskExecutionPool {
+  /**
+   * The weight of the latest sample in the moving average of queueing delays.
+   */
+  private static final double WAIT_TIME_SMOOTHING = 0.2;
+
+  private final PriorityBlockingQueue<Runnable> slotQueue;
+  private final ThreadPoolExecutor slotPool;
+  private final ExecutorService nonComplyingPool;
+  private final AtomicLong submissionCount;
+  private final BiConsumer<Integer, Long> loadListener;
+  private double averageWaitMs;
+  private int lastReportedQueueDepth;
+  private long lastReportedWaitMs;
+
+  /**
+   * Constructor.
+   *
+   * @param numSlots     the number of tasks that comply with the slot restriction to run at once.
+   * @param loadListener notified with the queue depth and the average queueing delay (ms) whenever they change.
+   */
+  TaskExecutionPool(final int numSlots, final BiConsumer<Integer, Long> loadListener) {
+    this.slotQueue = new PriorityBlockingQueue<>();
+    this.slotPool = new ThreadPoolExecutor(numSlots, numSlots, 0L, TimeUnit.MILLISECONDS, slotQueue,
+        new BasicThreadFactory.Builder().namingPattern("TaskExecutor thread-%d").build());
+    this.nonComplyingPool = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
+        .namingPattern("TaskExecutor non-complying thread-%d")
+        .build());
+    this.submissionCount = new AtomicLong(0);
+    this.loadListener = loadListener;
+    this.averageWaitMs = 0;
+    this.lastReportedQueueDepth = 0;
+    this.lastReportedWaitMs = 0;
+  }
+
+  /**
+   * Runs a task.
+   *
+   * @param taskRunnable         the runnable that executes the task.
+   * @param compliesToSlots      whether the task complies with the slot restriction of the executor.
+   * @param numRemoteInputs      the number of inputs of the task that reside in other nodes.
+   */
+  void execute(final Runnable taskRunnable, final boolean compliesToSlots, final int numRemoteInputs) {
+    if (!compliesToSlots) {
+      nonComplyingPool.execute(taskRunnable);
+      return;
+    }
+    slotPool.execute(new QueuedTask(taskRunnable, numRemoteInputs, submissionCount.getAndIncrement()));
+    reportLoad();
+  }
+
+  /**
+   * @return the number of tasks waiting for a slot.
+   */
+  int getQueueDepth() {
+    return slotQueue.size();
+  }
+
+  /**
+   * @return the moving average of the time tasks waited for a slot, in milliseconds.
+   */
+  synchronized long getAverageWaitMs() {
+    return Math.round(averageWaitMs);
+  }
+
+  /**
+   * Stops accepting tasks. Running and waiting tasks are not interrupted.
+   */
+  void shutdown() {
+    slotPool.shutdown();
+    nonComplyingPool.shutdown();
+  }
+
+  private synchronized void onTaskStarted(final long waitNanos) {
+    final double waitMs = waitNanos / 1_000_000.0;
+    averageWaitMs = (1 - WAIT_TIME_SMOOTHING) * averageWaitMs + WAIT_TIME_SMOOTHING * waitMs;
+  }
+
+  private synchronized void reportLoad() {
+    final int queueDepth = getQueueDepth();
+    final long waitMs = getAverageWaitMs();
+    if (queueDepth != lastReportedQueueDepth || waitMs != lastReportedWaitMs) {
+      lastReportedQueueDepth = queueDepth;
+      lastReportedWaitMs = waitMs;
+      loadListener.accept(queueDepth, waitMs);
+    }
+  }
+
+  /**
+   * A task waiting for a slot.
+   */
+  private final class QueuedTask implements Runnable, Comparable<QueuedTask> {
+    private final Runnable taskRunnable;
+    private final int numRemoteInputs;
+    private final long submissionIndex;
+    private final long submissionTimeNanos;
+
+    QueuedTask(final Runnable taskRunnable, final int numRemoteInputs, final long submissionIndex) {
+      this.taskRunnable = taskRunnable;
+      this.numRemoteInputs = numRemoteInputs;
+      this.submissionIndex = submissionIndex;
+      this.submissionTimeNanos = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+      onTaskStarted(System.nanoTime() - submissionTimeNanos);
+      reportLoad();
+      taskRunnable.run();
+    }
+
+    @Override
+    public int compareTo(final QueuedTask other) {
+      final int byRemoteInputs = Integer.compare(numRemoteInputs, other.numRemoteInputs);
+      return byRemoteInputs != 0 ? byRemoteInputs : Long.compare(submissionIndex, other.submissionIndex);
+    }
+  }
+}
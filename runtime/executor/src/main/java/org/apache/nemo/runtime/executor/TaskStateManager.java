@@ -21,13 +21,11 @@ import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
-import org.apache.nemo.runtime.common.metric.StateTransitionEvent;
 import org.apache.nemo.runtime.common.plan.Task;
 
 import java.util.*;
 
 import org.apache.nemo.runtime.common.state.TaskState;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.reef.annotations.audience.EvaluatorSide;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,10 +54,8 @@ public final class TaskStateManager {
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
     this.metricMessageSender = metricMessageSender;
 
-    metricMessageSender.send("TaskMetric", taskId,
-        "containerId", SerializationUtils.serialize(executorId));
-    metricMessageSender.send("TaskMetric", taskId,
-        "scheduleAttempt", SerializationUtils.serialize(attemptIdx));
+    metricMessageSender.send("TaskMetric", taskId, "containerId", executorId);
+    metricMessageSender.send("TaskMetric", taskId, "scheduleAttempt", attemptIdx);
   }
 
   /**
@@ -71,10 +67,16 @@ public final class TaskStateManager {
   public synchronized void onTaskStateChanged(final TaskState.State newState,
                                               final Optional<String> vertexPutOnHold,
                                               final Optional<TaskState.RecoverableTaskFailureCause> cause) {
-    metricMessageSender.send("TaskMetric", taskId,
-        "stateTransitionEvent", SerializationUtils.serialize(new StateTransitionEvent<>(
-            System.currentTimeMillis(), null, newState
-        )));
+    metricMessageSender.send("TaskMetric", taskId, "stateTransitionEvent",
+        ControlMessage.StateTransitionEventMsg.newBuilder()
+            .setTimestamp(System.currentTimeMillis())
+            .setNewState(newState.name())
+            .build()
+            .toByteArray());
+    if (newState != TaskState.State.EXECUTING) {
+      // The task does not send counters or gauges after leaving EXECUTING
+      metricMessageSender.release("TaskMetric", taskId);
+    }
 
     switch (newState) {
       case EXECUTING:
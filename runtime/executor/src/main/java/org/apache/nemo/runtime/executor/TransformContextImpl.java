@@ -18,6 +18,7 @@ package org.apache.nemo.runtime.executor;
 import org.apache.nemo.common.ir.vertex.transform.Transform;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
 
+import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.Optional;
@@ -28,17 +29,31 @@ import java.util.Optional;
 public final class TransformContextImpl implements Transform.Context {
   private final BroadcastManagerWorker broadcastManagerWorker;
   private final Map<String, String> tagToAdditionalChildren;
+  @Nullable private final String localDirectory;
   private String data;
 
   /**
-   * Constructor of Context Implementation.
+   * Constructor of Context Implementation, without a local directory.
    * @param broadcastManagerWorker for broadcast variables.
    * @param tagToAdditionalChildren tag id to additional vertices id map.
    */
   public TransformContextImpl(final BroadcastManagerWorker broadcastManagerWorker,
                               final Map<String, String> tagToAdditionalChildren) {
+    this(broadcastManagerWorker, tagToAdditionalChildren, null);
+  }
+
+  /**
+   * Constructor of Context Implementation.
+   * @param broadcastManagerWorker for broadcast variables.
+   * @param tagToAdditionalChildren tag id to additional vertices id map.
+   * @param localDirectory the directory for the temporary files of the transform. (null if not available)
+   */
+  public TransformContextImpl(final BroadcastManagerWorker broadcastManagerWorker,
+                              final Map<String, String> tagToAdditionalChildren,
+                              @Nullable final String localDirectory) {
     this.broadcastManagerWorker = broadcastManagerWorker;
     this.tagToAdditionalChildren = tagToAdditionalChildren;
+    this.localDirectory = localDirectory;
     this.data = null;
   }
 
@@ -61,4 +76,9 @@ public final class TransformContextImpl implements Transform.Context {
   public Optional<String> getSerializedData() {
     return Optional.ofNullable(this.data);
   }
+
+  @Override
+  public Optional<String> getLocalDirectory() {
+    return Optional.ofNullable(this.localDirectory);
+  }
 }
@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Container for multiple input streams. Represents a transfer context on receiver-side.
@@ -42,6 +43,7 @@ public final class ByteInputContext extends ByteTransferContext {
   private final CompletableFuture<Iterator<InputStream>> completedFuture = new CompletableFuture<>();
   private final ClosableBlockingQueue<ByteBufInputStream> byteBufInputStreams = new ClosableBlockingQueue<>();
   private volatile ByteBufInputStream currentByteBufInputStream = null;
+  private final AtomicLong numBytesReceived = new AtomicLong(0);
 
   private final Iterator<InputStream> inputStreams = new Iterator<InputStream>() {
     @Override
@@ -97,6 +99,13 @@ public final class ByteInputContext extends ByteTransferContext {
     return completedFuture;
   }
 
+  /**
+   * @return the number of bytes received through this context so far.
+   */
+  public long getNumBytesReceived() {
+    return numBytesReceived.get();
+  }
+
   /**
    * Called when a punctuation for sub-stream incarnation is detected.
    */
@@ -117,6 +126,7 @@ public final class ByteInputContext extends ByteTransferContext {
       throw new RuntimeException("Cannot accept ByteBuf: No sub-stream is opened.");
     }
     if (byteBuf.readableBytes() > 0) {
+      numBytesReceived.addAndGet(byteBuf.readableBytes());
       currentByteBufInputStream.byteBufQueue.put(byteBuf);
     } else {
       // ignore empty data frames
@@ -18,10 +18,12 @@ package org.apache.nemo.runtime.executor.bytetransfer;
 import org.apache.nemo.runtime.executor.data.FileArea;
 import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.*;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
@@ -30,12 +32,22 @@ import java.nio.file.Paths;
 /**
  * Container for multiple output streams. Represents a transfer context on sender-side.
  *
+ * <p>Data frames are written to the channel without flushing,
+ * until the unflushed frames reach the frame size or this context is closed.
+ * Writers wait while the bytes queued on the channel are above its high water mark.
+ * Unflushed frames count towards the mark but never drain, so the channel is flushed before waiting,
+ * even if the unflushed frames are smaller than the frame size.
+ * The wait does not hold the lock of this context, so that it does not block the other writers from flushing.</p>
+ *
  * <p>Public methods are thread safe,
  * although the execution order may not be linearized if they were called from different threads.</p>
  */
 public final class ByteOutputContext extends ByteTransferContext implements AutoCloseable {
 
   private final Channel channel;
+  private final ContextManager contextManager;
+  private final int frameSize;
+  private long numUnflushedBytes = 0;
 
   private volatile ByteOutputStream currentByteOutputStream = null;
   private volatile boolean closed = false;
@@ -54,6 +66,8 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
                     final ContextManager contextManager) {
     super(remoteExecutorId, contextId, contextDescriptor, contextManager);
     this.channel = contextManager.getChannel();
+    this.contextManager = contextManager;
+    this.frameSize = contextManager.getFrameSize();
   }
 
   /**
@@ -87,8 +101,7 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
     if (currentByteOutputStream != null) {
       currentByteOutputStream.close();
     }
-    channel.writeAndFlush(DataFrameEncoder.DataFrame.newInstance(getContextId()))
-        .addListener(getChannelWriteListener());
+    writeFrame(DataFrameEncoder.DataFrame.newInstance(getContextId()), 0, true);
     deregister();
     closed = true;
   }
@@ -99,6 +112,47 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
     channel.close();
   }
 
+  /**
+   * Writes a frame to the channel, and flushes the channel if forced or the unflushed frames reach the frame size.
+   * The channel is also flushed when it is not writable, as the unflushed frames would never drain otherwise.
+   * @param frame       the frame to write
+   * @param length      the length of the body of the frame, in bytes
+   * @param forceFlush  whether to flush the channel regardless of the number of unflushed bytes
+   */
+  private synchronized void writeFrame(final DataFrameEncoder.DataFrame frame,
+                                       final long length,
+                                       final boolean forceFlush) {
+    channel.write(frame).addListener(getChannelWriteListener());
+    numUnflushedBytes += length;
+    if (forceFlush || numUnflushedBytes >= frameSize || !channel.isWritable()) {
+      flushChannel();
+    }
+  }
+
+  /**
+   * Waits until the channel drains if it is not writable.
+   * This is not synchronized, so that the other writers to this context can flush while this writer waits.
+   * @throws IOException if interrupted while waiting for the channel to drain
+   */
+  private void awaitWritable() throws IOException {
+    if (!channel.isWritable()) {
+      try {
+        contextManager.awaitWritable();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the channel to drain");
+      }
+    }
+  }
+
+  /**
+   * Flushes the channel.
+   */
+  private synchronized void flushChannel() {
+    channel.flush();
+    numUnflushedBytes = 0;
+  }
+
   /**
    * @throws IOException when a channel exception has been set.
    */
@@ -115,6 +169,9 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
   /**
    * An {@link OutputStream} implementation which buffers data to {@link ByteBuf}s.
    *
+   * <p>Bytes written to this stream are gathered into pooled buffers of the frame size,
+   * each of which is written as a single data frame.</p>
+   *
    * <p>Public methods are thread safe,
    * although the execution order may not be linearized if they were called from different threads.</p>
    */
@@ -122,30 +179,70 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
 
     private volatile boolean newSubStream = true;
     private volatile boolean closed = false;
+    private ByteBuf buffer = null;
 
     @Override
-    public void write(final int i) throws IOException {
-      final ByteBuf byteBuf = channel.alloc().ioBuffer(1, 1);
-      byteBuf.writeByte(i);
-      writeByteBuf(byteBuf);
+    public synchronized void write(final int i) throws IOException {
+      ensureWritable();
+      if (buffer == null) {
+        buffer = channel.alloc().ioBuffer(frameSize, frameSize);
+      }
+      buffer.writeByte(i);
+      if (!buffer.isWritable()) {
+        writeBuffer();
+      }
     }
 
     @Override
-    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
-      final ByteBuf byteBuf = channel.alloc().ioBuffer(length, length);
-      byteBuf.writeBytes(bytes, offset, length);
-      writeByteBuf(byteBuf);
+    public synchronized void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      ensureWritable();
+      int cursor = offset;
+      int bytesToWrite = length;
+      while (bytesToWrite > 0) {
+        if (buffer == null) {
+          buffer = channel.alloc().ioBuffer(frameSize, frameSize);
+        }
+        final int size = Math.min(bytesToWrite, buffer.writableBytes());
+        buffer.writeBytes(bytes, cursor, size);
+        cursor += size;
+        bytesToWrite -= size;
+        if (!buffer.isWritable()) {
+          writeBuffer();
+        }
+      }
     }
 
     /**
-     * Writes {@link SerializedPartition}.
+     * Writes the buffered bytes as a data frame, and flushes the channel.
+     * @throws IOException when an exception has been set or this stream was closed
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+      writeBuffer();
+      flushChannel();
+    }
+
+    /**
+     * Writes {@link SerializedPartition}, without copying its data.
+     * The buffered bytes, if any, are sent in the same data frame.
      * @param serializedPartition {@link SerializedPartition} to write.
      * @return {@code this}
      * @throws IOException when an exception has been set or this stream was closed
      */
-    public ByteOutputStream writeSerializedPartition(final SerializedPartition serializedPartition)
+    public synchronized ByteOutputStream writeSerializedPartition(final SerializedPartition serializedPartition)
         throws IOException {
-      write(serializedPartition.getData(), 0, serializedPartition.getLength());
+      // The duplicate holds its own reference to the buffer, which is released after the frame is written.
+      final ByteBuf data = serializedPartition.getDataBuffer().retainedDuplicate();
+      final ByteBuf byteBuf;
+      if (buffer != null && buffer.isReadable()) {
+        final CompositeByteBuf compositeByteBuf = channel.alloc().compositeBuffer(2);
+        compositeByteBuf.addComponents(true, buffer, data);
+        buffer = null;
+        byteBuf = compositeByteBuf;
+      } else {
+        byteBuf = data;
+      }
+      writeByteBuf(byteBuf);
       return this;
     }
 
@@ -156,7 +253,8 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
      * @return {@code this}
      * @throws IOException when failed to open the file, an exception has been set, or this stream was closed
      */
-    public ByteOutputStream writeFileArea(final FileArea fileArea) throws IOException {
+    public synchronized ByteOutputStream writeFileArea(final FileArea fileArea) throws IOException {
+      writeBuffer();
       final Path path = Paths.get(fileArea.getPath());
       long cursor = fileArea.getPosition();
       long bytesToSend = fileArea.getCount();
@@ -175,6 +273,7 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
       if (closed) {
         return;
       }
+      writeBuffer();
       if (newSubStream) {
         // to emit a frame with new sub-stream flag
         writeDataFrame(null, 0);
@@ -182,13 +281,32 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
       closed = true;
     }
 
+    /**
+     * Writes the buffered bytes, if any, as a data frame.
+     */
+    private void writeBuffer() throws IOException {
+      if (buffer != null) {
+        final ByteBuf byteBuf = buffer;
+        buffer = null;
+        writeByteBuf(byteBuf);
+      }
+    }
+
     /**
      * Writes a data frame, from {@link ByteBuf}.
+     * The {@link ByteBuf} is released if it is empty or could not be written.
      * @param byteBuf {@link ByteBuf} to write.
      */
     private void writeByteBuf(final ByteBuf byteBuf) throws IOException {
       if (byteBuf.readableBytes() > 0) {
-        writeDataFrame(byteBuf, byteBuf.readableBytes());
+        try {
+          writeDataFrame(byteBuf, byteBuf.readableBytes());
+        } catch (final IOException e) {
+          byteBuf.release();
+          throw e;
+        }
+      } else {
+        byteBuf.release();
       }
     }
 
@@ -198,14 +316,21 @@ public final class ByteOutputContext extends ByteTransferContext implements Auto
      * @param length      the length of the body, in bytes
      * @throws IOException when an exception has been set or this stream was closed
      */
-    private synchronized void writeDataFrame(final Object body, final long length) throws IOException {
+    private void writeDataFrame(final Object body, final long length) throws IOException {
+      ensureWritable();
+      writeFrame(DataFrameEncoder.DataFrame.newInstance(getContextId(), body, length, newSubStream), length, false);
+      newSubStream = false;
+      awaitWritable();
+    }
+
+    /**
+     * @throws IOException when an exception has been set or this stream was closed
+     */
+    private void ensureWritable() throws IOException {
       ensureNoException();
       if (closed) {
         throw new IOException("Stream already closed.");
       }
-      channel.writeAndFlush(DataFrameEncoder.DataFrame.newInstance(getContextId(), body, length, newSubStream))
-          .addListener(getChannelWriteListener());
-      newSubStream = false;
     }
   }
 }
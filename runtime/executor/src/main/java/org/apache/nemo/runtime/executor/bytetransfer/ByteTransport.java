@@ -36,6 +36,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Bootstraps the server and connects to other servers on demand.
@@ -55,20 +57,26 @@ final class ByteTransport implements AutoCloseable {
   private final EventLoopGroup clientGroup;
   private final Bootstrap clientBootstrap;
   private final Channel serverListeningChannel;
+  private final List<Channel> additionalServerListeningChannels = new ArrayList<>();
 
   /**
    * Constructs a byte transport and starts listening.
-   * @param nameResolver          provides naming registry
-   * @param localExecutorId       the id of this executor
-   * @param channelImplSelector   provides implementation for netty channel
-   * @param channelInitializer    initializes channel pipeline
-   * @param tcpPortProvider       provides an iterator of random tcp ports
-   * @param localAddressProvider  provides the local address of the node to bind to
-   * @param port                  the listening port; 0 means random assign using {@code tcpPortProvider}
-   * @param serverBacklog         the maximum number of pending connections to the server
-   * @param numListeningThreads   the number of listening threads of the server
-   * @param numWorkingThreads     the number of working threads of the server
-   * @param numClientThreads      the number of client threads
+   * @param nameResolver             provides naming registry
+   * @param localExecutorId          the id of this executor
+   * @param channelImplSelector      provides implementation for netty channel
+   * @param channelInitializer       initializes channel pipeline
+   * @param tcpPortProvider          provides an iterator of random tcp ports
+   * @param localAddressProvider     provides the local address of the node to bind to
+   * @param port                     the listening port; 0 means random assign using {@code tcpPortProvider}
+   * @param serverBacklog            the maximum number of pending connections to the server
+   * @param numListeningThreads      the number of listening threads of the server
+   * @param numWorkingThreads        the number of working threads of the server
+   * @param numClientThreads         the number of client threads
+   * @param tcpNoDelay               whether to set {@code TCP_NODELAY} on connections
+   * @param socketBufferSize         the size of socket send and receive buffers; 0 means the OS default
+   * @param writeBufferHighWaterMark the number of queued bytes above which a connection is not writable
+   * @param writeBufferLowWaterMark  the number of queued bytes below which a connection is writable again
+   * @param reusePort                whether to bind a server socket per listening thread with {@code SO_REUSEPORT}
    */
   @Inject
   private ByteTransport(
@@ -82,7 +90,12 @@ final class ByteTransport implements AutoCloseable {
       @Parameter(JobConf.PartitionTransportServerBacklog.class) final int serverBacklog,
       @Parameter(JobConf.PartitionTransportServerNumListeningThreads.class) final int numListeningThreads,
       @Parameter(JobConf.PartitionTransportServerNumWorkingThreads.class) final int numWorkingThreads,
-      @Parameter(JobConf.PartitionTransportClientNumThreads.class) final int numClientThreads) {
+      @Parameter(JobConf.PartitionTransportClientNumThreads.class) final int numClientThreads,
+      @Parameter(JobConf.PartitionTransportTcpNoDelay.class) final boolean tcpNoDelay,
+      @Parameter(JobConf.PartitionTransportSocketBufferSize.class) final int socketBufferSize,
+      @Parameter(JobConf.PartitionTransportWriteBufferHighWaterMark.class) final int writeBufferHighWaterMark,
+      @Parameter(JobConf.PartitionTransportWriteBufferLowWaterMark.class) final int writeBufferLowWaterMark,
+      @Parameter(JobConf.PartitionTransportServerReusePort.class) final boolean reusePort) {
 
     this.nameResolver = nameResolver;
 
@@ -98,18 +111,39 @@ final class ByteTransport implements AutoCloseable {
         new DefaultThreadFactory(SERVER_WORKING));
     clientGroup = channelImplSelector.newEventLoopGroup(numClientThreads, new DefaultThreadFactory(CLIENT));
 
+    final WriteBufferWaterMark writeBufferWaterMark =
+        new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark);
+
     clientBootstrap = new Bootstrap()
         .group(clientGroup)
         .channel(channelImplSelector.getChannelClass())
         .handler(channelInitializer)
-        .option(ChannelOption.SO_REUSEADDR, true);
+        .option(ChannelOption.SO_REUSEADDR, true)
+        .option(ChannelOption.TCP_NODELAY, tcpNoDelay)
+        .option(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
 
     final ServerBootstrap serverBootstrap = new ServerBootstrap()
         .group(serverListeningGroup, serverWorkingGroup)
         .channel(channelImplSelector.getServerChannelClass())
         .childHandler(channelInitializer)
         .option(ChannelOption.SO_BACKLOG, serverBacklog)
-        .option(ChannelOption.SO_REUSEADDR, true);
+        .option(ChannelOption.SO_REUSEADDR, true)
+        .childOption(ChannelOption.TCP_NODELAY, tcpNoDelay)
+        .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
+
+    if (socketBufferSize > 0) {
+      clientBootstrap
+          .option(ChannelOption.SO_SNDBUF, socketBufferSize)
+          .option(ChannelOption.SO_RCVBUF, socketBufferSize);
+      // The receive buffer of accepted sockets is inherited from the listening socket, which sizes the TCP window.
+      serverBootstrap
+          .option(ChannelOption.SO_RCVBUF, socketBufferSize)
+          .childOption(ChannelOption.SO_SNDBUF, socketBufferSize)
+          .childOption(ChannelOption.SO_RCVBUF, socketBufferSize);
+    }
+
+    final boolean bindsPerListeningThread = reusePort && numListeningThreads > 1
+        && channelImplSelector.setReusePort(serverBootstrap);
 
     Channel listeningChannel = null;
     if (port == 0) {
@@ -157,6 +191,19 @@ final class ByteTransport implements AutoCloseable {
 
     serverListeningChannel = listeningChannel;
 
+    if (bindsPerListeningThread) {
+      // Each bind registers the server channel on the next listening thread, which accepts its share of connections.
+      final int listeningPort = ((InetSocketAddress) listeningChannel.localAddress()).getPort();
+      for (int i = 1; i < numListeningThreads; i++) {
+        final ChannelFuture future = serverBootstrap.bind(host, listeningPort).awaitUninterruptibly();
+        if (!future.isSuccess()) {
+          LOG.warn(String.format("Cannot bind another server channel to %s:%d", host, listeningPort), future.cause());
+          break;
+        }
+        additionalServerListeningChannels.add(future.channel());
+      }
+    }
+
     try {
       final ByteTransportIdentifier identifier = new ByteTransportIdentifier(localExecutorId);
       nameResolver.register(identifier, (InetSocketAddress) listeningChannel.localAddress());
@@ -176,6 +223,7 @@ final class ByteTransport implements AutoCloseable {
     LOG.info("Stopping listening at {} and closing", serverListeningChannel.localAddress());
 
     final ChannelFuture closeListeningChannelFuture = serverListeningChannel.close();
+    additionalServerListeningChannels.forEach(channel -> channel.close().awaitUninterruptibly());
     final ChannelGroupFuture channelGroupCloseFuture = channelGroup.close();
     final Future serverListeningGroupCloseFuture = serverListeningGroup.shutdownGracefully();
     final Future serverWorkingGroupCloseFuture = serverWorkingGroup.shutdownGracefully();
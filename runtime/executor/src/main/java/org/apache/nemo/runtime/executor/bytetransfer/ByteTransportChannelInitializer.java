@@ -18,6 +18,7 @@ package org.apache.nemo.runtime.executor.bytetransfer;
 import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import io.netty.channel.ChannelInitializer;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.channel.socket.SocketChannel;
 import org.apache.reef.tang.InjectionFuture;
 import org.apache.reef.tang.annotations.Parameter;
@@ -42,6 +43,9 @@ import javax.inject.Inject;
  * <h3>Outbound pipeline:</h3>
  * <pre>
  * {@literal
+ *      +--------------------------+
+ *   <= | FlushConsolidationHandler | <== Flushes of all the frames below
+ *      +--------------------------+
  *      +---------------------+
  *   <= | ControlFrameEncoder | <== A new ByteTransferContext
  *      +---------------------+
@@ -56,12 +60,16 @@ import javax.inject.Inject;
  */
 final class ByteTransportChannelInitializer extends ChannelInitializer<SocketChannel> {
 
+  // The number of flushes which are consolidated at most, while reading from the channel.
+  private static final int EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
   private final InjectionFuture<BlockManagerWorker> blockManagerWorker;
   private final InjectionFuture<ByteTransfer> byteTransfer;
   private final InjectionFuture<ByteTransport> byteTransport;
   private final ControlFrameEncoder controlFrameEncoder;
   private final DataFrameEncoder dataFrameEncoder;
   private final String localExecutorId;
+  private final int frameSize;
 
   /**
    * Creates a netty channel initializer.
@@ -72,6 +80,7 @@ final class ByteTransportChannelInitializer extends ChannelInitializer<SocketCha
    * @param controlFrameEncoder encodes control frames
    * @param dataFrameEncoder    encodes data frames
    * @param localExecutorId     the id of this executor
+   * @param frameSize           the size of data frames and flushes, in bytes
    */
   @Inject
   private ByteTransportChannelInitializer(final InjectionFuture<BlockManagerWorker> blockManagerWorker,
@@ -79,20 +88,24 @@ final class ByteTransportChannelInitializer extends ChannelInitializer<SocketCha
                                           final InjectionFuture<ByteTransport> byteTransport,
                                           final ControlFrameEncoder controlFrameEncoder,
                                           final DataFrameEncoder dataFrameEncoder,
-                                          @Parameter(JobConf.ExecutorId.class) final String localExecutorId) {
+                                          @Parameter(JobConf.ExecutorId.class) final String localExecutorId,
+                                          @Parameter(JobConf.PartitionTransportFrameSize.class) final int frameSize) {
     this.blockManagerWorker = blockManagerWorker;
     this.byteTransfer = byteTransfer;
     this.byteTransport = byteTransport;
     this.controlFrameEncoder = controlFrameEncoder;
     this.dataFrameEncoder = dataFrameEncoder;
     this.localExecutorId = localExecutorId;
+    this.frameSize = frameSize;
   }
 
   @Override
   protected void initChannel(final SocketChannel ch) {
     final ContextManager contextManager = new ContextManager(blockManagerWorker.get(), byteTransfer.get(),
-        byteTransport.get().getChannelGroup(), localExecutorId, ch);
+        byteTransport.get().getChannelGroup(), localExecutorId, frameSize, ch);
     ch.pipeline()
+        // outbound
+        .addLast(new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, true))
         // inbound
         .addLast(new FrameDecoder(contextManager))
         // outbound
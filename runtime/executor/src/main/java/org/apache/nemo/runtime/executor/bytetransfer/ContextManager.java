@@ -36,8 +36,10 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
   private final ByteTransfer byteTransfer;
   private final ChannelGroup channelGroup;
   private final String localExecutorId;
+  private final int frameSize;
   private final Channel channel;
   private volatile String remoteExecutorId = null;
+  private final Object writabilityMonitor = new Object();
 
   private final ConcurrentMap<Integer, ByteInputContext> inputContextsInitiatedByLocal = new ConcurrentHashMap<>();
   private final ConcurrentMap<Integer, ByteOutputContext> outputContextsInitiatedByLocal = new ConcurrentHashMap<>();
@@ -52,17 +54,20 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
    * @param byteTransfer        provides channel caching
    * @param channelGroup        to cleanup this channel when closing {@link ByteTransport}
    * @param localExecutorId     local executor id
+   * @param frameSize           the size of data frames and flushes of output contexts, in bytes
    * @param channel             the {@link Channel} to manage
    */
   ContextManager(final BlockManagerWorker blockManagerWorker,
                  final ByteTransfer byteTransfer,
                  final ChannelGroup channelGroup,
                  final String localExecutorId,
+                 final int frameSize,
                  final Channel channel) {
     this.blockManagerWorker = blockManagerWorker;
     this.byteTransfer = byteTransfer;
     this.channelGroup = channelGroup;
     this.localExecutorId = localExecutorId;
+    this.frameSize = frameSize;
     this.channel = channel;
   }
 
@@ -73,6 +78,38 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
     return channel;
   }
 
+  /**
+   * @return the size of data frames and flushes of output contexts, in bytes.
+   */
+  int getFrameSize() {
+    return frameSize;
+  }
+
+  /**
+   * Waits until the channel is writable, i.e. the bytes queued on it fall below the low water mark,
+   * or the channel is closed. Returns immediately on the event loop of the channel, which drains the queue.
+   * @throws InterruptedException if interrupted while waiting
+   */
+  void awaitWritable() throws InterruptedException {
+    if (channel.eventLoop().inEventLoop()) {
+      return;
+    }
+    synchronized (writabilityMonitor) {
+      while (!channel.isWritable() && channel.isActive()) {
+        writabilityMonitor.wait();
+      }
+    }
+  }
+
+  /**
+   * Wakes up the senders waiting in {@link #awaitWritable()}.
+   */
+  private void notifyWritabilityChanged() {
+    synchronized (writabilityMonitor) {
+      writabilityMonitor.notifyAll();
+    }
+  }
+
   /**
    * Returns {@link ByteInputContext} to provide {@link io.netty.buffer.ByteBuf}s on.
    * @param dataDirection the data direction
@@ -207,9 +244,16 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
     channelGroup.add(ctx.channel());
   }
 
+  @Override
+  public void channelWritabilityChanged(final ChannelHandlerContext ctx) {
+    notifyWritabilityChanged();
+    ctx.fireChannelWritabilityChanged();
+  }
+
   @Override
   public void channelInactive(final ChannelHandlerContext ctx) {
     channelGroup.remove(ctx.channel());
+    notifyWritabilityChanged();
     final Throwable cause = new Exception("Channel closed");
     throwChannelErrorOnContexts(inputContextsInitiatedByLocal, cause);
     throwChannelErrorOnContexts(outputContextsInitiatedByLocal, cause);
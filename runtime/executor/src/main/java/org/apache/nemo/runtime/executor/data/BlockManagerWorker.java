@@ -19,6 +19,7 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.common.exception.BlockWriteException;
+import org.apache.nemo.common.exception.IllegalMessageException;
 import org.apache.nemo.common.exception.UnsupportedBlockStoreException;
 import org.apache.nemo.common.exception.UnsupportedExecutionPropertyException;
 import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
@@ -28,14 +29,15 @@ import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferContextDescriptor;
 import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.runtime.common.message.MessageContext;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.apache.nemo.runtime.common.message.MessageListener;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
 import org.apache.nemo.runtime.executor.bytetransfer.ByteInputContext;
 import org.apache.nemo.runtime.executor.bytetransfer.ByteOutputContext;
 import org.apache.nemo.runtime.executor.bytetransfer.ByteTransfer;
 import org.apache.nemo.runtime.executor.data.block.Block;
 import org.apache.nemo.runtime.executor.data.block.FileBlock;
-import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
 import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
 import org.apache.nemo.runtime.executor.data.stores.BlockStore;
 import org.apache.nemo.runtime.executor.data.stores.*;
@@ -63,6 +65,7 @@ public final class BlockManagerWorker {
   private static final Logger LOG = LoggerFactory.getLogger(BlockManagerWorker.class.getName());
   private static final String REMOTE_FILE_STORE = "REMOTE_FILE_STORE";
   private static final int DISCARD_THRESHOLD = 4;
+  private static final int MAX_CACHED_BLOCK_LOCATIONS = 10000;
 
   private final String executorId;
   private final SerializerManager serializerManager;
@@ -75,13 +78,20 @@ public final class BlockManagerWorker {
 
   // To-Master connections
   private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
-  private final Map<String, CompletableFuture<ControlMessage.Message>> pendingBlockLocationRequest;
+  private final Map<String, CompletableFuture<ControlMessage.BlockLocationInfoMsg>> pendingBlockLocations;
+  private final long blockLocationPushTimeoutMs;
+  private final ScheduledExecutorService blockLocationTimeoutService;
+  // The locations of the committed blocks, by block wildcard, up to MAX_CACHED_BLOCK_LOCATIONS recently used ones.
+  // An entry is dropped when the master reports that the block is not available anymore,
+  // when this executor changes the state of a block of the wildcard, or when reading the block from the location fails.
+  private final Map<String, ControlMessage.BlockLocationInfoMsg> blockLocationCache;
 
   // To-Executor connections
   private final ByteTransfer byteTransfer;
   private final ExecutorService backgroundExecutorService;
   private final Map<String, AtomicInteger> blockToRemainingRead;
   private final BlockTransferThrottler blockTransferThrottler;
+  private final SpillManager spillManager;
   private final Lock remainingReadSizeLock = new ReentrantLock();
   private final Condition remainingReadSizeLessThan = remainingReadSizeLock.newCondition();
 
@@ -90,26 +100,32 @@ public final class BlockManagerWorker {
    *
    * @param executorId                      the executor ID.
    * @param numThreads                      the number of threads to be used for background IO request handling.
+   * @param blockLocationPushTimeoutMs      the time to wait for the locations pushed by the master.
    * @param memoryStore                     the memory store.
    * @param serializedMemoryStore           the serialized memory store.
    * @param localFileStore                  the local file store.
    * @param remoteFileStore                 the remote file store.
+   * @param messageEnvironment              the message environment, to receive block locations from the master.
    * @param persistentConnectionToMasterMap the connection map.
    * @param byteTransfer                    the byte transfer.
    * @param serializerManager               the serializer manager.
-   * @param blockTransferThrottler    restricts parallel connections
+   * @param blockTransferThrottler          restricts parallel connections
+   * @param spillManager                    the manager which spills in-memory blocks.
    */
   @Inject
   private BlockManagerWorker(@Parameter(JobConf.ExecutorId.class) final String executorId,
                              @Parameter(JobConf.IORequestHandleThreadsTotal.class) final int numThreads,
+                             @Parameter(JobConf.BlockLocationPushTimeoutMs.class) final long blockLocationPushTimeoutMs,
                              final MemoryStore memoryStore,
                              final SerializedMemoryStore serializedMemoryStore,
                              final LocalFileStore localFileStore,
                              final RemoteFileStore remoteFileStore,
+                             final MessageEnvironment messageEnvironment,
                              final PersistentConnectionToMasterMap persistentConnectionToMasterMap,
                              final ByteTransfer byteTransfer,
                              final SerializerManager serializerManager,
-                             final BlockTransferThrottler blockTransferThrottler) {
+                             final BlockTransferThrottler blockTransferThrottler,
+                             final SpillManager spillManager) {
     this.executorId = executorId;
     this.memoryStore = memoryStore;
     this.serializedMemoryStore = serializedMemoryStore;
@@ -120,8 +136,20 @@ public final class BlockManagerWorker {
     this.backgroundExecutorService = Executors.newFixedThreadPool(numThreads);
     this.blockToRemainingRead = new ConcurrentHashMap<>();
     this.serializerManager = serializerManager;
-    this.pendingBlockLocationRequest = new ConcurrentHashMap<>();
+    this.pendingBlockLocations = new ConcurrentHashMap<>();
+    this.blockLocationPushTimeoutMs = blockLocationPushTimeoutMs;
+    this.blockLocationTimeoutService = Executors.newSingleThreadScheduledExecutor();
+    this.blockLocationCache = Collections.synchronizedMap(
+        new LinkedHashMap<String, ControlMessage.BlockLocationInfoMsg>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(final Map.Entry<String, ControlMessage.BlockLocationInfoMsg> eldest) {
+            return size() > MAX_CACHED_BLOCK_LOCATIONS;
+          }
+        });
     this.blockTransferThrottler = blockTransferThrottler;
+    this.spillManager = spillManager;
+    messageEnvironment.setupListener(MessageEnvironment.BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID,
+        new BlockManagerWorkerMessageReceiver());
   }
 
   //////////////////////////////////////////////////////////// Main public methods
@@ -156,81 +184,247 @@ public final class BlockManagerWorker {
       final String runtimeEdgeId,
       final DataStoreProperty.Value blockStore,
       final KeyRange keyRange) {
-    // Let's see if a remote worker has it
-    final CompletableFuture<ControlMessage.Message> blockLocationFuture =
-        pendingBlockLocationRequest.computeIfAbsent(blockIdWildcard, blockIdToRequest -> {
-          // Ask Master for the location.
-          // (IMPORTANT): This 'request' effectively blocks the TaskExecutor thread if the block is IN_PROGRESS.
-          // We use this property to make the receiver task of a 'push' edge to wait in an Executor for its input data
-          // to become available.
-          final CompletableFuture<ControlMessage.Message> responseFromMasterFuture = persistentConnectionToMasterMap
-              .getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID).request(
-                  ControlMessage.Message.newBuilder()
-                      .setId(RuntimeIdManager.generateMessageId())
-                      .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
-                      .setType(ControlMessage.MessageType.RequestBlockLocation)
-                      .setRequestBlockLocationMsg(
-                          ControlMessage.RequestBlockLocationMsg.newBuilder()
-                              .setExecutorId(executorId)
-                              .setBlockIdWildcard(blockIdWildcard)
-                              .build())
-                      .build());
-          return responseFromMasterFuture;
-        });
-    blockLocationFuture.whenComplete((message, throwable) -> {
-      pendingBlockLocationRequest.remove(blockIdWildcard);
-    });
+    return readBlocks(Collections.singletonList(blockIdWildcard), runtimeEdgeId, blockStore, keyRange).get(0);
+  }
+
+  /**
+   * Reads multiple blocks of a runtime edge, such as all the blocks a task reads from a shuffle edge.
+   * The locations which are not cached are subscribed from the master with a single message.
+   * The master pushes each location as soon as the block is committed,
+   * and the block is fetched right away, regardless of the order of the wildcards.
+   * The locations which are not pushed in {@link JobConf.BlockLocationPushTimeoutMs}, for example because the master
+   * failed to connect to this executor, are requested explicitly.
+   *
+   * @param blockIdWildcards the wildcards of the blocks.
+   * @param runtimeEdgeId    id of the runtime edge that corresponds to the blocks.
+   * @param blockStore       for the data storage.
+   * @param keyRange         the key range descriptor
+   * @return the {@link CompletableFuture}s of the blocks, in the order of the wildcards.
+   */
+  public List<CompletableFuture<DataUtil.IteratorWithNumBytes>> readBlocks(
+      final List<String> blockIdWildcards,
+      final String runtimeEdgeId,
+      final DataStoreProperty.Value blockStore,
+      final KeyRange keyRange) {
+    final List<String> wildcardsToSubscribe = new ArrayList<>();
+    final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures = new ArrayList<>(blockIdWildcards.size());
+    for (final String blockIdWildcard : blockIdWildcards) {
+      final ControlMessage.BlockLocationInfoMsg cachedLocation = blockLocationCache.get(blockIdWildcard);
+      final CompletableFuture<ControlMessage.BlockLocationInfoMsg> locationFuture = cachedLocation != null
+          ? CompletableFuture.completedFuture(cachedLocation)
+          : pendingBlockLocations.computeIfAbsent(blockIdWildcard, wildcard -> {
+            wildcardsToSubscribe.add(wildcard);
+            return new CompletableFuture<>();
+          });
+      // Using thenCompose so that fetching block data starts after getting the location from master.
+      futures.add(locationFuture.thenCompose(blockLocationInfoMsg ->
+          readBlockAt(blockIdWildcard, blockLocationInfoMsg, runtimeEdgeId, blockStore, keyRange)));
+    }
 
-    // Using thenCompose so that fetching block data starts after getting response from master.
-    return blockLocationFuture.thenCompose(responseFromMaster -> {
-      if (responseFromMaster.getType() != ControlMessage.MessageType.BlockLocationInfo) {
-        throw new RuntimeException("Response message type mismatch!");
+    if (!wildcardsToSubscribe.isEmpty()) {
+      persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+          .send(ControlMessage.Message.newBuilder()
+              .setId(RuntimeIdManager.generateMessageId())
+              .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+              .setType(ControlMessage.MessageType.SubscribeBlockLocations)
+              .setSubscribeBlockLocationsMsg(
+                  ControlMessage.SubscribeBlockLocationsMsg.newBuilder()
+                      .setExecutorId(executorId)
+                      .addAllBlockIdWildcard(wildcardsToSubscribe)
+                      .build())
+              .build());
+      blockLocationTimeoutService.schedule(() -> wildcardsToSubscribe.forEach(this::requestPendingBlockLocation),
+          blockLocationPushTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+    return futures;
+  }
+
+  /**
+   * Requests the location of a subscribed block from the master, if it has not been pushed yet.
+   * The master replies as soon as the block is committed, or fails to be produced.
+   * If the request fails, the read of the block fails.
+   *
+   * @param blockIdWildcard of the block.
+   */
+  private void requestPendingBlockLocation(final String blockIdWildcard) {
+    final CompletableFuture<ControlMessage.BlockLocationInfoMsg> locationFuture =
+        pendingBlockLocations.get(blockIdWildcard);
+    if (locationFuture == null || locationFuture.isDone()) {
+      return;
+    }
+    LOG.warn("The location of {} is not pushed in {} ms, requesting it", blockIdWildcard, blockLocationPushTimeoutMs);
+    final CompletableFuture<ControlMessage.Message> responseFromMasterFuture = persistentConnectionToMasterMap
+        .getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+        .request(ControlMessage.Message.newBuilder()
+            .setId(RuntimeIdManager.generateMessageId())
+            .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+            .setType(ControlMessage.MessageType.RequestBlockLocation)
+            .setRequestBlockLocationMsg(
+                ControlMessage.RequestBlockLocationMsg.newBuilder()
+                    .setExecutorId(executorId)
+                    .setBlockIdWildcard(blockIdWildcard)
+                    .build())
+            .build());
+    responseFromMasterFuture.whenComplete((responseFromMaster, throwable) -> {
+      pendingBlockLocations.remove(blockIdWildcard, locationFuture);
+      if (throwable != null) {
+        locationFuture.completeExceptionally(throwable);
+      } else if (responseFromMaster.getType() != ControlMessage.MessageType.BlockLocationInfo) {
+        locationFuture.completeExceptionally(new RuntimeException("Response message type mismatch!"));
+      } else {
+        final ControlMessage.BlockLocationInfoMsg blockLocationInfoMsg = responseFromMaster.getBlockLocationInfoMsg()
+            .toBuilder().setBlockIdWildcard(blockIdWildcard).build();
+        locationFuture.complete(cacheBlockLocation(blockIdWildcard, blockLocationInfoMsg));
       }
+    });
+  }
 
-      final ControlMessage.BlockLocationInfoMsg blockLocationInfoMsg =
-          responseFromMaster.getBlockLocationInfoMsg();
-      if (!blockLocationInfoMsg.hasOwnerExecutorId()) {
-        throw new BlockFetchException(new Throwable(
-            "Block " + blockIdWildcard + " location unknown: "
-                + "The block state is " + blockLocationInfoMsg.getState()));
+  /**
+   * Completes the pending reads of the blocks whose locations are pushed by the master.
+   *
+   * @param blockLocationInfosMsg the pushed locations.
+   */
+  private void onBlockLocationUpdate(final ControlMessage.BlockLocationInfosMsg blockLocationInfosMsg) {
+    for (final ControlMessage.BlockLocationInfoMsg blockLocationInfoMsg
+        : blockLocationInfosMsg.getBlockLocationInfoList()) {
+      final String blockIdWildcard = blockLocationInfoMsg.getBlockIdWildcard();
+      cacheBlockLocation(blockIdWildcard, blockLocationInfoMsg);
+      final CompletableFuture<ControlMessage.BlockLocationInfoMsg> locationFuture =
+          pendingBlockLocations.remove(blockIdWildcard);
+      if (locationFuture != null) {
+        locationFuture.complete(blockLocationInfoMsg);
       }
+    }
+  }
 
-      // This is the executor id that we wanted to know
-      final String blockId = blockLocationInfoMsg.getBlockId();
-      final String targetExecutorId = blockLocationInfoMsg.getOwnerExecutorId();
-      if (targetExecutorId.equals(executorId) || targetExecutorId.equals(REMOTE_FILE_STORE)) {
-        // Block resides in the evaluator
+  /**
+   * Drops the cached locations of the blocks which the master reports are not available anymore.
+   *
+   * @param blockLocationInfosMsg the invalidated locations.
+   */
+  private void onBlockLocationInvalidation(final ControlMessage.BlockLocationInfosMsg blockLocationInfosMsg) {
+    for (final ControlMessage.BlockLocationInfoMsg invalidated : blockLocationInfosMsg.getBlockLocationInfoList()) {
+      blockLocationCache.computeIfPresent(invalidated.getBlockIdWildcard(), (wildcard, cached) ->
+          cached.getBlockId().equals(invalidated.getBlockId()) ? null : cached);
+    }
+  }
+
+  /**
+   * Caches the location of a committed block.
+   *
+   * @param blockIdWildcard      of the block.
+   * @param blockLocationInfoMsg the location info from the master.
+   * @return the location info.
+   */
+  private ControlMessage.BlockLocationInfoMsg cacheBlockLocation(
+      final String blockIdWildcard,
+      final ControlMessage.BlockLocationInfoMsg blockLocationInfoMsg) {
+    if (blockLocationInfoMsg.hasOwnerExecutorId()) {
+      blockLocationCache.put(blockIdWildcard, blockLocationInfoMsg);
+    }
+    return blockLocationInfoMsg;
+  }
+
+  /**
+   * Reads a block from the location the master replied.
+   *
+   * @param blockIdWildcard      of the block.
+   * @param blockLocationInfoMsg the location info from the master.
+   * @param runtimeEdgeId        id of the runtime edge that corresponds to the block.
+   * @param blockStore           for the data storage.
+   * @param keyRange             the key range descriptor
+   * @return the {@link CompletableFuture} of the block.
+   */
+  private CompletableFuture<DataUtil.IteratorWithNumBytes> readBlockAt(
+      final String blockIdWildcard,
+      final ControlMessage.BlockLocationInfoMsg blockLocationInfoMsg,
+      final String runtimeEdgeId,
+      final DataStoreProperty.Value blockStore,
+      final KeyRange keyRange) {
+    if (!blockLocationInfoMsg.hasOwnerExecutorId()) {
+      throw new BlockFetchException(new Throwable(
+          "Block " + blockIdWildcard + " location unknown: "
+              + "The block state is " + blockLocationInfoMsg.getState()));
+    }
+
+    // This is the executor id that we wanted to know
+    final String blockId = blockLocationInfoMsg.getBlockId();
+    final String targetExecutorId = blockLocationInfoMsg.getOwnerExecutorId();
+    if (targetExecutorId.equals(executorId) || targetExecutorId.equals(REMOTE_FILE_STORE)) {
+      // Block resides in the evaluator
+      try {
         return getDataFromLocalBlock(blockId, blockStore, keyRange);
-      } else {
-        final ByteTransferContextDescriptor descriptor = ByteTransferContextDescriptor.newBuilder()
-            .setBlockId(blockId)
-            .setBlockStore(convertBlockStore(blockStore))
-            .setRuntimeEdgeId(runtimeEdgeId)
-            .setKeyRange(ByteString.copyFrom(SerializationUtils.serialize(keyRange)))
-            .build();
-        final CompletableFuture<ByteInputContext> contextFuture = blockTransferThrottler
-            .requestTransferPermission(runtimeEdgeId)
-            .thenCompose(obj -> byteTransfer.newInputContext(targetExecutorId, descriptor.toByteArray()));
-
-        // whenComplete() ensures that blockTransferThrottler.onTransferFinished() is always called,
-        // even on failures. Actual failure handling and Task retry will be done by DataFetcher.
-        contextFuture.whenComplete((connectionContext, connectionThrowable) -> {
-          if (connectionThrowable != null) {
-            // Something wrong with the connection. Notify blockTransferThrottler immediately.
-            blockTransferThrottler.onTransferFinished(runtimeEdgeId);
-          } else {
-            // Connection is okay. Notify blockTransferThrottler when the actual transfer is done, or fails.
-            connectionContext.getCompletedFuture().whenComplete((transferContext, transferThrowable) -> {
-              blockTransferThrottler.onTransferFinished(runtimeEdgeId);
+      } catch (final RuntimeException e) {
+        blockLocationCache.remove(blockIdWildcard, blockLocationInfoMsg);
+        throw e;
+      }
+    } else {
+      final ByteTransferContextDescriptor descriptor = ByteTransferContextDescriptor.newBuilder()
+          .setBlockId(blockId)
+          .setBlockStore(convertBlockStore(blockStore))
+          .setRuntimeEdgeId(runtimeEdgeId)
+          .setKeyRange(ByteString.copyFrom(SerializationUtils.serialize(keyRange)))
+          .build();
+      final CompletableFuture<ByteInputContext> contextFuture = blockTransferThrottler
+          .requestTransferPermission(runtimeEdgeId, getExpectedNumBytes(blockLocationInfoMsg, keyRange))
+          .thenCompose(transfer -> {
+            final CompletableFuture<ByteInputContext> connectionFuture =
+                byteTransfer.newInputContext(targetExecutorId, descriptor.toByteArray());
+
+            // whenComplete() ensures that blockTransferThrottler is always notified,
+            // even on failures. Actual failure handling and Task retry will be done by DataFetcher.
+            connectionFuture.whenComplete((connectionContext, connectionThrowable) -> {
+              if (connectionThrowable != null) {
+                // Something wrong with the connection. Notify blockTransferThrottler immediately,
+                // and forget the location so that the retry asks the master again.
+                blockTransferThrottler.onTransferFailed(transfer);
+                blockLocationCache.remove(blockIdWildcard, blockLocationInfoMsg);
+              } else {
+                // Connection is okay. Notify blockTransferThrottler when the actual transfer is done, or fails,
+                // with the number of bytes transferred.
+                connectionContext.getCompletedFuture().whenComplete((transferContext, transferThrowable) -> {
+                  if (transferThrowable != null) {
+                    blockTransferThrottler.onTransferFailed(transfer);
+                    blockLocationCache.remove(blockIdWildcard, blockLocationInfoMsg);
+                  } else {
+                    blockTransferThrottler.onTransferFinished(transfer, connectionContext.getNumBytesReceived());
+                  }
+                });
+              }
             });
-          }
-        });
+            return connectionFuture;
+          });
+
+      return contextFuture
+          .thenApply(context -> new DataUtil.InputStreamIterator(context.getInputStreams(),
+              serializerManager.getSerializer(runtimeEdgeId), context.getCompletedFuture()));
+    }
+  }
 
-        return contextFuture
-            .thenApply(context -> new DataUtil.InputStreamIterator(context.getInputStreams(),
-                serializerManager.getSerializer(runtimeEdgeId)));
+  /**
+   * Gets the number of bytes expected to be read from a block, from the partition sizes reported with its location.
+   *
+   * @param blockLocationInfoMsg the location info from the master.
+   * @param keyRange             the key range to read.
+   * @return the expected number of bytes, or {@link BlockTransferThrottler#UNKNOWN_SIZE} if not reported.
+   */
+  private static long getExpectedNumBytes(final ControlMessage.BlockLocationInfoMsg blockLocationInfoMsg,
+                                          final KeyRange keyRange) {
+    if (blockLocationInfoMsg.getPartitionSizeCount() == 0) {
+      return BlockTransferThrottler.UNKNOWN_SIZE;
+    }
+    long numBytes = 0;
+    for (final ControlMessage.PartitionSizeEntry entry : blockLocationInfoMsg.getPartitionSizeList()) {
+      try {
+        if (keyRange.includes(Integer.valueOf(entry.getKey()))) {
+          numBytes += entry.getSize();
+        }
+      } catch (final NumberFormatException | ClassCastException e) {
+        // The block is not partitioned by hash indices.
+        return BlockTransferThrottler.UNKNOWN_SIZE;
       }
-    });
+    }
+    return numBytes;
   }
 
   /**
@@ -240,11 +434,13 @@ public final class BlockManagerWorker {
    * @param blockStore           the store to save the block.
    * @param expectedReadTotal    the expected number of read for this block.
    * @param persistence          how to handle the used block.
+   * @param partitionSizes       the size of each partition of the block, reported to the master for scheduling.
    */
   public void writeBlock(final Block block,
                          final DataStoreProperty.Value blockStore,
                          final int expectedReadTotal,
-                         final DataPersistenceProperty.Value persistence) {
+                         final DataPersistenceProperty.Value persistence,
+                         final Map<Integer, Long> partitionSizes) {
     final String blockId = block.getId();
     LOG.info("CommitBlock: {}", blockId);
 
@@ -267,11 +463,14 @@ public final class BlockManagerWorker {
 
     final BlockStore store = getBlockStore(blockStore);
     store.writeBlock(block);
+    blockLocationCache.remove(RuntimeIdManager.getWildCardFromBlockId(blockId));
     final ControlMessage.BlockStateChangedMsg.Builder blockStateChangedMsgBuilder =
         ControlMessage.BlockStateChangedMsg.newBuilder()
             .setExecutorId(executorId)
             .setBlockId(blockId)
             .setState(ControlMessage.BlockStateFromExecutor.AVAILABLE);
+    partitionSizes.forEach((key, size) -> blockStateChangedMsgBuilder.addPartitionSize(
+        ControlMessage.PartitionSizeEntry.newBuilder().setKey(String.valueOf(key)).setSize(size).build()));
 
     if (DataStoreProperty.Value.GlusterFileStore.equals(blockStore)) {
       blockStateChangedMsgBuilder.setLocation(REMOTE_FILE_STORE);
@@ -315,6 +514,7 @@ public final class BlockManagerWorker {
     final boolean deleted = store.deleteBlock(blockId);
 
     if (deleted) {
+      blockLocationCache.remove(RuntimeIdManager.getWildCardFromBlockId(blockId));
       final ControlMessage.BlockStateChangedMsg.Builder blockStateChangedMsgBuilder =
           ControlMessage.BlockStateChangedMsg.newBuilder()
               .setExecutorId(executorId)
@@ -360,6 +560,8 @@ public final class BlockManagerWorker {
     backgroundExecutorService.submit(new Runnable() {
       @Override
       public void run() {
+        // The block is pinned so that it is not spilled or released while being sent.
+        spillManager.pin(blockId);
         try {
           final Optional<Block> optionalBlock = getBlockStore(blockStore).readBlock(blockId);
           if (optionalBlock.isPresent()) {
@@ -389,6 +591,8 @@ public final class BlockManagerWorker {
         } catch (final IOException | BlockFetchException e) {
           LOG.error("Closing a block request exceptionally", e);
           outputContext.onChannelError(e);
+        } finally {
+          spillManager.unpin(blockId);
         }
       }
     });
@@ -423,31 +627,23 @@ public final class BlockManagerWorker {
     final BlockStore store = getBlockStore(blockStore);
 
     // First, try to fetch the block from local BlockStore.
-    final Optional<Block> optionalBlock = store.readBlock(blockId);
+    // The block is pinned so that it is not spilled or released while being read.
+    // The elements are streamed from the block, without materializing its partitions.
+    spillManager.pin(blockId);
+    final Optional<Block> optionalBlock;
+    final DataUtil.IteratorWithNumBytes elements;
+    try {
+      optionalBlock = store.readBlock(blockId);
+      elements = optionalBlock.isPresent() ? optionalBlock.get().readElements(keyRange) : null;
+    } finally {
+      spillManager.unpin(blockId);
+    }
 
     if (optionalBlock.isPresent()) {
-      final Iterable<NonSerializedPartition> partitions = optionalBlock.get().readPartitions(keyRange);
       handleDataPersistence(blockStore, blockId);
 
       // Block resides in this evaluator!
-      try {
-        final Iterator innerIterator = DataUtil.concatNonSerPartitions(partitions).iterator();
-        long numSerializedBytes = 0;
-        long numEncodedBytes = 0;
-        try {
-          for (final NonSerializedPartition partition : partitions) {
-            numSerializedBytes += partition.getNumSerializedBytes();
-            numEncodedBytes += partition.getNumEncodedBytes();
-          }
-
-          return CompletableFuture.completedFuture(DataUtil.IteratorWithNumBytes.of(innerIterator, numSerializedBytes,
-              numEncodedBytes));
-        } catch (final DataUtil.IteratorWithNumBytes.NumBytesNotSupportedException e) {
-          return CompletableFuture.completedFuture(DataUtil.IteratorWithNumBytes.of(innerIterator));
-        }
-      } catch (final IOException e) {
-        throw new BlockFetchException(e);
-      }
+      return CompletableFuture.completedFuture(elements);
     } else {
       // We don't have the block here...
       throw new RuntimeException(String.format("Block %s not found in local BlockManagerWorker", blockId));
@@ -561,4 +757,31 @@ public final class BlockManagerWorker {
         throw new UnsupportedBlockStoreException(new Exception("This block store is not yet supported"));
     }
   }
+
+  /**
+   * Handler for the block locations pushed by the master.
+   */
+  private final class BlockManagerWorkerMessageReceiver implements MessageListener<ControlMessage.Message> {
+
+    @Override
+    public void onMessage(final ControlMessage.Message message) {
+      switch (message.getType()) {
+        case BlockLocationUpdate:
+          onBlockLocationUpdate(message.getBlockLocationInfosMsg());
+          break;
+        case BlockLocationInvalidation:
+          onBlockLocationInvalidation(message.getBlockLocationInfosMsg());
+          break;
+        default:
+          throw new IllegalMessageException(
+              new Exception("This message should not be received by a block manager worker :" + message.getType()));
+      }
+    }
+
+    @Override
+    public void onMessageWithContext(final ControlMessage.Message message, final MessageContext messageContext) {
+      throw new IllegalMessageException(
+          new Exception("This message should not be requested to a block manager worker :" + message.getType()));
+    }
+  }
 }
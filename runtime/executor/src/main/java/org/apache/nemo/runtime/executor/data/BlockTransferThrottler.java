@@ -20,67 +20,315 @@ import org.apache.reef.tang.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
 
 /**
  * A class to restrict parallel connection per runtime edge.
  * Executors can suffer from performance degradation and network-related exceptions when there are massive connections,
  * especially under low network bandwidth or high volume of data.
+ *
+ * The number of parallel downloads of each runtime edge is controlled by additive-increase/multiplicative-decrease
+ * on the aggregate goodput of the edge, i.e., the bytes of its downloads finished per unit of wall time.
+ * The goodput is measured over intervals of a window of finished downloads, and the window moves by one per interval:
+ * it grows while the goodput scales with it, and shrinks while a smaller window keeps the goodput, as the link is
+ * saturated. It halves when the goodput drops or a download fails.
+ * In addition, the bytes being downloaded over all runtime edges are bounded, so that many downloads of small blocks
+ * can run at once while a few downloads of large blocks fill the budget.
  */
+@ThreadSafe
 public final class BlockTransferThrottler {
   private static final Logger LOG = LoggerFactory.getLogger(BlockTransferThrottler.class.getName());
-  private final Map<String, Integer> runtimeEdgeIdToNumCurrentConnections = new HashMap<>();
-  private final Map<String, Queue<CompletableFuture<Void>>> runtimeEdgeIdToPendingConnections = new HashMap<>();
-  private final int maxNum;
+  /**
+   * The size of a download which is not known in advance.
+   */
+  public static final long UNKNOWN_SIZE = -1;
+  private static final int MAX_WINDOW_FACTOR = 8;
+  private static final double THROUGHPUT_DROP_RATIO = 0.5;
+  // A change of the window has to change the goodput by at least this fraction of its own change to count.
+  private static final double MIN_SCALING_EFFICIENCY = 0.5;
+  private static final double EWMA_WEIGHT = 0.2;
+  private static final long NOT_STARTED = -1;
+
+  private final Map<String, EdgeState> runtimeEdgeIdToState = new HashMap<>();
+  private final int initialWindow;
+  private final int maxWindow;
+  private final long maxBytesInFlight;
+  private final LongSupplier nanoClock;
+  private long bytesInFlight = 0;
 
   @Inject
-  private BlockTransferThrottler(@Parameter(JobConf.MaxNumDownloadsForARuntimeEdge.class) final int maxNum) {
-    this.maxNum = maxNum;
+  private BlockTransferThrottler(@Parameter(JobConf.MaxNumDownloadsForARuntimeEdge.class) final int maxNum,
+                                 @Parameter(JobConf.MaxBytesInFlightForDownloads.class) final long maxBytesInFlight) {
+    this(maxNum, maxBytesInFlight, System::nanoTime);
+  }
+
+  /**
+   * Constructor.
+   * @param maxNum           the initial number of parallel downloads of a runtime edge.
+   * @param maxBytesInFlight the maximum number of bytes being downloaded at the same time.
+   * @param nanoClock        the clock to measure the goodput with, in nanoseconds.
+   */
+  BlockTransferThrottler(final int maxNum, final long maxBytesInFlight, final LongSupplier nanoClock) {
+    this.initialWindow = maxNum;
+    this.maxWindow = maxNum * MAX_WINDOW_FACTOR;
+    this.maxBytesInFlight = maxBytesInFlight;
+    this.nanoClock = nanoClock;
   }
 
   /**
    * Request a permission to make a connection.
    * @param runtimeEdgeId the corresponding runtime edge id.
-   * @return a future that will be completed when the connection is granted.
+   * @param numBytes      the number of bytes to download, or {@link #UNKNOWN_SIZE}.
+   * @return a future that will be completed with the transfer when the connection is granted.
+   */
+  public CompletableFuture<Transfer> requestTransferPermission(final String runtimeEdgeId, final long numBytes) {
+    synchronized (this) {
+      final EdgeState state = runtimeEdgeIdToState.computeIfAbsent(runtimeEdgeId, id -> new EdgeState(initialWindow));
+      final long reservedBytes = estimateBytes(state, numBytes);
+      if (state.pendingConnections.isEmpty() && canGrant(state, reservedBytes)) {
+        // grant immediately
+        return CompletableFuture.completedFuture(grant(state, reservedBytes));
+      } else {
+        // add to pending queue
+        final PendingConnection pendingConnection = new PendingConnection(reservedBytes);
+        state.pendingConnections.add(pendingConnection);
+        return pendingConnection.future;
+      }
+    }
+  }
+
+  /**
+   * Indicates the transfer has finished, without any observation on it.
+   * @param transfer the finished transfer.
+   */
+  public void onTransferFinished(final Transfer transfer) {
+    final List<Runnable> grants;
+    synchronized (this) {
+      release(transfer);
+      grants = grantPendingConnections();
+    }
+    grants.forEach(Runnable::run);
+  }
+
+  /**
+   * Indicates the transfer has finished successfully, and adapts the number of parallel downloads of the edge.
+   * @param transfer the finished transfer.
+   * @param numBytes the number of bytes transferred.
    */
-  public synchronized CompletableFuture<Void> requestTransferPermission(final String runtimeEdgeId) {
-    runtimeEdgeIdToNumCurrentConnections.putIfAbsent(runtimeEdgeId, 0);
-    runtimeEdgeIdToPendingConnections.computeIfAbsent(runtimeEdgeId, id -> new ArrayDeque<>());
-    final int currentOutstandingConnections = runtimeEdgeIdToNumCurrentConnections.get(runtimeEdgeId);
-
-    if (currentOutstandingConnections < maxNum) {
-      // grant immediately
-      runtimeEdgeIdToNumCurrentConnections.put(runtimeEdgeId, currentOutstandingConnections + 1);
-      return CompletableFuture.completedFuture(null);
+  public void onTransferFinished(final Transfer transfer, final long numBytes) {
+    final List<Runnable> grants;
+    synchronized (this) {
+      release(transfer);
+      final EdgeState state = transfer.state;
+      state.avgBytes = state.avgBytes > 0
+          ? EWMA_WEIGHT * numBytes + (1 - EWMA_WEIGHT) * state.avgBytes
+          : numBytes;
+      state.intervalBytes += numBytes;
+      state.intervalTransfers++;
+      if (state.intervalTransfers >= state.intervalWindow) {
+        onIntervalFinished(state);
+      }
+      grants = grantPendingConnections();
+    }
+    grants.forEach(Runnable::run);
+  }
+
+  /**
+   * Indicates the transfer has failed, and backs off the number of parallel downloads of the edge.
+   * @param transfer the failed transfer.
+   */
+  public void onTransferFailed(final Transfer transfer) {
+    final List<Runnable> grants;
+    synchronized (this) {
+      release(transfer);
+      decreaseWindow(transfer.state);
+      grants = grantPendingConnections();
+    }
+    grants.forEach(Runnable::run);
+  }
+
+  /**
+   * @param runtimeEdgeId the runtime edge id.
+   * @return the current number of parallel downloads allowed for the edge.
+   */
+  synchronized int getWindow(final String runtimeEdgeId) {
+    final EdgeState state = runtimeEdgeIdToState.get(runtimeEdgeId);
+    return state == null ? initialWindow : state.window;
+  }
+
+  /**
+   * @param state    the state of the edge.
+   * @param numBytes the number of bytes to download, or {@link #UNKNOWN_SIZE}.
+   * @return the number of bytes to reserve for the download. The size of a download which is not known is estimated
+   *         from the previous downloads of the edge, or as a share of the budget for a window of downloads.
+   */
+  private long estimateBytes(final EdgeState state, final long numBytes) {
+    if (numBytes != UNKNOWN_SIZE) {
+      return numBytes;
+    } else if (state.avgBytes > 0) {
+      return (long) state.avgBytes;
     } else {
-      // add to pending queue
-      final CompletableFuture<Void> future = new CompletableFuture<>();
-      runtimeEdgeIdToPendingConnections.get(runtimeEdgeId).add(future);
-      return future;
+      return maxBytesInFlight / initialWindow;
+    }
+  }
+
+  private boolean canGrant(final EdgeState state, final long reservedBytes) {
+    return state.numCurrentConnections < state.window
+        && (bytesInFlight == 0 || reservedBytes <= maxBytesInFlight - bytesInFlight);
+  }
+
+  private Transfer grant(final EdgeState state, final long reservedBytes) {
+    if (state.intervalStartNanos == NOT_STARTED) {
+      state.intervalStartNanos = nanoClock.getAsLong();
     }
+    state.numCurrentConnections++;
+    bytesInFlight += reservedBytes;
+    return new Transfer(state, reservedBytes);
+  }
+
+  private void release(final Transfer transfer) {
+    transfer.state.numCurrentConnections--;
+    bytesInFlight -= transfer.reservedBytes;
   }
 
   /**
-   * Indicates the transfer has finished.
-   * @param runtimeEdgeId the corresponding runtime edge id.
+   * Measures the goodput of the interval of an edge which has just finished, and starts the next interval.
+   * @param state the state of the edge.
+   */
+  private void onIntervalFinished(final EdgeState state) {
+    final long now = nanoClock.getAsLong();
+    final double goodput = state.intervalBytes / (double) Math.max(now - state.intervalStartNanos, 1);
+    // Unless already backed off by a failure during the interval.
+    if (state.window >= state.intervalWindow) {
+      adaptWindow(state, goodput);
+    }
+    state.prevGoodput = goodput;
+    state.prevWindow = state.intervalWindow;
+    state.intervalWindow = state.window;
+    state.intervalBytes = 0;
+    state.intervalTransfers = 0;
+    state.intervalStartNanos = state.numCurrentConnections > 0 ? now : NOT_STARTED;
+  }
+
+  /**
+   * Adapts the window of an edge to the goodput of the last interval, compared with the previous interval.
+   * A larger window is kept growing while the goodput scales with it, and a smaller window is kept shrinking
+   * while the goodput does not fall with it, so that the window stays around the smallest one saturating the link.
+   * @param state   the state of the edge.
+   * @param goodput the goodput of the last interval.
    */
-  public synchronized void onTransferFinished(final String runtimeEdgeId) {
-    final Queue<CompletableFuture<Void>> pendingConnections = runtimeEdgeIdToPendingConnections.get(runtimeEdgeId);
-    if (pendingConnections.size() == 0) {
-      // Just decrease the number of current connections.
-      // Since we have no pending connections, we leave pendingConnections queue untouched.
-      final int numCurrentConnections = runtimeEdgeIdToNumCurrentConnections.get(runtimeEdgeId);
-      runtimeEdgeIdToNumCurrentConnections.put(runtimeEdgeId, numCurrentConnections - 1);
+  private void adaptWindow(final EdgeState state, final double goodput) {
+    if (state.prevGoodput == 0) {
+      increaseWindow(state);
+    } else if (goodput < state.prevGoodput * THROUGHPUT_DROP_RATIO) {
+      decreaseWindow(state);
     } else {
-      // Since pendingConnections has at least one element, the poll method invocation will immediately return.
-      // One connection is completed, and another connection kicks in; the number of current connection stays same
-      final CompletableFuture<Void> nextFuture = pendingConnections.poll();
-      nextFuture.complete(null);
+      final double goodputChange = goodput / state.prevGoodput - 1;
+      final double windowChange = (double) state.intervalWindow / state.prevWindow - 1;
+      if (windowChange > 0) {
+        if (goodputChange >= windowChange * MIN_SCALING_EFFICIENCY) {
+          increaseWindow(state);
+        } else {
+          // The link is saturated: the previous window reached about the same goodput.
+          state.window = state.prevWindow;
+        }
+      } else if (windowChange < 0) {
+        if (goodputChange > windowChange * MIN_SCALING_EFFICIENCY) {
+          // The link is still saturated: the larger window did not add to the goodput.
+          state.window = Math.max(1, state.window - 1);
+        } else {
+          state.window = state.prevWindow;
+        }
+      } else if (goodputChange < 0) {
+        state.window = Math.max(1, state.window - 1);
+      } else {
+        increaseWindow(state);
+      }
+    }
+  }
+
+  private void increaseWindow(final EdgeState state) {
+    state.window = Math.min(maxWindow, state.window + 1);
+  }
+
+  private void decreaseWindow(final EdgeState state) {
+    state.window = Math.max(1, state.window / 2);
+    LOG.debug("Decreased the parallel downloads to {}", state.window);
+  }
+
+  /**
+   * Grants the pending connections of all edges which fit in their windows and the byte budget,
+   * as a finished download of an edge can free the budget for the others.
+   * The futures of the granted connections are to be completed after leaving the monitor of this throttler,
+   * as they run the setup of the connections.
+   * @return the completions of the futures of the granted connections.
+   */
+  private List<Runnable> grantPendingConnections() {
+    final List<Runnable> grants = new ArrayList<>();
+    for (final EdgeState state : runtimeEdgeIdToState.values()) {
+      while (!state.pendingConnections.isEmpty()
+          && canGrant(state, state.pendingConnections.peek().reservedBytes)) {
+        final PendingConnection pendingConnection = state.pendingConnections.poll();
+        final Transfer transfer = grant(state, pendingConnection.reservedBytes);
+        grants.add(() -> pendingConnection.future.complete(transfer));
+      }
+    }
+    return grants;
+  }
+
+  /**
+   * A granted download, which reserves its bytes in the budget until it finishes.
+   */
+  public static final class Transfer {
+    private final EdgeState state;
+    private final long reservedBytes;
+
+    private Transfer(final EdgeState state, final long reservedBytes) {
+      this.state = state;
+      this.reservedBytes = reservedBytes;
+    }
+  }
+
+  /**
+   * A download waiting for its permission.
+   */
+  private static final class PendingConnection {
+    private final CompletableFuture<Transfer> future = new CompletableFuture<>();
+    private final long reservedBytes;
+
+    private PendingConnection(final long reservedBytes) {
+      this.reservedBytes = reservedBytes;
+    }
+  }
+
+  /**
+   * The download state of a runtime edge.
+   */
+  private static final class EdgeState {
+    private final Queue<PendingConnection> pendingConnections = new ArrayDeque<>();
+    private int numCurrentConnections = 0;
+    private int window;
+    private double avgBytes = 0;
+    // The goodput measured over the current and the previous intervals.
+    private int intervalWindow;
+    private long intervalStartNanos = NOT_STARTED;
+    private long intervalBytes = 0;
+    private int intervalTransfers = 0;
+    private int prevWindow = 0;
+    private double prevGoodput = 0;
+
+    EdgeState(final int window) {
+      this.window = window;
+      this.intervalWindow = window;
     }
   }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class provides an {@link InputStream} view of a {@link ByteBuffer}, without copying its content.
+ * The buffer can be either on-heap, direct, or memory-mapped.
+ */
+public final class ByteBufferInputStream extends InputStream {
+  private final ByteBuffer buffer;
+
+  /**
+   * Constructor.
+   *
+   * @param buffer the buffer to read. The bytes between its position and limit are read.
+   */
+  public ByteBufferInputStream(final ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    if (buffer.hasRemaining()) {
+      return buffer.get() & 0xFF;
+    } else {
+      return -1;
+    }
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) {
+    if (length == 0) {
+      return 0;
+    } else if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    final int readBytes = Math.min(length, buffer.remaining());
+    buffer.get(bytes, offset, readBytes);
+    return readBytes;
+  }
+
+  @Override
+  public long skip(final long bytesToSkip) {
+    final int skippedBytes = (int) Math.max(0, Math.min(bytesToSkip, buffer.remaining()));
+    buffer.position(buffer.position() + skippedBytes);
+    return skippedBytes;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+}
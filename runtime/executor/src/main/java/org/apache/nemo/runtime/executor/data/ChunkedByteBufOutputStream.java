@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link OutputStream} which writes data into chunks allocated from a {@link DirectBufferPool}.
+ * The size of the chunks grows geometrically up to a limit, and the written bytes are never copied
+ * when the stream grows. After closed, the chunks are exposed as a single composite {@link ByteBuf}.
+ */
+public final class ChunkedByteBufOutputStream extends OutputStream {
+  private static final int INITIAL_CHUNK_SIZE = 1024;
+  private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+  private final DirectBufferPool bufferPool;
+  private final List<ByteBuf> chunks;
+  private ByteBuf currentChunk;
+  private ByteBuf buffer;
+
+  /**
+   * Constructor.
+   *
+   * @param bufferPool the pool to allocate the chunks from.
+   */
+  public ChunkedByteBufOutputStream(final DirectBufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+    this.chunks = new ArrayList<>();
+    this.currentChunk = null;
+    this.buffer = null;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    ensureWritable();
+    currentChunk.writeByte(b);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    int offset = off;
+    int remaining = len;
+    while (remaining > 0) {
+      ensureWritable();
+      final int toWrite = Math.min(remaining, currentChunk.writableBytes());
+      currentChunk.writeBytes(b, offset, toWrite);
+      offset += toWrite;
+      remaining -= toWrite;
+    }
+  }
+
+  /**
+   * Closes this stream and composes the written chunks into a single buffer.
+   */
+  @Override
+  public void close() {
+    if (buffer == null) {
+      buffer = chunks.isEmpty()
+          ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(chunks.size(), chunks.toArray(new ByteBuf[chunks.size()]));
+      chunks.clear();
+      currentChunk = null;
+    }
+  }
+
+  /**
+   * @return the buffer which contains the written data.
+   * @throws IOException if this stream is not closed yet.
+   */
+  public ByteBuf getBuffer() throws IOException {
+    if (buffer == null) {
+      throw new IOException("The stream is not closed yet!");
+    }
+    return buffer;
+  }
+
+  /**
+   * Allocates a new chunk if the current chunk is full.
+   *
+   * @throws IOException if this stream is already closed.
+   */
+  private void ensureWritable() throws IOException {
+    if (buffer != null) {
+      throw new IOException("The stream is already closed!");
+    }
+    if (currentChunk == null || !currentChunk.isWritable()) {
+      final int chunkSize = currentChunk == null
+          ? INITIAL_CHUNK_SIZE : Math.min(currentChunk.capacity() * 2, MAX_CHUNK_SIZE);
+      currentChunk = bufferPool.allocate(chunkSize);
+      chunks.add(currentChunk);
+    }
+  }
+}
@@ -15,10 +15,14 @@
  */
 package org.apache.nemo.runtime.executor.data;
 
+import com.google.common.collect.Iterables;
 import com.google.common.io.CountingInputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import org.apache.nemo.common.DirectByteArrayOutputStream;
 import org.apache.nemo.common.coder.DecoderFactory;
 import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
 import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
 import org.apache.nemo.runtime.executor.data.streamchainer.DecodeStreamChainer;
@@ -29,9 +33,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Utility methods for data handling (e.g., (de)serialization).
@@ -141,10 +145,10 @@ public final class DataUtil {
     final List<NonSerializedPartition<K>> nonSerializedPartitions = new ArrayList<>();
     for (final SerializedPartition<K> partitionToConvert : partitionsToConvert) {
       final K key = partitionToConvert.getKey();
-      try (final ByteArrayInputStream byteArrayInputStream =
-               new ByteArrayInputStream(partitionToConvert.getData())) {
+      try (final ByteBufInputStream byteBufInputStream =
+               new ByteBufInputStream(partitionToConvert.getDataBuffer().duplicate())) {
         final NonSerializedPartition<K> deserializePartition = deserializePartition(
-            partitionToConvert.getLength(), serializer, key, byteArrayInputStream);
+            partitionToConvert.getLength(), serializer, key, byteBufInputStream);
         nonSerializedPartitions.add(deserializePartition);
       }
     }
@@ -185,13 +189,130 @@ public final class DataUtil {
    */
   public static Iterable concatNonSerPartitions(final Iterable<NonSerializedPartition> partitionsToConcat)
       throws IOException {
-    final List concatStreamBase = new ArrayList<>();
-    Stream<Object> concatStream = concatStreamBase.stream();
+    // Only the references to the data of each partition are collected here.
+    // The elements are lazily chained, so that no intermediate list holding every element is built.
+    final List<Iterable> elementsInPartitions = new ArrayList<>();
     for (final NonSerializedPartition nonSerializedPartition : partitionsToConcat) {
-      final Iterable elementsInPartition = nonSerializedPartition.getData();
-      concatStream = Stream.concat(concatStream, StreamSupport.stream(elementsInPartition.spliterator(), false));
+      elementsInPartitions.add(nonSerializedPartition.getData());
+    }
+    return Iterables.concat((Iterable) elementsInPartitions);
+  }
+
+  /**
+   * An iterator that chains the {@link IteratorWithNumBytes}es from a list of futures.
+   * Each inner iterator is pulled in the order of the completion of its future, and only when the previous one
+   * is exhausted. Therefore, the elements are never materialized at once regardless of the size of the input.
+   *
+   * @param <T> The type of elements.
+   */
+  public static final class FutureConcatIterator<T> implements IteratorWithNumBytes<T> {
+
+    private final int numOfIterators;
+    private final LinkedBlockingQueue<CompletableFuture<IteratorWithNumBytes<T>>> completedFutures;
+
+    private IteratorWithNumBytes<T> currentIterator = null;
+    private int numOfConsumedIterators = 0;
+    private boolean numBytesSupported = true;
+    private long numSerializedBytes = 0;
+    private long numEncodedBytes = 0;
+
+    /**
+     * Construct {@link Iterator} from futures of {@link IteratorWithNumBytes}.
+     *
+     * @param futures the futures of the iterators to chain.
+     */
+    public FutureConcatIterator(final List<CompletableFuture<IteratorWithNumBytes<T>>> futures) {
+      this.numOfIterators = futures.size();
+      this.completedFutures = new LinkedBlockingQueue<>();
+      futures.forEach(future -> future.whenComplete((iterator, throwable) -> completedFutures.add(future)));
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (currentIterator == null || !currentIterator.hasNext()) {
+        if (currentIterator != null) {
+          countBytes(currentIterator);
+          currentIterator = null;
+        }
+        if (numOfConsumedIterators == numOfIterators) {
+          return false;
+        }
+        try {
+          currentIterator = completedFutures.take().get(); // blocking call
+          numOfConsumedIterators++;
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new BlockFetchException(e);
+        } catch (final ExecutionException e) {
+          throw new BlockFetchException(e.getCause());
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (hasNext()) {
+        return currentIterator.next();
+      } else {
+        throw new NoSuchElementException();
+      }
+    }
+
+    /**
+     * Accumulates the number of bytes of an exhausted inner iterator.
+     *
+     * @param iterator the exhausted iterator.
+     */
+    private void countBytes(final IteratorWithNumBytes<T> iterator) {
+      if (!numBytesSupported) {
+        return;
+      }
+      try {
+        numSerializedBytes += iterator.getNumSerializedBytes();
+        numEncodedBytes += iterator.getNumEncodedBytes();
+      } catch (final NumBytesNotSupportedException e) {
+        numBytesSupported = false;
+      }
+    }
+
+    @Override
+    public long getNumSerializedBytes() throws NumBytesNotSupportedException {
+      if (hasNext()) {
+        throw new IllegalStateException("Iteration not completed.");
+      } else if (!numBytesSupported) {
+        throw new NumBytesNotSupportedException();
+      }
+      return numSerializedBytes;
+    }
+
+    @Override
+    public long getNumEncodedBytes() throws NumBytesNotSupportedException {
+      if (hasNext()) {
+        throw new IllegalStateException("Iteration not completed.");
+      } else if (!numBytesSupported) {
+        throw new NumBytesNotSupportedException();
+      }
+      return numEncodedBytes;
+    }
+
+    /**
+     * Closes the current inner iterator and the inner iterators whose futures have completed.
+     */
+    @Override
+    public void close() {
+      if (currentIterator != null) {
+        currentIterator.close();
+        currentIterator = null;
+      }
+      numOfConsumedIterators = numOfIterators;
+      CompletableFuture<IteratorWithNumBytes<T>> future;
+      while ((future = completedFutures.poll()) != null) {
+        if (!future.isCompletedExceptionally()) {
+          future.join().close();
+        }
+      }
     }
-    return concatStream.collect(Collectors.toList());
   }
 
   /**
@@ -203,6 +324,7 @@ public final class DataUtil {
 
     private final Iterator<InputStream> inputStreams;
     private final Serializer<?, T> serializer;
+    private final CompletableFuture<?> dataArrival;
 
     private volatile CountingInputStream serializedCountingStream = null;
     private volatile CountingInputStream encodedCountingStream = null;
@@ -219,10 +341,32 @@ public final class DataUtil {
      * @param inputStreams The streams to read data from.
      * @param serializer   The serializer.
      */
-    InputStreamIterator(final Iterator<InputStream> inputStreams,
-                        final Serializer<?, T> serializer) {
+    public InputStreamIterator(final Iterator<InputStream> inputStreams,
+                               final Serializer<?, T> serializer) {
+      this(inputStreams, serializer, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Construct {@link Iterator} from {@link InputStream}s which are still arriving, e.g., from a remote executor.
+     *
+     * @param inputStreams The streams to read data from.
+     * @param serializer   The serializer.
+     * @param dataArrival  The future completed when all the data of the streams has arrived.
+     */
+    public InputStreamIterator(final Iterator<InputStream> inputStreams,
+                               final Serializer<?, T> serializer,
+                               final CompletableFuture<?> dataArrival) {
       this.inputStreams = inputStreams;
       this.serializer = serializer;
+      this.dataArrival = dataArrival;
+    }
+
+    /**
+     * @return the future completed when all the data of the streams has arrived,
+     *         so that decoding them does not wait for the data.
+     */
+    public CompletableFuture<?> getDataArrival() {
+      return dataArrival;
     }
 
     @Override
@@ -292,6 +436,76 @@ public final class DataUtil {
       }
       return numEncodedBytes;
     }
+
+    /**
+     * Stops decoding, and closes the iterator of the input streams if it is {@link Closeable}.
+     */
+    @Override
+    public void close() {
+      cannotContinueDecoding = true;
+      hasNext = false;
+      next = null;
+      decoder = null;
+      if (inputStreams instanceof Closeable) {
+        try {
+          ((Closeable) inputStreams).close();
+        } catch (final IOException e) {
+          LOG.warn("Failed to close the input streams", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * An iterator of {@link InputStream}s on retained {@link ByteBuf}s, which releases each buffer once the stream on it
+   * is consumed, i.e., when the next stream is requested or when no stream remains.
+   * This lets the buffers be read after their owner has released them.
+   */
+  public static final class ReleasingInputStreamIterator implements Iterator<InputStream>, Closeable {
+    private final Iterator<ByteBuf> retainedBuffers;
+    private ByteBuf current = null;
+
+    /**
+     * @param retainedBuffers the buffers to read, whose reference is passed to this iterator.
+     */
+    public ReleasingInputStreamIterator(final Iterator<ByteBuf> retainedBuffers) {
+      this.retainedBuffers = retainedBuffers;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (retainedBuffers.hasNext()) {
+        return true;
+      }
+      releaseCurrent();
+      return false;
+    }
+
+    @Override
+    public InputStream next() {
+      releaseCurrent();
+      current = retainedBuffers.next();
+      return new ByteBufInputStream(current);
+    }
+
+    /**
+     * Releases the buffer of the last stream, if any.
+     */
+    private void releaseCurrent() {
+      if (current != null) {
+        current.release();
+        current = null;
+      }
+    }
+
+    /**
+     * Releases the buffer of the last stream and the buffers which are not read yet.
+     */
+    @Override
+    public void close() {
+      releaseCurrent();
+      retainedBuffers.forEachRemaining(ByteBuf::release);
+    }
   }
 
   /**
@@ -404,6 +618,14 @@ public final class DataUtil {
       };
     }
 
+    /**
+     * Releases the resources held by this iterator, such as open files and buffers,
+     * when the iteration is abandoned before the iterator is exhausted.
+     * The iterator must not be used after this. Does nothing by default.
+     */
+    default void close() {
+    }
+
     /**
      * Exception indicates {@link #getNumSerializedBytes()} or {@link #getNumEncodedBytes()} is not supported.
      */
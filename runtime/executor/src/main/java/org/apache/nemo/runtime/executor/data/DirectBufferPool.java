@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.apache.nemo.conf.JobConf;
+import org.apache.reef.tang.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+/**
+ * A pool of off-heap buffers that stores the serialized partitions of an executor.
+ * The buffers are allocated from a pooled arena, so they can be recycled without the intervention of the GC
+ * and handed to the network layer without any copy.
+ * If the off-heap memory in use exceeds the capacity, the buffers are allocated on the heap instead.
+ */
+@ThreadSafe
+public final class DirectBufferPool {
+  private static final Logger LOG = LoggerFactory.getLogger(DirectBufferPool.class.getName());
+
+  private final PooledByteBufAllocator allocator;
+  private final long capacityBytes;
+
+  /**
+   * Constructor.
+   *
+   * @param capacityMb the maximum amount of off-heap memory to use, in megabytes.
+   */
+  @Inject
+  private DirectBufferPool(@Parameter(JobConf.OffHeapCapacityMb.class) final int capacityMb) {
+    this.allocator = new PooledByteBufAllocator(true);
+    this.capacityBytes = capacityMb * 1024L * 1024L;
+  }
+
+  /**
+   * Allocates a buffer with a fixed capacity.
+   * The returned buffer has to be released when it is not used anymore.
+   *
+   * @param capacity the capacity of the buffer.
+   * @return the allocated buffer.
+   */
+  public ByteBuf allocate(final int capacity) {
+    if (allocator.metric().usedDirectMemory() + capacity <= capacityBytes) {
+      try {
+        return allocator.directBuffer(capacity, capacity);
+      } catch (final OutOfMemoryError e) {
+        LOG.warn("Failed to allocate an off-heap buffer of {} bytes, fall back to the heap", capacity);
+      }
+    }
+    return Unpooled.buffer(capacity, capacity);
+  }
+
+  /**
+   * @return the amount of off-heap memory held by this pool, in bytes.
+   */
+  public long getUsedDirectMemory() {
+    return allocator.metric().usedDirectMemory();
+  }
+}
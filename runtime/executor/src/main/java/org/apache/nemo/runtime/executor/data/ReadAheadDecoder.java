@@ -0,0 +1,435 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.nemo.common.exception.BlockFetchException;
+import org.apache.nemo.conf.JobConf;
+import org.apache.reef.tang.annotations.Parameter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes the elements of input streams ahead of their consumption, with a bounded pool of threads.
+ * The decoded elements are buffered in fixed-size batches, and the TaskExecutor thread consumes those batches.
+ * This way, the decoding of the input data overlaps with the processing of the task.
+ * The pool only decodes the data which has arrived, so that its threads never wait for the network,
+ * and the TaskExecutor thread decodes by itself when no decoded batch is ready.
+ * A single decoder is shared by all tasks of an executor, and the executor closes it on termination.
+ */
+@ThreadSafe
+public final class ReadAheadDecoder {
+  private static final Object END_OF_DATA = new Object();
+  // Wakes up the consumer when a decoding job stops on the full budget of the task without decoding any batch.
+  private static final Object NO_BATCH = new Object();
+
+  private final ExecutorService decodeThreadPool;
+  private final int batchSize;
+  private final int maxBatchesPerTask;
+
+  /**
+   * Constructor.
+   *
+   * @param numThreads        the number of threads to decode the input data.
+   * @param batchSize         the number of elements in a decoded batch.
+   * @param maxBatchesPerTask the maximum number of decoded batches to buffer for a task.
+   */
+  @Inject
+  private ReadAheadDecoder(@Parameter(JobConf.ReadAheadDecodeThreads.class) final int numThreads,
+                           @Parameter(JobConf.ReadAheadBatchSize.class) final int batchSize,
+                           @Parameter(JobConf.ReadAheadMaxBatchesPerTask.class) final int maxBatchesPerTask) {
+    this.decodeThreadPool = Executors.newFixedThreadPool(numThreads, new BasicThreadFactory.Builder()
+        .namingPattern("ReadAheadDecoder thread-%d")
+        .daemon(true)
+        .build());
+    this.batchSize = batchSize;
+    this.maxBatchesPerTask = maxBatchesPerTask;
+  }
+
+  /**
+   * @return a new budget of decoded batches, to be shared by the iterators of a task.
+   */
+  public TaskBudget newTaskBudget() {
+    return new TaskBudget(maxBatchesPerTask);
+  }
+
+  /**
+   * Starts decoding the elements of an iterator ahead of its consumption, once its data has arrived.
+   * Only the iterators which decode input streams are decoded ahead,
+   * and the others (e.g., the ones from a local {@link org.apache.nemo.runtime.executor.data.stores.MemoryStore})
+   * are returned as they are.
+   *
+   * @param iterator       the iterator to decode.
+   * @param readAheadDepth the maximum number of decoded batches to buffer for the iterator.
+   * @param taskBudget     the budget of decoded batches of the task which reads the iterator.
+   * @param <T>            the type of the elements.
+   * @return the iterator which emits the decoded elements.
+   */
+  public <T> DataUtil.IteratorWithNumBytes<T> readAhead(final DataUtil.IteratorWithNumBytes<T> iterator,
+                                                         final int readAheadDepth,
+                                                         final TaskBudget taskBudget) {
+    if (readAheadDepth <= 0 || !(iterator instanceof DataUtil.InputStreamIterator)) {
+      return iterator;
+    }
+    final ReadAheadIterator<T> readAheadIterator = new ReadAheadIterator<>(iterator, readAheadDepth, taskBudget);
+    ((DataUtil.InputStreamIterator<T>) iterator).getDataArrival()
+        .whenComplete((result, throwable) -> readAheadIterator.onDataArrival());
+    return readAheadIterator;
+  }
+
+  /**
+   * Stops the decode threads once the decoding jobs submitted so far are done.
+   * The iterators created afterwards must not be consumed.
+   */
+  public void close() {
+    decodeThreadPool.shutdown();
+  }
+
+  /**
+   * Bounds the number of decoded batches buffered for a task, over all the blocks it reads.
+   */
+  @ThreadSafe
+  public static final class TaskBudget {
+    private final int maxBatches;
+    private final AtomicInteger numBatches;
+
+    /**
+     * @param maxBatches the maximum number of decoded batches to buffer.
+     */
+    TaskBudget(final int maxBatches) {
+      this.maxBatches = maxBatches;
+      this.numBatches = new AtomicInteger(0);
+    }
+
+    /**
+     * @return whether a batch can be buffered, in which case it is counted in this budget.
+     */
+    private boolean tryAcquire() {
+      while (true) {
+        final int current = numBatches.get();
+        if (current >= maxBatches) {
+          return false;
+        } else if (numBatches.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    private void release() {
+      numBatches.decrementAndGet();
+    }
+
+    private boolean hasRoom() {
+      return numBatches.get() < maxBatches;
+    }
+
+    /**
+     * @return the number of decoded batches buffered now.
+     */
+    int getNumBatches() {
+      return numBatches.get();
+    }
+  }
+
+  /**
+   * An iterator that emits the elements decoded by the decode thread pool.
+   * A decoding job never blocks on the consumer: it stops when the buffer or the budget of the task is full,
+   * and the consumer schedules it again when it takes out a batch.
+   * When no batch is buffered and no job is decoding, the consumer decodes the next batch by itself.
+   *
+   * @param <T> the type of the elements.
+   */
+  private final class ReadAheadIterator<T> implements DataUtil.IteratorWithNumBytes<T> {
+    private final DataUtil.IteratorWithNumBytes<T> innerIterator;
+    private final int readAheadDepth;
+    private final TaskBudget taskBudget;
+    // Holds batches of decoded elements, followed by END_OF_DATA or the failure occurred while decoding.
+    private final LinkedBlockingQueue<Object> decodedBatches;
+    private final AtomicInteger numOfBufferedBatches;
+    // Set while the inner iterator is being decoded, by a decoding job or by the consumer.
+    private final AtomicBoolean decodingScheduled;
+    private volatile boolean dataArrived;
+    private volatile boolean decodingFinished;
+    private volatile boolean closed;
+
+    // Accessed only by the consumer
+    private List<T> currentBatch;
+    private int indexInCurrentBatch;
+    private boolean consumed;
+    private Throwable failure;
+
+    /**
+     * Constructor.
+     *
+     * @param innerIterator  the iterator to decode.
+     * @param readAheadDepth the maximum number of decoded batches to buffer.
+     * @param taskBudget     the budget of decoded batches of the task.
+     */
+    ReadAheadIterator(final DataUtil.IteratorWithNumBytes<T> innerIterator,
+                      final int readAheadDepth,
+                      final TaskBudget taskBudget) {
+      this.innerIterator = innerIterator;
+      this.readAheadDepth = readAheadDepth;
+      this.taskBudget = taskBudget;
+      this.decodedBatches = new LinkedBlockingQueue<>();
+      this.numOfBufferedBatches = new AtomicInteger(0);
+      this.decodingScheduled = new AtomicBoolean(false);
+      this.dataArrived = false;
+      this.decodingFinished = false;
+      this.closed = false;
+      this.currentBatch = Collections.emptyList();
+      this.indexInCurrentBatch = 0;
+      this.consumed = false;
+      this.failure = null;
+    }
+
+    /**
+     * Starts decoding ahead, as the data to decode has arrived.
+     */
+    void onDataArrival() {
+      dataArrived = true;
+      scheduleDecoding();
+    }
+
+    /**
+     * Submits a decoding job if the data has arrived, there is room in the buffer and the budget,
+     * and no job is scheduled yet.
+     */
+    private void scheduleDecoding() {
+      if (dataArrived && !decodingFinished && numOfBufferedBatches.get() < readAheadDepth && taskBudget.hasRoom()
+          && decodingScheduled.compareAndSet(false, true)) {
+        decodeThreadPool.execute(this::decode);
+      }
+    }
+
+    /**
+     * Decodes batches until the buffer or the budget is full, or the input is exhausted.
+     */
+    private void decode() {
+      boolean decoded = false;
+      try {
+        while (!decodingFinished && numOfBufferedBatches.get() < readAheadDepth && taskBudget.tryAcquire()) {
+          final List<T> batch = decodeBatch();
+          if (batch.isEmpty()) {
+            taskBudget.release();
+          } else {
+            numOfBufferedBatches.incrementAndGet();
+            decodedBatches.add(batch);
+            decoded = true;
+          }
+          if (decodingFinished) {
+            decodedBatches.add(END_OF_DATA);
+            decoded = true;
+          }
+        }
+      } catch (final Throwable e) {
+        taskBudget.release();
+        decodingFinished = true;
+        decodedBatches.add(e);
+        decoded = true;
+      } finally {
+        decodingScheduled.set(false);
+      }
+      if (!decoded) {
+        // The consumer may be waiting for this job, and has to decode by itself.
+        decodedBatches.add(NO_BATCH);
+      }
+      if (closed) {
+        // The consumer has closed this iterator while we were decoding.
+        dropDecodedBatches();
+        closeInnerIteratorIfIdle();
+      } else {
+        // The consumer may have taken out a batch after we found the buffer full. Check again.
+        scheduleDecoding();
+      }
+    }
+
+    /**
+     * Decodes a batch from the inner iterator, and marks the decoding finished if the input is exhausted.
+     *
+     * @return the decoded batch.
+     */
+    private List<T> decodeBatch() {
+      final List<T> batch = new ArrayList<>(batchSize);
+      while (batch.size() < batchSize && innerIterator.hasNext()) {
+        batch.add(innerIterator.next());
+      }
+      if (batch.size() < batchSize) {
+        decodingFinished = true;
+      }
+      return batch;
+    }
+
+    /**
+     * Drops the decoded batches, giving back their budget.
+     */
+    private void dropDecodedBatches() {
+      Object dropped;
+      while ((dropped = decodedBatches.poll()) != null) {
+        if (dropped instanceof List) {
+          numOfBufferedBatches.decrementAndGet();
+          taskBudget.release();
+        }
+      }
+    }
+
+    /**
+     * Closes the inner iterator unless a decoding job is using it.
+     * The flag for the scheduled decoding is never reset afterwards, so the inner iterator is closed only once
+     * and no decoding job is submitted again.
+     */
+    private void closeInnerIteratorIfIdle() {
+      if (decodingScheduled.compareAndSet(false, true)) {
+        innerIterator.close();
+      }
+    }
+
+    /**
+     * Takes the next decoded batch, or decodes it if no batch is buffered and no job is decoding.
+     *
+     * @return the next batch, END_OF_DATA or the failure occurred while decoding.
+     * @throws InterruptedException if interrupted while waiting for a decoding job.
+     */
+    private Object takeOrDecode() throws InterruptedException {
+      while (true) {
+        Object taken = decodedBatches.poll();
+        if (taken == null) {
+          if (!decodingScheduled.compareAndSet(false, true)) {
+            taken = decodedBatches.take(); // blocking call
+          } else {
+            try {
+              // A job may have buffered a batch just before we took over the decoding.
+              taken = decodedBatches.poll();
+              if (taken == null) {
+                return decodeByConsumer();
+              }
+            } finally {
+              decodingScheduled.set(false);
+            }
+          }
+        }
+        if (taken instanceof List) {
+          numOfBufferedBatches.decrementAndGet();
+          taskBudget.release();
+        }
+        if (taken != NO_BATCH) {
+          return taken;
+        }
+      }
+    }
+
+    /**
+     * Decodes the next batch in the consumer thread, which is not buffered nor counted in the budget.
+     *
+     * @return the next batch, END_OF_DATA or the failure occurred while decoding.
+     */
+    private Object decodeByConsumer() {
+      if (decodingFinished) {
+        return END_OF_DATA;
+      }
+      try {
+        final List<T> batch = decodeBatch();
+        if (decodingFinished) {
+          decodedBatches.add(END_OF_DATA);
+        }
+        return batch;
+      } catch (final Throwable e) {
+        decodingFinished = true;
+        return e;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (indexInCurrentBatch == currentBatch.size()) {
+        if (failure != null) {
+          throw new BlockFetchException(failure);
+        } else if (consumed) {
+          return false;
+        }
+
+        final Object taken;
+        try {
+          taken = takeOrDecode();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new BlockFetchException(e);
+        }
+
+        if (taken == END_OF_DATA) {
+          consumed = true;
+        } else if (taken instanceof Throwable) {
+          failure = (Throwable) taken;
+        } else {
+          currentBatch = (List<T>) taken;
+          indexInCurrentBatch = 0;
+          scheduleDecoding();
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (hasNext()) {
+        return currentBatch.get(indexInCurrentBatch++);
+      } else {
+        throw new NoSuchElementException();
+      }
+    }
+
+    @Override
+    public long getNumSerializedBytes() throws NumBytesNotSupportedException {
+      if (hasNext()) {
+        throw new IllegalStateException("Iteration not completed.");
+      }
+      return innerIterator.getNumSerializedBytes();
+    }
+
+    @Override
+    public long getNumEncodedBytes() throws NumBytesNotSupportedException {
+      if (hasNext()) {
+        throw new IllegalStateException("Iteration not completed.");
+      }
+      return innerIterator.getNumEncodedBytes();
+    }
+
+    /**
+     * Stops decoding and drops the decoded batches.
+     * The inner iterator is closed now, or by the running decoding job when it stops.
+     */
+    @Override
+    public void close() {
+      closed = true;
+      decodingFinished = true;
+      consumed = true;
+      currentBatch = Collections.emptyList();
+      indexInCurrentBatch = 0;
+      dropDecodedBatches();
+      closeInnerIteratorIfIdle();
+    }
+  }
+}
@@ -18,6 +18,7 @@ package org.apache.nemo.runtime.executor.data.block;
 import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.common.exception.BlockWriteException;
 import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
 import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
 
@@ -99,6 +100,21 @@ public interface Block<K extends Serializable> {
    */
   Iterable<SerializedPartition<K>> readSerializedPartitions(KeyRange<K> keyRange) throws BlockFetchException;
 
+  /**
+   * Retrieves the elements in a specific key range from this block, without materializing them into partitions.
+   * If the data is serialized, it is decoded lazily while the returned iterator is consumed.
+   * The returned iterator stays valid even if this block is removed from its store afterwards.
+   * Invariant: This should not be invoked before this block is committed.
+   *
+   * @param keyRange the key range to retrieve.
+   * @return an iterator of the elements.
+   * @throws BlockFetchException for any error occurred while trying to fetch a block.
+   *                             (This exception will be thrown to the scheduler
+   *                             through {@link org.apache.nemo.runtime.executor.Executor} and
+   *                             have to be handled by the scheduler with fault tolerance mechanism.)
+   */
+  DataUtil.IteratorWithNumBytes readElements(KeyRange<K> keyRange) throws BlockFetchException;
+
   /**
    * Commits this block to prevent further write.
    *
@@ -15,7 +15,7 @@
  */
 package org.apache.nemo.runtime.executor.data.block;
 
-import org.apache.nemo.common.Pair;
+import io.netty.buffer.ByteBuf;
 import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.common.exception.BlockWriteException;
 import org.apache.nemo.common.KeyRange;
@@ -31,8 +31,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -44,9 +47,12 @@ import java.util.*;
 @NotThreadSafe
 public final class FileBlock<K extends Serializable> implements Block<K> {
   private static final Logger LOG = LoggerFactory.getLogger(FileBlock.class.getName());
+  // Partitions larger than this are memory-mapped rather than copied to the heap when read.
+  private static final int MMAP_THRESHOLD_BYTES = 1024 * 1024;
   private final String id;
   private final Map<K, SerializedPartition<K>> nonCommittedPartitionsMap;
   private final Serializer serializer;
+  private final DirectBufferPool bufferPool;
   private final String filePath;
   private final FileMetadata<K> metadata;
 
@@ -55,16 +61,19 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
    *
    * @param blockId    the ID of this block.
    * @param serializer the {@link Serializer}.
+   * @param bufferPool the pool to allocate the buffers for the partitions being written from.
    * @param filePath   the path of the file that this block will be stored.
    * @param metadata   the metadata for this block.
    */
   public FileBlock(final String blockId,
                    final Serializer serializer,
+                   final DirectBufferPool bufferPool,
                    final String filePath,
                    final FileMetadata<K> metadata) {
     this.id = blockId;
     this.nonCommittedPartitionsMap = new HashMap<>();
     this.serializer = serializer;
+    this.bufferPool = bufferPool;
     this.filePath = filePath;
     this.metadata = metadata;
   }
@@ -83,7 +92,8 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
       for (final SerializedPartition<K> serializedPartition : serializedPartitions) {
         // Reserve a partition write and get the metadata.
         metadata.writePartitionMetadata(serializedPartition.getKey(), serializedPartition.getLength());
-        fileOutputStream.write(serializedPartition.getData(), 0, serializedPartition.getLength());
+        final ByteBuf dataBuffer = serializedPartition.getDataBuffer();
+        dataBuffer.getBytes(dataBuffer.readerIndex(), fileOutputStream, serializedPartition.getLength());
       }
     }
   }
@@ -106,7 +116,7 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
       try {
         SerializedPartition<K> partition = nonCommittedPartitionsMap.get(key);
         if (partition == null) {
-          partition = new SerializedPartition<>(key, serializer);
+          partition = new SerializedPartition<>(key, serializer, bufferPool);
           nonCommittedPartitionsMap.put(key, partition);
         }
         partition.write(element);
@@ -118,6 +128,8 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
 
   /**
    * Writes {@link NonSerializedPartition}s to this block.
+   * The partitions are serialized and written one at a time, and the buffers of each partition are released
+   * before the next one is serialized.
    * Invariant: This method does not support concurrent write.
    *
    * @param partitions the {@link NonSerializedPartition}s to write.
@@ -129,12 +141,22 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
     if (metadata.isCommitted()) {
       throw new BlockWriteException(new Throwable("The partition is already committed!"));
     } else {
-      try {
-        final Iterable<SerializedPartition<K>> convertedPartitions =
-            DataUtil.convertToSerPartitions(serializer, partitions);
-        writeSerializedPartitions(convertedPartitions);
-      } catch (final IOException e) {
-        throw new BlockWriteException(e);
+      for (final NonSerializedPartition<K> partition : partitions) {
+        SerializedPartition<K> serializedPartition = null;
+        try {
+          serializedPartition = new SerializedPartition<>(partition.getKey(), serializer, bufferPool);
+          for (final Object element : partition.getData()) {
+            serializedPartition.write(element);
+          }
+          serializedPartition.commit();
+          writeToFile(Collections.singletonList(serializedPartition));
+        } catch (final IOException e) {
+          throw new BlockWriteException(e);
+        } finally {
+          if (serializedPartition != null) {
+            serializedPartition.release();
+          }
+        }
       }
     }
   }
@@ -162,6 +184,8 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
 
   /**
    * Retrieves the partitions of this block from the file in a specific key range and deserializes it.
+   * Only the partitions in the range are read, at the offsets recorded in their {@link PartitionMetadata}.
+   * The elements are decoded directly from the read (or memory-mapped) buffers.
    *
    * @param keyRange the key range.
    * @return an iterable of {@link NonSerializedPartition}s.
@@ -174,29 +198,16 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
     } else {
       // Deserialize the data
       final List<NonSerializedPartition<K>> deserializedPartitions = new ArrayList<>();
-      try {
-        final List<Pair<K, byte[]>> partitionKeyBytesPairs = new ArrayList<>();
-        try (final FileInputStream fileStream = new FileInputStream(filePath)) {
-          for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
-            final K key = partitionMetadata.getKey();
-            if (keyRange.includes(key)) {
-              // The key value of this partition is in the range.
-              final byte[] partitionBytes = new byte[partitionMetadata.getPartitionSize()];
-              fileStream.read(partitionBytes, 0, partitionMetadata.getPartitionSize());
-              partitionKeyBytesPairs.add(Pair.of(key, partitionBytes));
-            } else {
-              // Have to skip this partition.
-              skipBytes(fileStream, partitionMetadata.getPartitionSize());
-            }
+      try (final FileChannel fileChannel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+        for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
+          final K key = partitionMetadata.getKey();
+          if (keyRange.includes(key)) {
+            // The key value of this partition is in the range.
+            final ByteBuffer partitionBuffer = readPartitionBuffer(fileChannel, partitionMetadata);
+            deserializedPartitions.add(DataUtil.deserializePartition(
+                partitionMetadata.getPartitionSize(), serializer, key, new ByteBufferInputStream(partitionBuffer)));
           }
         }
-        for (final Pair<K, byte[]> partitionKeyBytes : partitionKeyBytesPairs) {
-          final NonSerializedPartition<K> deserializePartition =
-              DataUtil.deserializePartition(
-                  partitionKeyBytes.right().length, serializer, partitionKeyBytes.left(),
-                  new ByteArrayInputStream(partitionKeyBytes.right()));
-          deserializedPartitions.add(deserializePartition);
-        }
       } catch (final IOException e) {
         throw new BlockFetchException(e);
       }
@@ -207,6 +218,7 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
 
   /**
    * Retrieves the {@link SerializedPartition}s in a specific key range.
+   * Only the partitions in the range are read, at the offsets recorded in their {@link PartitionMetadata}.
    * Invariant: This should not be invoked before this block is committed.
    *
    * @param keyRange the key range to retrieve.
@@ -218,25 +230,15 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
     if (!metadata.isCommitted()) {
       throw new BlockFetchException(new Throwable("Cannot retrieve elements before a block is committed"));
     } else {
-      // Deserialize the data
       final List<SerializedPartition<K>> partitionsInRange = new ArrayList<>();
-      try {
-        try (final FileInputStream fileStream = new FileInputStream(filePath)) {
-          for (final PartitionMetadata<K> partitionmetadata : metadata.getPartitionMetadataList()) {
-            final K key = partitionmetadata.getKey();
-            if (keyRange.includes(key)) {
-              // The hash value of this partition is in the range.
-              final byte[] serializedData = new byte[partitionmetadata.getPartitionSize()];
-              final int readBytes = fileStream.read(serializedData);
-              if (readBytes != serializedData.length) {
-                throw new IOException("The read data size does not match with the partition size.");
-              }
-              partitionsInRange.add(new SerializedPartition<>(
-                  key, serializedData, serializedData.length));
-            } else {
-              // Have to skip this partition.
-              skipBytes(fileStream, partitionmetadata.getPartitionSize());
-            }
+      try (final FileChannel fileChannel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+        for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
+          final K key = partitionMetadata.getKey();
+          if (keyRange.includes(key)) {
+            // The hash value of this partition is in the range.
+            final byte[] serializedData = new byte[partitionMetadata.getPartitionSize()];
+            readFully(fileChannel, ByteBuffer.wrap(serializedData), partitionMetadata.getOffset());
+            partitionsInRange.add(new SerializedPartition<>(key, serializedData, serializedData.length));
           }
         }
       } catch (final IOException e) {
@@ -248,21 +250,158 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
   }
 
   /**
-   * Skips some bytes in a input stream.
+   * Retrieves the elements in a specific key range from this block.
+   * The partitions are read (or memory-mapped) one at a time while the elements are iterated,
+   * and the elements are decoded straight from the bytes of each partition.
+   * The file is opened before returning, so the iteration is not affected if the file is deleted afterwards.
+   * The file is closed when the iterator is exhausted or closed.
+   * Invariant: This should not be invoked before this block is committed.
+   *
+   * @param keyRange the key range to retrieve.
+   * @return an iterator of the elements.
+   * @throws BlockFetchException for any error occurred while trying to fetch a block.
+   */
+  @Override
+  public DataUtil.IteratorWithNumBytes readElements(final KeyRange keyRange) throws BlockFetchException {
+    if (!metadata.isCommitted()) {
+      throw new BlockFetchException(new Throwable("Cannot retrieve elements before a block is committed"));
+    } else {
+      try {
+        final List<PartitionMetadata<K>> partitionsInRange = new ArrayList<>();
+        for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
+          if (keyRange.includes(partitionMetadata.getKey())) {
+            partitionsInRange.add(partitionMetadata);
+          }
+        }
+        final FileChannel fileChannel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        return new DataUtil.InputStreamIterator(new PartitionStreamIterator(fileChannel, partitionsInRange),
+            serializer);
+      } catch (final IOException e) {
+        throw new BlockFetchException(e);
+      }
+    }
+  }
+
+  /**
+   * An iterator of {@link InputStream}s on the partitions of this block, which reads each partition lazily
+   * when the stream on it is requested. Only the buffer of the last partition is referenced,
+   * and the partitions smaller than the memory-mapping threshold are read into a single reused heap buffer.
+   */
+  private final class PartitionStreamIterator implements Iterator<InputStream>, Closeable {
+    private final FileChannel fileChannel;
+    private final Iterator<PartitionMetadata<K>> partitionMetadataIterator;
+    private ByteBuffer heapBuffer;
+    private boolean closed;
+
+    /**
+     * @param fileChannel       the channel of the file where this block resides, which is closed by this iterator.
+     * @param partitionsToRead  the metadata of the partitions to read.
+     */
+    PartitionStreamIterator(final FileChannel fileChannel,
+                            final List<PartitionMetadata<K>> partitionsToRead) {
+      this.fileChannel = fileChannel;
+      this.partitionMetadataIterator = partitionsToRead.iterator();
+      this.heapBuffer = null;
+      this.closed = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!closed && partitionMetadataIterator.hasNext()) {
+        return true;
+      }
+      close();
+      return false;
+    }
+
+    /**
+     * Reads the next partition. The stream on the previous partition must not be read after this.
+     *
+     * @return the stream on the next partition.
+     */
+    @Override
+    public InputStream next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final PartitionMetadata<K> partitionMetadata = partitionMetadataIterator.next();
+      final int partitionSize = partitionMetadata.getPartitionSize();
+      try {
+        if (partitionSize >= MMAP_THRESHOLD_BYTES) {
+          return new ByteBufferInputStream(readPartitionBuffer(fileChannel, partitionMetadata));
+        }
+        if (heapBuffer == null || heapBuffer.capacity() < partitionSize) {
+          heapBuffer = ByteBuffer.allocate(partitionSize);
+        }
+        heapBuffer.clear();
+        heapBuffer.limit(partitionSize);
+        readFully(fileChannel, heapBuffer, partitionMetadata.getOffset());
+        heapBuffer.flip();
+        return new ByteBufferInputStream(heapBuffer);
+      } catch (final IOException e) {
+        close();
+        throw new BlockFetchException(e);
+      }
+    }
+
+    /**
+     * Closes the file and drops the buffer. Does nothing if already closed.
+     */
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        heapBuffer = null;
+        try {
+          fileChannel.close();
+        } catch (final IOException e) {
+          LOG.warn("Failed to close the file of block {}", id, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the bytes of a partition from a file channel, without touching the other partitions.
+   * Large partitions are memory-mapped, and the others are read with a positional read.
    *
-   * @param inputStream the stream to skip.
-   * @param bytesToSkip the number of bytes to skip.
-   * @throws IOException if fail to skip.
+   * @param fileChannel       the channel of the file where this block resides.
+   * @param partitionMetadata the metadata of the partition to read.
+   * @return the buffer which contains the bytes of the partition.
+   * @throws IOException if fail to read.
    */
-  private void skipBytes(final InputStream inputStream,
-                         final long bytesToSkip) throws IOException {
-    long remainingBytesToSkip = bytesToSkip;
-    while (remainingBytesToSkip > 0) {
-      final long skippedBytes = inputStream.skip(bytesToSkip);
-      remainingBytesToSkip -= skippedBytes;
-      if (skippedBytes <= 0) {
-        throw new IOException("The file stream failed to skip to the next block.");
+  private ByteBuffer readPartitionBuffer(final FileChannel fileChannel,
+                                         final PartitionMetadata<K> partitionMetadata) throws IOException {
+    final long offset = partitionMetadata.getOffset();
+    final int partitionSize = partitionMetadata.getPartitionSize();
+    if (partitionSize >= MMAP_THRESHOLD_BYTES) {
+      return fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, partitionSize);
+    } else {
+      final ByteBuffer buffer = ByteBuffer.allocate(partitionSize);
+      readFully(fileChannel, buffer, offset);
+      buffer.flip();
+      return buffer;
+    }
+  }
+
+  /**
+   * Fills a buffer with the bytes of a file channel from a specific position.
+   *
+   * @param fileChannel the channel to read.
+   * @param buffer      the buffer to fill.
+   * @param position    the position in the file to start reading.
+   * @throws IOException if fail to read, or the file ends before the buffer is filled.
+   */
+  private static void readFully(final FileChannel fileChannel,
+                                final ByteBuffer buffer,
+                                final long position) throws IOException {
+    long currentPosition = position;
+    while (buffer.hasRemaining()) {
+      final int readBytes = fileChannel.read(buffer, currentPosition);
+      if (readBytes < 0) {
+        throw new IOException("The read data size does not match with the partition size.");
       }
+      currentPosition += readBytes;
     }
   }
 
@@ -344,9 +483,12 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
         partitions.add((SerializedPartition<K>) partition);
       }
       writeToFile(partitions);
-      nonCommittedPartitionsMap.clear();
     } catch (final IOException e) {
       throw new BlockWriteException(e);
+    } finally {
+      // The buffers of the partitions are not needed anymore once they are flushed to the file.
+      nonCommittedPartitionsMap.values().forEach(SerializedPartition::release);
+      nonCommittedPartitionsMap.clear();
     }
   }
 
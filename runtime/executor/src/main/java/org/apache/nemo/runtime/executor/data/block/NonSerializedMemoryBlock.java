@@ -151,6 +151,37 @@ public final class NonSerializedMemoryBlock<K extends Serializable> implements B
     }
   }
 
+  /**
+   * Retrieves the elements in a specific key range from this block.
+   * The committed partitions are handed out as they are, without any copy.
+   * Invariant: This should not be invoked before this block is committed.
+   *
+   * @param keyRange the key range to retrieve.
+   * @return an iterator of the elements.
+   * @throws BlockFetchException for any error occurred while trying to fetch a block.
+   */
+  @Override
+  public DataUtil.IteratorWithNumBytes readElements(final KeyRange keyRange) throws BlockFetchException {
+    final Iterable<NonSerializedPartition<K>> partitions = readPartitions(keyRange);
+    final Iterator elements;
+    try {
+      elements = DataUtil.concatNonSerPartitions((Iterable) partitions).iterator();
+    } catch (final IOException e) {
+      throw new BlockFetchException(e);
+    }
+    try {
+      long numSerializedBytes = 0;
+      long numEncodedBytes = 0;
+      for (final NonSerializedPartition<K> partition : partitions) {
+        numSerializedBytes += partition.getNumSerializedBytes();
+        numEncodedBytes += partition.getNumEncodedBytes();
+      }
+      return DataUtil.IteratorWithNumBytes.of(elements, numSerializedBytes, numEncodedBytes);
+    } catch (final DataUtil.IteratorWithNumBytes.NumBytesNotSupportedException e) {
+      return DataUtil.IteratorWithNumBytes.of(elements);
+    }
+  }
+
   /**
    * Retrieves the {@link SerializedPartition}s in a specific hash range.
    * Because the data is stored in a non-serialized form, it have to be serialized.
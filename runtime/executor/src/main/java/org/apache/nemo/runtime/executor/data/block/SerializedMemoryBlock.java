@@ -15,10 +15,12 @@
  */
 package org.apache.nemo.runtime.executor.data.block;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.common.exception.BlockWriteException;
 import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.runtime.executor.data.DataUtil;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
 import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
 import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
 import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
@@ -41,6 +43,7 @@ public final class SerializedMemoryBlock<K extends Serializable> implements Bloc
   private final List<SerializedPartition<K>> serializedPartitions;
   private final Map<K, SerializedPartition<K>> nonCommittedPartitionsMap;
   private final Serializer serializer;
+  private final DirectBufferPool bufferPool;
   private volatile boolean committed;
 
   /**
@@ -48,13 +51,16 @@ public final class SerializedMemoryBlock<K extends Serializable> implements Bloc
    *
    * @param blockId    the ID of this block.
    * @param serializer the {@link Serializer}.
+   * @param bufferPool the pool to allocate the buffers for the serialized data from.
    */
   public SerializedMemoryBlock(final String blockId,
-                               final Serializer serializer) {
+                               final Serializer serializer,
+                               final DirectBufferPool bufferPool) {
     this.id = blockId;
     this.serializedPartitions = new ArrayList<>();
     this.nonCommittedPartitionsMap = new HashMap<>();
     this.serializer = serializer;
+    this.bufferPool = bufferPool;
     this.committed = false;
   }
 
@@ -76,7 +82,7 @@ public final class SerializedMemoryBlock<K extends Serializable> implements Bloc
       try {
         SerializedPartition<K> partition = nonCommittedPartitionsMap.get(key);
         if (partition == null) {
-          partition = new SerializedPartition<>(key, serializer);
+          partition = new SerializedPartition<>(key, serializer, bufferPool);
           nonCommittedPartitionsMap.put(key, partition);
         }
         partition.write(element);
@@ -170,6 +176,31 @@ public final class SerializedMemoryBlock<K extends Serializable> implements Bloc
     }
   }
 
+  /**
+   * Retrieves the elements in a specific key range from this block.
+   * The elements are decoded straight from the serialized data while being iterated.
+   * The buffers of the partitions are retained until they are read, so that they survive the release of this block.
+   * Invariant: This should not be invoked before this block is committed.
+   *
+   * @param keyRange the key range to retrieve.
+   * @return an iterator of the elements.
+   * @throws BlockFetchException for any error occurred while trying to fetch a block.
+   */
+  @Override
+  public DataUtil.IteratorWithNumBytes readElements(final KeyRange keyRange) throws BlockFetchException {
+    final List<ByteBuf> retainedBuffers = new ArrayList<>();
+    try {
+      for (final SerializedPartition<K> partition : readSerializedPartitions(keyRange)) {
+        retainedBuffers.add(partition.getDataBuffer().retainedDuplicate());
+      }
+    } catch (final IOException e) {
+      retainedBuffers.forEach(ByteBuf::release);
+      throw new BlockFetchException(e);
+    }
+    return new DataUtil.InputStreamIterator(
+        new DataUtil.ReleasingInputStreamIterator(retainedBuffers.iterator()), serializer);
+  }
+
   /**
    * Commits this block to prevent further write.
    *
@@ -216,6 +247,15 @@ public final class SerializedMemoryBlock<K extends Serializable> implements Bloc
     }
   }
 
+  /**
+   * Releases the buffers of all partitions in this block.
+   * The data of this block cannot be accessed after the release.
+   */
+  public synchronized void release() {
+    serializedPartitions.forEach(SerializedPartition::release);
+    nonCommittedPartitionsMap.values().forEach(SerializedPartition::release);
+  }
+
   /**
    * @return the ID of this block.
    */
@@ -15,8 +15,12 @@
  */
 package org.apache.nemo.runtime.executor.data.partition;
 
-import org.apache.nemo.common.DirectByteArrayOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.runtime.executor.data.ChunkedByteBufOutputStream;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
 import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +32,8 @@ import java.io.OutputStream;
 import static org.apache.nemo.runtime.executor.data.DataUtil.buildOutputStream;
 
 /**
- * A collection of data elements. The data is stored as an array of bytes.
+ * A collection of data elements. The data is stored as serialized bytes in a {@link ByteBuf},
+ * which can be an off-heap buffer from a {@link DirectBufferPool}.
  * This is a unit of read / write towards {@link org.apache.nemo.runtime.executor.data.block.Block}s.
  * @param <K> the key type of its partitions.
  */
@@ -36,11 +41,11 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
   private static final Logger LOG = LoggerFactory.getLogger(SerializedPartition.class.getName());
 
   private final K key;
-  private volatile byte[] serializedData;
+  private volatile ByteBuf dataBuffer;
   private volatile int length;
   private volatile boolean committed;
   // Will be null when the partition is committed when it is constructed.
-  @Nullable private final DirectByteArrayOutputStream bytesOutputStream;
+  @Nullable private final ChunkedByteBufOutputStream bytesOutputStream;
   @Nullable private final OutputStream wrappedStream;
   @Nullable private final EncoderFactory.Encoder encoder;
 
@@ -50,15 +55,17 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
    *
    * @param key        the key of this partition.
    * @param serializer the serializer to be used to serialize data.
+   * @param bufferPool the pool to allocate the buffers for the serialized data from.
    * @throws IOException if fail to chain the output stream.
    */
   public SerializedPartition(final K key,
-                             final Serializer serializer) throws IOException {
+                             final Serializer serializer,
+                             final DirectBufferPool bufferPool) throws IOException {
     this.key = key;
-    this.serializedData = new byte[0];
+    this.dataBuffer = Unpooled.EMPTY_BUFFER;
     this.length = 0;
     this.committed = false;
-    this.bytesOutputStream = new DirectByteArrayOutputStream();
+    this.bytesOutputStream = new ChunkedByteBufOutputStream(bufferPool);
     this.wrappedStream = buildOutputStream(bytesOutputStream, serializer.getEncodeStreamChainers());
     this.encoder = serializer.getEncoderFactory().create(wrappedStream);
   }
@@ -75,7 +82,7 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
                              final byte[] serializedData,
                              final int length) {
     this.key = key;
-    this.serializedData = serializedData;
+    this.dataBuffer = Unpooled.wrappedBuffer(serializedData, 0, length);
     this.length = length;
     this.committed = true;
     this.bytesOutputStream = null;
@@ -109,11 +116,11 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
   @Override
   public void commit() throws IOException {
     if (!committed) {
-      // We need to close wrappedStream on here, because DirectByteArrayOutputStream:getBufDirectly() returns
-      // inner buffer directly, which can be an unfinished(not flushed) buffer.
+      // We need to close wrappedStream on here, because the chunks of the underlying stream are composed
+      // into a single buffer only after all data is flushed.
       wrappedStream.close();
-      this.serializedData = bytesOutputStream.getBufDirectly();
-      this.length = bytesOutputStream.getCount();
+      this.dataBuffer = bytesOutputStream.getBuffer();
+      this.length = dataBuffer.readableBytes();
       this.committed = true;
     }
   }
@@ -135,6 +142,10 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
   }
 
   /**
+   * Returns the serialized data as an array of bytes.
+   * The data is copied if it is not stored in a single heap array,
+   * so {@link #getDataBuffer()} is preferred to read the data.
+   *
    * @return the serialized data.
    * @throws IOException if the partition is not committed yet.
    */
@@ -142,8 +153,53 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
   public byte[] getData() throws IOException {
     if (!committed) {
       throw new IOException("The partition is not committed yet!");
+    } else if (dataBuffer.hasArray() && dataBuffer.arrayOffset() == 0 && dataBuffer.readerIndex() == 0) {
+      return dataBuffer.array();
     } else {
-      return serializedData;
+      return ByteBufUtil.getBytes(dataBuffer);
+    }
+  }
+
+  /**
+   * Returns the buffer which contains the serialized data, without any copy.
+   * The readable bytes of the buffer are the serialized data. Readers should not modify the indices of the buffer,
+   * but {@link ByteBuf#duplicate()} it instead.
+   *
+   * @return the buffer which contains the serialized data.
+   * @throws IOException if the partition is not committed yet.
+   */
+  public ByteBuf getDataBuffer() throws IOException {
+    if (!committed) {
+      throw new IOException("The partition is not committed yet!");
+    } else {
+      return dataBuffer;
+    }
+  }
+
+  /**
+   * Releases the buffer of this partition to the pool it is allocated from.
+   * The data of this partition cannot be accessed after the release,
+   * except through the buffers which {@link ByteBuf#retain()}ed it.
+   * A partition which is not committed (e.g., its write is aborted) releases the chunks written so far,
+   * and cannot be written or committed afterwards.
+   */
+  public void release() {
+    if (!committed) {
+      try {
+        wrappedStream.close();
+      } catch (final IOException e) {
+        LOG.warn("Failed to close the stream of an uncommitted partition", e);
+      }
+      // Composes the chunks written so far into a buffer, even if the stream chain failed to close.
+      bytesOutputStream.close();
+      try {
+        dataBuffer = bytesOutputStream.getBuffer();
+      } catch (final IOException e) {
+        throw new IllegalStateException(e); // The stream is closed above.
+      }
+    }
+    if (dataBuffer.refCnt() > 0) {
+      dataBuffer.release();
     }
   }
 
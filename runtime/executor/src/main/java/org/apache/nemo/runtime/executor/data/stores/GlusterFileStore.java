@@ -42,6 +42,7 @@ import java.util.Optional;
 @ThreadSafe
 public final class GlusterFileStore extends AbstractBlockStore implements RemoteFileStore {
   private final String fileDirectory;
+  private final DirectBufferPool bufferPool;
 
   /**
    * Constructor.
@@ -49,13 +50,16 @@ public final class GlusterFileStore extends AbstractBlockStore implements Remote
    * @param volumeDirectory   the remote volume directory which will contain the files.
    * @param jobId             the job id.
    * @param serializerManager the serializer manager.
+   * @param bufferPool        the pool to allocate the buffers for the partitions being written from.
    */
   @Inject
   private GlusterFileStore(@Parameter(JobConf.GlusterVolumeDirectory.class) final String volumeDirectory,
                            @Parameter(JobConf.JobId.class) final String jobId,
-                           final SerializerManager serializerManager) {
+                           final SerializerManager serializerManager,
+                           final DirectBufferPool bufferPool) {
     super(serializerManager);
     this.fileDirectory = volumeDirectory + "/" + jobId;
+    this.bufferPool = bufferPool;
     new File(fileDirectory).mkdirs();
   }
 
@@ -69,7 +73,7 @@ public final class GlusterFileStore extends AbstractBlockStore implements Remote
     final String filePath = DataUtil.blockIdToFilePath(blockId, fileDirectory);
     final RemoteFileMetadata metadata =
         RemoteFileMetadata.create(DataUtil.blockIdToMetaFilePath(blockId, fileDirectory));
-    return new FileBlock<>(blockId, serializer, filePath, metadata);
+    return new FileBlock<>(blockId, serializer, bufferPool, filePath, metadata);
   }
 
   /**
@@ -150,6 +154,6 @@ public final class GlusterFileStore extends AbstractBlockStore implements Remote
     final String filePath = DataUtil.blockIdToFilePath(blockId, fileDirectory);
     final RemoteFileMetadata<K> metadata =
         RemoteFileMetadata.open(DataUtil.blockIdToMetaFilePath(blockId, fileDirectory));
-    return new FileBlock<>(blockId, serializer, filePath, metadata);
+    return new FileBlock<>(blockId, serializer, bufferPool, filePath, metadata);
   }
 }
@@ -35,18 +35,22 @@ import java.io.*;
 @ThreadSafe
 public final class LocalFileStore extends LocalBlockStore {
   private final String fileDirectory;
+  private final DirectBufferPool bufferPool;
 
   /**
    * Constructor.
    *
    * @param fileDirectory the directory which will contain the files.
    * @param serializerManager  the serializer manager.
+   * @param bufferPool    the pool to allocate the buffers for the partitions being written from.
    */
   @Inject
   private LocalFileStore(@Parameter(JobConf.FileDirectory.class) final String fileDirectory,
-                         final SerializerManager serializerManager) {
+                         final SerializerManager serializerManager,
+                         final DirectBufferPool bufferPool) {
     super(serializerManager);
     this.fileDirectory = fileDirectory;
+    this.bufferPool = bufferPool;
     new File(fileDirectory).mkdirs();
   }
 
@@ -60,7 +64,7 @@ public final class LocalFileStore extends LocalBlockStore {
     final Serializer serializer = getSerializerFromWorker(blockId);
     final LocalFileMetadata metadata = new LocalFileMetadata();
 
-    return new FileBlock(blockId, serializer, DataUtil.blockIdToFilePath(blockId, fileDirectory), metadata);
+    return new FileBlock(blockId, serializer, bufferPool, DataUtil.blockIdToFilePath(blockId, fileDirectory), metadata);
   }
 
   /**
@@ -15,7 +15,13 @@
  */
 package org.apache.nemo.runtime.executor.data.stores;
 
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.coder.EncoderFactory;
 import org.apache.nemo.common.exception.BlockWriteException;
+import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.data.SerializerManager;
 import org.apache.nemo.runtime.executor.data.block.Block;
 import org.apache.nemo.runtime.executor.data.block.NonSerializedMemoryBlock;
@@ -24,21 +30,27 @@ import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
+import java.io.IOException;
 
 /**
  * Store data in local memory.
+ * The blocks are spilled to the local disk when the executor is under memory pressure.
  */
 @ThreadSafe
-public final class MemoryStore extends LocalBlockStore {
+public final class MemoryStore extends SpillableBlockStore {
+  // The number of elements encoded per partition to estimate the size of a block.
+  private static final int NUM_SAMPLED_ELEMENTS = 16;
 
   /**
    * Constructor.
    *
    * @param serializerManager the serializer manager.
+   * @param spillManager      the manager which decides the blocks to spill.
    */
   @Inject
-  private MemoryStore(final SerializerManager serializerManager) {
-    super(serializerManager);
+  private MemoryStore(final SerializerManager serializerManager,
+                      final SpillManager spillManager) {
+    super(serializerManager, spillManager);
   }
 
   /**
@@ -64,15 +76,55 @@ public final class MemoryStore extends LocalBlockStore {
     } else if (!block.isCommitted()) {
       throw new BlockWriteException(new Throwable("The block " + block.getId() + "is not committed yet."));
     } else {
-      getBlockMap().put(block.getId(), block);
+      putBlock(block, estimateSize(block));
     }
   }
 
   /**
-   * @see BlockStore#deleteBlock(String)
+   * The non-serialized data is reclaimed by the GC.
+   *
+   * @param memoryBlock the block to release.
    */
   @Override
-  public boolean deleteBlock(final String blockId) {
-    return getBlockMap().remove(blockId) != null;
+  protected void releaseBlock(final Block memoryBlock) {
+    // Do nothing.
+  }
+
+  /**
+   * Estimates the size of a block by its serialized size.
+   * The partitions which are deserialized from bytes already know their size,
+   * and the size of the others is extrapolated from the encoded size of their first few elements.
+   *
+   * @param block the block to estimate the size of.
+   * @return the estimated size in bytes.
+   * @throws BlockWriteException if fail to encode the elements.
+   */
+  private long estimateSize(final Block block) throws BlockWriteException {
+    final Serializer serializer = getSerializerFromWorker(block.getId());
+    long size = 0;
+    try {
+      for (final Object object : block.readPartitions(HashRange.all())) {
+        final NonSerializedPartition partition = (NonSerializedPartition) object;
+        try {
+          size += partition.getNumSerializedBytes();
+        } catch (final DataUtil.IteratorWithNumBytes.NumBytesNotSupportedException e) {
+          final Iterable data = partition.getData();
+          final CountingOutputStream countingStream = new CountingOutputStream(ByteStreams.nullOutputStream());
+          final EncoderFactory.Encoder encoder = serializer.getEncoderFactory().create(countingStream);
+          final int numElements = Iterables.size(data);
+          int numSampled = 0;
+          for (final Object element : Iterables.limit(data, NUM_SAMPLED_ELEMENTS)) {
+            encoder.encode(element);
+            numSampled++;
+          }
+          if (numSampled > 0) {
+            size += countingStream.getCount() * numElements / numSampled;
+          }
+        }
+      }
+    } catch (final IOException e) {
+      throw new BlockWriteException(e);
+    }
+    return size;
   }
 }
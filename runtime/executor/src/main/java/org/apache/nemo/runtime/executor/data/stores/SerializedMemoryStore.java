@@ -15,28 +15,39 @@
  */
 package org.apache.nemo.runtime.executor.data.stores;
 
+import org.apache.nemo.common.HashRange;
 import org.apache.nemo.common.exception.BlockWriteException;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
 import org.apache.nemo.runtime.executor.data.SerializerManager;
 import org.apache.nemo.runtime.executor.data.block.Block;
 import org.apache.nemo.runtime.executor.data.block.SerializedMemoryBlock;
+import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
 import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
+import java.io.IOException;
 
 /**
  * Serialize and store data in local memory.
+ * The blocks are spilled to the local disk when the executor is under memory pressure.
  */
 @ThreadSafe
-public final class SerializedMemoryStore extends LocalBlockStore {
+public final class SerializedMemoryStore extends SpillableBlockStore {
+  private final DirectBufferPool bufferPool;
 
   /**
    * Constructor.
    * @param serializerManager the serializer manager.
+   * @param bufferPool        the pool to allocate the buffers for the serialized data from.
+   * @param spillManager      the manager which decides the blocks to spill.
    */
   @Inject
-  private SerializedMemoryStore(final SerializerManager serializerManager) {
-    super(serializerManager);
+  private SerializedMemoryStore(final SerializerManager serializerManager,
+                                final DirectBufferPool bufferPool,
+                                final SpillManager spillManager) {
+    super(serializerManager, spillManager);
+    this.bufferPool = bufferPool;
   }
 
   /**
@@ -45,7 +56,7 @@ public final class SerializedMemoryStore extends LocalBlockStore {
   @Override
   public Block createBlock(final String blockId) {
     final Serializer serializer = getSerializerFromWorker(blockId);
-    return new SerializedMemoryBlock(blockId, serializer);
+    return new SerializedMemoryBlock(blockId, serializer, bufferPool);
   }
 
   /**
@@ -62,15 +73,25 @@ public final class SerializedMemoryStore extends LocalBlockStore {
     } else if (!block.isCommitted()) {
       throw new BlockWriteException(new Throwable("The block " + block.getId() + "is not committed yet."));
     } else {
-      getBlockMap().put(block.getId(), block);
+      long size = 0;
+      try {
+        for (final Object partition : block.readSerializedPartitions(HashRange.all())) {
+          size += ((SerializedPartition) partition).getLength();
+        }
+      } catch (final IOException e) {
+        throw new BlockWriteException(e);
+      }
+      putBlock(block, size);
     }
   }
 
   /**
-   * @see BlockStore#deleteBlock(String)
+   * Releases the buffers of the serialized data.
+   *
+   * @param memoryBlock the block to release.
    */
   @Override
-  public boolean deleteBlock(final String blockId) {
-    return getBlockMap().remove(blockId) != null;
+  protected void releaseBlock(final Block memoryBlock) {
+    ((SerializedMemoryBlock) memoryBlock).release();
   }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data.stores;
+
+import org.apache.nemo.common.exception.BlockWriteException;
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
+import org.apache.nemo.runtime.executor.data.block.Block;
+import org.apache.reef.tang.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the size of the blocks in the memory stores of an executor under a budget.
+ * When the committed in-memory blocks exceed the budget, the least recently read blocks are spilled to the local disk
+ * by their {@link SpillableBlockStore}s, until the blocks fit in the budget again.
+ * The blocks being read are pinned, so they are neither spilled nor released until the read is done.
+ */
+@ThreadSafe
+public final class SpillManager {
+  private static final Logger LOG = LoggerFactory.getLogger(SpillManager.class.getName());
+  private static final String SPILL_DIRECTORY_NAME = "spill";
+
+  private final long capacityBytes;
+  private final String spillDirectory;
+  private final DirectBufferPool bufferPool;
+  // The committed in-memory blocks, in the order of their last access.
+  private final LinkedHashMap<String, MemoryBlockEntry> memoryBlocks;
+  private final Map<String, Integer> pinCounts;
+  // The in-memory blocks which are replaced or deleted while being read.
+  private final Map<String, Runnable> pendingReleases;
+  private final AtomicLong numSpilledBlocks;
+  private final AtomicLong spilledBytes;
+  private long memoryBlockBytes;
+
+  /**
+   * Constructor.
+   *
+   * @param capacityMb    the maximum size of the in-memory blocks in megabytes, or -1 for half of the heap.
+   * @param fileDirectory the directory of the local files. The spilled blocks are stored in its sub-directory.
+   * @param bufferPool    the pool to allocate the buffers for the spilled blocks from.
+   */
+  @Inject
+  private SpillManager(@Parameter(JobConf.MemoryStoreCapacityMb.class) final int capacityMb,
+                       @Parameter(JobConf.FileDirectory.class) final String fileDirectory,
+                       final DirectBufferPool bufferPool) {
+    this.capacityBytes = capacityMb < 0 ? Runtime.getRuntime().maxMemory() / 2 : capacityMb * 1024L * 1024L;
+    this.spillDirectory = fileDirectory + "/" + SPILL_DIRECTORY_NAME;
+    this.bufferPool = bufferPool;
+    this.memoryBlocks = new LinkedHashMap<>(16, 0.75f, true);
+    this.pinCounts = new HashMap<>();
+    this.pendingReleases = new HashMap<>();
+    this.numSpilledBlocks = new AtomicLong(0);
+    this.spilledBytes = new AtomicLong(0);
+    this.memoryBlockBytes = 0;
+    new File(spillDirectory).mkdirs();
+  }
+
+  /**
+   * Starts tracking a committed in-memory block, and spills blocks if the budget is exceeded.
+   * The spill is done in the calling thread, so that the writers slow down under memory pressure.
+   *
+   * @param store   the store which contains the block.
+   * @param blockId the ID of the block.
+   * @param size    the (estimated) size of the block in bytes.
+   * @throws BlockWriteException if fail to spill a block.
+   */
+  void track(final SpillableBlockStore store, final String blockId, final long size) throws BlockWriteException {
+    synchronized (this) {
+      final MemoryBlockEntry previous = memoryBlocks.put(blockId, new MemoryBlockEntry(store, blockId, size));
+      if (previous != null) {
+        memoryBlockBytes -= previous.size;
+      }
+      memoryBlockBytes += size;
+    }
+    spillIfNeeded();
+  }
+
+  /**
+   * Stops tracking an in-memory block.
+   *
+   * @param blockId the ID of the block.
+   */
+  synchronized void untrack(final String blockId) {
+    final MemoryBlockEntry entry = memoryBlocks.remove(blockId);
+    if (entry != null) {
+      memoryBlockBytes -= entry.size;
+    }
+  }
+
+  /**
+   * Releases an in-memory block which is not in its store anymore.
+   * If the block is being read, it is released after the read is done.
+   *
+   * @param store       the store which contained the block.
+   * @param blockId     the ID of the block.
+   * @param memoryBlock the block to release.
+   */
+  void release(final SpillableBlockStore store, final String blockId, final Block memoryBlock) {
+    synchronized (this) {
+      if (pinCounts.containsKey(blockId)) {
+        pendingReleases.put(blockId, () -> store.releaseBlock(memoryBlock));
+        return;
+      }
+    }
+    store.releaseBlock(memoryBlock);
+  }
+
+  /**
+   * Pins a block before reading it, to prevent it from being spilled or released during the read.
+   * Pinning a block which is not in memory has no effect.
+   *
+   * @param blockId the ID of the block.
+   */
+  public synchronized void pin(final String blockId) {
+    pinCounts.merge(blockId, 1, Integer::sum);
+    // Accessing the entry moves it to the most recently read position.
+    memoryBlocks.get(blockId);
+  }
+
+  /**
+   * Unpins a block after reading it.
+   *
+   * @param blockId the ID of the block.
+   */
+  public void unpin(final String blockId) {
+    final Runnable pendingRelease;
+    synchronized (this) {
+      final int pinCount = pinCounts.getOrDefault(blockId, 0) - 1;
+      if (pinCount > 0) {
+        pinCounts.put(blockId, pinCount);
+        return;
+      }
+      pinCounts.remove(blockId);
+      pendingRelease = pendingReleases.remove(blockId);
+    }
+    if (pendingRelease != null) {
+      pendingRelease.run();
+    }
+  }
+
+  /**
+   * @return the number of blocks spilled to the disk.
+   */
+  public long getNumSpilledBlocks() {
+    return numSpilledBlocks.get();
+  }
+
+  /**
+   * @return the number of bytes spilled to the disk.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes.get();
+  }
+
+  /**
+   * @return the directory to store the spilled blocks.
+   */
+  String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /**
+   * @return the pool to allocate the buffers for the spilled blocks from.
+   */
+  DirectBufferPool getBufferPool() {
+    return bufferPool;
+  }
+
+  /**
+   * Spills the least recently read blocks which are not being read, until the blocks fit in the budget.
+   *
+   * @throws BlockWriteException if fail to spill a block.
+   */
+  private void spillIfNeeded() throws BlockWriteException {
+    while (true) {
+      final MemoryBlockEntry victim;
+      synchronized (this) {
+        if (memoryBlockBytes <= capacityBytes) {
+          return;
+        }
+        victim = memoryBlocks.values().stream()
+            .filter(entry -> !pinCounts.containsKey(entry.blockId))
+            .findFirst()
+            .orElse(null);
+        if (victim == null) {
+          // All in-memory blocks are being read or spilled.
+          return;
+        }
+        // Spilling is also a read of the block.
+        pin(victim.blockId);
+      }
+
+      final Block spilledBlock;
+      try {
+        spilledBlock = victim.store.spill(victim.blockId);
+      } catch (final IOException e) {
+        unpin(victim.blockId);
+        throw new BlockWriteException(e);
+      }
+
+      synchronized (this) {
+        if (memoryBlocks.get(victim.blockId) == victim) {
+          untrack(victim.blockId);
+        }
+        if (spilledBlock != null) {
+          numSpilledBlocks.incrementAndGet();
+          spilledBytes.addAndGet(victim.size);
+          LOG.info("Spilled {} ({} bytes) to the disk", victim.blockId, victim.size);
+        }
+      }
+      if (spilledBlock != null) {
+        release(victim.store, victim.blockId, spilledBlock);
+      }
+      unpin(victim.blockId);
+    }
+  }
+
+  /**
+   * A committed in-memory block with its size.
+   */
+  private static final class MemoryBlockEntry {
+    private final SpillableBlockStore store;
+    private final String blockId;
+    private final long size;
+
+    /**
+     * Constructor.
+     *
+     * @param store   the store which contains the block.
+     * @param blockId the ID of the block.
+     * @param size    the size of the block in bytes.
+     */
+    private MemoryBlockEntry(final SpillableBlockStore store, final String blockId, final long size) {
+      this.store = store;
+      this.blockId = blockId;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data.stores;
+
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.exception.BlockFetchException;
+import org.apache.nemo.common.exception.BlockWriteException;
+import org.apache.nemo.runtime.executor.data.DataUtil;
+import org.apache.nemo.runtime.executor.data.SerializerManager;
+import org.apache.nemo.runtime.executor.data.block.Block;
+import org.apache.nemo.runtime.executor.data.block.FileBlock;
+import org.apache.nemo.runtime.executor.data.block.NonSerializedMemoryBlock;
+import org.apache.nemo.runtime.executor.data.metadata.LocalFileMetadata;
+
+import java.io.IOException;
+
+/**
+ * This abstract class represents {@link LocalBlockStore} which keeps the blocks in memory,
+ * and spills them to the local disk under memory pressure.
+ * The spilled blocks are stored in the same format as the ones in {@link LocalFileStore},
+ * and still read from this store transparently.
+ */
+public abstract class SpillableBlockStore extends LocalBlockStore {
+  private final SpillManager spillManager;
+
+  /**
+   * Constructor.
+   *
+   * @param serializerManager the serializer manager.
+   * @param spillManager      the manager which decides the blocks to spill.
+   */
+  protected SpillableBlockStore(final SerializerManager serializerManager,
+                                final SpillManager spillManager) {
+    super(serializerManager);
+    this.spillManager = spillManager;
+  }
+
+  /**
+   * Puts a committed in-memory block to this store.
+   *
+   * @param block the block to put.
+   * @param size  the (estimated) size of the block in bytes.
+   * @throws BlockWriteException if fail to spill blocks to make room for this block.
+   */
+  protected final void putBlock(final Block block, final long size) throws BlockWriteException {
+    getBlockMap().put(block.getId(), block);
+    spillManager.track(this, block.getId(), size);
+  }
+
+  /**
+   * @see BlockStore#deleteBlock(String)
+   */
+  @Override
+  public final boolean deleteBlock(final String blockId) throws BlockFetchException {
+    final Block block = getBlockMap().remove(blockId);
+    if (block == null) {
+      return false;
+    } else if (block instanceof FileBlock) {
+      try {
+        ((FileBlock) block).deleteFile();
+      } catch (final IOException e) {
+        throw new BlockFetchException(e);
+      }
+    } else {
+      spillManager.untrack(blockId);
+      spillManager.release(this, blockId, block);
+    }
+    return true;
+  }
+
+  /**
+   * Writes an in-memory block to a local file, and replaces the block in this store with the file block.
+   *
+   * @param blockId the ID of the block to spill.
+   * @return the replaced in-memory block, or {@code null} if the block is not in memory anymore.
+   * @throws IOException if fail to write the file.
+   */
+  final Block spill(final String blockId) throws IOException {
+    final Block memoryBlock = getBlockMap().get(blockId);
+    if (memoryBlock == null || memoryBlock instanceof FileBlock) {
+      return null;
+    }
+    final FileBlock fileBlock = new FileBlock<>(blockId, getSerializerFromWorker(blockId),
+        spillManager.getBufferPool(), DataUtil.blockIdToFilePath(blockId, spillManager.getSpillDirectory()),
+        new LocalFileMetadata<>());
+    try {
+      if (memoryBlock instanceof NonSerializedMemoryBlock) {
+        // The partitions are serialized into the file one at a time, not all before the write.
+        fileBlock.writePartitions(memoryBlock.readPartitions(HashRange.all()));
+      } else {
+        fileBlock.writeSerializedPartitions(memoryBlock.readSerializedPartitions(HashRange.all()));
+      }
+      fileBlock.commit();
+    } catch (final BlockWriteException | BlockFetchException e) {
+      fileBlock.deleteFile();
+      throw new IOException(e);
+    }
+    if (!getBlockMap().replace(blockId, memoryBlock, fileBlock)) {
+      // The block is deleted during the spill.
+      fileBlock.deleteFile();
+      return null;
+    }
+    return memoryBlock;
+  }
+
+  /**
+   * Releases the resources held by an in-memory block which is not in this store anymore.
+   *
+   * @param memoryBlock the block to release.
+   */
+  protected abstract void releaseBlock(Block memoryBlock);
+}
@@ -19,6 +19,7 @@ import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.runtime.common.plan.RuntimeEdge;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
+import org.apache.nemo.runtime.executor.data.ReadAheadDecoder;
 import org.apache.reef.tang.annotations.Parameter;
 
 import javax.inject.Inject;
@@ -29,13 +30,16 @@ import javax.inject.Inject;
 public final class DataTransferFactory {
 
   private final BlockManagerWorker blockManagerWorker;
+  private final ReadAheadDecoder readAheadDecoder;
   private final int hashRangeMultiplier;
 
   @Inject
   private DataTransferFactory(@Parameter(JobConf.HashRangeMultiplier.class) final int hashRangeMultiplier,
-                              final BlockManagerWorker blockManagerWorker) {
+                              final BlockManagerWorker blockManagerWorker,
+                              final ReadAheadDecoder readAheadDecoder) {
     this.hashRangeMultiplier = hashRangeMultiplier;
     this.blockManagerWorker = blockManagerWorker;
+    this.readAheadDecoder = readAheadDecoder;
   }
 
   /**
@@ -53,7 +57,7 @@ public final class DataTransferFactory {
   }
 
   /**
-   * Creates an {@link InputReader} between two stages.
+   * Creates an {@link InputReader} between two stages, with a read-ahead budget of its own.
    *
    * @param dstTaskIdx  the index of the destination task.
    * @param srcIRVertex the {@link IRVertex} that output the data to be read.
@@ -63,6 +67,30 @@ public final class DataTransferFactory {
   public InputReader createReader(final int dstTaskIdx,
                                   final IRVertex srcIRVertex,
                                   final RuntimeEdge runtimeEdge) {
-    return new InputReader(dstTaskIdx, srcIRVertex, runtimeEdge, blockManagerWorker);
+    return createReader(dstTaskIdx, srcIRVertex, runtimeEdge, createReadAheadBudget());
+  }
+
+  /**
+   * Creates an {@link InputReader} between two stages.
+   *
+   * @param dstTaskIdx      the index of the destination task.
+   * @param srcIRVertex     the {@link IRVertex} that output the data to be read.
+   * @param runtimeEdge     that connects the tasks belonging to srcIRVertex to dstTask.
+   * @param readAheadBudget the read-ahead budget of the destination task, shared by all its readers.
+   * @return the {@link InputReader} created.
+   */
+  public InputReader createReader(final int dstTaskIdx,
+                                  final IRVertex srcIRVertex,
+                                  final RuntimeEdge runtimeEdge,
+                                  final ReadAheadDecoder.TaskBudget readAheadBudget) {
+    return new InputReader(dstTaskIdx, srcIRVertex, runtimeEdge, blockManagerWorker, readAheadDecoder,
+        readAheadBudget);
+  }
+
+  /**
+   * @return a new read-ahead budget for a task.
+   */
+  public ReadAheadDecoder.TaskBudget createReadAheadBudget() {
+    return readAheadDecoder.newTaskBudget();
   }
 }
@@ -20,6 +20,7 @@ import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProp
 import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupPropertyValue;
+import org.apache.nemo.common.ir.edge.executionproperty.ReadAheadDepthProperty;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
@@ -31,13 +32,10 @@ import org.apache.nemo.common.exception.UnsupportedCommPatternException;
 import org.apache.nemo.common.HashRange;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import org.apache.nemo.runtime.executor.data.DataUtil;
+import org.apache.nemo.runtime.executor.data.ReadAheadDecoder;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 /**
  * Represents the input data transfer to a task.
@@ -45,6 +43,8 @@ import java.util.stream.StreamSupport;
 public final class InputReader extends DataTransfer {
   private final int dstTaskIndex;
   private final BlockManagerWorker blockManagerWorker;
+  private final ReadAheadDecoder readAheadDecoder;
+  private final ReadAheadDecoder.TaskBudget readAheadBudget;
 
   /**
    * Attributes that specify how we should read the input.
@@ -55,12 +55,16 @@ public final class InputReader extends DataTransfer {
   public InputReader(final int dstTaskIndex,
                      final IRVertex srcVertex,
                      final RuntimeEdge runtimeEdge,
-                     final BlockManagerWorker blockManagerWorker) {
+                     final BlockManagerWorker blockManagerWorker,
+                     final ReadAheadDecoder readAheadDecoder,
+                     final ReadAheadDecoder.TaskBudget readAheadBudget) {
     super(runtimeEdge.getId());
     this.dstTaskIndex = dstTaskIndex;
     this.srcVertex = srcVertex;
     this.runtimeEdge = runtimeEdge;
     this.blockManagerWorker = blockManagerWorker;
+    this.readAheadDecoder = readAheadDecoder;
+    this.readAheadBudget = readAheadBudget;
   }
 
   /**
@@ -72,17 +76,32 @@ public final class InputReader extends DataTransfer {
     final Optional<CommunicationPatternProperty.Value> comValue =
             runtimeEdge.getPropertyValue(CommunicationPatternProperty.class);
 
+    final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures;
     if (comValue.get().equals(CommunicationPatternProperty.Value.OneToOne)) {
-      return Collections.singletonList(readOneToOne());
+      futures = Collections.singletonList(readOneToOne());
     } else if (comValue.get().equals(CommunicationPatternProperty.Value.BroadCast)) {
-      return readBroadcast();
+      futures = readBroadcast();
     } else if (comValue.get().equals(CommunicationPatternProperty.Value.Shuffle)) {
       // If the dynamic optimization which detects data skew is enabled, read the data in the assigned range.
       // TODO #492: Modularize the data communication pattern.
-      return readDataInRange();
+      futures = readDataInRange();
     } else {
       throw new UnsupportedCommPatternException(new Exception("Communication pattern not supported"));
     }
+
+    // If the read-ahead is enabled for this edge, start decoding each block as soon as its data arrives,
+    // within the read-ahead budget of the task.
+    final Optional<Integer> readAheadDepth = runtimeEdge.getPropertyValue(ReadAheadDepthProperty.class);
+    if (readAheadDepth.isPresent() && readAheadDepth.get() > 0) {
+      final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> readAheadFutures = new ArrayList<>();
+      for (final CompletableFuture<DataUtil.IteratorWithNumBytes> future : futures) {
+        readAheadFutures.add(future.thenApply(iterator ->
+            readAheadDecoder.readAhead(iterator, readAheadDepth.get(), readAheadBudget)));
+      }
+      return readAheadFutures;
+    } else {
+      return futures;
+    }
   }
 
   private CompletableFuture<DataUtil.IteratorWithNumBytes> readOneToOne() {
@@ -97,13 +116,12 @@ public final class InputReader extends DataTransfer {
     final Optional<DataStoreProperty.Value> dataStoreProperty
         = runtimeEdge.getPropertyValue(DataStoreProperty.class);
 
-    final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures = new ArrayList<>();
+    final List<String> blockIdWildcards = new ArrayList<>(numSrcTasks);
     for (int srcTaskIdx = 0; srcTaskIdx < numSrcTasks; srcTaskIdx++) {
-      final String blockIdWildcard = generateWildCardBlockId(srcTaskIdx);
-      futures.add(blockManagerWorker.readBlock(blockIdWildcard, getId(), dataStoreProperty.get(), HashRange.all()));
+      blockIdWildcards.add(generateWildCardBlockId(srcTaskIdx));
     }
 
-    return futures;
+    return blockManagerWorker.readBlocks(blockIdWildcards, getId(), dataStoreProperty.get(), HashRange.all());
   }
 
   /**
@@ -123,14 +141,12 @@ public final class InputReader extends DataTransfer {
     }
 
     final int numSrcTasks = this.getSourceParallelism();
-    final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures = new ArrayList<>();
+    final List<String> blockIdWildcards = new ArrayList<>(numSrcTasks);
     for (int srcTaskIdx = 0; srcTaskIdx < numSrcTasks; srcTaskIdx++) {
-      final String blockIdWildcard = generateWildCardBlockId(srcTaskIdx);
-      futures.add(
-          blockManagerWorker.readBlock(blockIdWildcard, getId(), dataStoreProperty.get(), hashRangeToRead));
+      blockIdWildcards.add(generateWildCardBlockId(srcTaskIdx));
     }
 
-    return futures;
+    return blockManagerWorker.readBlocks(blockIdWildcards, getId(), dataStoreProperty.get(), hashRangeToRead);
   }
 
   /**
@@ -164,22 +180,14 @@ public final class InputReader extends DataTransfer {
 
   /**
    * Combine the given list of futures.
+   * The data is pulled lazily from each future as it completes, so that the whole input is never held at once.
    *
    * @param futures to combine.
-   * @return the combined iterable of elements.
-   * @throws ExecutionException   when fail to get results from futures.
-   * @throws InterruptedException when interrupted during getting results from futures.
+   * @return the combined iterator of elements.
    */
   @VisibleForTesting
-  public static Iterator combineFutures(final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures)
-      throws ExecutionException, InterruptedException {
-    final List concatStreamBase = new ArrayList<>();
-    Stream<Object> concatStream = concatStreamBase.stream();
-    for (int srcTaskIdx = 0; srcTaskIdx < futures.size(); srcTaskIdx++) {
-      final Iterator dataFromATask = futures.get(srcTaskIdx).get();
-      final Iterable iterable = () -> dataFromATask;
-      concatStream = Stream.concat(concatStream, StreamSupport.stream(iterable.spliterator(), false));
-    }
-    return concatStream.collect(Collectors.toList()).iterator();
+  public static DataUtil.IteratorWithNumBytes combineFutures(
+      final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures) {
+    return new DataUtil.FutureConcatIterator(futures);
   }
 }
@@ -15,11 +15,11 @@
  */
 package org.apache.nemo.runtime.executor.datatransfer;
 
-import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.ir.OutputCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -32,9 +32,14 @@ public final class OutputCollectorImpl<O> implements OutputCollector<O> {
   private final Set<String> mainTagOutputChildren;
   // Use ArrayList (not Queue) to allow 'null' values
   private final ArrayList<O> mainTagElements;
-  // Key: Pair of tag and destination vertex id
+  // Key: tag
   // Value: data elements which will be input to the tagged destination vertex
-  private final Map<Pair<String, String>, ArrayList<Object>> additionalTaggedChildToElementsMap;
+  private final Map<String, ArrayList<Object>> additionalTagToElementsMap;
+  // Key: tagged destination vertex id
+  // Value: the same lists of data elements with the map above
+  private final Map<String, ArrayList<Object>> additionalChildToElementsMap;
+  // Invoked after each emission, if set
+  @Nullable private Runnable emitListener;
 
   /**
    * Constructor of a new OutputCollectorImpl with tagged outputs.
@@ -45,14 +50,30 @@ public final class OutputCollectorImpl<O> implements OutputCollector<O> {
                              final Map<String, String> tagToChildren) {
     this.mainTagOutputChildren = mainChildren;
     this.mainTagElements = new ArrayList<>(1);
-    this.additionalTaggedChildToElementsMap = new HashMap<>();
-    tagToChildren.forEach((tag, child) ->
-      this.additionalTaggedChildToElementsMap.put(Pair.of(tag, child), new ArrayList<>(1)));
+    this.additionalTagToElementsMap = new HashMap<>();
+    this.additionalChildToElementsMap = new HashMap<>();
+    tagToChildren.forEach((tag, child) -> {
+      final ArrayList<Object> dataElements = new ArrayList<>(1);
+      this.additionalTagToElementsMap.put(tag, dataElements);
+      this.additionalChildToElementsMap.put(child, dataElements);
+    });
+    this.emitListener = null;
+  }
+
+  /**
+   * Sets the listener to invoke after each emission, so that the emitted elements can be taken out as they come.
+   * @param listener the listener to set. (null to unset)
+   */
+  public void setEmitListener(@Nullable final Runnable listener) {
+    this.emitListener = listener;
   }
 
   @Override
   public void emit(final O output) {
     mainTagElements.add(output);
+    if (emitListener != null) {
+      emitListener.run();
+    }
   }
 
   @Override
@@ -64,6 +85,9 @@ public final class OutputCollectorImpl<O> implements OutputCollector<O> {
       // Note that String#hashCode() can be cached, thus accessing additional output queues can be fast.
       final List<Object> dataElements = getAdditionalTaggedDataFromDstVertexId(dstVertexId);
       dataElements.add(output);
+      if (emitListener != null) {
+        emitListener.run();
+      }
     }
   }
 
@@ -71,6 +95,15 @@ public final class OutputCollectorImpl<O> implements OutputCollector<O> {
     return mainTagElements;
   }
 
+  public List<Object> getTagOutputQueue(final String tag) {
+    if (this.mainTagOutputChildren.contains(tag)) {
+      // This dstVertexId is for the main tag
+      return (List<Object>) this.mainTagElements;
+    } else {
+      return getAdditionalTaggedDataFromTag(tag);
+    }
+  }
+
   public Iterable<Object> iterateTag(final String tag) {
     if (this.mainTagOutputChildren.contains(tag)) {
       // This dstVertexId is for the main tag
@@ -108,25 +141,17 @@ public final class OutputCollectorImpl<O> implements OutputCollector<O> {
   }
 
   private List<Object> getAdditionalTaggedDataFromDstVertexId(final String dstVertexId) {
-    final Pair<String, String> tagAndChild =
-      this.additionalTaggedChildToElementsMap.keySet().stream()
-        .filter(key -> key.right().equals(dstVertexId))
-        .findAny().orElseThrow(() -> new RuntimeException("Wrong destination vertex id passed!"));
-    final List<Object> dataElements = this.additionalTaggedChildToElementsMap.get(tagAndChild);
+    final List<Object> dataElements = this.additionalChildToElementsMap.get(dstVertexId);
     if (dataElements == null) {
-      throw new IllegalArgumentException("Wrong destination vertex id passed!");
+      throw new RuntimeException("Wrong destination vertex id passed!");
     }
     return dataElements;
   }
 
   private List<Object> getAdditionalTaggedDataFromTag(final String tag) {
-    final Pair<String, String> tagAndChild =
-      this.additionalTaggedChildToElementsMap.keySet().stream()
-        .filter(key -> key.left().equals(tag))
-        .findAny().orElseThrow(() -> new RuntimeException("Wrong tag " + tag + " passed!"));
-    final List<Object> dataElements = this.additionalTaggedChildToElementsMap.get(tagAndChild);
+    final List<Object> dataElements = this.additionalTagToElementsMap.get(tag);
     if (dataElements == null) {
-      throw new IllegalArgumentException("Wrong tag " + tag + " passed!");
+      throw new RuntimeException("Wrong tag " + tag + " passed!");
     }
     return dataElements;
   }
@@ -135,7 +135,8 @@ public final class OutputWriter extends DataTransfer implements AutoCloseable {
     } else {
       this.writtenBytes = -1; // no written bytes info.
     }
-    blockManagerWorker.writeBlock(blockToWrite, blockStoreValue, getExpectedRead(), persistence);
+    blockManagerWorker.writeBlock(blockToWrite, blockStoreValue, getExpectedRead(), persistence,
+        partitionSizeMap.orElse(Collections.emptyMap()));
   }
 
   /**
@@ -18,6 +18,8 @@ package org.apache.nemo.runtime.executor.task;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * An abstraction for fetching data from task-external sources.
@@ -25,11 +27,13 @@ import java.io.IOException;
 abstract class DataFetcher {
   private final IRVertex dataSource;
   private final VertexHarness child;
+  private boolean exhausted;
 
   DataFetcher(final IRVertex dataSource,
               final VertexHarness child) {
     this.dataSource = dataSource;
     this.child = child;
+    this.exhausted = false;
   }
 
   /**
@@ -40,6 +44,38 @@ abstract class DataFetcher {
    */
   abstract Object fetchDataElement() throws IOException;
 
+  /**
+   * Fetches the next data elements, up to the given number.
+   * Can block until the data elements become available.
+   * @param batch   the list to add the fetched data elements to
+   * @param maxSize the maximum number of data elements in the batch
+   * @throws IOException upon I/O error
+   * @throws java.util.NoSuchElementException if no more element is available
+   */
+  final void fetchDataElements(final List<Object> batch, final int maxSize) throws IOException {
+    if (exhausted) {
+      throw new NoSuchElementException();
+    }
+    try {
+      while (batch.size() < maxSize) {
+        batch.add(fetchDataElement());
+      }
+    } catch (final NoSuchElementException e) {
+      // The fetched elements are returned first, and the exhaustion is reported on the next call.
+      exhausted = true;
+      if (batch.isEmpty()) {
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Releases the resources of the data which is not fetched yet, when the fetching is abandoned.
+   * Does nothing by default.
+   */
+  void close() {
+  }
+
   VertexHarness getChild() {
     return child;
   }
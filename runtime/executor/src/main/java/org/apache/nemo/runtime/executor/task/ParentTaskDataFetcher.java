@@ -77,6 +77,7 @@ class ParentTaskDataFetcher extends DataFetcher {
           continue;
         } else {
           // We've consumed all the iterators
+          countBytes(currentIterator);
           break;
         }
       }
@@ -96,8 +97,10 @@ class ParentTaskDataFetcher extends DataFetcher {
   private void advanceIterator() throws IOException {
     // Take from iteratorQueue
     final Object iteratorOrThrowable;
+    final long waitStartNanos = System.nanoTime();
     try {
       iteratorOrThrowable = iteratorQueue.take(); // blocking call
+      getChild().getMetric().getFetchWaitLatency().record(System.nanoTime() - waitStartNanos);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       throw new IOException(e);
@@ -131,6 +134,23 @@ class ParentTaskDataFetcher extends DataFetcher {
     }));
   }
 
+  /**
+   * Closes the current iterator and the iterators which have arrived but are not consumed yet.
+   */
+  @Override
+  void close() {
+    if (currentIterator != null) {
+      currentIterator.close();
+      currentIterator = null;
+    }
+    Object iteratorOrThrowable;
+    while ((iteratorOrThrowable = iteratorQueue.poll()) != null) {
+      if (iteratorOrThrowable instanceof DataUtil.IteratorWithNumBytes) {
+        ((DataUtil.IteratorWithNumBytes) iteratorOrThrowable).close();
+      }
+    }
+  }
+
   final long getSerializedBytes() {
     return serBytes;
   }
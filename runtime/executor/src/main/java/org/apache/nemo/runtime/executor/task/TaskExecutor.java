@@ -23,11 +23,13 @@ import org.apache.nemo.common.ir.edge.executionproperty.AdditionalOutputTagPrope
 import org.apache.nemo.common.ir.edge.executionproperty.BroadcastVariableIdProperty;
 import org.apache.nemo.common.ir.vertex.*;
 import org.apache.nemo.common.ir.vertex.transform.AggregateMetricTransform;
+import org.apache.nemo.common.ir.vertex.transform.BatchTransform;
 import org.apache.nemo.common.ir.vertex.transform.Transform;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.nemo.runtime.common.metric.VertexExecutionMetric;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.common.plan.RuntimeEdge;
@@ -36,6 +38,7 @@ import org.apache.nemo.runtime.executor.MetricMessageSender;
 import org.apache.nemo.runtime.executor.TaskStateManager;
 import org.apache.nemo.runtime.executor.TransformContextImpl;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
+import org.apache.nemo.runtime.executor.data.ReadAheadDecoder;
 import org.apache.nemo.runtime.executor.datatransfer.*;
 
 import java.io.IOException;
@@ -64,19 +67,28 @@ public final class TaskExecutor {
   private final String taskId;
   private final TaskStateManager taskStateManager;
   private final List<DataFetcher> nonBroadcastDataFetchers;
+  private final List<DataFetcher> unfinishedDataFetchers;
   private final BroadcastManagerWorker broadcastManagerWorker;
   private final List<VertexHarness> sortedHarnesses;
 
+  // Batch mode
+  private final int batchSize;
+  private final boolean isBatchMode;
+  private final List<Object> fetchedBatch;
+
   // Metrics information
   private long boundedSourceReadTime = 0;
   private long serializedReadBytes = 0;
   private long encodedReadBytes = 0;
   private final MetricMessageSender metricMessageSender;
+  private final boolean isSamplingEnabled;
+  private final int samplingShift;
 
   // Dynamic optimization
   private String idOfVertexPutOnHold;
 
   private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
+  private final String localDirectory;
 
   /**
    * Constructor.
@@ -87,6 +99,10 @@ public final class TaskExecutor {
    * @param dataTransferFactory    For reading from/writing to data to other tasks.
    * @param broadcastManagerWorker For broadcasts.
    * @param metricMessageSender    For sending metric with execution stats to Master.
+   * @param persistentConnectionToMasterMap For sending messages to Master.
+   * @param batchSize              The number of elements to process at once. (1 to process elements one by one)
+   * @param metricSamplingInterval One in this number of elements is timed for the vertex metrics. (0 to disable)
+   * @param localDirectory         The directory on the local disk for the temporary files of the transforms.
    */
   public TaskExecutor(final Task task,
                       final DAG<IRVertex, RuntimeEdge<IRVertex>> irVertexDag,
@@ -94,7 +110,10 @@ public final class TaskExecutor {
                       final DataTransferFactory dataTransferFactory,
                       final BroadcastManagerWorker broadcastManagerWorker,
                       final MetricMessageSender metricMessageSender,
-                      final PersistentConnectionToMasterMap persistentConnectionToMasterMap) {
+                      final PersistentConnectionToMasterMap persistentConnectionToMasterMap,
+                      final int batchSize,
+                      final int metricSamplingInterval,
+                      final String localDirectory) {
     // Essential information
     this.isExecuted = false;
     this.taskId = task.getTaskId();
@@ -103,16 +122,27 @@ public final class TaskExecutor {
 
     // Metric sender
     this.metricMessageSender = metricMessageSender;
+    // Sample the elements whose index is a multiple of the interval, rounded up to a power of two
+    this.isSamplingEnabled = metricSamplingInterval > 0;
+    this.samplingShift = metricSamplingInterval > 1
+      ? Integer.SIZE - Integer.numberOfLeadingZeros(metricSamplingInterval - 1) : 0;
 
     // Dynamic optimization
     // Assigning null is very bad, but we are keeping this for now
     this.idOfVertexPutOnHold = null;
 
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
+    this.localDirectory = localDirectory;
+
+    // Batch mode
+    this.batchSize = batchSize;
+    this.isBatchMode = batchSize > 1;
+    this.fetchedBatch = new ArrayList<>(isBatchMode ? batchSize : 0);
 
     // Prepare data structures
     final Pair<List<DataFetcher>, List<VertexHarness>> pair = prepare(task, irVertexDag, dataTransferFactory);
     this.nonBroadcastDataFetchers = pair.left();
+    this.unfinishedDataFetchers = new ArrayList<>();
     this.sortedHarnesses = pair.right();
   }
 
@@ -141,6 +171,8 @@ public final class TaskExecutor {
                                                                final DAG<IRVertex, RuntimeEdge<IRVertex>> irVertexDag,
                                                                final DataTransferFactory dataTransferFactory) {
     final int taskIndex = RuntimeIdManager.getIndexFromTaskId(task.getTaskId());
+    // The data of all incoming edges is decoded ahead within a single budget for this task.
+    final ReadAheadDecoder.TaskBudget readAheadBudget = dataTransferFactory.createReadAheadBudget();
 
     // Traverse in a reverse-topological order to ensure that each visited vertex's children vertices exist.
     final List<IRVertex> reverseTopologicallySorted = Lists.reverse(irVertexDag.getTopologicalSort());
@@ -180,7 +212,7 @@ public final class TaskExecutor {
       // Create VERTEX HARNESS
       final VertexHarness vertexHarness = new VertexHarness(
         irVertex, oci, children, isToAdditionalTagOutputs, mainChildrenTaskWriters, additionalChildrenTaskWriters,
-        new TransformContextImpl(broadcastManagerWorker, additionalOutputMap));
+        new TransformContextImpl(broadcastManagerWorker, additionalOutputMap, localDirectory));
       prepareTransform(vertexHarness);
       vertexIdToHarness.put(irVertex.getId(), vertexHarness);
 
@@ -200,7 +232,7 @@ public final class TaskExecutor {
         .filter(stageEdge -> stageEdge.getPropertyValue(BroadcastVariableIdProperty.class).isPresent())
         .collect(Collectors.toList());
       final List<InputReader> broadcastReaders =
-        getParentTaskReaders(taskIndex, broadcastInEdges, dataTransferFactory);
+        getParentTaskReaders(taskIndex, broadcastInEdges, dataTransferFactory, readAheadBudget);
       if (broadcastInEdges.size() != broadcastReaders.size()) {
         throw new IllegalStateException(broadcastInEdges.toString() + ", " + broadcastReaders.toString());
       }
@@ -215,7 +247,7 @@ public final class TaskExecutor {
       final List<StageEdge> nonBroadcastInEdges = new ArrayList<>(inEdgesForThisVertex);
       nonBroadcastInEdges.removeAll(broadcastInEdges);
       final List<InputReader> nonBroadcastReaders =
-        getParentTaskReaders(taskIndex, nonBroadcastInEdges, dataTransferFactory);
+        getParentTaskReaders(taskIndex, nonBroadcastInEdges, dataTransferFactory, readAheadBudget);
       nonBroadcastReaders.forEach(parentTaskReader -> nonBroadcastDataFetcherList.add(
         new ParentTaskDataFetcher(parentTaskReader.getSrcIrVertex(), parentTaskReader, vertexHarness)));
     });
@@ -237,28 +269,95 @@ public final class TaskExecutor {
   private void processElementRecursively(final VertexHarness vertexHarness, final Object dataElement) {
     final IRVertex irVertex = vertexHarness.getIRVertex();
     final OutputCollectorImpl outputCollector = vertexHarness.getOutputCollector();
+    final VertexExecutionMetric metric = vertexHarness.getMetric();
 
     if (irVertex instanceof SourceVertex) {
+      metric.countProcessedElements(1);
       outputCollector.emit(dataElement);
     } else if (irVertex instanceof OperatorVertex) {
       final Transform transform = ((OperatorVertex) irVertex).getTransform();
-      transform.onData(dataElement);
+      if (isSampled(metric.countProcessedElements(1), 1)) {
+        final long startNanos = System.nanoTime();
+        transform.onData(dataElement);
+        metric.getTransformLatency().record(System.nanoTime() - startNanos);
+      } else {
+        transform.onData(dataElement);
+      }
     } else {
       throw new UnsupportedOperationException("This type of IRVertex is not supported");
     }
 
     // Given a single input element, a vertex can produce many output elements.
     // Here, we recursively process all of the main output elements.
-    outputCollector.iterateMain().forEach(element ->
-      handleMainOutputElement(vertexHarness, element)); // Recursion
-    outputCollector.clearMain();
+    // The output queues and the routing tables are traversed by index, to avoid allocations for each element.
+    final List<Object> mainOutputs = outputCollector.getMainTagOutputQueue();
+    if (!mainOutputs.isEmpty()) {
+      for (int i = 0; i < mainOutputs.size(); i++) {
+        handleMainOutputElement(vertexHarness, mainOutputs.get(i)); // Recursion
+      }
+      mainOutputs.clear();
+    }
 
     // Recursively process all of the additional output elements.
-    vertexHarness.getAdditionalTagOutputChildren().keySet().forEach(tag -> {
-      outputCollector.iterateTag(tag).forEach(element ->
-        handleAdditionalOutputElement(vertexHarness, element, tag)); // Recursion
-      outputCollector.clearTag(tag);
-    });
+    for (int tagId = 0; tagId < vertexHarness.getNumIntraTaskTags(); tagId++) {
+      final List<Object> additionalOutputs = vertexHarness.getAdditionalOutputQueue(tagId);
+      if (!additionalOutputs.isEmpty()) {
+        for (int i = 0; i < additionalOutputs.size(); i++) {
+          handleAdditionalOutputElement(vertexHarness, additionalOutputs.get(i), tagId); // Recursion
+        }
+        additionalOutputs.clear();
+      }
+    }
+  }
+
+  /**
+   * Recursively process a batch of data elements down the DAG dependency.
+   * Unlike {@link #processElementRecursively(VertexHarness, Object)}, each vertex processes the whole batch
+   * before its children, so the traversal of the harnesses is done once per batch, not once per element.
+   *
+   * @param vertexHarness VertexHarness of a vertex to execute.
+   * @param batch         input data elements to process.
+   */
+  private void processBatchRecursively(final VertexHarness vertexHarness, final List<Object> batch) {
+    final IRVertex irVertex = vertexHarness.getIRVertex();
+    final VertexExecutionMetric metric = vertexHarness.getMetric();
+    final boolean isSampledBatch = isSampled(metric.countProcessedElements(batch.size()), batch.size());
+
+    if (irVertex instanceof SourceVertex) {
+      // The source elements are the outputs as they are.
+      handleMainOutputBatch(vertexHarness, batch);
+      return;
+    } else if (irVertex instanceof OperatorVertex) {
+      final long startNanos = isSampledBatch ? System.nanoTime() : 0;
+      final Transform transform = ((OperatorVertex) irVertex).getTransform();
+      if (transform instanceof BatchTransform) {
+        ((BatchTransform) transform).onBatch(batch);
+      } else {
+        for (final Object dataElement : batch) {
+          transform.onData(dataElement);
+        }
+      }
+      if (isSampledBatch) {
+        // The elements of a batch are recorded with the average latency.
+        metric.getTransformLatency().record((System.nanoTime() - startNanos) / batch.size(), batch.size());
+      }
+    } else {
+      throw new UnsupportedOperationException("This type of IRVertex is not supported");
+    }
+
+    final OutputCollectorImpl outputCollector = vertexHarness.getOutputCollector();
+    final List<Object> mainOutputs = outputCollector.getMainTagOutputQueue();
+    if (!mainOutputs.isEmpty()) {
+      handleMainOutputBatch(vertexHarness, mainOutputs); // Recursion
+      outputCollector.clearMain();
+    }
+    for (int tagId = 0; tagId < vertexHarness.getNumIntraTaskTags(); tagId++) {
+      final List<Object> additionalOutputs = vertexHarness.getAdditionalOutputQueue(tagId);
+      if (!additionalOutputs.isEmpty()) {
+        handleAdditionalOutputBatch(vertexHarness, additionalOutputs, tagId); // Recursion
+        additionalOutputs.clear();
+      }
+    }
   }
 
   /**
@@ -271,6 +370,10 @@ public final class TaskExecutor {
       // ANY uncaught throwable is reported to the master
       taskStateManager.onTaskStateChanged(TaskState.State.FAILED, Optional.empty(), Optional.empty());
       LOG.error(ExceptionUtils.getStackTrace(throwable));
+    } finally {
+      // The fetchers abandoned before being exhausted still hold the buffers and files of their unread data
+      unfinishedDataFetchers.forEach(DataFetcher::close);
+      unfinishedDataFetchers.clear();
     }
   }
 
@@ -292,18 +395,20 @@ public final class TaskExecutor {
       return;
     }
 
-    metricMessageSender.send("TaskMetric", taskId,
-      "boundedSourceReadTime", SerializationUtils.serialize(boundedSourceReadTime));
-    metricMessageSender.send("TaskMetric", taskId,
-      "serializedReadBytes", SerializationUtils.serialize(serializedReadBytes));
-    metricMessageSender.send("TaskMetric", taskId,
-      "encodedReadBytes", SerializationUtils.serialize(encodedReadBytes));
+    metricMessageSender.send("TaskMetric", taskId, "boundedSourceReadTime", boundedSourceReadTime);
+    metricMessageSender.send("TaskMetric", taskId, "serializedReadBytes", serializedReadBytes);
+    metricMessageSender.send("TaskMetric", taskId, "encodedReadBytes", encodedReadBytes);
 
     // Phase 2: Finalize task-internal states and elements
     for (final VertexHarness vertexHarness : sortedHarnesses) {
       finalizeVertex(vertexHarness);
     }
 
+    final ArrayList<VertexExecutionMetric> vertexMetrics = sortedHarnesses.stream()
+      .map(VertexHarness::getMetric)
+      .collect(Collectors.toCollection(ArrayList::new));
+    metricMessageSender.send("TaskMetric", taskId, "vertexMetrics", SerializationUtils.serialize(vertexMetrics));
+
     if (idOfVertexPutOnHold == null) {
       taskStateManager.onTaskStateChanged(TaskState.State.COMPLETE, Optional.empty(), Optional.empty());
       LOG.info("{} completed", taskId);
@@ -342,74 +447,213 @@ public final class TaskExecutor {
   }
 
   private void finalizeVertex(final VertexHarness vertexHarness) {
-    closeTransform(vertexHarness);
-
     final OutputCollectorImpl outputCollector = vertexHarness.getOutputCollector();
     final IRVertex v = vertexHarness.getIRVertex();
     if (v instanceof OperatorVertex
       && ((OperatorVertex) v).getTransform() instanceof AggregateMetricTransform) {
+      closeTransform(vertexHarness);
       // send aggregated dynamic optimization data to master
       final Object aggregatedDynOptData = outputCollector.iterateMain().iterator().next();
       sendDynOptData(aggregatedDynOptData);
       // set the id of this vertex to mark the corresponding stage as put on hold
       setIRVertexPutOnHold(v);
     } else {
-      // handle main outputs
-      outputCollector.iterateMain().forEach(element -> {
-        handleMainOutputElement(vertexHarness, element);
-      }); // Recursion
-      outputCollector.clearMain();
-
-      // handle intra-task additional tagged outputs
-      vertexHarness.getAdditionalTagOutputChildren().keySet().forEach(tag -> {
-        outputCollector.iterateTag(tag).forEach(
-          element -> handleAdditionalOutputElement(vertexHarness, element, tag)); // Recursion
-        outputCollector.clearTag(tag);
-      });
+      // A transform may emit all of its state when closed (e.g., the groups of a GroupByKey).
+      // Hand the outputs down to the children as they are emitted, not to hold all of them at once.
+      outputCollector.setEmitListener(() -> handleOutputsOfClosingVertex(vertexHarness));
+      try {
+        closeTransform(vertexHarness);
+      } finally {
+        outputCollector.setEmitListener(null);
+      }
 
-      // handle inter-task additional tagged outputs
-      vertexHarness.getTagToAdditionalChildrenId().keySet().forEach(tag -> {
-        outputCollector.iterateTag(tag).forEach(
-          element -> handleAdditionalOutputElement(vertexHarness, element, tag)); // Recursion
-        outputCollector.clearTag(tag);
-      });
+      // handle the remaining main outputs
+      final List<Object> mainOutputs = outputCollector.getMainTagOutputQueue();
+      if (isBatchMode) {
+        handleMainOutputBatch(vertexHarness, mainOutputs); // Recursion
+      } else {
+        for (int i = 0; i < mainOutputs.size(); i++) {
+          handleMainOutputElement(vertexHarness, mainOutputs.get(i)); // Recursion
+        }
+      }
+      mainOutputs.clear();
+
+      // handle intra-task and inter-task additional tagged outputs
+      for (int tagId = 0; tagId < vertexHarness.getNumAdditionalTags(); tagId++) {
+        final List<Object> additionalOutputs = vertexHarness.getAdditionalOutputQueue(tagId);
+        if (isBatchMode) {
+          handleAdditionalOutputBatch(vertexHarness, additionalOutputs, tagId); // Recursion
+        } else {
+          for (int i = 0; i < additionalOutputs.size(); i++) {
+            handleAdditionalOutputElement(vertexHarness, additionalOutputs.get(i), tagId); // Recursion
+          }
+        }
+        additionalOutputs.clear();
+      }
 
       finalizeOutputWriters(vertexHarness);
     }
   }
 
+  /**
+   * Handles the outputs emitted so far by a vertex being closed. In the batch mode, the outputs are handled
+   * only when a full batch is collected, and the remainder is handled after the vertex is closed.
+   *
+   * @param vertexHarness VertexHarness of the vertex being closed.
+   */
+  private void handleOutputsOfClosingVertex(final VertexHarness vertexHarness) {
+    final List<Object> mainOutputs = vertexHarness.getOutputCollector().getMainTagOutputQueue();
+    if (isBatchMode) {
+      if (mainOutputs.size() >= batchSize) {
+        handleMainOutputBatch(vertexHarness, mainOutputs); // Recursion
+        mainOutputs.clear();
+      }
+    } else if (!mainOutputs.isEmpty()) {
+      for (int i = 0; i < mainOutputs.size(); i++) {
+        handleMainOutputElement(vertexHarness, mainOutputs.get(i)); // Recursion
+      }
+      mainOutputs.clear();
+    }
+
+    for (int tagId = 0; tagId < vertexHarness.getNumAdditionalTags(); tagId++) {
+      final List<Object> additionalOutputs = vertexHarness.getAdditionalOutputQueue(tagId);
+      if (isBatchMode) {
+        if (additionalOutputs.size() >= batchSize) {
+          handleAdditionalOutputBatch(vertexHarness, additionalOutputs, tagId); // Recursion
+          additionalOutputs.clear();
+        }
+      } else if (!additionalOutputs.isEmpty()) {
+        for (int i = 0; i < additionalOutputs.size(); i++) {
+          handleAdditionalOutputElement(vertexHarness, additionalOutputs.get(i), tagId); // Recursion
+        }
+        additionalOutputs.clear();
+      }
+    }
+  }
+
   private void handleMainOutputElement(final VertexHarness harness, final Object element) {
     // writes to children tasks
-    harness.getWritersToMainChildrenTasks().forEach(outputWriter -> outputWriter.write(element));
+    final OutputWriter[] writers = harness.getWritersToMainChildrenTasksArray();
+    if (writers.length > 0) {
+      final VertexExecutionMetric metric = harness.getMetric();
+      final boolean isSampledWrite = isSampled(metric.countWrittenElements(1), 1);
+      final long startNanos = isSampledWrite ? System.nanoTime() : 0;
+      for (final OutputWriter outputWriter : writers) {
+        outputWriter.write(element);
+      }
+      if (isSampledWrite) {
+        metric.getWriteLatency().record(System.nanoTime() - startNanos);
+      }
+    }
     // process elements in the next vertices within a task
-    harness.getMainTagChildren().forEach(child -> processElementRecursively(child, element));
+    for (final VertexHarness child : harness.getMainTagChildrenArray()) {
+      processElementRecursively(child, element);
+    }
   }
 
-  private void handleAdditionalOutputElement(final VertexHarness harness, final Object element, final String tag) {
+  private void handleAdditionalOutputElement(final VertexHarness harness, final Object element, final int tagId) {
     // writes to additional children tasks
-    harness.getWritersToAdditionalChildrenTasks().entrySet().stream()
-      .filter(kv -> kv.getKey().equals(tag))
-      .forEach(kv -> kv.getValue().write(element));
+    final OutputWriter writer = harness.getWriterToAdditionalChildren(tagId);
+    if (writer != null) {
+      final VertexExecutionMetric metric = harness.getMetric();
+      if (isSampled(metric.countWrittenElements(1), 1)) {
+        final long startNanos = System.nanoTime();
+        writer.write(element);
+        metric.getWriteLatency().record(System.nanoTime() - startNanos);
+      } else {
+        writer.write(element);
+      }
+    }
     // process elements in the next vertices within a task
-    harness.getAdditionalTagOutputChildren().entrySet().stream()
-      .filter(kv -> kv.getKey().equals(tag))
-      .forEach(kv -> processElementRecursively(kv.getValue(), element));
+    final VertexHarness child = harness.getAdditionalChild(tagId);
+    if (child != null) {
+      processElementRecursively(child, element);
+    }
+  }
+
+  private void handleMainOutputBatch(final VertexHarness harness, final List<Object> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    // writes to children tasks
+    final OutputWriter[] writers = harness.getWritersToMainChildrenTasksArray();
+    if (writers.length > 0) {
+      final VertexExecutionMetric metric = harness.getMetric();
+      final boolean isSampledWrite = isSampled(metric.countWrittenElements(batch.size()), batch.size());
+      final long startNanos = isSampledWrite ? System.nanoTime() : 0;
+      for (final OutputWriter outputWriter : writers) {
+        for (int i = 0; i < batch.size(); i++) {
+          outputWriter.write(batch.get(i));
+        }
+      }
+      if (isSampledWrite) {
+        metric.getWriteLatency().record((System.nanoTime() - startNanos) / batch.size(), batch.size());
+      }
+    }
+    // process elements in the next vertices within a task
+    for (final VertexHarness child : harness.getMainTagChildrenArray()) {
+      processBatchRecursively(child, batch);
+    }
+  }
+
+  private void handleAdditionalOutputBatch(final VertexHarness harness, final List<Object> batch, final int tagId) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    // writes to additional children tasks
+    final OutputWriter writer = harness.getWriterToAdditionalChildren(tagId);
+    if (writer != null) {
+      final VertexExecutionMetric metric = harness.getMetric();
+      final boolean isSampledWrite = isSampled(metric.countWrittenElements(batch.size()), batch.size());
+      final long startNanos = isSampledWrite ? System.nanoTime() : 0;
+      for (int i = 0; i < batch.size(); i++) {
+        writer.write(batch.get(i));
+      }
+      if (isSampledWrite) {
+        metric.getWriteLatency().record((System.nanoTime() - startNanos) / batch.size(), batch.size());
+      }
+    }
+    // process elements in the next vertices within a task
+    final VertexHarness child = harness.getAdditionalChild(tagId);
+    if (child != null) {
+      processBatchRecursively(child, batch);
+    }
   }
 
   /**
+   * The fetchers which are not exhausted yet are kept in {@link #unfinishedDataFetchers}, to be closed by
+   * {@link #execute()} however the handling ends.
    * @param fetchers to handle.
    * @return false if IOException.
    */
   private boolean handleDataFetchers(final List<DataFetcher> fetchers) {
-    final List<DataFetcher> availableFetchers = new ArrayList<>(fetchers);
+    final List<DataFetcher> availableFetchers = unfinishedDataFetchers;
+    availableFetchers.addAll(fetchers);
     while (!availableFetchers.isEmpty()) { // empty means we've consumed all task-external input data
       // For this looping of available fetchers.
       int finishedFetcherIndex = NONE_FINISHED;
       for (int i = 0; i < availableFetchers.size(); i++) {
         final DataFetcher dataFetcher = availableFetchers.get(i);
         final Object element;
+        final VertexExecutionMetric metric = dataFetcher.getChild().getMetric();
         try {
-          element = dataFetcher.fetchDataElement();
+          // The fetches of the elements which are to be processed by sampled transforms are timed.
+          final boolean isSampledFetch = isSampled(metric.getNumProcessedElements(), isBatchMode ? batchSize : 1);
+          final long waitNanos = metric.getFetchWaitLatency().getTotal();
+          final long startNanos = isSampledFetch ? System.nanoTime() : 0;
+          if (isBatchMode) {
+            dataFetcher.fetchDataElements(fetchedBatch, batchSize);
+            element = null;
+          } else {
+            element = dataFetcher.fetchDataElement();
+          }
+          if (isSampledFetch) {
+            // The time blocked on waiting for the input data is recorded separately.
+            final long fetchNanos =
+              System.nanoTime() - startNanos - (metric.getFetchWaitLatency().getTotal() - waitNanos);
+            final int numFetched = isBatchMode ? fetchedBatch.size() : 1;
+            metric.getFetchLatency().record(fetchNanos / numFetched, numFetched);
+          }
         } catch (NoSuchElementException e) {
           // We've consumed all the data from this data fetcher.
           if (dataFetcher instanceof SourceVertexDataFetcher) {
@@ -428,8 +672,13 @@ public final class TaskExecutor {
           return false;
         }
 
-        // Successfully fetched an element
-        processElementRecursively(dataFetcher.getChild(), element);
+        // Successfully fetched an element (or a batch of elements)
+        if (isBatchMode) {
+          processBatchRecursively(dataFetcher.getChild(), fetchedBatch);
+          fetchedBatch.clear();
+        } else {
+          processElementRecursively(dataFetcher.getChild(), element);
+        }
       }
 
       // Remove the finished fetcher from the list
@@ -440,6 +689,17 @@ public final class TaskExecutor {
     return true;
   }
 
+  /**
+   * Elements are sampled by their indices, so that consecutive samples are an interval apart.
+   * @param firstIndex  the index of the first element to process, i.e., the number of elements counted before it.
+   * @param numElements the number of elements to process at once.
+   * @return whether to time the processing, i.e., one of the elements is at a multiple of the interval.
+   */
+  private boolean isSampled(final long firstIndex, final int numElements) {
+    return isSamplingEnabled
+      && ((firstIndex - 1) >> samplingShift) != ((firstIndex + numElements - 1) >> samplingShift);
+  }
+
   ////////////////////////////////////////////// Helper methods for setting up initial data structures
 
   private Map<String, String> getAdditionalOutputMap(final IRVertex irVertex,
@@ -482,11 +742,12 @@ public final class TaskExecutor {
 
   private List<InputReader> getParentTaskReaders(final int taskIndex,
                                                  final List<StageEdge> inEdgesFromParentTasks,
-                                                 final DataTransferFactory dataTransferFactory) {
+                                                 final DataTransferFactory dataTransferFactory,
+                                                 final ReadAheadDecoder.TaskBudget readAheadBudget) {
     return inEdgesFromParentTasks
       .stream()
       .map(inEdgeForThisVertex -> dataTransferFactory
-        .createReader(taskIndex, inEdgeForThisVertex.getSrcIRVertex(), inEdgeForThisVertex))
+        .createReader(taskIndex, inEdgeForThisVertex.getSrcIRVertex(), inEdgeForThisVertex, readAheadBudget))
       .collect(Collectors.toList());
   }
 
@@ -645,7 +906,6 @@ public final class TaskExecutor {
     for (final Long writtenBytes : writtenBytesList) {
       totalWrittenBytes += writtenBytes;
     }
-    metricMessageSender.send("TaskMetric", taskId,
-      "writtenBytes", SerializationUtils.serialize(totalWrittenBytes));
+    metricMessageSender.send("TaskMetric", taskId, "writtenBytes", totalWrittenBytes);
   }
 }
@@ -17,6 +17,7 @@ package org.apache.nemo.runtime.executor.task;
 
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.runtime.common.metric.VertexExecutionMetric;
 import org.apache.nemo.runtime.executor.datatransfer.OutputCollectorImpl;
 import org.apache.nemo.runtime.executor.datatransfer.OutputWriter;
 import org.slf4j.Logger;
@@ -38,6 +39,7 @@ final class VertexHarness {
   private final OutputCollectorImpl outputCollector;
   private final Transform.Context context;
   private final List<VertexHarness> mainTagChildren;
+  private final VertexExecutionMetric metric;
 
   // These lists can be empty
   private final Map<String, VertexHarness> additionalTagOutputChildren;
@@ -45,6 +47,15 @@ final class VertexHarness {
   private final List<OutputWriter> writersToMainChildrenTasks;
   private final Map<String, OutputWriter> writersToAdditionalChildrenTasks;
 
+  // Routing tables compiled from the above, for the per-element path. The additional outputs are indexed by tag id:
+  // [0, numIntraTaskTags) for tags with an intra-task child, and [numIntraTaskTags, numTags) for the others.
+  private final VertexHarness[] mainTagChildrenArray;
+  private final OutputWriter[] writersToMainChildrenTasksArray;
+  private final int numIntraTaskTags;
+  private final List<Object>[] additionalOutputQueues;
+  private final VertexHarness[] additionalChildren;
+  private final OutputWriter[] writersToAdditionalChildren;
+
   VertexHarness(final IRVertex irVertex,
                 final OutputCollectorImpl outputCollector,
                 final List<VertexHarness> children,
@@ -78,6 +89,27 @@ final class VertexHarness {
     this.writersToMainChildrenTasks = writersToMainChildrenTasks;
     this.writersToAdditionalChildrenTasks = writersToAdditionalChildrenTasks;
     this.context = context;
+    this.metric = new VertexExecutionMetric(irVertex.getId());
+
+    // Compile the routing tables
+    this.mainTagChildrenArray = mainTagChildren.toArray(new VertexHarness[0]);
+    this.writersToMainChildrenTasksArray = writersToMainChildrenTasks.toArray(new OutputWriter[0]);
+    final List<String> tags = new ArrayList<>(additionalTagOutputChildren.keySet());
+    this.numIntraTaskTags = tags.size();
+    for (final String tag : tagToAdditionalChildrenId.keySet()) {
+      if (!additionalTagOutputChildren.containsKey(tag)) {
+        tags.add(tag);
+      }
+    }
+    this.additionalOutputQueues = new List[tags.size()];
+    this.additionalChildren = new VertexHarness[tags.size()];
+    this.writersToAdditionalChildren = new OutputWriter[tags.size()];
+    for (int tagId = 0; tagId < tags.size(); tagId++) {
+      final String tag = tags.get(tagId);
+      additionalOutputQueues[tagId] = outputCollector.getTagOutputQueue(tag);
+      additionalChildren[tagId] = additionalTagOutputChildren.get(tag);
+      writersToAdditionalChildren[tagId] = writersToAdditionalChildrenTasks.get(tag);
+    }
   }
 
   /**
@@ -94,6 +126,13 @@ final class VertexHarness {
     return outputCollector;
   }
 
+  /**
+   * @return the execution statistics of this irVertex.
+   */
+  VertexExecutionMetric getMetric() {
+    return metric;
+  }
+
   /**
    * @return mainTagChildren harnesses.
    */
@@ -129,6 +168,59 @@ final class VertexHarness {
     return writersToAdditionalChildrenTasks;
   }
 
+  /**
+   * @return mainTagChildren harnesses, as an array.
+   */
+  VertexHarness[] getMainTagChildrenArray() {
+    return mainTagChildrenArray;
+  }
+
+  /**
+   * @return OutputWriters for main outputs of this irVertex, as an array. (empty if none exists)
+   */
+  OutputWriter[] getWritersToMainChildrenTasksArray() {
+    return writersToMainChildrenTasksArray;
+  }
+
+  /**
+   * @return the number of additional output tags. Tag ids range from 0 to this number (exclusive).
+   */
+  int getNumAdditionalTags() {
+    return additionalOutputQueues.length;
+  }
+
+  /**
+   * @return the number of additional output tags that have an intra-task child.
+   *         Tag ids of such tags range from 0 to this number (exclusive).
+   */
+  int getNumIntraTaskTags() {
+    return numIntraTaskTags;
+  }
+
+  /**
+   * @param tagId tag id.
+   * @return the output queue of the OutputCollector for the tag.
+   */
+  List<Object> getAdditionalOutputQueue(final int tagId) {
+    return additionalOutputQueues[tagId];
+  }
+
+  /**
+   * @param tagId tag id.
+   * @return the intra-task child harness for the tag. (null if none exists)
+   */
+  VertexHarness getAdditionalChild(final int tagId) {
+    return additionalChildren[tagId];
+  }
+
+  /**
+   * @param tagId tag id.
+   * @return the OutputWriter to the additional children task for the tag. (null if none exists)
+   */
+  OutputWriter getWriterToAdditionalChildren(final int tagId) {
+    return writersToAdditionalChildren[tagId];
+  }
+
   /**
    * @return context.
    */
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.apache.nemo.runtime.common.message.MessageSender;
+import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mock;
+
+/**
+ * Tests the coalescing of counters and gauges in {@link MetricManagerWorker}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(PersistentConnectionToMasterMap.class)
+public final class MetricManagerWorkerTest {
+  private List<ControlMessage.Metric> sentMetrics;
+  private MetricManagerWorker metricManagerWorker;
+
+  @Before
+  public void setUp() throws Exception {
+    sentMetrics = new ArrayList<>();
+    final MessageSender<ControlMessage.Message> messageSender = mock(MessageSender.class);
+    doAnswer(invocation -> {
+      final ControlMessage.Message message = invocation.getArgument(0);
+      if (message.getType() == ControlMessage.MessageType.MetricMessageReceived) {
+        synchronized (sentMetrics) {
+          sentMetrics.addAll(message.getMetricMsg().getMetricList());
+        }
+      }
+      return null;
+    }).when(messageSender).send(any());
+    final PersistentConnectionToMasterMap connectionMap = mock(PersistentConnectionToMasterMap.class);
+    when(connectionMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID))
+        .thenReturn(messageSender);
+
+    final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileInstance(PersistentConnectionToMasterMap.class, connectionMap);
+    metricManagerWorker = injector.getInstance(MetricManagerWorker.class);
+  }
+
+  @Test(timeout = 10000)
+  public void testGaugeCoalescing() {
+    metricManagerWorker.send("ExecutorMetric", "executor", "spilledBytes", 1L);
+    metricManagerWorker.send("ExecutorMetric", "executor", "spilledBytes", 2L);
+    metricManagerWorker.send("TaskMetric", "task", "containerId", "executor");
+    metricManagerWorker.flush();
+    assertEquals(2L, getLastLongValue("spilledBytes"));
+    final int numSentMetrics = getNumSentMetrics();
+
+    // Unchanged values are not sent again.
+    metricManagerWorker.send("ExecutorMetric", "executor", "spilledBytes", 2L);
+    metricManagerWorker.send("TaskMetric", "task", "containerId", "executor");
+    metricManagerWorker.flush();
+    assertEquals(numSentMetrics, getNumSentMetrics());
+
+    // Changed values are.
+    metricManagerWorker.send("ExecutorMetric", "executor", "spilledBytes", 3L);
+    metricManagerWorker.flush();
+    assertEquals(numSentMetrics + 1, getNumSentMetrics());
+    assertEquals(3L, getLastLongValue("spilledBytes"));
+
+    metricManagerWorker.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testSerializedValuesAreNotCoalesced() {
+    metricManagerWorker.send("TaskMetric", "task", "stateTransitionEvent", new byte[]{1});
+    metricManagerWorker.send("TaskMetric", "task", "stateTransitionEvent", new byte[]{1});
+    metricManagerWorker.flush();
+    assertEquals(2, getNumSentMetrics());
+
+    metricManagerWorker.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testReleasedMetricsAreForgotten() {
+    metricManagerWorker.send("ExecutorMetric", "executor", "spilledBytes", 1L);
+    metricManagerWorker.send("TaskMetric", "task", "writtenBytes", 1L);
+    metricManagerWorker.release("TaskMetric", "task");
+    metricManagerWorker.flush();
+
+    // The last values of the released metric are still sent, but not kept.
+    assertEquals(1L, getLastLongValue("writtenBytes"));
+    assertEquals(1, metricManagerWorker.getNumTrackedMetrics());
+
+    metricManagerWorker.close();
+  }
+
+  private int getNumSentMetrics() {
+    synchronized (sentMetrics) {
+      return sentMetrics.size();
+    }
+  }
+
+  private long getLastLongValue(final String metricField) {
+    synchronized (sentMetrics) {
+      long lastValue = -1;
+      for (final ControlMessage.Metric metric : sentMetrics) {
+        if (metricField.equals(metric.getMetricField())) {
+          lastValue = metric.getLongValue();
+        }
+      }
+      return lastValue;
+    }
+  }
+}
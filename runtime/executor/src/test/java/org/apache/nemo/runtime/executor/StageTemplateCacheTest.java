@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import com.google.protobuf.ByteString;
+import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.plan.StageTemplate;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.common.plan.TaskCodec;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link StageTemplateCache}.
+ */
+public final class StageTemplateCacheTest {
+  private static final String STAGE_ID = RuntimeIdManager.generateStageId(0);
+
+  private List<StageTemplate> receivedTemplates;
+  private StageTemplateCache stageTemplateCache;
+
+  @Before
+  public void setUp() {
+    receivedTemplates = new ArrayList<>();
+    stageTemplateCache = new StageTemplateCache(receivedTemplates::add);
+  }
+
+  @Test
+  public void testTasksArriveBeforeTemplate() {
+    final StageTemplate template = createTemplate(1);
+
+    // Two tasks overtake the task carrying the template.
+    assertTrue(stageTemplateCache.onScheduleTaskMsg(createMsg(1, template, false)).isEmpty());
+    assertTrue(stageTemplateCache.onScheduleTaskMsg(createMsg(2, template, false)).isEmpty());
+    assertEquals(2, stageTemplateCache.getNumWaitingTasks());
+    assertTrue(receivedTemplates.isEmpty());
+
+    // The template releases the waiting tasks along with its own task.
+    final List<Task> readyTasks = stageTemplateCache.onScheduleTaskMsg(createMsg(0, template, true));
+    assertEquals(Arrays.asList(taskId(0), taskId(1), taskId(2)),
+        readyTasks.stream().map(Task::getTaskId).collect(Collectors.toList()));
+    readyTasks.forEach(task -> assertEquals(template.getTemplateId(), task.getStageTemplate().getTemplateId()));
+    assertEquals(0, stageTemplateCache.getNumWaitingTasks());
+    assertEquals(1, receivedTemplates.size());
+
+    // Later tasks are built from the cached template right away.
+    final List<Task> laterTasks = stageTemplateCache.onScheduleTaskMsg(createMsg(3, template, false));
+    assertEquals(1, laterTasks.size());
+    assertEquals(template.getTemplateId(), laterTasks.get(0).getStageTemplate().getTemplateId());
+    assertEquals(1, receivedTemplates.size());
+  }
+
+  @Test
+  public void testEviction() {
+    final StageTemplate oldTemplate = createTemplate(1);
+    final StageTemplate newTemplate = createTemplate(2);
+    assertEquals(1, stageTemplateCache.onScheduleTaskMsg(createMsg(0, oldTemplate, true)).size());
+    assertEquals(1, stageTemplateCache.onScheduleTaskMsg(createMsg(1, newTemplate, true)).size());
+    assertEquals(2, stageTemplateCache.getNumCachedTemplates());
+
+    final ControlMessage.ScheduleTaskMsg evictingMsg = createMsg(2, newTemplate, false).toBuilder()
+        .addEvictedStageTemplateIds(oldTemplate.getTemplateId())
+        .build();
+    assertEquals(1, stageTemplateCache.onScheduleTaskMsg(evictingMsg).size());
+    assertEquals(1, stageTemplateCache.getNumCachedTemplates());
+
+    // A task of the evicted template would wait for the template to be sent again.
+    assertTrue(stageTemplateCache.onScheduleTaskMsg(createMsg(3, oldTemplate, false)).isEmpty());
+  }
+
+  private static String taskId(final int index) {
+    return RuntimeIdManager.generateTaskId(STAGE_ID, index, 0);
+  }
+
+  private static StageTemplate createTemplate(final int planVersion) {
+    return new StageTemplate("plan/" + STAGE_ID + "/v" + planVersion, "plan", planVersion,
+        new ExecutionPropertyMap<>(STAGE_ID), new byte[0], Collections.emptyList(), Collections.emptyList());
+  }
+
+  private static ControlMessage.ScheduleTaskMsg createMsg(final int index,
+                                                          final StageTemplate template,
+                                                          final boolean withTemplate) {
+    final ControlMessage.ScheduleTaskMsg.Builder builder = ControlMessage.ScheduleTaskMsg.newBuilder()
+        .setTaskId(taskId(index))
+        .setStageTemplateId(template.getTemplateId())
+        .setIrVertexIdToReadable(ByteString.copyFrom(
+            TaskCodec.encodeReadables(Collections.<String, Readable>emptyMap())));
+    if (withTemplate) {
+      builder.setStageTemplate(ByteString.copyFrom(template.getSerializedTemplate()));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TaskExecutionPool}.
+ */
+public final class TaskExecutionPoolTest {
+
+  /**
+   * Tests that waiting tasks run in the order of their number of remote inputs, then in the order of submission,
+   * and that tasks not complying with the slots do not wait.
+   * @throws Exception exceptions on the way
+   */
+  @Test(timeout = 10000)
+  public void testOrderAndAdmission() throws Exception {
+    final List<Integer> queueDepths = Collections.synchronizedList(new ArrayList<>());
+    final TaskExecutionPool pool = new TaskExecutionPool(1, (queueDepth, waitMs) -> queueDepths.add(queueDepth));
+    final CountDownLatch slotReleased = new CountDownLatch(1);
+    final List<String> waitingTasks = Arrays.asList("remote", "local1", "local2");
+    final CountDownLatch allDone = new CountDownLatch(waitingTasks.size());
+    final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    // Occupy the only slot.
+    pool.execute(() -> {
+      try {
+        slotReleased.await();
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }, true, 0);
+    pool.execute(() -> runAndCount("remote", order, allDone), true, 2);
+    pool.execute(() -> runAndCount("local1", order, allDone), true, 0);
+    pool.execute(() -> runAndCount("local2", order, allDone), true, 0);
+    assertEquals(waitingTasks.size(), pool.getQueueDepth());
+
+    // A non-complying task runs even though the slot is busy.
+    final CountDownLatch nonComplyingDone = new CountDownLatch(1);
+    pool.execute(nonComplyingDone::countDown, false, 0);
+    assertTrue(nonComplyingDone.await(5, TimeUnit.SECONDS));
+
+    slotReleased.countDown();
+    assertTrue(allDone.await(5, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("local1", "local2", "remote"), order);
+    assertTrue(queueDepths.contains(waitingTasks.size()));
+    pool.shutdown();
+  }
+
+  private static void runAndCount(final String name, final List<String> order, final CountDownLatch latch) {
+    order.add(name);
+    latch.countDown();
+  }
+}
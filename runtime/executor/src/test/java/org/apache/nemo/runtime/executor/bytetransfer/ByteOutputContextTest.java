@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.bytetransfer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferDataDirection;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Tests write coalescing, flush batching and write backpressure of {@link ByteOutputContext}.
+ */
+public final class ByteOutputContextTest {
+  private static final int FRAME_SIZE = 256;
+  private static final int LOW_WATER_MARK = 64;
+  private static final int HIGH_WATER_MARK = 128;
+  private static final long WAIT_TIME_MS = 100;
+
+  /**
+   * Writes to the stream byte by byte, which should be gathered into frames of the frame size.
+   */
+  @Test
+  public void testWriteCoalescing() throws InjectionException, IOException {
+    final EmbeddedChannel channel = newChannel();
+    final ByteOutputContext context = newContext(channel);
+    try (ByteOutputContext.ByteOutputStream stream = context.newOutputStream()) {
+      for (int i = 0; i < 1000; i++) {
+        stream.write(i);
+      }
+      // Full frames are flushed, while the remaining bytes are still buffered.
+      assertEquals(3, readDataFrameLengths(channel).size());
+    }
+    context.close();
+
+    final List<Long> lengths = readDataFrameLengths(channel);
+    assertEquals(1, lengths.size());
+    assertEquals(1000 - 3 * FRAME_SIZE, (long) lengths.get(0));
+  }
+
+  /**
+   * Writes many small sub-streams, which should be flushed at once.
+   */
+  @Test
+  public void testFlushBatching() throws InjectionException, IOException {
+    final EmbeddedChannel channel = newChannel();
+    final ByteOutputContext context = newContext(channel);
+    for (int i = 0; i < 10; i++) {
+      try (ByteOutputContext.ByteOutputStream stream = context.newOutputStream()) {
+        stream.write(new byte[10], 0, 10);
+      }
+    }
+    assertEquals(0, readDataFrameLengths(channel).size());
+
+    context.close();
+    assertEquals(10, readDataFrameLengths(channel).size());
+  }
+
+  /**
+   * Writes a frame above the high water mark, which should block the writer until the channel drains.
+   * The frame is flushed before waiting, even though it is not larger than the frame size.
+   */
+  @Test(timeout = 10000)
+  public void testWriteBackpressure() throws Exception {
+    final HeldChannel embeddedChannel = new HeldChannel(
+        Tang.Factory.getTang().newInjector().getInstance(DataFrameEncoder.class));
+    embeddedChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(LOW_WATER_MARK, HIGH_WATER_MARK));
+    // The embedded event loop claims every thread, while the writer should wait as a thread outside of it.
+    final Channel channel = spy(embeddedChannel);
+    doReturn(mock(EventLoop.class)).when(channel).eventLoop();
+    final ContextManager contextManager = new ContextManager(null, null, null, "local", FRAME_SIZE, channel);
+    embeddedChannel.pipeline().addLast(contextManager);
+    final ByteOutputContext context = newContext(contextManager);
+
+    final CompletableFuture<Void> written = CompletableFuture.runAsync(() -> {
+      try (ByteOutputContext.ByteOutputStream stream = context.newOutputStream()) {
+        stream.write(new byte[FRAME_SIZE / 2], 0, FRAME_SIZE / 2);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    while (embeddedChannel.getNumFlushes() == 0) {
+      Thread.sleep(1);
+    }
+    try {
+      written.get(WAIT_TIME_MS, TimeUnit.MILLISECONDS);
+      fail("The writer should wait while the channel is above its high water mark");
+    } catch (final TimeoutException e) {
+      assertFalse(channel.isWritable());
+    }
+
+    embeddedChannel.drain();
+    written.get();
+    assertTrue(channel.isWritable());
+    context.close();
+    assertEquals(Collections.singletonList((long) FRAME_SIZE / 2), readDataFrameLengths(embeddedChannel));
+  }
+
+  private EmbeddedChannel newChannel() throws InjectionException {
+    return new EmbeddedChannel(Tang.Factory.getTang().newInjector().getInstance(DataFrameEncoder.class));
+  }
+
+  private ByteOutputContext newContext(final EmbeddedChannel channel) {
+    return newContext(new ContextManager(null, null, null, "local", FRAME_SIZE, channel));
+  }
+
+  private ByteOutputContext newContext(final ContextManager contextManager) {
+    final ByteTransferContext.ContextId contextId = new ByteTransferContext.ContextId("local", "remote",
+        ByteTransferDataDirection.INITIATOR_SENDS_DATA, 0);
+    return new ByteOutputContext("remote", contextId, new byte[0], contextManager);
+  }
+
+  /**
+   * Reads the data frames flushed to the channel.
+   * @param channel the channel to read from
+   * @return the lengths of the data frames with a body
+   */
+  private List<Long> readDataFrameLengths(final EmbeddedChannel channel) {
+    final List<Long> lengths = new ArrayList<>();
+    ByteBuf header;
+    while ((header = channel.readOutbound()) != null) {
+      header.skipBytes(Byte.BYTES + Integer.BYTES);
+      final long length = header.readUnsignedInt();
+      header.release();
+      if (length > 0) {
+        final ByteBuf body = channel.readOutbound();
+        assertEquals(length, body.readableBytes());
+        body.release();
+        lengths.add(length);
+      }
+    }
+    return lengths;
+  }
+
+  /**
+   * An {@link EmbeddedChannel} which keeps the flushed frames queued until drained, like a congested connection.
+   */
+  private static class HeldChannel extends EmbeddedChannel {
+    private volatile boolean held = true;
+    private volatile int numFlushes = 0;
+
+    HeldChannel(final ChannelHandler... handlers) {
+      super(handlers);
+    }
+
+    @Override
+    protected void doWrite(final ChannelOutboundBuffer in) throws Exception {
+      numFlushes++;
+      if (!held) {
+        super.doWrite(in);
+      }
+    }
+
+    /**
+     * @return the number of flushes that reached this channel.
+     */
+    int getNumFlushes() {
+      return numFlushes;
+    }
+
+    /**
+     * Writes out the queued frames and the frames flushed later.
+     */
+    void drain() {
+      held = false;
+      flush();
+    }
+  }
+}
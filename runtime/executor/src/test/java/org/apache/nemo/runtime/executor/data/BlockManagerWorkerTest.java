@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.exception.BlockFetchException;
+import org.apache.nemo.common.ir.IdManager;
+import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageContext;
+import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.apache.nemo.runtime.common.message.MessageListener;
+import org.apache.nemo.runtime.common.message.MessageParameters;
+import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.nemo.runtime.common.message.local.LocalMessageDispatcher;
+import org.apache.nemo.runtime.common.message.local.LocalMessageEnvironment;
+import org.apache.nemo.runtime.common.state.BlockState;
+import org.apache.nemo.runtime.executor.bytetransfer.ByteTransfer;
+import org.apache.nemo.runtime.master.BlockManagerMaster;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the block location handling of {@link BlockManagerWorker}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(ByteTransfer.class)
+public final class BlockManagerWorkerTest {
+  private static final String EXECUTOR_ID = "executor";
+  private static final String REMOTE_EXECUTOR_ID = "remote executor";
+  private static final String TMP_LOCAL_FILE_DIRECTORY = "./tmpLocalFiles";
+  private static final String TMP_REMOTE_FILE_DIRECTORY = "./tmpRemoteFiles";
+  private static final int WAIT_TIME_MS = 1000;
+  private static final long LONG_PUSH_TIMEOUT_MS = 60000;
+
+  private Injector dispatcherInjector;
+  private ByteTransfer byteTransfer;
+
+  @Before
+  public void setUp() throws Exception {
+    dispatcherInjector = LocalMessageDispatcher.getInjector();
+    byteTransfer = mock(ByteTransfer.class);
+    when(byteTransfer.newInputContext(any(), any())).thenReturn(new CompletableFuture<>());
+  }
+
+  private BlockManagerMaster createMaster() throws InjectionException {
+    return LocalMessageEnvironment.forkInjector(dispatcherInjector, MessageEnvironment.MASTER_COMMUNICATION_ID)
+        .getInstance(BlockManagerMaster.class);
+  }
+
+  private BlockManagerWorker createWorker(final long blockLocationPushTimeoutMs) throws InjectionException {
+    final Injector messageEnvironmentInjector = LocalMessageEnvironment.forkInjector(dispatcherInjector, EXECUTOR_ID);
+    final Injector injector = Tang.Factory.getTang().newInjector(Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(JobConf.ExecutorId.class, EXECUTOR_ID)
+        .bindNamedParameter(MessageParameters.SenderId.class, EXECUTOR_ID)
+        .bindNamedParameter(JobConf.JobId.class, "block manager worker test")
+        .bindNamedParameter(JobConf.FileDirectory.class, TMP_LOCAL_FILE_DIRECTORY)
+        .bindNamedParameter(JobConf.GlusterVolumeDirectory.class, TMP_REMOTE_FILE_DIRECTORY)
+        .bindNamedParameter(JobConf.BlockLocationPushTimeoutMs.class, String.valueOf(blockLocationPushTimeoutMs))
+        .build());
+    injector.bindVolatileInstance(MessageEnvironment.class,
+        messageEnvironmentInjector.getInstance(MessageEnvironment.class));
+    injector.bindVolatileInstance(PersistentConnectionToMasterMap.class,
+        messageEnvironmentInjector.getInstance(PersistentConnectionToMasterMap.class));
+    injector.bindVolatileInstance(ByteTransfer.class, byteTransfer);
+    return injector.getInstance(BlockManagerWorker.class);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(new File(TMP_LOCAL_FILE_DIRECTORY));
+    FileUtils.deleteDirectory(new File(TMP_REMOTE_FILE_DIRECTORY));
+  }
+
+  /**
+   * Test that a cached block location is dropped once the master reports that the block is lost.
+   */
+  @Test
+  public void testCachedLocationInvalidated() throws Exception {
+    final BlockManagerMaster blockManagerMaster = createMaster();
+    final BlockManagerWorker blockManagerWorker = createWorker(LONG_PUSH_TIMEOUT_MS);
+    final String edgeId = IdManager.newEdgeId();
+    final String taskId = RuntimeIdManager.generateTaskId("Stage0", 0, 0);
+    final String blockId = RuntimeIdManager.generateBlockId(edgeId, taskId);
+    final String blockIdWildcard = RuntimeIdManager.getWildCardFromBlockId(blockId);
+    blockManagerMaster.onProducerTaskScheduled(taskId, Collections.singleton(blockId));
+    blockManagerMaster.onBlockStateChanged(blockId, BlockState.State.AVAILABLE, REMOTE_EXECUTOR_ID);
+
+    // The pushed location is cached, and used by the next read.
+    readBlock(blockManagerWorker, blockIdWildcard, edgeId);
+    verify(byteTransfer, timeout(WAIT_TIME_MS)).newInputContext(eq(REMOTE_EXECUTOR_ID), any());
+    readBlock(blockManagerWorker, blockIdWildcard, edgeId);
+    verify(byteTransfer, timeout(WAIT_TIME_MS).times(2)).newInputContext(eq(REMOTE_EXECUTOR_ID), any());
+
+    // Once the block is lost, the read asks the master again instead of going to the stale location.
+    blockManagerMaster.onBlockStateChanged(blockId, BlockState.State.NOT_AVAILABLE, null);
+    try {
+      readBlock(blockManagerWorker, blockIdWildcard, edgeId).get(WAIT_TIME_MS, TimeUnit.MILLISECONDS);
+      fail("The read of a lost block must fail");
+    } catch (final ExecutionException e) {
+      assertTrue(e.getCause() instanceof BlockFetchException);
+    }
+    verify(byteTransfer, times(2)).newInputContext(eq(REMOTE_EXECUTOR_ID), any());
+  }
+
+  /**
+   * Test that a block is fetched as soon as the master pushes its location.
+   */
+  @Test
+  public void testPushedLocation() throws Exception {
+    final BlockManagerMaster blockManagerMaster = createMaster();
+    final BlockManagerWorker blockManagerWorker = createWorker(LONG_PUSH_TIMEOUT_MS);
+    final String edgeId = IdManager.newEdgeId();
+    final String taskId = RuntimeIdManager.generateTaskId("Stage0", 0, 0);
+    final String blockId = RuntimeIdManager.generateBlockId(edgeId, taskId);
+    blockManagerMaster.onProducerTaskScheduled(taskId, Collections.singleton(blockId));
+
+    // The block is in progress: the read waits for the location.
+    final CompletableFuture<DataUtil.IteratorWithNumBytes> future =
+        readBlock(blockManagerWorker, RuntimeIdManager.getWildCardFromBlockId(blockId), edgeId);
+    verify(byteTransfer, after(WAIT_TIME_MS / 10).never()).newInputContext(any(), any());
+
+    blockManagerMaster.onBlockStateChanged(blockId, BlockState.State.AVAILABLE, REMOTE_EXECUTOR_ID);
+    verify(byteTransfer, timeout(WAIT_TIME_MS)).newInputContext(eq(REMOTE_EXECUTOR_ID), any());
+    assertFalse(future.isCompletedExceptionally());
+  }
+
+  /**
+   * Test that the locations which the master does not push are requested explicitly.
+   */
+  @Test
+  public void testRequestAfterPushTimeout() throws Exception {
+    final String edgeId = IdManager.newEdgeId();
+    final String availableWildcard = RuntimeIdManager.generateBlockIdWildcard(edgeId, 0);
+    final String absentWildcard = RuntimeIdManager.generateBlockIdWildcard(edgeId, 1);
+    final List<ControlMessage.Message> subscriptions = new CopyOnWriteArrayList<>();
+    LocalMessageEnvironment.forkInjector(dispatcherInjector, MessageEnvironment.MASTER_COMMUNICATION_ID)
+        .getInstance(MessageEnvironment.class)
+        .setupListener(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID,
+            new MessageListener<ControlMessage.Message>() {
+              @Override
+              public void onMessage(final ControlMessage.Message message) {
+                // A master which fails to push the locations
+                subscriptions.add(message);
+              }
+
+              @Override
+              public void onMessageWithContext(final ControlMessage.Message message, final MessageContext context) {
+                final String wildcard = message.getRequestBlockLocationMsg().getBlockIdWildcard();
+                final ControlMessage.BlockLocationInfoMsg.Builder locationInfo =
+                    ControlMessage.BlockLocationInfoMsg.newBuilder()
+                        .setRequestId(message.getId())
+                        .setBlockId(wildcard);
+                if (wildcard.equals(availableWildcard)) {
+                  locationInfo.setOwnerExecutorId(REMOTE_EXECUTOR_ID);
+                } else {
+                  locationInfo.setState(ControlMessage.BlockStateFromExecutor.NOT_AVAILABLE);
+                }
+                context.reply(ControlMessage.Message.newBuilder()
+                    .setId(RuntimeIdManager.generateMessageId())
+                    .setListenerId(MessageEnvironment.BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID)
+                    .setType(ControlMessage.MessageType.BlockLocationInfo)
+                    .setBlockLocationInfoMsg(locationInfo)
+                    .build());
+              }
+            });
+    final BlockManagerWorker blockManagerWorker = createWorker(WAIT_TIME_MS / 10);
+
+    final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures = blockManagerWorker.readBlocks(
+        Arrays.asList(availableWildcard, absentWildcard), edgeId, DataStoreProperty.Value.MemoryStore,
+        HashRange.all());
+    assertEquals(1, subscriptions.size());
+    verify(byteTransfer, timeout(WAIT_TIME_MS)).newInputContext(eq(REMOTE_EXECUTOR_ID), any());
+    try {
+      futures.get(1).get(WAIT_TIME_MS, TimeUnit.MILLISECONDS);
+      fail("The read of an absent block must fail");
+    } catch (final ExecutionException e) {
+      assertTrue(e.getCause() instanceof BlockFetchException);
+    }
+  }
+
+  private static CompletableFuture<DataUtil.IteratorWithNumBytes> readBlock(final BlockManagerWorker worker,
+                                                                            final String blockIdWildcard,
+                                                                            final String edgeId) {
+    return worker.readBlock(blockIdWildcard, edgeId, DataStoreProperty.Value.MemoryStore,
+        HashRange.all());
+  }
+}
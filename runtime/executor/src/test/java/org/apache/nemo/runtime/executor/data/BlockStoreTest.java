@@ -15,6 +15,7 @@
  */
 package org.apache.nemo.runtime.executor.data;
 
+import com.google.common.collect.Lists;
 import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.coder.*;
 import org.apache.nemo.common.ir.IdManager;
@@ -218,11 +219,75 @@ public final class BlockStoreTest {
   @Test(timeout = 10000)
   public void testMemoryStore() throws Exception {
     final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(JobConf.FileDirectory.class, TMP_FILE_DIRECTORY);
     injector.bindVolatileInstance(SerializerManager.class, serializerManager);
     final BlockStore memoryStore = injector.getInstance(MemoryStore.class);
     shuffle(memoryStore, memoryStore);
     concurrentRead(memoryStore, memoryStore);
     shuffleInHashRange(memoryStore, memoryStore);
+    FileUtils.deleteDirectory(new File(TMP_FILE_DIRECTORY));
+  }
+
+  /**
+   * Test {@link MemoryStore} which spills every block to the disk.
+   */
+  @Test(timeout = 10000)
+  public void testSpillingMemoryStore() throws Exception {
+    final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(JobConf.FileDirectory.class, TMP_FILE_DIRECTORY);
+    injector.bindVolatileParameter(JobConf.MemoryStoreCapacityMb.class, 0);
+    injector.bindVolatileInstance(SerializerManager.class, serializerManager);
+    final BlockStore memoryStore = injector.getInstance(MemoryStore.class);
+    shuffle(memoryStore, memoryStore);
+    concurrentRead(memoryStore, memoryStore);
+    shuffleInHashRange(memoryStore, memoryStore);
+    assertTrue(injector.getInstance(SpillManager.class).getNumSpilledBlocks() > 0);
+    FileUtils.deleteDirectory(new File(TMP_FILE_DIRECTORY));
+  }
+
+  /**
+   * Test {@link MemoryStore} whose capacity is exceeded by the last of the written blocks,
+   * so that only the least recently read block is spilled to the disk, one partition at a time.
+   */
+  @Test(timeout = 10000)
+  public void testSlightlyExceededMemoryStore() throws Exception {
+    final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(JobConf.FileDirectory.class, TMP_FILE_DIRECTORY);
+    injector.bindVolatileParameter(JobConf.MemoryStoreCapacityMb.class, 1);
+    injector.bindVolatileInstance(SerializerManager.class, serializerManager);
+    final BlockStore memoryStore = injector.getInstance(MemoryStore.class);
+    final SpillManager spillManager = injector.getInstance(SpillManager.class);
+
+    // Each block is about 0.4MB, in partitions of 12500 pairs of integers.
+    final int numBlocks = 3;
+    final int numPartitions = 4;
+    final int partitionSize = 12500;
+    final List<String> blockIds = new ArrayList<>(numBlocks);
+    for (int blockIdx = 0; blockIdx < numBlocks; blockIdx++) {
+      final String blockId = RuntimeIdManager.generateBlockId(
+          IdManager.newEdgeId(), getTaskId(NUM_WRITE_VERTICES + NUM_READ_VERTICES + blockIdx));
+      blockIds.add(blockId);
+      final Block block = memoryStore.createBlock(blockId);
+      for (int partitionIdx = 0; partitionIdx < numPartitions; partitionIdx++) {
+        final int start = (blockIdx * numPartitions + partitionIdx) * partitionSize;
+        for (final Object element : getRangedNumList(start, start + partitionSize)) {
+          block.write(partitionIdx, element);
+        }
+      }
+      block.commit();
+      memoryStore.writeBlock(block);
+    }
+
+    assertEquals(1, spillManager.getNumSpilledBlocks());
+    assertTrue(new File(TMP_FILE_DIRECTORY + "/spill", blockIds.get(0)).exists());
+    for (int blockIdx = 0; blockIdx < numBlocks; blockIdx++) {
+      for (int partitionIdx = 0; partitionIdx < numPartitions; partitionIdx++) {
+        final int start = (blockIdx * numPartitions + partitionIdx) * partitionSize;
+        readResultCheck(blockIds.get(blockIdx), HashRange.of(partitionIdx, partitionIdx + 1, false),
+            memoryStore, getRangedNumList(start, start + partitionSize));
+      }
+    }
+    FileUtils.deleteDirectory(new File(TMP_FILE_DIRECTORY));
   }
 
   /**
@@ -231,11 +296,30 @@ public final class BlockStoreTest {
   @Test(timeout = 10000)
   public void testSerMemoryStore() throws Exception {
     final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(JobConf.FileDirectory.class, TMP_FILE_DIRECTORY);
     injector.bindVolatileInstance(SerializerManager.class, serializerManager);
     final BlockStore serMemoryStore = injector.getInstance(SerializedMemoryStore.class);
     shuffle(serMemoryStore, serMemoryStore);
     concurrentRead(serMemoryStore, serMemoryStore);
     shuffleInHashRange(serMemoryStore, serMemoryStore);
+    FileUtils.deleteDirectory(new File(TMP_FILE_DIRECTORY));
+  }
+
+  /**
+   * Test {@link SerializedMemoryStore} which spills every block to the disk.
+   */
+  @Test(timeout = 10000)
+  public void testSpillingSerMemoryStore() throws Exception {
+    final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(JobConf.FileDirectory.class, TMP_FILE_DIRECTORY);
+    injector.bindVolatileParameter(JobConf.MemoryStoreCapacityMb.class, 0);
+    injector.bindVolatileInstance(SerializerManager.class, serializerManager);
+    final BlockStore serMemoryStore = injector.getInstance(SerializedMemoryStore.class);
+    shuffle(serMemoryStore, serMemoryStore);
+    concurrentRead(serMemoryStore, serMemoryStore);
+    shuffleInHashRange(serMemoryStore, serMemoryStore);
+    assertTrue(injector.getInstance(SpillManager.class).getNumSpilledBlocks() > 0);
+    FileUtils.deleteDirectory(new File(TMP_FILE_DIRECTORY));
   }
 
   /**
@@ -592,7 +676,7 @@ public final class BlockStoreTest {
     final Iterable serToNonSerialized = DataUtil.convertToNonSerPartitions(
         SERIALIZER, optionalBlock.get().readSerializedPartitions(hashRange));
 
-    assertEquals(expectedResult, DataUtil.concatNonSerPartitions(nonSerializedResult));
-    assertEquals(expectedResult, DataUtil.concatNonSerPartitions(serToNonSerialized));
+    assertEquals(expectedResult, Lists.newArrayList(DataUtil.concatNonSerPartitions(nonSerializedResult)));
+    assertEquals(expectedResult, Lists.newArrayList(DataUtil.concatNonSerPartitions(serToNonSerialized)));
   }
 }
@@ -15,29 +15,41 @@
  */
 package org.apache.nemo.runtime.executor.data;
 
+import com.google.common.collect.Lists;
 import org.apache.nemo.common.HashRange;
 import org.apache.nemo.common.coder.IntDecoderFactory;
 import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.executor.data.block.Block;
 import org.apache.nemo.runtime.executor.data.block.FileBlock;
 import org.apache.nemo.runtime.executor.data.block.NonSerializedMemoryBlock;
 import org.apache.nemo.runtime.executor.data.block.SerializedMemoryBlock;
 import org.apache.nemo.runtime.executor.data.metadata.LocalFileMetadata;
+import org.apache.nemo.runtime.executor.data.metadata.PartitionMetadata;
 import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
 import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 import org.apache.commons.io.FileUtils;
+import org.apache.reef.tang.Tang;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
  * Tests write and read for {@link Block}s.
  */
 public final class BlockTest {
+  private static final int LARGE_PARTITION_NUM_ELEMENTS = 1 << 19;
   private Serializer serializer;
+  private DirectBufferPool bufferPool;
   private Map<Integer, List<Integer>> testData;
 
   /**
@@ -46,6 +58,7 @@ public final class BlockTest {
   @Before
   public void setUp() throws Exception {
     serializer = new Serializer<>(IntEncoderFactory.of(), IntDecoderFactory.of(), new ArrayList<>(), new ArrayList<>());
+    bufferPool = Tang.Factory.getTang().newInjector().getInstance(DirectBufferPool.class);
     testData = new HashMap<>();
 
     final List<Integer> list1 = Collections.singletonList(1);
@@ -71,10 +84,25 @@ public final class BlockTest {
    */
   @Test(timeout = 10000)
   public void testSerializedMemoryBlock() throws Exception {
-    final Block<Integer> block = new SerializedMemoryBlock<>("testBlock", serializer);
+    final Block<Integer> block = new SerializedMemoryBlock<>("testBlock", serializer, bufferPool);
     testBlock(block);
   }
 
+  /**
+   * Test {@link SerializedMemoryBlock} whose buffers fall back to the heap, because no off-heap memory is allowed.
+   */
+  @Test(timeout = 10000)
+  public void testSerializedMemoryBlockWithoutOffHeapMemory() throws Exception {
+    final DirectBufferPool heapOnlyBufferPool = Tang.Factory.getTang().newInjector(
+        Tang.Factory.getTang().newConfigurationBuilder()
+            .bindNamedParameter(JobConf.OffHeapCapacityMb.class, "0")
+            .build())
+        .getInstance(DirectBufferPool.class);
+    final Block<Integer> block = new SerializedMemoryBlock<>("testBlock", serializer, heapOnlyBufferPool);
+    testBlock(block);
+    Assert.assertEquals(0, heapOnlyBufferPool.getUsedDirectMemory());
+  }
+
   /**
    * Test {@link FileBlock}.
    */
@@ -85,13 +113,161 @@ public final class BlockTest {
     try {
       new File(tmpDir).mkdirs();
       final LocalFileMetadata<Integer> metadata = new LocalFileMetadata<>();
-      final Block<Integer> block = new FileBlock<>("testBlock", serializer, filePath, metadata);
+      final Block<Integer> block = new FileBlock<>("testBlock", serializer, bufferPool, filePath, metadata);
       testBlock(block);
     } finally {
       FileUtils.deleteDirectory(new File(tmpDir));
     }
   }
 
+  /**
+   * Test reading a specific key range from {@link FileBlock}, with a partition large enough to be memory-mapped.
+   */
+  @Test(timeout = 10000)
+  public void testFileBlockKeyRangeRead() throws Exception {
+    final String tmpDir = "./tmpFiles";
+    final String filePath = tmpDir + "/BlockTestFile";
+    try {
+      new File(tmpDir).mkdirs();
+      final LocalFileMetadata<Integer> metadata = new LocalFileMetadata<>();
+      final Block<Integer> block = new FileBlock<>("testBlock", serializer, bufferPool, filePath, metadata);
+      final List<Integer> largeData = new ArrayList<>();
+      for (int i = 0; i < LARGE_PARTITION_NUM_ELEMENTS; i++) {
+        largeData.add(i);
+      }
+      testData.put(0, largeData);
+      testData.forEach((key, partitionData) -> partitionData.forEach(element -> block.write(key, element)));
+      block.commit();
+
+      // Read the large partition only
+      final List<NonSerializedPartition<Integer>> largePartitions =
+          Lists.newArrayList(block.readPartitions(HashRange.of(0, 1, false)));
+      Assert.assertEquals(1, largePartitions.size());
+      Assert.assertEquals(largeData, Lists.newArrayList(largePartitions.get(0).getData()));
+
+      // Skip the large partition
+      final List<NonSerializedPartition<Integer>> smallPartitions =
+          Lists.newArrayList(block.readPartitions(HashRange.of(2, 4, false)));
+      Assert.assertEquals(2, smallPartitions.size());
+      for (final NonSerializedPartition<Integer> readPartition : smallPartitions) {
+        compare(testData.get(readPartition.getKey()), readPartition.getData());
+      }
+      final Iterable<NonSerializedPartition<Integer>> deserializedPartitions = DataUtil.convertToNonSerPartitions(
+          serializer, block.readSerializedPartitions(HashRange.of(2, 4, false)));
+      int count = 0;
+      for (final NonSerializedPartition<Integer> readPartition : deserializedPartitions) {
+        count++;
+        compare(testData.get(readPartition.getKey()), readPartition.getData());
+      }
+      Assert.assertEquals(2, count);
+
+      // Stream the elements of the large partition only
+      Assert.assertEquals(largeData, Lists.newArrayList(block.readElements(HashRange.of(0, 1, false))));
+    } finally {
+      FileUtils.deleteDirectory(new File(tmpDir));
+    }
+  }
+
+  /**
+   * Test that {@link FileBlock} reads each partition only when its elements are iterated.
+   */
+  @Test(timeout = 10000)
+  public void testFileBlockLazyRead() throws Exception {
+    final String tmpDir = "./tmpFiles";
+    final String filePath = tmpDir + "/BlockTestFile";
+    try {
+      new File(tmpDir).mkdirs();
+      final LocalFileMetadata<Integer> metadata = new LocalFileMetadata<>();
+      final Block<Integer> block = new FileBlock<>("testBlock", serializer, bufferPool, filePath, metadata);
+      testData.forEach((key, partitionData) -> partitionData.forEach(element -> block.write(key, element)));
+      block.commit();
+
+      final List<PartitionMetadata<Integer>> partitionMetadataList = metadata.getPartitionMetadataList();
+      final PartitionMetadata<Integer> lastPartition = partitionMetadataList.get(partitionMetadataList.size() - 1);
+      final int numElementsBeforeLastPartition = partitionMetadataList.stream()
+          .limit(partitionMetadataList.size() - 1)
+          .mapToInt(partitionMetadata -> testData.get(partitionMetadata.getKey()).size())
+          .sum();
+
+      final DataUtil.IteratorWithNumBytes<Integer> elements = block.readElements(HashRange.all());
+      final List<Integer> readElements = new ArrayList<>();
+      for (int i = 0; i < numElementsBeforeLastPartition; i++) {
+        readElements.add(elements.next());
+      }
+
+      // Overwrite the last partition, which has not been read yet, with negated elements.
+      final List<Integer> lastPartitionData = testData.get(lastPartition.getKey());
+      try (final RandomAccessFile file = new RandomAccessFile(filePath, "rw")) {
+        file.seek(lastPartition.getOffset());
+        for (final int element : lastPartitionData) {
+          file.writeInt(-element);
+        }
+      }
+      Lists.newArrayList(elements).forEach(readElements::add);
+
+      final List<Integer> expectedElements = new ArrayList<>();
+      partitionMetadataList.stream().limit(partitionMetadataList.size() - 1)
+          .forEach(partitionMetadata -> expectedElements.addAll(testData.get(partitionMetadata.getKey())));
+      lastPartitionData.forEach(element -> expectedElements.add(-element));
+      Assert.assertEquals(expectedElements, readElements);
+    } finally {
+      FileUtils.deleteDirectory(new File(tmpDir));
+    }
+  }
+
+  /**
+   * Test that the file of {@link FileBlock} is closed when the iterator of its elements is exhausted or closed.
+   */
+  @Test(timeout = 10000)
+  public void testFileBlockReadClosesFile() throws Exception {
+    final File openFiles = new File("/proc/self/fd");
+    Assume.assumeTrue(openFiles.isDirectory());
+    final String tmpDir = "./tmpFiles";
+    final String filePath = tmpDir + "/BlockTestFile";
+    try {
+      new File(tmpDir).mkdirs();
+      final LocalFileMetadata<Integer> metadata = new LocalFileMetadata<>();
+      final Block<Integer> block = new FileBlock<>("testBlock", serializer, bufferPool, filePath, metadata);
+      testData.forEach((key, partitionData) -> partitionData.forEach(element -> block.write(key, element)));
+      block.commit();
+      final Path path = Paths.get(filePath).toRealPath();
+
+      // Exhausted
+      final DataUtil.IteratorWithNumBytes<Integer> exhausted = block.readElements(HashRange.all());
+      Assert.assertEquals(1, countOpenFiles(openFiles, path));
+      Lists.newArrayList(exhausted);
+      Assert.assertEquals(0, countOpenFiles(openFiles, path));
+
+      // Closed in the middle of the iteration
+      final DataUtil.IteratorWithNumBytes<Integer> closed = block.readElements(HashRange.all());
+      closed.next();
+      Assert.assertEquals(1, countOpenFiles(openFiles, path));
+      closed.close();
+      Assert.assertEquals(0, countOpenFiles(openFiles, path));
+      Assert.assertFalse(closed.hasNext());
+    } finally {
+      FileUtils.deleteDirectory(new File(tmpDir));
+    }
+  }
+
+  /**
+   * @param openFiles the directory of the file descriptors of this process.
+   * @param path      the path of the file.
+   * @return the number of the file descriptors of this process which refer to the file.
+   */
+  private static long countOpenFiles(final File openFiles, final Path path) throws IOException {
+    long count = 0;
+    for (final File fd : openFiles.listFiles()) {
+      try {
+        if (path.equals(Files.readSymbolicLink(fd.toPath()))) {
+          count++;
+        }
+      } catch (final IOException e) {
+        // The file descriptor has been closed while listing.
+      }
+    }
+    return count;
+  }
 
   /**
    * Tests write to & read from a block.
@@ -118,6 +294,13 @@ public final class BlockTest {
       compare(expectedData, readData);
     }
     Assert.assertEquals(count, testData.size() * 2);
+
+    // Stream the elements without reading partitions
+    final List<Integer> expectedElements = new ArrayList<>();
+    testData.values().forEach(expectedElements::addAll);
+    testData.values().forEach(expectedElements::addAll);
+    final DataUtil.IteratorWithNumBytes<Integer> elements = block.readElements(HashRange.all());
+    compare(expectedElements, Lists.newArrayList(elements));
   }
 
   /**
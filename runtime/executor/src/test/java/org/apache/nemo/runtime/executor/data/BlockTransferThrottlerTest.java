@@ -22,24 +22,33 @@ import org.apache.reef.tang.Tang;
 import org.apache.reef.tang.exceptions.InjectionException;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public final class BlockTransferThrottlerTest {
-  private static final String THREAD_NAME = BlockTransferThrottler.class.getSimpleName() + "-TestThread";
   private static final String RUNTIME_EDGE_0 = "RuntimeEdge0";
-  private static final int WAIT_TIME = 1000;
+  private static final String RUNTIME_EDGE_1 = "RuntimeEdge1";
+  private static final long BLOCK_SIZE = 1000;
+  // The download rate of a single connection, in bytes per nanosecond.
+  private static final double CONNECTION_RATE = 1;
+
   /**
    * Creates {@link BlockTransferThrottler} for testing.
    * @param maxNum value for {@link JobConf.MaxNumDownloadsForARuntimeEdge} parameter.
+   * @param maxBytes value for {@link JobConf.MaxBytesInFlightForDownloads} parameter.
    * @return {@link BlockTransferThrottler} object created.
    */
-  private final BlockTransferThrottler getQueue(final int maxNum) {
+  private BlockTransferThrottler getQueue(final int maxNum, final long maxBytes) {
     final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
         .bindNamedParameter(JobConf.MaxNumDownloadsForARuntimeEdge.class, String.valueOf(maxNum))
+        .bindNamedParameter(JobConf.MaxBytesInFlightForDownloads.class, String.valueOf(maxBytes))
         .build();
     final Injector injector = Tang.Factory.getTang().newInjector(conf);
     try {
@@ -49,26 +58,139 @@ public final class BlockTransferThrottlerTest {
     }
   }
 
-  @Test(timeout = WAIT_TIME * 2)
+  @Test
   public void test() throws InterruptedException, ExecutionException {
-    final ExecutorService executorService = Executors.newSingleThreadExecutor(
-        runnable -> new Thread(runnable, THREAD_NAME));
-    final BlockTransferThrottler queue = getQueue(3);
-    final Future executorServiceFuture = executorService.submit(() -> {
-      try {
-        queue.requestTransferPermission(RUNTIME_EDGE_0).get();
-        queue.requestTransferPermission(RUNTIME_EDGE_0).get();
-        queue.requestTransferPermission(RUNTIME_EDGE_0).get();
-        queue.requestTransferPermission(RUNTIME_EDGE_0).get();
-      } catch (final InterruptedException | ExecutionException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    Thread.sleep(WAIT_TIME);
+    final BlockTransferThrottler queue = getQueue(3, Long.MAX_VALUE);
+    final BlockTransferThrottler.Transfer first = queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).get();
+    assertTrue(queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).isDone());
+    assertTrue(queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).isDone());
     // We must have one pending connection request.
-    assertFalse(executorServiceFuture.isDone());
-    queue.onTransferFinished(RUNTIME_EDGE_0);
-    // The remaining request should be accepted before test timeout.
-    executorServiceFuture.get();
+    final CompletableFuture<BlockTransferThrottler.Transfer> pending =
+        queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE);
+    assertFalse(pending.isDone());
+    queue.onTransferFinished(first);
+    // The remaining request should be accepted.
+    assertTrue(pending.isDone());
+  }
+
+  @Test
+  public void testWindowStopsGrowingAtSaturation() {
+    final AtomicLong clock = new AtomicLong();
+    final BlockTransferThrottler queue = new BlockTransferThrottler(2, Long.MAX_VALUE, clock::get);
+    // The link saturates at eight connections, while the window could grow up to sixteen.
+    final List<Integer> windows = runRounds(queue, clock, 8 * CONNECTION_RATE, 40);
+    for (final int window : windows.subList(20, 40)) {
+      assertTrue("Window " + window, window >= 6 && window <= 10);
+    }
+  }
+
+  @Test
+  public void testWindowShrinksWhenSaturated() {
+    final AtomicLong clock = new AtomicLong();
+    final BlockTransferThrottler queue = new BlockTransferThrottler(2, Long.MAX_VALUE, clock::get);
+    // The window grows while the goodput scales with it.
+    runRounds(queue, clock, Double.MAX_VALUE, 20);
+    assertEquals(16, queue.getWindow(RUNTIME_EDGE_0));
+
+    // Then the link saturates at six connections, by e.g. a concurrent job.
+    final List<Integer> windows = runRounds(queue, clock, 6 * CONNECTION_RATE, 40);
+    for (final int window : windows.subList(20, 40)) {
+      assertTrue("Window " + window, window >= 4 && window <= 8);
+    }
+  }
+
+  @Test
+  public void testMultiplicativeDecreaseOnFailure() throws InterruptedException, ExecutionException {
+    final AtomicLong clock = new AtomicLong();
+    final BlockTransferThrottler queue = new BlockTransferThrottler(2, Long.MAX_VALUE, clock::get);
+    runRounds(queue, clock, Double.MAX_VALUE, 2);
+    assertEquals(4, queue.getWindow(RUNTIME_EDGE_0));
+
+    queue.onTransferFailed(queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).get());
+    assertEquals(2, queue.getWindow(RUNTIME_EDGE_0));
+    queue.onTransferFailed(queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).get());
+    queue.onTransferFailed(queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).get());
+    assertEquals(1, queue.getWindow(RUNTIME_EDGE_0));
+  }
+
+  @Test
+  public void testBytesInFlightBudget() throws InterruptedException, ExecutionException {
+    final BlockTransferThrottler queue = getQueue(5, 1000);
+    // Only one large block fits in the budget, while small blocks still fan out.
+    final BlockTransferThrottler.Transfer large = queue.requestTransferPermission(RUNTIME_EDGE_0, 600).get();
+    final CompletableFuture<BlockTransferThrottler.Transfer> pendingLarge =
+        queue.requestTransferPermission(RUNTIME_EDGE_0, 600);
+    assertFalse(pendingLarge.isDone());
+    for (int i = 0; i < 5; i++) {
+      assertTrue(queue.requestTransferPermission(RUNTIME_EDGE_1, 10).isDone());
+    }
+
+    // The pending large block is granted when the budget is freed.
+    queue.onTransferFinished(large, 600);
+    assertTrue(pendingLarge.isDone());
+  }
+
+  @Test
+  public void testBytesInFlightBudgetOfUnknownSizes() {
+    final BlockTransferThrottler queue = getQueue(4, 1000);
+    // Downloads of unknown sizes on a new edge reserve a share of the budget, so they cannot exceed it.
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.requestTransferPermission(RUNTIME_EDGE_0, BlockTransferThrottler.UNKNOWN_SIZE).isDone());
+    }
+    assertFalse(queue.requestTransferPermission(RUNTIME_EDGE_1, BlockTransferThrottler.UNKNOWN_SIZE).isDone());
+  }
+
+  @Test
+  public void testReleaseOwnReservation() throws InterruptedException, ExecutionException {
+    final BlockTransferThrottler queue = getQueue(5, 1000);
+    queue.requestTransferPermission(RUNTIME_EDGE_0, 100).get();
+    final BlockTransferThrottler.Transfer large = queue.requestTransferPermission(RUNTIME_EDGE_1, 800).get();
+    // Finishing the large download frees its own bytes, not the ones of the earlier small download.
+    queue.onTransferFinished(large, 800);
+    assertTrue(queue.requestTransferPermission(RUNTIME_EDGE_1, 800).isDone());
+  }
+
+  @Test
+  public void testGrantOutsideLock() throws InterruptedException, ExecutionException {
+    final BlockTransferThrottler queue = getQueue(1, Long.MAX_VALUE);
+    final BlockTransferThrottler.Transfer first = queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).get();
+    final AtomicBoolean holdsLock = new AtomicBoolean(true);
+    // The connection setup chained on a grant must not run in the monitor of the throttler.
+    final CompletableFuture<Void> setup = queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE)
+        .thenRun(() -> holdsLock.set(Thread.holdsLock(queue)));
+    queue.onTransferFinished(first, BLOCK_SIZE);
+    assertTrue(setup.isDone());
+    assertFalse(holdsLock.get());
+  }
+
+  /**
+   * Downloads the blocks of {@link #RUNTIME_EDGE_0} in rounds of a window of parallel downloads,
+   * over a link of the given capacity.
+   * @param queue      the throttler.
+   * @param clock      the clock of the throttler, advanced by the time of each round.
+   * @param capacity   the capacity of the link, in bytes per nanosecond.
+   * @param numRounds  the number of rounds.
+   * @return the window of each round.
+   */
+  private static List<Integer> runRounds(final BlockTransferThrottler queue,
+                                            final AtomicLong clock,
+                                            final double capacity,
+                                            final int numRounds) {
+    final List<Integer> windows = new ArrayList<>(numRounds);
+    try {
+      for (int round = 0; round < numRounds; round++) {
+        final int window = queue.getWindow(RUNTIME_EDGE_0);
+        windows.add(window);
+        final List<BlockTransferThrottler.Transfer> transfers = new ArrayList<>(window);
+        for (int i = 0; i < window; i++) {
+          transfers.add(queue.requestTransferPermission(RUNTIME_EDGE_0, BLOCK_SIZE).get());
+        }
+        clock.addAndGet((long) Math.ceil(window * BLOCK_SIZE / Math.min(capacity, window * CONNECTION_RATE)));
+        transfers.forEach(transfer -> queue.onTransferFinished(transfer, BLOCK_SIZE));
+      }
+    } catch (final InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+    return windows;
   }
 }
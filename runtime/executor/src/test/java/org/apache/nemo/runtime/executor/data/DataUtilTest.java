@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.apache.nemo.common.exception.BlockFetchException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link DataUtil}.
+ */
+public final class DataUtilTest {
+
+  @Test(timeout = 10000)
+  public void testFutureConcatIteratorFollowsCompletionOrder() {
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> first = new CompletableFuture<>();
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> second = new CompletableFuture<>();
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> third = new CompletableFuture<>();
+    final DataUtil.FutureConcatIterator<Integer> iterator =
+        new DataUtil.FutureConcatIterator<>(Arrays.asList(first, second, third));
+
+    // Complete the futures in the reverse order of the list.
+    third.complete(iteratorOf(5, 6));
+    second.complete(iteratorOf(3, 4));
+    first.complete(iteratorOf(1, 2));
+
+    final List<Integer> read = new ArrayList<>();
+    iterator.forEachRemaining(read::add);
+    assertEquals(Arrays.asList(5, 6, 3, 4, 1, 2), read);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test(timeout = 10000)
+  public void testFutureConcatIteratorPullsLazily() {
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> first = new CompletableFuture<>();
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> second = new CompletableFuture<>();
+    final DataUtil.FutureConcatIterator<Integer> iterator =
+        new DataUtil.FutureConcatIterator<>(Arrays.asList(first, second));
+
+    // The elements of a completed future are available before the other future completes.
+    first.complete(iteratorOf(1));
+    assertTrue(iterator.hasNext());
+    assertEquals(1, (int) iterator.next());
+
+    second.complete(iteratorOf(2));
+    assertTrue(iterator.hasNext());
+    assertEquals(2, (int) iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test(timeout = 10000)
+  public void testFutureConcatIteratorPassesThroughFailure() {
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> succeeded = new CompletableFuture<>();
+    final CompletableFuture<DataUtil.IteratorWithNumBytes<Integer>> failed = new CompletableFuture<>();
+    final DataUtil.FutureConcatIterator<Integer> iterator =
+        new DataUtil.FutureConcatIterator<>(Arrays.asList(succeeded, failed));
+
+    succeeded.complete(iteratorOf(1));
+    final IllegalStateException cause = new IllegalStateException("fetch failed");
+    failed.completeExceptionally(cause);
+
+    assertEquals(1, (int) iterator.next());
+    try {
+      iterator.hasNext();
+      fail("The failure of the future should be thrown");
+    } catch (final BlockFetchException e) {
+      assertSame(cause, e.getCause());
+    }
+  }
+
+  private static DataUtil.IteratorWithNumBytes<Integer> iteratorOf(final Integer... elements) {
+    return DataUtil.IteratorWithNumBytes.of(Arrays.asList(elements).iterator());
+  }
+}
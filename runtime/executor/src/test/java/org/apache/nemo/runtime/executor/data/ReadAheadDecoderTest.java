@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+import org.apache.reef.tang.Configuration;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ReadAheadDecoder}.
+ */
+public final class ReadAheadDecoderTest {
+  private static final Serializer<Integer, Integer> SERIALIZER = new Serializer<>(
+      IntEncoderFactory.of(), IntDecoderFactory.of(), Collections.emptyList(), Collections.emptyList());
+  private static final int NUM_STREAMS = 5;
+  private static final int NUM_ELEMENTS_PER_STREAM = 1000;
+
+  /**
+   * Creates {@link ReadAheadDecoder} for testing.
+   * @param batchSize value for {@link JobConf.ReadAheadBatchSize} parameter.
+   * @return {@link ReadAheadDecoder} object created.
+   */
+  private ReadAheadDecoder getDecoder(final int batchSize) {
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(JobConf.ReadAheadDecodeThreads.class, "1")
+        .bindNamedParameter(JobConf.ReadAheadBatchSize.class, String.valueOf(batchSize))
+        .build();
+    final Injector injector = Tang.Factory.getTang().newInjector(conf);
+    try {
+      return injector.getInstance(ReadAheadDecoder.class);
+    } catch (final InjectionException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testReadAhead() throws Exception {
+    final List<Integer> expected = IntStream.range(0, NUM_STREAMS * NUM_ELEMENTS_PER_STREAM)
+        .boxed().collect(Collectors.toList());
+    final List<InputStream> streams = new ArrayList<>();
+    long expectedBytes = 0;
+    for (int i = 0; i < NUM_STREAMS; i++) {
+      final byte[] bytes = encode(expected.subList(i * NUM_ELEMENTS_PER_STREAM, (i + 1) * NUM_ELEMENTS_PER_STREAM));
+      expectedBytes += bytes.length;
+      streams.add(new ByteArrayInputStream(bytes));
+    }
+
+    // The batch size does not divide the number of elements, and the depth is far less than the number of batches.
+    final ReadAheadDecoder decoder = getDecoder(7);
+    final DataUtil.IteratorWithNumBytes<Integer> iterator = decoder.readAhead(
+        new DataUtil.InputStreamIterator<>(streams.iterator(), SERIALIZER), 2, decoder.newTaskBudget());
+    final List<Integer> read = new ArrayList<>();
+    iterator.forEachRemaining(read::add);
+    decoder.close();
+
+    assertEquals(expected, read);
+    assertEquals(expectedBytes, iterator.getNumSerializedBytes());
+    assertEquals(expectedBytes, iterator.getNumEncodedBytes());
+  }
+
+  @Test
+  public void testNonStreamIterator() {
+    final DataUtil.IteratorWithNumBytes<Integer> iterator =
+        DataUtil.IteratorWithNumBytes.of(Collections.singletonList(1).iterator());
+    final ReadAheadDecoder decoder = getDecoder(7);
+    assertSame(iterator, decoder.readAhead(iterator, 2, decoder.newTaskBudget()));
+    decoder.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testCloseStopsDecodeThreads() throws Exception {
+    final byte[] bytes = encode(IntStream.range(0, NUM_ELEMENTS_PER_STREAM).boxed().collect(Collectors.toList()));
+    final Set<Thread> readingThreads = ConcurrentHashMap.newKeySet();
+    final InputStream stream = new ThreadRecordingInputStream(bytes, readingThreads);
+
+    final ReadAheadDecoder decoder = getDecoder(7);
+    final DataUtil.IteratorWithNumBytes<Integer> iterator = decoder.readAhead(
+        new DataUtil.InputStreamIterator<>(Collections.singletonList(stream).iterator(), SERIALIZER), 2,
+        decoder.newTaskBudget());
+    int numRead = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      numRead++;
+    }
+    assertEquals(NUM_ELEMENTS_PER_STREAM, numRead);
+
+    decoder.close();
+    // The consumer may have decoded some batches by itself, but not all.
+    readingThreads.remove(Thread.currentThread());
+    assertFalse(readingThreads.isEmpty());
+    for (final Thread thread : readingThreads) {
+      thread.join();
+      assertFalse(thread.isAlive());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testDecodeAfterDataArrival() throws Exception {
+    final byte[] bytes = encode(IntStream.range(0, NUM_ELEMENTS_PER_STREAM).boxed().collect(Collectors.toList()));
+    final Set<Thread> readingThreads = ConcurrentHashMap.newKeySet();
+    final InputStream stream = new ThreadRecordingInputStream(bytes, readingThreads);
+    final CompletableFuture<Void> dataArrival = new CompletableFuture<>();
+
+    final ReadAheadDecoder decoder = getDecoder(7);
+    final DataUtil.IteratorWithNumBytes<Integer> iterator = decoder.readAhead(new DataUtil.InputStreamIterator<>(
+        Collections.singletonList(stream).iterator(), SERIALIZER, dataArrival), 2, decoder.newTaskBudget());
+
+    // No decode thread waits for the data to arrive, and the consumer decodes by itself meanwhile.
+    Thread.sleep(100);
+    assertTrue(readingThreads.isEmpty());
+    assertEquals(0, (int) iterator.next());
+    assertEquals(Collections.singleton(Thread.currentThread()), readingThreads);
+
+    // The decode threads decode the rest once the data has arrived.
+    dataArrival.complete(null);
+    int expected = 1;
+    while (iterator.hasNext()) {
+      assertEquals(expected++, (int) iterator.next());
+    }
+    assertEquals(NUM_ELEMENTS_PER_STREAM, expected);
+    readingThreads.remove(Thread.currentThread());
+    assertFalse(readingThreads.isEmpty());
+    decoder.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testTaskBudget() throws Exception {
+    final ReadAheadDecoder decoder = getDecoder(7);
+    final ReadAheadDecoder.TaskBudget taskBudget = new ReadAheadDecoder.TaskBudget(2);
+    final List<DataUtil.IteratorWithNumBytes<Integer>> iterators = new ArrayList<>();
+    for (int i = 0; i < NUM_STREAMS; i++) {
+      final InputStream stream = new ByteArrayInputStream(encode(Collections.nCopies(NUM_ELEMENTS_PER_STREAM, i)));
+      iterators.add(decoder.readAhead(
+          new DataUtil.InputStreamIterator<>(Collections.singletonList(stream).iterator(), SERIALIZER), 4, taskBudget));
+    }
+
+    // The blocks of a task buffer no more batches than its budget in total, even though each could buffer more.
+    while (taskBudget.getNumBatches() < 2) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(100);
+    assertEquals(2, taskBudget.getNumBatches());
+
+    // All the blocks are read in full, the ones beyond the budget by the consumer.
+    for (int i = 0; i < NUM_STREAMS; i++) {
+      final List<Integer> read = new ArrayList<>();
+      iterators.get(i).forEachRemaining(read::add);
+      assertEquals(Collections.nCopies(NUM_ELEMENTS_PER_STREAM, i), read);
+    }
+    assertEquals(0, taskBudget.getNumBatches());
+    decoder.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testCloseClosesInnerIterator() throws Exception {
+    final CountDownLatch innerIteratorClosed = new CountDownLatch(1);
+    final List<InputStream> streams = new ArrayList<>();
+    for (int i = 0; i < NUM_STREAMS; i++) {
+      streams.add(new ByteArrayInputStream(encode(Collections.nCopies(NUM_ELEMENTS_PER_STREAM, i))));
+    }
+    final ClosingStreamIterator inputStreams = new ClosingStreamIterator(streams.iterator(), innerIteratorClosed);
+
+    final ReadAheadDecoder decoder = getDecoder(7);
+    final DataUtil.IteratorWithNumBytes<Integer> iterator =
+        decoder.readAhead(new DataUtil.InputStreamIterator<>(inputStreams, SERIALIZER), 2, decoder.newTaskBudget());
+    assertEquals(0, (int) iterator.next());
+    iterator.close();
+    assertFalse(iterator.hasNext());
+    // The inner iterator is closed by this thread, or by the decode thread once its job stops.
+    innerIteratorClosed.await();
+    decoder.close();
+  }
+
+  /**
+   * A stream which records the threads reading it.
+   */
+  private static final class ThreadRecordingInputStream extends ByteArrayInputStream {
+    private final Set<Thread> readingThreads;
+
+    ThreadRecordingInputStream(final byte[] bytes, final Set<Thread> readingThreads) {
+      super(bytes);
+      this.readingThreads = readingThreads;
+    }
+
+    @Override
+    public synchronized int read() {
+      readingThreads.add(Thread.currentThread());
+      return super.read();
+    }
+
+    @Override
+    public synchronized int read(final byte[] b, final int off, final int len) {
+      readingThreads.add(Thread.currentThread());
+      return super.read(b, off, len);
+    }
+  }
+
+  /**
+   * An iterator of streams which counts down a latch when closed.
+   */
+  private static final class ClosingStreamIterator implements Iterator<InputStream>, Closeable {
+    private final Iterator<InputStream> streams;
+    private final CountDownLatch closed;
+
+    ClosingStreamIterator(final Iterator<InputStream> streams, final CountDownLatch closed) {
+      this.streams = streams;
+      this.closed = closed;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return streams.hasNext();
+    }
+
+    @Override
+    public InputStream next() {
+      return streams.next();
+    }
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+  }
+
+  private byte[] encode(final List<Integer> elements) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    final EncoderFactory.Encoder<Integer> encoder = IntEncoderFactory.of().create(outputStream);
+    for (final Integer element : elements) {
+      encoder.encode(element);
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.executor.data.partition;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.CompressionProperty;
+import org.apache.nemo.runtime.executor.data.DirectBufferPool;
+import org.apache.nemo.runtime.executor.data.streamchainer.CompressionStreamChainer;
+import org.apache.nemo.runtime.executor.data.streamchainer.EncodeStreamChainer;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that {@link SerializedPartition} returns every pooled buffer it allocates.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(DirectBufferPool.class)
+public final class SerializedPartitionTest {
+  // Enough to fill multiple chunks of the partition.
+  private static final int NUM_ELEMENTS = 100_000;
+
+  private ResourceLeakDetector.Level originalLevel;
+  private PooledByteBufAllocator allocator;
+  private List<ByteBuf> allocatedBuffers;
+  private DirectBufferPool bufferPool;
+
+  @Before
+  public void setUp() {
+    originalLevel = ResourceLeakDetector.getLevel();
+    // Tracks every pooled buffer, so that a leaked buffer is reported as well as detected by the assertions below.
+    ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    allocator = new PooledByteBufAllocator(true);
+    allocatedBuffers = new ArrayList<>();
+    bufferPool = mock(DirectBufferPool.class);
+    when(bufferPool.allocate(anyInt())).thenAnswer(invocation -> {
+      final int capacity = (int) invocation.getArguments()[0];
+      final ByteBuf buffer = allocator.directBuffer(capacity, capacity);
+      allocatedBuffers.add(buffer);
+      return buffer;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    ResourceLeakDetector.setLevel(originalLevel);
+  }
+
+  @Test
+  public void testReleaseCommittedPartition() throws IOException {
+    final SerializedPartition<Integer> partition = writePartition(serializer(Collections.emptyList()));
+    partition.commit();
+    assertEquals(NUM_ELEMENTS * Integer.BYTES, partition.getLength());
+    partition.release();
+    assertAllReleased();
+  }
+
+  @Test
+  public void testReleaseAbortedPartition() throws IOException {
+    final SerializedPartition<Integer> partition = writePartition(serializer(Collections.emptyList()));
+    partition.release();
+    assertAllReleased();
+    // Releasing again must not touch the returned buffers.
+    partition.release();
+  }
+
+  @Test
+  public void testReleaseAbortedCompressedPartition() throws IOException {
+    final SerializedPartition<Integer> partition = writePartition(
+        serializer(Collections.singletonList(new CompressionStreamChainer(CompressionProperty.Value.LZ4))));
+    partition.release();
+    assertAllReleased();
+  }
+
+  @Test
+  public void testReleaseAbortedPartitionWhoseStreamFailsToClose() throws IOException {
+    final EncodeStreamChainer failingChainer = out -> new FilterOutputStream(out) {
+      @Override
+      public void close() throws IOException {
+        throw new IOException("Failed to close");
+      }
+    };
+    final SerializedPartition<Integer> partition = writePartition(
+        serializer(Collections.singletonList(failingChainer)));
+    partition.release();
+    assertAllReleased();
+  }
+
+  private SerializedPartition<Integer> writePartition(final Serializer<Integer, Integer> serializer)
+      throws IOException {
+    final SerializedPartition<Integer> partition = new SerializedPartition<>(0, serializer, bufferPool);
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      partition.write(i);
+    }
+    return partition;
+  }
+
+  private static Serializer<Integer, Integer> serializer(final List<EncodeStreamChainer> encodeStreamChainers) {
+    return new Serializer<>(IntEncoderFactory.of(), IntDecoderFactory.of(), encodeStreamChainers,
+        Collections.emptyList());
+  }
+
+  private void assertAllReleased() {
+    assertFalse(allocatedBuffers.isEmpty());
+    for (final ByteBuf buffer : allocatedBuffers) {
+      assertEquals(0, buffer.refCnt());
+    }
+  }
+}
@@ -116,6 +116,7 @@ public final class DataTransferTest {
   private DataTransferFactory transferFactory;
   private BlockManagerWorker worker2;
   private HashMap<BlockManagerWorker, SerializerManager> serializerManagers = new HashMap<>();
+  private HashMap<BlockManagerWorker, DataTransferFactory> transferFactories = new HashMap<>();
 
   @Before
   public void setUp() throws InjectionException {
@@ -183,6 +184,7 @@ public final class DataTransferTest {
       serializerManager = injector.getInstance(SerializerManager.class);
       serializerManagers.put(blockManagerWorker, serializerManager);
       dataTransferFactory = injector.getInstance(DataTransferFactory.class);
+      transferFactories.put(blockManagerWorker, dataTransferFactory);
     } catch (final InjectionException e) {
       throw new RuntimeException(e);
     }
@@ -343,7 +345,7 @@ public final class DataTransferTest {
     final List<List> dataReadList = new ArrayList<>();
     IntStream.range(0, PARALLELISM_TEN).forEach(dstTaskIndex -> {
       final InputReader reader =
-          new InputReader(dstTaskIndex, srcVertex, dummyEdge, receiver);
+          transferFactories.get(receiver).createReader(dstTaskIndex, srcVertex, dummyEdge);
 
       assertEquals(PARALLELISM_TEN, reader.getSourceParallelism());
 
@@ -441,9 +443,9 @@ public final class DataTransferTest {
     final List<List> dataReadList2 = new ArrayList<>();
     IntStream.range(0, PARALLELISM_TEN).forEach(dstTaskIndex -> {
       final InputReader reader =
-          new InputReader(dstTaskIndex, srcVertex, dummyEdge, receiver);
+          transferFactories.get(receiver).createReader(dstTaskIndex, srcVertex, dummyEdge);
       final InputReader reader2 =
-          new InputReader(dstTaskIndex, srcVertex, dummyEdge2, receiver);
+          transferFactories.get(receiver).createReader(dstTaskIndex, srcVertex, dummyEdge2);
 
       assertEquals(PARALLELISM_TEN, reader.getSourceParallelism());
 
@@ -16,6 +16,7 @@
 package org.apache.nemo.runtime.executor.task;
 
 import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.runtime.common.metric.VertexExecutionMetric;
 import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.datatransfer.InputReader;
 import org.junit.Test;
@@ -115,10 +116,12 @@ public final class ParentTaskDataFetcherTest {
   }
 
   private ParentTaskDataFetcher createFetcher(final InputReader readerForParentTask) {
+    final VertexHarness child = mock(VertexHarness.class);
+    when(child.getMetric()).thenReturn(new VertexExecutionMetric("child"));
     return new ParentTaskDataFetcher(
         mock(IRVertex.class),
         readerForParentTask, // This is the only argument that affects the behavior of ParentTaskDataFetcher
-        mock(VertexHarness.class));
+        child);
   }
 
   private InputReader generateInputReader(final CompletableFuture completableFuture) {
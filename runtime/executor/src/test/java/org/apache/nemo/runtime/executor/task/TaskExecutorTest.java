@@ -34,10 +34,12 @@ import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.nemo.runtime.common.metric.VertexExecutionMetric;
 import org.apache.nemo.runtime.common.plan.Stage;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.common.plan.RuntimeEdge;
+import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.nemo.runtime.executor.MetricMessageSender;
 import org.apache.nemo.runtime.executor.TaskStateManager;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
@@ -45,13 +47,16 @@ import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.datatransfer.DataTransferFactory;
 import org.apache.nemo.runtime.executor.datatransfer.InputReader;
 import org.apache.nemo.runtime.executor.datatransfer.OutputWriter;
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.modules.junit4.PowerMockRunnerDelegate;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -61,6 +66,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -68,9 +74,10 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 /**
- * Tests {@link TaskExecutor}.
+ * Tests {@link TaskExecutor}, both in the element-wise and the batch execution modes.
  */
 @RunWith(PowerMockRunner.class)
+@PowerMockRunnerDelegate(Parameterized.class)
 @PrepareForTest({InputReader.class, OutputWriter.class, DataTransferFactory.class, BroadcastManagerWorker.class,
     TaskStateManager.class, StageEdge.class, PersistentConnectionToMasterMap.class, Stage.class, IREdge.class})
 public final class TaskExecutorTest {
@@ -89,6 +96,22 @@ public final class TaskExecutorTest {
   private MetricMessageSender metricMessageSender;
   private PersistentConnectionToMasterMap persistentConnectionToMasterMap;
   private AtomicInteger stageId;
+  private final int batchSize;
+  private List<ClosingIterator> parentTaskIterators;
+
+  /**
+   * The batch size of 16 does not divide the number of input elements, so that partially filled batches are
+   * also tested.
+   * @return the batch sizes to test with.
+   */
+  @Parameterized.Parameters(name = "batchSize={0}")
+  public static Collection<Object[]> batchSizes() {
+    return Arrays.asList(new Object[][]{{1}, {16}});
+  }
+
+  public TaskExecutorTest(final int batchSize) {
+    this.batchSize = batchSize;
+  }
 
   private String generateTaskId() {
     return RuntimeIdManager.generateTaskId(
@@ -99,6 +122,7 @@ public final class TaskExecutorTest {
   public void setUp() throws Exception {
     elements = getRangedNumList(0, DATA_SIZE);
     stageId = new AtomicInteger(1);
+    parentTaskIterators = new ArrayList<>();
 
     // Mock a TaskStateManager. It accumulates the state change into a list.
     taskStateManager = mock(TaskStateManager.class);
@@ -106,12 +130,12 @@ public final class TaskExecutorTest {
     // Mock a DataTransferFactory.
     runtimeEdgeToOutputData = new HashMap<>();
     dataTransferFactory = mock(DataTransferFactory.class);
-    when(dataTransferFactory.createReader(anyInt(), any(), any())).then(new ParentTaskReaderAnswer());
+    when(dataTransferFactory.createReader(anyInt(), any(), any(), any())).then(new ParentTaskReaderAnswer());
     when(dataTransferFactory.createWriter(any(), any(), any())).then(new ChildTaskWriterAnswer());
 
     // Mock a MetricMessageSender.
     metricMessageSender = mock(MetricMessageSender.class);
-    doNothing().when(metricMessageSender).send(anyString(), anyString(), anyString(), any());
+    doNothing().when(metricMessageSender).send(anyString(), anyString(), anyString(), any(byte[].class));
     doNothing().when(metricMessageSender).close();
 
     persistentConnectionToMasterMap = mock(PersistentConnectionToMasterMap.class);
@@ -337,6 +361,174 @@ public final class TaskExecutorTest {
     assertTrue(checkEqualElements(odd, bonusOutputs2));
   }
 
+  /**
+   * The DAG of the task to test looks like:
+   * parent vertex 1 --+-- vertex 2 (main tag) -----------> child task
+   *                   +-- vertex 3 (main tag) -----------> child task
+   *                   +-- vertex 4 (additional tag 1) ---> child task
+   *                   +-------------------------------------> child task (main tag)
+   *                   +-------------------------------------> child task (additional tag 2)
+   *
+   * Each element goes to exactly one of the tags, so that the fan-out through the routing tables of vertex 1
+   * can be checked for each of the intra-task children, the inter-task children, and the tags.
+   */
+  @Test(timeout = 5000)
+  public void testMultiTagFanOut() throws Exception {
+    final String intraTaskTag = "intra";
+    final String interTaskTag = "inter";
+    final IRVertex routerVertex = new OperatorVertex(new TagRoutingTransform(intraTaskTag, interTaskTag));
+    final IRVertex mainVertex1 = new OperatorVertex(new RelayTransform());
+    final IRVertex mainVertex2 = new OperatorVertex(new RelayTransform());
+    final IRVertex intraTaskTagVertex = new OperatorVertex(new RelayTransform());
+
+    final RuntimeEdge<IRVertex> intraTaskTagEdge = createEdge(routerVertex, intraTaskTagVertex, "edge-3");
+    intraTaskTagEdge.getExecutionProperties().put(AdditionalOutputTagProperty.of(intraTaskTag));
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+        .addVertex(routerVertex)
+        .addVertex(mainVertex1)
+        .addVertex(mainVertex2)
+        .addVertex(intraTaskTagVertex)
+        .connectVertices(createEdge(routerVertex, mainVertex1, "edge-1"))
+        .connectVertices(createEdge(routerVertex, mainVertex2, "edge-2"))
+        .connectVertices(intraTaskTagEdge)
+        .buildWithoutSourceSinkCheck();
+
+    final StageEdge mainOutEdge1 = mockStageEdgeFrom(mainVertex1);
+    final StageEdge mainOutEdge2 = mockStageEdgeFrom(mainVertex2);
+    final StageEdge intraTaskTagOutEdge = mockStageEdgeFrom(intraTaskTagVertex);
+    final StageEdge routerMainOutEdge = mockStageEdgeFrom(routerVertex);
+    final StageEdge interTaskTagOutEdge = mockStageEdgeFrom(routerVertex);
+    interTaskTagOutEdge.getExecutionProperties().put(AdditionalOutputTagProperty.of(interTaskTag));
+
+    final Task task = new Task(
+        "testMultiTagFanOut",
+        generateTaskId(),
+        TASK_EXECUTION_PROPERTY_MAP,
+        new byte[0],
+        Collections.singletonList(mockStageEdgeTo(routerVertex)),
+        Arrays.asList(mainOutEdge1, mainOutEdge2, intraTaskTagOutEdge, routerMainOutEdge, interTaskTagOutEdge),
+        Collections.emptyMap());
+
+    // Execute the task.
+    final TaskExecutor taskExecutor = getTaskExecutor(task, taskDag);
+    taskExecutor.execute();
+
+    // Check the output.
+    final List<Integer> mainElements = elements.stream().filter(i -> i % 3 == 0).collect(Collectors.toList());
+    final List<Integer> intraTaskTagElements = elements.stream().filter(i -> i % 3 == 1).collect(Collectors.toList());
+    final List<Integer> interTaskTagElements = elements.stream().filter(i -> i % 3 == 2).collect(Collectors.toList());
+    assertTrue(checkEqualElements(mainElements, runtimeEdgeToOutputData.get(mainOutEdge1.getId())));
+    assertTrue(checkEqualElements(mainElements, runtimeEdgeToOutputData.get(mainOutEdge2.getId())));
+    assertTrue(checkEqualElements(mainElements, runtimeEdgeToOutputData.get(routerMainOutEdge.getId())));
+    assertTrue(checkEqualElements(intraTaskTagElements,
+        runtimeEdgeToOutputData.get(intraTaskTagOutEdge.getId())));
+    assertTrue(checkEqualElements(interTaskTagElements,
+        runtimeEdgeToOutputData.get(interTaskTagOutEdge.getId())));
+  }
+
+  /**
+   * The DAG of the task to test looks like:
+   * parent task -> task (vertex 1 -> vertex 2) -> child task
+   *
+   * Vertex 1 buffers all elements and emits them when closed, and vertex 2 counts the elements it receives.
+   * The outputs emitted while closing have to be handed down to vertex 2 as they are emitted (in full batches
+   * in the batch mode), not after vertex 1 emits all of them.
+   */
+  @Test(timeout = 5000)
+  public void testOutputsEmittedOnClose() throws Exception {
+    final AtomicInteger numReceived = new AtomicInteger(0);
+    final AtomicInteger maxNumPending = new AtomicInteger(0);
+    final IRVertex bufferingVertex = new OperatorVertex(new EmitOnCloseTransform(numReceived, maxNumPending));
+    final IRVertex countingVertex = new OperatorVertex(new CountingTransform(numReceived));
+
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+        .addVertex(bufferingVertex)
+        .addVertex(countingVertex)
+        .connectVertices(createEdge(bufferingVertex, countingVertex, "edge"))
+        .buildWithoutSourceSinkCheck();
+
+    final StageEdge taskOutEdge = mockStageEdgeFrom(countingVertex);
+    final Task task = new Task(
+        "testOutputsEmittedOnClose",
+        generateTaskId(),
+        TASK_EXECUTION_PROPERTY_MAP,
+        new byte[0],
+        Collections.singletonList(mockStageEdgeTo(bufferingVertex)),
+        Collections.singletonList(taskOutEdge),
+        Collections.emptyMap());
+
+    // Execute the task.
+    final TaskExecutor taskExecutor = getTaskExecutor(task, taskDag);
+    taskExecutor.execute();
+
+    // Check the output.
+    assertTrue(checkEqualElements(elements, runtimeEdgeToOutputData.get(taskOutEdge.getId())));
+    assertEquals(DATA_SIZE, numReceived.get());
+    assertTrue(maxNumPending.get() <= batchSize);
+  }
+
+  /**
+   * The DAG of the task to test looks like:
+   * parent task -> task (vertex 1 -> vertex 2) -> child task
+   *
+   * Vertex 2 fails in the middle of the input, and the input data which are not read yet have to be released.
+   */
+  @Test(timeout = 5000)
+  public void testFetchersClosedOnTransformFailure() throws Exception {
+    final IRVertex relayVertex = new OperatorVertex(new RelayTransform());
+    final IRVertex failingVertex = new OperatorVertex(new FailingTransform(DATA_SIZE / 2));
+
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+        .addVertex(relayVertex)
+        .addVertex(failingVertex)
+        .connectVertices(createEdge(relayVertex, failingVertex, "edge"))
+        .buildWithoutSourceSinkCheck();
+
+    final Task task = new Task(
+        "testFetchersClosedOnTransformFailure",
+        generateTaskId(),
+        TASK_EXECUTION_PROPERTY_MAP,
+        new byte[0],
+        Collections.singletonList(mockStageEdgeTo(relayVertex)),
+        Collections.singletonList(mockStageEdgeFrom(failingVertex)),
+        Collections.emptyMap());
+
+    // Execute the task.
+    final TaskExecutor taskExecutor = getTaskExecutor(task, taskDag);
+    taskExecutor.execute();
+
+    // Check that the task failed, and that the iterators of the parent task which are not exhausted are closed.
+    verify(taskStateManager).onTaskStateChanged(eq(TaskState.State.FAILED), any(), any());
+    assertEquals(SOURCE_PARALLELISM, parentTaskIterators.size());
+    assertTrue(parentTaskIterators.stream().anyMatch(ClosingIterator::isClosed));
+    assertTrue(parentTaskIterators.stream().allMatch(iterator -> iterator.isClosed() || !iterator.hasNext()));
+  }
+
+  /**
+   * Test the per-vertex metrics sent after the execution, with the DAG of two operators used above.
+   */
+  @Test(timeout = 5000)
+  public void testVertexMetrics() throws Exception {
+    final List<VertexExecutionMetric> vertexMetrics = new ArrayList<>();
+    doAnswer(invocation -> {
+      vertexMetrics.addAll(SerializationUtils.deserialize((byte[]) invocation.getArgument(3)));
+      return null;
+    }).when(metricMessageSender).send(eq("TaskMetric"), anyString(), eq("vertexMetrics"), any(byte[].class));
+    testTwoOperators();
+
+    assertEquals(2, vertexMetrics.size());
+    for (final VertexExecutionMetric vertexMetric : vertexMetrics) {
+      assertEquals(DATA_SIZE, vertexMetric.getNumProcessedElements());
+      // Every element is timed, with the sampling interval of 1.
+      assertEquals(DATA_SIZE, vertexMetric.getTransformLatency().getCount());
+    }
+    // The first operator reads from the parent task, and the second one writes to the child task.
+    assertEquals(DATA_SIZE, vertexMetrics.get(0).getFetchLatency().getCount());
+    assertEquals(SOURCE_PARALLELISM, vertexMetrics.get(0).getFetchWaitLatency().getCount());
+    assertEquals(DATA_SIZE, vertexMetrics.get(1).getNumWrittenElements());
+    assertEquals(DATA_SIZE, vertexMetrics.get(1).getWriteLatency().getCount());
+  }
+
   private RuntimeEdge<IRVertex> createEdge(final IRVertex src,
                                            final IRVertex dst,
                                            final String runtimeIREdgeId) {
@@ -393,9 +585,10 @@ public final class TaskExecutorTest {
       final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> inputFutures = new ArrayList<>(SOURCE_PARALLELISM);
       final int elementsPerSource = DATA_SIZE / SOURCE_PARALLELISM;
       for (int i = 0; i < SOURCE_PARALLELISM; i++) {
-        inputFutures.add(CompletableFuture.completedFuture(
-            DataUtil.IteratorWithNumBytes.of(elements.subList(i * elementsPerSource, (i + 1) * elementsPerSource)
-                .iterator())));
+        final ClosingIterator iterator =
+            new ClosingIterator(elements.subList(i * elementsPerSource, (i + 1) * elementsPerSource).iterator());
+        parentTaskIterators.add(iterator);
+        inputFutures.add(CompletableFuture.completedFuture(iterator));
       }
       final InputReader inputReader = mock(InputReader.class);
       final IRVertex srcVertex = (IRVertex) invocationOnMock.getArgument(1);
@@ -406,6 +599,47 @@ public final class TaskExecutorTest {
     }
   }
 
+  /**
+   * An input iterator of a parent task, which records whether it is closed.
+   */
+  private static final class ClosingIterator implements DataUtil.IteratorWithNumBytes<Integer> {
+    private final Iterator<Integer> innerIterator;
+    private boolean closed = false;
+
+    private ClosingIterator(final Iterator<Integer> innerIterator) {
+      this.innerIterator = innerIterator;
+    }
+
+    @Override
+    public long getNumSerializedBytes() throws NumBytesNotSupportedException {
+      throw new NumBytesNotSupportedException();
+    }
+
+    @Override
+    public long getNumEncodedBytes() throws NumBytesNotSupportedException {
+      throw new NumBytesNotSupportedException();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return innerIterator.hasNext();
+    }
+
+    @Override
+    public Integer next() {
+      return innerIterator.next();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    private boolean isClosed() {
+      return closed;
+    }
+  }
+
   /**
    * Represents the answer return a {@link OutputWriter},
    * which will stores the data to the map between task id and output data.
@@ -453,6 +687,36 @@ public final class TaskExecutorTest {
     }
   }
 
+  /**
+   * Relays the elements, but fails on the given element.
+   */
+  private class FailingTransform implements Transform<Integer, Integer> {
+    private final int failingElement;
+    private OutputCollector<Integer> outputCollector;
+
+    FailingTransform(final int failingElement) {
+      this.failingElement = failingElement;
+    }
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Integer> outputCollector) {
+      this.outputCollector = outputCollector;
+    }
+
+    @Override
+    public void onData(final Integer element) {
+      if (element == failingElement) {
+        throw new RuntimeException("Failing on " + element);
+      }
+      outputCollector.emit(element);
+    }
+
+    @Override
+    public void close() {
+      // Do nothing.
+    }
+  }
+
   /**
    * Creates a view.
    * @param <T> input type.
@@ -540,6 +804,109 @@ public final class TaskExecutorTest {
     }
   }
 
+  /**
+   * Routes each element to either the main output or one of the given tags, by the element modulo 3.
+   */
+  private class TagRoutingTransform implements Transform<Integer, Integer> {
+    private final String firstTag;
+    private final String secondTag;
+    private OutputCollector<Integer> outputCollector;
+    private Map<String, String> tagToVertex;
+
+    TagRoutingTransform(final String firstTag, final String secondTag) {
+      this.firstTag = firstTag;
+      this.secondTag = secondTag;
+    }
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Integer> outputCollector) {
+      this.outputCollector = outputCollector;
+      this.tagToVertex = context.getTagToAdditionalChildren();
+    }
+
+    @Override
+    public void onData(final Integer element) {
+      switch (element % 3) {
+        case 0:
+          outputCollector.emit(element);
+          break;
+        case 1:
+          outputCollector.emit(tagToVertex.get(firstTag), element);
+          break;
+        default:
+          outputCollector.emit(tagToVertex.get(secondTag), element);
+      }
+    }
+
+    @Override
+    public void close() {
+      // Do nothing.
+    }
+  }
+
+  /**
+   * Buffers the elements, and emits them when closed.
+   * It records the maximum number of emitted elements that are not received by the next vertex yet.
+   */
+  private class EmitOnCloseTransform implements Transform<Integer, Integer> {
+    private final AtomicInteger numReceived;
+    private final AtomicInteger maxNumPending;
+    private final List<Integer> buffer;
+    private OutputCollector<Integer> outputCollector;
+
+    EmitOnCloseTransform(final AtomicInteger numReceived, final AtomicInteger maxNumPending) {
+      this.numReceived = numReceived;
+      this.maxNumPending = maxNumPending;
+      this.buffer = new ArrayList<>();
+    }
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Integer> outputCollector) {
+      this.outputCollector = outputCollector;
+    }
+
+    @Override
+    public void onData(final Integer element) {
+      buffer.add(element);
+    }
+
+    @Override
+    public void close() {
+      for (int i = 0; i < buffer.size(); i++) {
+        outputCollector.emit(buffer.get(i));
+        maxNumPending.accumulateAndGet(i + 1 - numReceived.get(), Math::max);
+      }
+    }
+  }
+
+  /**
+   * Counts and relays the elements.
+   */
+  private class CountingTransform implements Transform<Integer, Integer> {
+    private final AtomicInteger numReceived;
+    private OutputCollector<Integer> outputCollector;
+
+    CountingTransform(final AtomicInteger numReceived) {
+      this.numReceived = numReceived;
+    }
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Integer> outputCollector) {
+      this.outputCollector = outputCollector;
+    }
+
+    @Override
+    public void onData(final Integer element) {
+      numReceived.incrementAndGet();
+      outputCollector.emit(element);
+    }
+
+    @Override
+    public void close() {
+      // Do nothing.
+    }
+  }
+
   /**
    * Gets a list of integer pair elements in range.
    * @param start value of the range (inclusive).
@@ -554,6 +921,6 @@ public final class TaskExecutorTest {
 
   private TaskExecutor getTaskExecutor(final Task task, final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag) {
     return new TaskExecutor(task, taskDag, taskStateManager, dataTransferFactory, broadcastManagerWorker,
-      metricMessageSender, persistentConnectionToMasterMap);
+      metricMessageSender, persistentConnectionToMasterMap, batchSize, 1, System.getProperty("java.io.tmpdir"));
   }
 }
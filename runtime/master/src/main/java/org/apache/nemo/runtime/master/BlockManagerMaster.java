@@ -15,6 +15,7 @@
  */
 package org.apache.nemo.runtime.master;
 
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.exception.IllegalMessageException;
 import org.apache.nemo.common.exception.UnknownExecutionStateException;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
@@ -23,6 +24,7 @@ import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.message.MessageContext;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.MessageListener;
+import org.apache.nemo.runtime.common.message.MessageSender;
 import org.apache.nemo.runtime.common.state.BlockState;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -33,7 +35,11 @@ import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -61,6 +67,10 @@ public final class BlockManagerMaster {
    */
   private final Map<String, Set<BlockMetadata>> blockIdWildcardToMetadataSet; // a metadata = a task attempt output
 
+  // The partition sizes of the available blocks, summed up per edge, location and partition key.
+  // Updated on every block state change so that locality queries need not scan the block metadata.
+  private final Map<String, Map<String, Map<Integer, Long>>> edgeIdToPartitionBytesPerLocation;
+
   // A lock that can be acquired exclusively or not.
   // Because the BlockMetadata itself is sufficiently synchronized,
   // operation that runs in a single block can just acquire a (sharable) read lock.
@@ -70,6 +80,16 @@ public final class BlockManagerMaster {
 
   private final Random random = new Random();
 
+  // To-Executor connections, to push the locations of subscribed blocks.
+  // Each entry is the last message sent to the executor, chained after the previous ones to keep them in order.
+  // A failed connection or send is evicted, so that the next message connects again.
+  private final MessageEnvironment messageEnvironment;
+  private final ExecutorService connectionExecutorService;
+  private final Map<String, CompletableFuture<MessageSender<ControlMessage.Message>>> executorIdToMessageSender;
+  // The executors to which the location of each committed block has been pushed, and which may have cached it.
+  // They are told to forget the location when the block leaves the AVAILABLE state.
+  private final Map<String, Set<String>> blockIdToLocationHolders;
+
   /**
    * Constructor.
    * @param masterMessageEnvironment the message environment.
@@ -78,7 +98,12 @@ public final class BlockManagerMaster {
   private BlockManagerMaster(final MessageEnvironment masterMessageEnvironment) {
     masterMessageEnvironment.setupListener(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID,
       new BlockManagerMasterControlMessageReceiver());
+    this.messageEnvironment = masterMessageEnvironment;
+    this.connectionExecutorService = Executors.newCachedThreadPool();
+    this.executorIdToMessageSender = new ConcurrentHashMap<>();
+    this.blockIdToLocationHolders = new ConcurrentHashMap<>();
     this.blockIdWildcardToMetadataSet = new HashMap<>();
+    this.edgeIdToPartitionBytesPerLocation = new HashMap<>();
     this.producerTaskIdToBlockIds = new HashMap<>();
     this.lock = new ReentrantReadWriteLock();
   }
@@ -117,6 +142,8 @@ public final class BlockManagerMaster {
    */
   public Set<String> removeWorker(final String executorId) {
     final Set<String> tasksToRecompute = new HashSet<>();
+    executorIdToMessageSender.remove(executorId);
+    blockIdToLocationHolders.values().forEach(holders -> holders.remove(executorId));
 
     final Lock writeLock = lock.writeLock();
     writeLock.lock();
@@ -275,13 +302,135 @@ public final class BlockManagerMaster {
   public void onBlockStateChanged(final String blockId,
                                   final BlockState.State newState,
                                   @Nullable final String location) {
+    onBlockStateChanged(blockId, newState, location, Collections.emptyMap());
+  }
+
+  /**
+   * Deals with state change of a block.
+   *
+   * @param blockId        the id of the block.
+   * @param newState       the new state of the block.
+   * @param location       the location of the block (e.g., worker id, remote store).
+   *                       {@code null} if not committed or lost.
+   * @param partitionSizes the size of each partition of the block, empty if unknown.
+   */
+  public void onBlockStateChanged(final String blockId,
+                                  final BlockState.State newState,
+                                  @Nullable final String location,
+                                  final Map<Integer, Long> partitionSizes) {
     final Lock readLock = lock.readLock();
     readLock.lock();
     try {
-      getBlockMetaData(blockId).onStateChanged(newState, location);
+      final BlockMetadata metadata = getBlockMetaData(blockId);
+      synchronized (metadata) {
+        final String oldLocation = metadata.getLocation();
+        final Map<Integer, Long> oldPartitionSizes = metadata.getPartitionSizes();
+        metadata.onStateChanged(newState, location, partitionSizes);
+        final String edgeId = RuntimeIdManager.getRuntimeEdgeIdFromBlockId(blockId);
+        updatePartitionBytes(edgeId, oldLocation, oldPartitionSizes, -1);
+        updatePartitionBytes(edgeId, metadata.getLocation(), metadata.getPartitionSizes(), 1);
+      }
     } finally {
       readLock.unlock();
     }
+    if (newState != BlockState.State.AVAILABLE) {
+      invalidateLocation(blockId, newState);
+    }
+  }
+
+  /**
+   * Tells the executors which received the location of a block that the block is not available there anymore,
+   * so that they drop the location from their caches.
+   *
+   * @param blockId  the id of the block.
+   * @param newState the new state of the block.
+   */
+  private void invalidateLocation(final String blockId, final BlockState.State newState) {
+    final Set<String> holders = blockIdToLocationHolders.remove(blockId);
+    if (holders == null) {
+      return;
+    }
+    final ControlMessage.BlockLocationInfoMsg invalidation = ControlMessage.BlockLocationInfoMsg.newBuilder()
+      .setRequestId(RuntimeIdManager.generateMessageId())
+      .setBlockId(blockId)
+      .setBlockIdWildcard(RuntimeIdManager.getWildCardFromBlockId(blockId))
+      .setState(convertBlockState(newState))
+      .build();
+    for (final String executorId : holders) {
+      sendToWorker(executorId, ControlMessage.Message.newBuilder()
+        .setId(RuntimeIdManager.generateMessageId())
+        .setListenerId(MessageEnvironment.BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID)
+        .setType(ControlMessage.MessageType.BlockLocationInvalidation)
+        .setBlockLocationInfosMsg(ControlMessage.BlockLocationInfosMsg.newBuilder()
+          .setRequestId(invalidation.getRequestId())
+          .addBlockLocationInfo(invalidation)
+          .build())
+        .build());
+    }
+  }
+
+  /**
+   * Adds or subtracts the partition sizes of a block to the bytes summed up for its edge and location.
+   *
+   * @param edgeId         the id of the edge the block belongs to.
+   * @param location       the location of the block, {@code null} if not available.
+   * @param partitionSizes the size of each partition of the block.
+   * @param sign           1 to add the sizes, -1 to subtract them.
+   */
+  private void updatePartitionBytes(final String edgeId,
+                                    @Nullable final String location,
+                                    final Map<Integer, Long> partitionSizes,
+                                    final int sign) {
+    if (location == null || partitionSizes.isEmpty()) {
+      return;
+    }
+    synchronized (edgeIdToPartitionBytesPerLocation) {
+      final Map<String, Map<Integer, Long>> locationToPartitionBytes =
+        edgeIdToPartitionBytesPerLocation.computeIfAbsent(edgeId, id -> new HashMap<>());
+      final Map<Integer, Long> partitionBytes =
+        locationToPartitionBytes.computeIfAbsent(location, l -> new HashMap<>());
+      partitionSizes.forEach((key, size) ->
+        partitionBytes.compute(key, (k, bytes) -> {
+          final long sum = (bytes == null ? 0 : bytes) + sign * size;
+          return sum == 0 ? null : sum;
+        }));
+      if (partitionBytes.isEmpty()) {
+        locationToPartitionBytes.remove(location);
+        if (locationToPartitionBytes.isEmpty()) {
+          edgeIdToPartitionBytesPerLocation.remove(edgeId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sums up the bytes of the partitions in a key range, over the available blocks of an edge,
+   * for each location of the blocks.
+   * Blocks that did not report their partition sizes are not counted.
+   * The sums are maintained as the block states change, so this does not scan the blocks of the edge.
+   *
+   * @param edgeId   the id of the edge under which the blocks are written.
+   * @param keyRange the range of the partition keys to count.
+   * @return the map between the locations (e.g., executor ids) and the bytes they hold.
+   */
+  public Map<String, Long> getPartitionBytesPerLocation(final String edgeId,
+                                                        final KeyRange<Integer> keyRange) {
+    final Map<String, Long> locationToBytes = new HashMap<>();
+    synchronized (edgeIdToPartitionBytesPerLocation) {
+      edgeIdToPartitionBytesPerLocation.getOrDefault(edgeId, Collections.emptyMap())
+        .forEach((location, partitionBytes) -> {
+          long bytes = 0;
+          for (final Map.Entry<Integer, Long> entry : partitionBytes.entrySet()) {
+            if (keyRange.includes(entry.getKey())) {
+              bytes += entry.getValue();
+            }
+          }
+          if (bytes > 0) {
+            locationToBytes.put(location, bytes);
+          }
+        });
+    }
+    return locationToBytes;
   }
 
   private BlockMetadata getBlockMetaData(final String blockId) {
@@ -303,34 +452,162 @@ public final class BlockManagerMaster {
   private void registerLocationRequest(final ControlMessage.Message message, final MessageContext messageContext) {
     assert (message.getType() == ControlMessage.MessageType.RequestBlockLocation);
     final String blockIdWildcard = message.getRequestBlockLocationMsg().getBlockIdWildcard();
+    final String executorId = message.getRequestBlockLocationMsg().getExecutorId();
     final long requestId = message.getId();
     final Lock readLock = lock.readLock();
     readLock.lock();
     try {
-      // (CASE 1) Check AVAILABLE blocks.
-      final List<BlockRequestHandler> availableBlocks = getBlockHandlers(blockIdWildcard, BlockState.State.AVAILABLE);
-      if (!availableBlocks.isEmpty()) {
-        // random pick
-        // TODO #201: Let Executors Try Multiple Input Block Clones
-        availableBlocks.get(random.nextInt(availableBlocks.size())).registerRequest(requestId, messageContext);
-        return;
-      }
+      final BlockRequestHandler handler = selectBlockHandler(blockIdWildcard);
+      // The executor caches the replied location as well
+      handler.getLocationFuture().thenAccept(location -> addLocationHolder(handler.getBlockId(), executorId));
+      handler.registerRequest(requestId, messageContext);
+    } finally {
+      readLock.unlock();
+    }
+  }
 
-      // (CASE 2) Check IN_PROGRESS blocks.
-      final List<BlockRequestHandler> progressBlocks = getBlockHandlers(blockIdWildcard, BlockState.State.IN_PROGRESS);
-      if (!progressBlocks.isEmpty()) {
-        // random pick
-        progressBlocks.get(random.nextInt(progressBlocks.size())).registerRequest(requestId, messageContext);
-        return;
+  /**
+   * Registers the interest of an executor in the locations of multiple blocks.
+   * The locations which are already known are pushed to the executor at once,
+   * and the others are pushed one by one as soon as their producers commit (or fail to produce) the blocks.
+   *
+   * @param message the subscription message.
+   */
+  private void registerLocationSubscription(final ControlMessage.Message message) {
+    assert (message.getType() == ControlMessage.MessageType.SubscribeBlockLocations);
+    final ControlMessage.SubscribeBlockLocationsMsg subscribeMsg = message.getSubscribeBlockLocationsMsg();
+    final String executorId = subscribeMsg.getExecutorId();
+    final long subscriptionId = message.getId();
+    final List<ControlMessage.BlockLocationInfoMsg> knownLocations = new ArrayList<>();
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      for (final String blockIdWildcard : subscribeMsg.getBlockIdWildcardList()) {
+        final BlockRequestHandler handler = selectBlockHandler(blockIdWildcard);
+        if (handler.getLocationFuture().isDone()) {
+          knownLocations.add(handler.getCompletedLocationInfo(subscriptionId, blockIdWildcard));
+        } else {
+          handler.getLocationFuture().whenComplete((location, throwable) -> sendLocations(executorId, subscriptionId,
+            Collections.singletonList(handler.getCompletedLocationInfo(subscriptionId, blockIdWildcard))));
+        }
       }
-
-      // (CASE 3) Unfortunately, there is no good block to use.
-      final BlockRequestHandler absent = new BlockRequestHandler(blockIdWildcard);
-      absent.completeExceptionally(new AbsentBlockException(blockIdWildcard, BlockState.State.NOT_AVAILABLE));
-      absent.registerRequest(requestId, messageContext);
     } finally {
       readLock.unlock();
     }
+    if (!knownLocations.isEmpty()) {
+      sendLocations(executorId, subscriptionId, knownLocations);
+    }
+  }
+
+  /**
+   * Pushes block locations to a subscribed executor.
+   *
+   * @param executorId     the id of the executor.
+   * @param subscriptionId the id of the subscription message.
+   * @param locations      the location infos to push.
+   */
+  private void sendLocations(final String executorId,
+                             final long subscriptionId,
+                             final List<ControlMessage.BlockLocationInfoMsg> locations) {
+    final ControlMessage.Message message = ControlMessage.Message.newBuilder()
+      .setId(RuntimeIdManager.generateMessageId())
+      .setListenerId(MessageEnvironment.BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID)
+      .setType(ControlMessage.MessageType.BlockLocationUpdate)
+      .setBlockLocationInfosMsg(ControlMessage.BlockLocationInfosMsg.newBuilder()
+        .setRequestId(subscriptionId)
+        .addAllBlockLocationInfo(locations)
+        .build())
+      .build();
+    for (final ControlMessage.BlockLocationInfoMsg location : locations) {
+      if (location.hasOwnerExecutorId()) {
+        addLocationHolder(location.getBlockId(), executorId);
+      }
+    }
+    sendToWorker(executorId, message);
+  }
+
+  /**
+   * @param blockId    the id of the committed block.
+   * @param executorId the id of the executor which received the location of the block.
+   */
+  private void addLocationHolder(final String blockId, final String executorId) {
+    blockIdToLocationHolders.computeIfAbsent(blockId, id -> ConcurrentHashMap.newKeySet()).add(executorId);
+  }
+
+  /**
+   * Sends a message to the block manager worker of an executor, without waiting for the message to be sent.
+   * The connection to the executor is made by a background thread, so that callers holding locks are not blocked.
+   * The messages to an executor are sent in the order of the calls.
+   *
+   * @param executorId the id of the executor.
+   * @param message    the message to send.
+   */
+  private void sendToWorker(final String executorId, final ControlMessage.Message message) {
+    final CompletableFuture<MessageSender<ControlMessage.Message>> sent;
+    synchronized (executorIdToMessageSender) {
+      final CompletableFuture<MessageSender<ControlMessage.Message>> previous =
+        executorIdToMessageSender.get(executorId);
+      final CompletableFuture<MessageSender<ControlMessage.Message>> connection =
+        previous == null || previous.isCompletedExceptionally() ? connect(executorId) : previous;
+      sent = connection.thenApply(sender -> {
+        sender.send(message);
+        return sender;
+      });
+      executorIdToMessageSender.put(executorId, sent);
+    }
+    sent.whenComplete((sender, throwable) -> {
+      if (throwable != null) {
+        executorIdToMessageSender.remove(executorId, sent);
+        LOG.warn("Failed to send " + message.getType() + " to " + executorId, throwable);
+      }
+    });
+  }
+
+  /**
+   * @param executorId the id of the executor.
+   * @return the future of the connection to the block manager worker of the executor.
+   */
+  private CompletableFuture<MessageSender<ControlMessage.Message>> connect(final String executorId) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return messageEnvironment.<ControlMessage.Message>asyncConnect(
+          executorId, MessageEnvironment.BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID).get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CompletionException(e);
+      } catch (final ExecutionException e) {
+        throw new CompletionException(e.getCause());
+      }
+    }, connectionExecutorService);
+  }
+
+  /**
+   * Selects the block to answer a location request for a block wildcard.
+   * The caller must hold the read lock.
+   *
+   * @param blockIdWildcard the block wildcard.
+   * @return the handler of the selected block.
+   */
+  private BlockRequestHandler selectBlockHandler(final String blockIdWildcard) {
+    // (CASE 1) Check AVAILABLE blocks.
+    final List<BlockRequestHandler> availableBlocks = getBlockHandlers(blockIdWildcard, BlockState.State.AVAILABLE);
+    if (!availableBlocks.isEmpty()) {
+      // random pick
+      // TODO #201: Let Executors Try Multiple Input Block Clones
+      return availableBlocks.get(random.nextInt(availableBlocks.size()));
+    }
+
+    // (CASE 2) Check IN_PROGRESS blocks.
+    final List<BlockRequestHandler> progressBlocks = getBlockHandlers(blockIdWildcard, BlockState.State.IN_PROGRESS);
+    if (!progressBlocks.isEmpty()) {
+      // random pick
+      return progressBlocks.get(random.nextInt(progressBlocks.size()));
+    }
+
+    // (CASE 3) Unfortunately, there is no good block to use.
+    final BlockRequestHandler absent = new BlockRequestHandler(blockIdWildcard);
+    absent.completeExceptionally(new AbsentBlockException(blockIdWildcard, BlockState.State.NOT_AVAILABLE));
+    return absent;
   }
 
   /**
@@ -346,8 +623,14 @@ public final class BlockManagerMaster {
             final ControlMessage.BlockStateChangedMsg blockStateChangedMsg =
               message.getBlockStateChangedMsg();
             final String blockId = blockStateChangedMsg.getBlockId();
+            final Map<Integer, Long> partitionSizes = new HashMap<>();
+            blockStateChangedMsg.getPartitionSizeList().forEach(entry ->
+              partitionSizes.put(Integer.valueOf(entry.getKey()), entry.getSize()));
             onBlockStateChanged(blockId, convertBlockState(blockStateChangedMsg.getState()),
-              blockStateChangedMsg.getLocation());
+              blockStateChangedMsg.getLocation(), partitionSizes);
+            break;
+          case SubscribeBlockLocations:
+            registerLocationSubscription(message);
             break;
           default:
             throw new IllegalMessageException(
@@ -379,6 +662,7 @@ public final class BlockManagerMaster {
   public static final class BlockRequestHandler {
     private final String blockIdOrWildcard;
     private final CompletableFuture<String> locationFuture;
+    private volatile Map<Integer, Long> partitionSizes;
 
     /**
      * Constructor.
@@ -388,6 +672,7 @@ public final class BlockManagerMaster {
     BlockRequestHandler(final String blockIdOrWildcard) {
       this.blockIdOrWildcard = blockIdOrWildcard;
       this.locationFuture = new CompletableFuture<>();
+      this.partitionSizes = Collections.emptyMap();
     }
 
     /**
@@ -395,8 +680,11 @@ public final class BlockManagerMaster {
      * If there is any pending request, replies with the completed location.
      *
      * @param location the location of the block.
+     * @param sizes    the size of each partition of the block, empty if unknown.
      */
-    void complete(final String location) {
+    void complete(final String location, final Map<Integer, Long> sizes) {
+      // The sizes are set before the location, so that the replies with the location carry them.
+      this.partitionSizes = sizes;
       locationFuture.complete(location);
     }
 
@@ -419,26 +707,63 @@ public final class BlockManagerMaster {
      */
     void registerRequest(final long requestId,
                          final MessageContext messageContext) {
-      final ControlMessage.BlockLocationInfoMsg.Builder infoMsgBuilder =
-        ControlMessage.BlockLocationInfoMsg.newBuilder()
-          .setRequestId(requestId)
-          .setBlockId(blockIdOrWildcard);
-
-      locationFuture.whenComplete((location, throwable) -> {
-        if (throwable == null) {
-          infoMsgBuilder.setOwnerExecutorId(location);
-        } else {
-          infoMsgBuilder.setState(
-            convertBlockState(((AbsentBlockException) throwable).getState()));
-        }
+      locationFuture.whenComplete((location, throwable) ->
         messageContext.reply(
           ControlMessage.Message.newBuilder()
             .setId(RuntimeIdManager.generateMessageId())
             .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
             .setType(ControlMessage.MessageType.BlockLocationInfo)
-            .setBlockLocationInfoMsg(infoMsgBuilder.build())
-            .build());
-      });
+            .setBlockLocationInfoMsg(buildLocationInfo(requestId, location, throwable))
+            .build()));
+    }
+
+    /**
+     * Gets the location info of the block, whose location future must be completed.
+     *
+     * @param requestId       the ID of the block location subscription.
+     * @param blockIdWildcard the subscribed wildcard of the block.
+     * @return the location info.
+     */
+    ControlMessage.BlockLocationInfoMsg getCompletedLocationInfo(final long requestId,
+                                                                 final String blockIdWildcard) {
+      ControlMessage.BlockLocationInfoMsg locationInfo;
+      try {
+        locationInfo = buildLocationInfo(requestId, locationFuture.getNow(null), null);
+      } catch (final CompletionException e) {
+        locationInfo = buildLocationInfo(requestId, null, e.getCause());
+      }
+      return locationInfo.toBuilder().setBlockIdWildcard(blockIdWildcard).build();
+    }
+
+    /**
+     * @param requestId the ID of the block location request.
+     * @param location  the location of the block, if known.
+     * @param throwable the cause of failure, if the block is absent.
+     * @return the location info.
+     */
+    private ControlMessage.BlockLocationInfoMsg buildLocationInfo(final long requestId,
+                                                                  final String location,
+                                                                  final Throwable throwable) {
+      final ControlMessage.BlockLocationInfoMsg.Builder infoMsgBuilder =
+        ControlMessage.BlockLocationInfoMsg.newBuilder()
+          .setRequestId(requestId)
+          .setBlockId(blockIdOrWildcard);
+      if (throwable == null) {
+        infoMsgBuilder.setOwnerExecutorId(location);
+        partitionSizes.forEach((key, size) -> infoMsgBuilder.addPartitionSize(
+          ControlMessage.PartitionSizeEntry.newBuilder().setKey(String.valueOf(key)).setSize(size).build()));
+      } else {
+        infoMsgBuilder.setState(
+          convertBlockState(((AbsentBlockException) throwable).getState()));
+      }
+      return infoMsgBuilder.build();
+    }
+
+    /**
+     * @return the ID of the block, or the wildcard if no block matched the request.
+     */
+    String getBlockId() {
+      return blockIdOrWildcard;
     }
 
     /**
@@ -24,6 +24,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * This class represents a block metadata stored in the metadata server.
@@ -34,6 +36,8 @@ final class BlockMetadata {
   private final String blockId;
   private final BlockState blockState;
   private volatile BlockManagerMaster.BlockRequestHandler locationHandler;
+  private volatile String committedLocation;
+  private volatile Map<Integer, Long> committedPartitionSizes;
 
   /**
    * Constructs the metadata for a block.
@@ -45,6 +49,8 @@ final class BlockMetadata {
     this.blockId = blockId;
     this.blockState = new BlockState();
     this.locationHandler = new BlockManagerMaster.BlockRequestHandler(blockId);
+    this.committedLocation = null;
+    this.committedPartitionSizes = Collections.emptyMap();
   }
 
   /**
@@ -53,9 +59,11 @@ final class BlockMetadata {
    * @param newState the new state of the block.
    * @param location the location of the block (e.g., worker id, remote store).
    *                 {@code null} if not committed or lost.
+   * @param partitionSizes the size of each partition of the block, empty if unknown.
    */
   synchronized void onStateChanged(final BlockState.State newState,
-                                   @Nullable final String location) {
+                                   @Nullable final String location,
+                                   final Map<Integer, Long> partitionSizes) {
     final StateMachine stateMachine = blockState.getStateMachine();
     final Enum oldState = stateMachine.getCurrentState();
     LOG.debug("Block State Transition: id {} from {} to {}", new Object[]{blockId, oldState, newState});
@@ -65,12 +73,16 @@ final class BlockMetadata {
         break;
       case NOT_AVAILABLE:
         locationHandler.completeExceptionally(new AbsentBlockException(blockId, newState));
+        this.committedLocation = null;
+        this.committedPartitionSizes = Collections.emptyMap();
         break;
       case AVAILABLE:
         if (location == null) {
           throw new RuntimeException("Null location");
         }
-        locationHandler.complete(location);
+        locationHandler.complete(location, partitionSizes);
+        this.committedLocation = location;
+        this.committedPartitionSizes = partitionSizes;
         break;
       default:
         throw new UnsupportedOperationException(newState.toString());
@@ -97,6 +109,21 @@ final class BlockMetadata {
     return (BlockState.State) blockState.getStateMachine().getCurrentState();
   }
 
+  /**
+   * @return the location of the block if it is available, {@code null} otherwise.
+   */
+  @Nullable
+  String getLocation() {
+    return committedLocation;
+  }
+
+  /**
+   * @return the size of each partition of the block if it is available and reported its sizes, empty otherwise.
+   */
+  Map<Integer, Long> getPartitionSizes() {
+    return committedPartitionSizes;
+  }
+
   /**
    * @return the handler of block location requests.
    */
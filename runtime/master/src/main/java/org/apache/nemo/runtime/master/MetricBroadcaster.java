@@ -21,6 +21,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -71,14 +73,31 @@ public final class MetricBroadcaster {
     sessions.remove(session);
   }
 
+  /**
+   * @return whether there is any active WebSocket session.
+   */
+  public boolean hasSessions() {
+    return !sessions.isEmpty();
+  }
+
   /**
    * Send text frame to each WebSocket session.
    * @param text text to send.
    */
   public void broadcast(final String text) {
+    broadcast(Collections.singletonList(text));
+  }
+
+  /**
+   * Send text frames to each WebSocket session, in the given order.
+   * @param texts texts to send.
+   */
+  public void broadcast(final List<String> texts) {
     for (final Session session : sessions) {
       try {
-        session.getRemote().sendString(text);
+        for (final String text : texts) {
+          session.getRemote().sendString(text);
+        }
       } catch (final IOException e) {
         LOG.warn("Failed to send string to remote session {}.", session.getRemoteAddress().toString());
       }
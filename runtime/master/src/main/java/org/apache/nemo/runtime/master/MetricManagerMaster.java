@@ -17,30 +17,43 @@ package org.apache.nemo.runtime.master;
 
 import javax.inject.Inject;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.master.scheduler.ExecutorRegistry;
 import org.apache.nemo.runtime.common.metric.Metric;
+import org.apache.nemo.runtime.common.metric.StageMetric;
+import org.apache.nemo.runtime.common.metric.TaskMetric;
 import org.apache.reef.annotations.audience.DriverSide;
+import org.apache.reef.tang.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A default metric message handler.
+ * Metric messages are handled only by the runtime master thread, so the metrics are updated without locking.
+ * The metrics changed by a batch of metric messages are broadcast once per batch.
  */
 @DriverSide
 public final class MetricManagerMaster implements MetricMessageHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(MetricManagerMaster.class.getName());
   private final MetricStore metricStore = MetricStore.getStore();
-  private boolean isTerminated;
+  private volatile boolean isTerminated;
   private final ExecutorRegistry executorRegistry;
 
   @Inject
-  private MetricManagerMaster(final ExecutorRegistry executorRegistry) {
+  private MetricManagerMaster(final ExecutorRegistry executorRegistry,
+                              @Parameter(JobConf.NumRetainedJobMetrics.class) final int numRetainedJobMetrics) {
     this.isTerminated = false;
     this.executorRegistry = executorRegistry;
+    metricStore.setNumRetainedJobs(numRetainedJobMetrics);
   }
 
   public synchronized void sendMetricFlushRequest() {
@@ -55,25 +68,50 @@ public final class MetricManagerMaster implements MetricMessageHandler {
   }
 
   @Override
-  public synchronized void onMetricMessageReceived(final String metricType,
-                                                   final String metricId,
-                                                   final String metricField,
-                                                   final byte[] metricValue) {
-    if (!isTerminated) {
-      final Class<Metric> metricClass = metricStore.getMetricClassByName(metricType);
+  public void onMetricMessageReceived(final ControlMessage.MetricMsg metricMsg) {
+    if (isTerminated) {
+      return;
+    }
+
+    final Map<Class<? extends Metric>, Set<String>> changedMetrics = new HashMap<>();
+    for (final ControlMessage.Metric metricMessage : metricMsg.getMetricList()) {
+      final String metricId = metricMessage.getMetricId();
+      final String metricField = metricMessage.getMetricField();
       // process metric message
       try {
-        if (metricStore.getOrCreateMetric(metricClass, metricId).processMetricMessage(metricField, metricValue)) {
-          metricStore.triggerBroadcast(metricClass, metricId);
+        final Class<Metric> metricClass = metricStore.getMetricClassByName(metricMessage.getMetricType());
+        if (metricStore.updateMetricIfChanged(metricClass, metricId,
+            metric -> processMetricMessage(metric, metricMessage))) {
+          changedMetrics.computeIfAbsent(metricClass, k -> new LinkedHashSet<>()).add(metricId);
+        }
+        if (TaskMetric.class.equals(metricClass) && "vertexMetrics".equals(metricField)) {
+          // aggregate the vertex metrics of tasks per stage
+          final String stageId = RuntimeIdManager.getStageIdFromTaskId(metricId);
+          if (metricStore.updateMetricIfChanged(StageMetric.class, stageId,
+              stageMetric -> processMetricMessage(stageMetric, metricMessage))) {
+            changedMetrics.computeIfAbsent(StageMetric.class, k -> new LinkedHashSet<>()).add(stageId);
+          }
         }
       } catch (final Exception e) {
-        LOG.warn("Error when processing metric message for {}, {}, {}.", metricType, metricId, metricField);
+        LOG.warn("Error when processing metric message for {}, {}, {}.",
+            metricMessage.getMetricType(), metricId, metricField);
       }
     }
+    changedMetrics.forEach(metricStore::triggerBroadcast);
+  }
+
+  private static boolean processMetricMessage(final Metric metric, final ControlMessage.Metric metricMessage) {
+    if (metricMessage.hasLongValue()) {
+      return metric.processMetricMessage(metricMessage.getMetricField(), metricMessage.getLongValue());
+    } else if (metricMessage.hasStringValue()) {
+      return metric.processMetricMessage(metricMessage.getMetricField(), metricMessage.getStringValue());
+    } else {
+      return metric.processMetricMessage(metricMessage.getMetricField(), metricMessage.getMetricValue().toByteArray());
+    }
   }
 
   @Override
-  public synchronized void terminate() {
+  public void terminate() {
     isTerminated = true;
   }
 }
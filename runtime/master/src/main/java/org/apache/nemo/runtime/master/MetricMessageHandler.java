@@ -15,6 +15,7 @@
  */
 package org.apache.nemo.runtime.master;
 
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.reef.tang.annotations.DefaultImplementation;
 
 /**
@@ -24,14 +25,10 @@ import org.apache.reef.tang.annotations.DefaultImplementation;
 public interface MetricMessageHandler {
 
   /**
-   * Handle the received metric message.
-   * @param metricType a given type for the metric (ex. TaskMetric).
-   * @param metricId  id of the metric.
-   * @param metricField field name of the metric.
-   * @param metricValue serialized metric data value.
+   * Handle the received batch of metric messages.
+   * @param metricMsg the metric messages flushed by an executor.
    */
-  void onMetricMessageReceived(final String metricType, final String metricId,
-                               final String metricField, final byte[] metricValue);
+  void onMetricMessageReceived(final ControlMessage.MetricMsg metricMsg);
 
   /**
    * Cleans up and terminates this handler.
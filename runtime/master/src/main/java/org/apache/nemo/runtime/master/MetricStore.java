@@ -15,25 +15,54 @@
  */
 package org.apache.nemo.runtime.master;
 
-import com.fasterxml.jackson.core.JsonEncoding;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.nemo.common.exception.UnsupportedMetricException;
 import org.apache.nemo.runtime.common.metric.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * MetricStore stores metric data which will be used by web visualize interface, logging, and so on.
  * All metric classes should be JSON-serializable by {@link ObjectMapper}.
+ *
+ * <p>The metrics of each class are kept in a separate concurrent map, and each metric is guarded by its own lock,
+ * so readers such as the servlets never block the runtime on a global lock.
+ * Metrics should be modified through {@link #updateMetric} or {@link #updateMetricIfChanged},
+ * which stamp the metric with a new version. The JSON tree of a metric is cached per version, and
+ * {@link #dumpChangedMetricToJson} returns only the metrics changed since a given version.</p>
+ *
+ * <p>The stage and task metrics created while a job runs belong to that job, and are removed together with its
+ * job metric once more than {@link #setNumRetainedJobs the number of retained jobs} have started after it.
+ * As the ids of stages and tasks are reused across jobs, these metrics are keyed by the ids of both the job and
+ * the metric, and the methods which take a metric id refer to the metrics of the current job.
+ * In the JSON dumps, they are keyed by "jobId/id". The executor metrics do not belong to any job.</p>
  */
 public final class MetricStore {
-  private final Map<Class, Map<String, Object>> metricMap = new HashMap<>();
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  // The number of job evictions whose removed metrics are reported by dumpChangedMetricToJson.
+  private static final int MAX_REMOVALS = 16;
+
+  private final Map<Class, ConcurrentMap<MetricKey, MetricEntry>> metricMap = new HashMap<>();
   // You can add more metrics by adding item to this metricList list.
   private final Map<String, Class> metricList = new HashMap<>();
+  private final AtomicLong version = new AtomicLong(0);
+  private final Deque<String> retainedJobIds = new ConcurrentLinkedDeque<>();
+  private volatile String currentJobId = null;
+  private volatile int numRetainedJobs = Integer.MAX_VALUE;
+  private final Deque<Removal> removals = new ConcurrentLinkedDeque<>();
+  // The removals at or before this version are no longer reported.
+  private volatile long forgottenRemovalVersion = 0;
+
   /**
    * Private constructor.
    */
@@ -41,6 +70,8 @@ public final class MetricStore {
     metricList.put("JobMetric", JobMetric.class);
     metricList.put("StageMetric", StageMetric.class);
     metricList.put("TaskMetric", TaskMetric.class);
+    metricList.put("ExecutorMetric", ExecutorMetric.class);
+    metricList.values().forEach(metricClass -> metricMap.put(metricClass, new ConcurrentHashMap<>()));
   }
 
   /**
@@ -66,6 +97,30 @@ public final class MetricStore {
     return metricList.get(className);
   }
 
+  /**
+   * Sets the number of jobs whose metrics are retained.
+   * @param numRetainedJobs the number of the most recent jobs to retain the metrics of.
+   */
+  public void setNumRetainedJobs(final int numRetainedJobs) {
+    this.numRetainedJobs = numRetainedJobs;
+    evictJobs();
+  }
+
+  /**
+   * @return the version of the latest change of the metrics.
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  private ConcurrentMap<MetricKey, MetricEntry> getEntries(final Class metricClass) {
+    final ConcurrentMap<MetricKey, MetricEntry> entries = metricMap.get(metricClass);
+    if (entries == null) {
+      throw new UnsupportedMetricException(new Throwable("Unsupported metric"));
+    }
+    return entries;
+  }
+
   /**
    * Store a metric object. Metric object should implement {@link Metric} interface.
    * This method will store a metric into a {@link Map}, which have metric's id as its key.
@@ -73,12 +128,62 @@ public final class MetricStore {
    * @param <T> class of metric
    */
   public <T extends Metric> void putMetric(final T metric) {
-    final Class metricClass = metric.getClass();
-    if (!metricList.values().contains(metricClass)) {
-      throw new UnsupportedMetricException(new Throwable("Unsupported metric"));
+    putEntry(metric.getClass(), getKey(metric.getClass(), metric.getId()), metric);
+  }
+
+  /**
+   * @param metricClass class of metric.
+   * @return whether the metrics of the class belong to a job.
+   */
+  private static boolean isJobScoped(final Class metricClass) {
+    return StageMetric.class.equals(metricClass) || TaskMetric.class.equals(metricClass);
+  }
+
+  /**
+   * @param metricClass class of metric.
+   * @param id metric id.
+   * @return the key of the metric with the id, in the current job if the metrics of the class belong to a job.
+   */
+  private MetricKey getKey(final Class metricClass, final String id) {
+    return new MetricKey(isJobScoped(metricClass) ? currentJobId : null, id);
+  }
+
+  private MetricEntry putEntry(final Class metricClass, final MetricKey key, final Metric metric) {
+    final ConcurrentMap<MetricKey, MetricEntry> entries = getEntries(metricClass);
+    final boolean isJobMetric = JobMetric.class.equals(metricClass);
+    final MetricEntry newEntry = new MetricEntry(metric, isJobMetric ? metric.getId() : key.jobId);
+    final MetricEntry existingEntry = entries.putIfAbsent(key, newEntry);
+    if (existingEntry != null) {
+      return existingEntry;
     }
 
-    metricMap.computeIfAbsent(metricClass, k -> new HashMap<>()).putIfAbsent(metric.getId(), metric);
+    if (isJobMetric) {
+      currentJobId = metric.getId();
+      retainedJobIds.addLast(metric.getId());
+      evictJobs();
+    }
+    return newEntry;
+  }
+
+  /**
+   * Removes the metrics of the oldest jobs, until at most the given number of jobs is retained.
+   */
+  private synchronized void evictJobs() {
+    while (retainedJobIds.size() > numRetainedJobs) {
+      final String jobId = retainedJobIds.pollFirst();
+      final Map<Class, List<String>> removedKeys = new HashMap<>();
+      metricMap.forEach((metricClass, entries) -> entries.entrySet().removeIf(keyAndEntry -> {
+        if (jobId.equals(keyAndEntry.getValue().jobId)) {
+          removedKeys.computeIfAbsent(metricClass, k -> new ArrayList<>()).add(keyAndEntry.getKey().toString());
+          return true;
+        }
+        return false;
+      }));
+      removals.addLast(new Removal(version.incrementAndGet(), removedKeys));
+      while (removals.size() > MAX_REMOVALS) {
+        forgottenRemovalVersion = removals.pollFirst().version;
+      }
+    }
   }
 
   /**
@@ -89,59 +194,106 @@ public final class MetricStore {
    * @return a metric object.
    */
   public <T extends Metric> T getMetricWithId(final Class<T> metricClass, final String id) {
-    final T metric = (T) metricMap.computeIfAbsent(metricClass, k -> new HashMap<>()).get(id);
-    if (metric == null) {
+    final MetricEntry entry = getEntries(metricClass).get(getKey(metricClass, id));
+    if (entry == null) {
       throw new NoSuchElementException("No metric found");
     }
-    return metric;
+    return (T) entry.metric;
   }
 
   /**
    * Fetch metric map by its metric class instance.
    * @param metricClass class instance of metric.
    * @param <T> class of metric
-   * @return a metric object.
+   * @return a snapshot of the metric objects of the class, by their keys in the JSON dumps.
    */
   public <T extends Metric> Map<String, Object> getMetricMap(final Class<T> metricClass) {
-    final Map<String, Object> metric = metricMap.computeIfAbsent(metricClass, k -> new HashMap<>());
-    if (metric == null) {
-      throw new NoSuchElementException("No metric found");
-    }
-    return metric;
+    final Map<String, Object> metrics = new HashMap<>();
+    getEntries(metricClass).forEach((key, entry) -> metrics.put(key.toString(), entry.metric));
+    return metrics;
   }
 
   /**
    * Same as getMetricWithId(), but if there is no such metric, it will try to create new metric object
    * using its constructor, which takes an id as a parameter.
+   * The returned metric should only be read: use {@link #updateMetric} to modify it.
    * @param metricClass class of metric.
    * @param id metric id, which can be fetched by getPlanId() method.
    * @param <T> class of metric
    * @return a metric object. If there was no such metric, newly create one.
    */
   public <T extends Metric> T getOrCreateMetric(final Class<T> metricClass, final String id) {
-    T metric =  (T) metricMap.computeIfAbsent(metricClass, k -> new HashMap<>()).get(id);
-    if (metric == null) {
-      try {
-        metric = metricClass.getConstructor(new Class[]{String.class}).newInstance(id);
-        putMetric(metric);
-      } catch (final Exception e) {
-        throw new RuntimeException(e);
+    return (T) getOrCreateEntry(metricClass, id).metric;
+  }
+
+  private MetricEntry getOrCreateEntry(final Class metricClass, final String id) {
+    final MetricKey key = getKey(metricClass, id);
+    final MetricEntry entry = getEntries(metricClass).get(key);
+    if (entry != null) {
+      return entry;
+    }
+    try {
+      return putEntry(metricClass, key,
+          (Metric) metricClass.getConstructor(new Class[]{String.class}).newInstance(id));
+    } catch (final Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Modifies a metric under its lock, creating it if there is no such metric.
+   * @param metricClass class of metric.
+   * @param id metric id.
+   * @param updater the modification of the metric.
+   * @param <T> class of metric
+   */
+  public <T extends Metric> void updateMetric(final Class<T> metricClass, final String id,
+                                              final Consumer<T> updater) {
+    updateMetricIfChanged(metricClass, id, metric -> {
+      updater.accept(metric);
+      return true;
+    });
+  }
+
+  /**
+   * Same as updateMetric(), but the metric keeps its version if the updater reports no change.
+   * @param metricClass class of metric.
+   * @param id metric id.
+   * @param updater the modification of the metric, which returns whether the metric was changed.
+   * @param <T> class of metric
+   * @return whether the metric was changed.
+   */
+  public <T extends Metric> boolean updateMetricIfChanged(final Class<T> metricClass, final String id,
+                                                          final Predicate<T> updater) {
+    final MetricEntry entry = getOrCreateEntry(metricClass, id);
+    synchronized (entry) {
+      if (updater.test((T) entry.metric)) {
+        entry.version = version.incrementAndGet();
+        return true;
       }
+      return false;
     }
-    return metric;
   }
 
-  private void generatePreprocessedJsonFromMetricEntry(final Map.Entry<String, Object> idToMetricEntry,
-                                                       final JsonGenerator jsonGenerator,
-                                                       final ObjectMapper objectMapper) throws IOException {
-    final JsonNode jsonNode = objectMapper.valueToTree(idToMetricEntry.getValue());
-    jsonGenerator.writeFieldName(idToMetricEntry.getKey());
-    jsonGenerator.writeStartObject();
-    jsonGenerator.writeFieldName("id");
-    jsonGenerator.writeString(idToMetricEntry.getKey());
-    jsonGenerator.writeFieldName("data");
-    jsonGenerator.writeTree(jsonNode);
-    jsonGenerator.writeEndObject();
+  private static ObjectNode toJsonNodeWithId(final MetricKey key, final MetricEntry entry) {
+    final ObjectNode node = OBJECT_MAPPER.createObjectNode();
+    node.put("id", key.id);
+    if (key.jobId != null) {
+      node.put("jobId", key.jobId);
+    }
+    node.set("data", entry.toJsonNode());
+    return node;
+  }
+
+  private String dumpToJson(final Class metricClass, final Predicate<MetricEntry> filter,
+                            final ObjectNode root) throws IOException {
+    final ObjectNode metricsNode = root.putObject(metricClass.getSimpleName());
+    getEntries(metricClass).forEach((key, entry) -> {
+      if (filter.test(entry)) {
+        metricsNode.set(key.toString(), toJsonNodeWithId(key, entry));
+      }
+    });
+    return OBJECT_MAPPER.writeValueAsString(root);
   }
 
   /**
@@ -151,23 +303,49 @@ public final class MetricStore {
    * @throws IOException when failed to write json.
    */
   public <T extends Metric> String dumpMetricToJson(final Class<T> metricClass) throws IOException {
-    final ObjectMapper objectMapper = new ObjectMapper();
-    final JsonFactory jsonFactory = new JsonFactory();
-    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    final JsonGenerator jsonGenerator = jsonFactory.createGenerator(stream, JsonEncoding.UTF8);
-    jsonGenerator.setCodec(objectMapper);
+    return dumpToJson(metricClass, entry -> true, OBJECT_MAPPER.createObjectNode());
+  }
 
-    jsonGenerator.writeStartObject();
-    jsonGenerator.writeFieldName(metricClass.getSimpleName());
-    jsonGenerator.writeStartObject();
-    for (final Map.Entry<String, Object> idToMetricEntry : getMetricMap(metricClass).entrySet()) {
-      generatePreprocessedJsonFromMetricEntry(idToMetricEntry, jsonGenerator, objectMapper);
-    }
-    jsonGenerator.writeEndObject();
-    jsonGenerator.writeEndObject();
+  /**
+   * Same as dumpMetricToJson(), but dumps only the metric with the given id.
+   * @param metricClass class of metric.
+   * @param id metric id.
+   * @return dumped JSON string of the metric, in the same format as dumpMetricToJson().
+   * @throws IOException when failed to write json.
+   */
+  public <T extends Metric> String dumpMetricToJson(final Class<T> metricClass, final String id) throws IOException {
+    final MetricEntry entry = getEntries(metricClass).get(getKey(metricClass, id));
+    return dumpToJson(metricClass, dumpedEntry -> dumpedEntry == entry, OBJECT_MAPPER.createObjectNode());
+  }
 
-    jsonGenerator.close();
-    return stream.toString();
+  /**
+   * Same as dumpMetricToJson(), but dumps only the metrics changed after the given version.
+   * The dump also contains the "version" to pass to the next call, to poll the metrics incrementally,
+   * and the keys of the metrics "removed" after the given version, with the metrics of old jobs.
+   * If the removals after the given version are no longer known, all metrics are dumped instead.
+   * Whether all metrics are dumped, which the client should replace its metrics with, is reported as "full".
+   * @param metricClass class of metric.
+   * @param sinceVersion the version returned by the previous dump, or 0 to dump all metrics.
+   * @return dumped JSON string of the changed metric.
+   * @throws IOException when failed to write json.
+   */
+  public <T extends Metric> String dumpChangedMetricToJson(final Class<T> metricClass,
+                                                           final long sinceVersion) throws IOException {
+    final ObjectNode root = OBJECT_MAPPER.createObjectNode();
+    // Read the version first, so that the changes made while dumping are dumped again by the next call.
+    root.put("version", version.get());
+    final boolean isFull = sinceVersion <= 0 || sinceVersion < forgottenRemovalVersion;
+    root.put("full", isFull);
+    if (isFull) {
+      return dumpToJson(metricClass, entry -> true, root);
+    }
+    final ArrayNode removedNode = root.putArray("removed");
+    for (final Removal removal : removals) {
+      if (removal.version > sinceVersion) {
+        removal.keys.getOrDefault(metricClass, Collections.emptyList()).forEach(removedNode::add);
+      }
+    }
+    return dumpToJson(metricClass, entry -> entry.getVersion() > sinceVersion, root);
   }
 
   /**
@@ -175,26 +353,13 @@ public final class MetricStore {
    * @return dumped JSON string of all metric.
    * @throws IOException when failed to write file.
    */
-  public synchronized String dumpAllMetricToJson() throws IOException {
-    final ObjectMapper objectMapper = new ObjectMapper();
-    final JsonFactory jsonFactory = new JsonFactory();
-    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    final JsonGenerator jsonGenerator = jsonFactory.createGenerator(stream, JsonEncoding.UTF8);
-    jsonGenerator.setCodec(objectMapper);
-
-    jsonGenerator.writeStartObject();
-    for (final Map.Entry<Class, Map<String, Object>> metricMapEntry : metricMap.entrySet()) {
-      jsonGenerator.writeFieldName(metricMapEntry.getKey().getSimpleName());
-      jsonGenerator.writeStartObject();
-      for (final Map.Entry<String, Object> idToMetricEntry : metricMapEntry.getValue().entrySet()) {
-        generatePreprocessedJsonFromMetricEntry(idToMetricEntry, jsonGenerator, objectMapper);
-      }
-      jsonGenerator.writeEndObject();
+  public String dumpAllMetricToJson() throws IOException {
+    final ObjectNode root = OBJECT_MAPPER.createObjectNode();
+    for (final Map.Entry<Class, ConcurrentMap<MetricKey, MetricEntry>> metricMapEntry : metricMap.entrySet()) {
+      final ObjectNode metricsNode = root.putObject(metricMapEntry.getKey().getSimpleName());
+      metricMapEntry.getValue().forEach((key, entry) -> metricsNode.set(key.toString(), toJsonNodeWithId(key, entry)));
     }
-    jsonGenerator.writeEndObject();
-
-    jsonGenerator.close();
-    return stream.toString();
+    return OBJECT_MAPPER.writeValueAsString(root);
   }
 
   /**
@@ -217,35 +382,122 @@ public final class MetricStore {
   /**
    * Send changed metric data to {@link MetricBroadcaster}, which will broadcast it to
    * all active WebSocket sessions. This method should be called manually if you want to
-   * send changed metric data to the frontend client. Also this method is synchronized.
+   * send changed metric data to the frontend client.
    * @param metricClass class of the metric.
    * @param id id of the metric.
    */
-  public synchronized <T extends Metric> void triggerBroadcast(final Class<T> metricClass, final String id) {
+  public <T extends Metric> void triggerBroadcast(final Class<T> metricClass, final String id) {
+    triggerBroadcast(metricClass, Collections.singletonList(id));
+  }
+
+  /**
+   * Same as triggerBroadcast(), but broadcasts the changed data of multiple metrics of the same class at once.
+   * Nothing is serialized if there is no active WebSocket session.
+   * @param metricClass class of the metrics.
+   * @param ids ids of the metrics.
+   */
+  public <T extends Metric> void triggerBroadcast(final Class<T> metricClass, final Collection<String> ids) {
     final MetricBroadcaster metricBroadcaster = MetricBroadcaster.getInstance();
-    final ObjectMapper objectMapper = new ObjectMapper();
-    final T metric = getMetricWithId(metricClass, id);
-    final JsonFactory jsonFactory = new JsonFactory();
-    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    final JsonGenerator jsonGenerator;
+    if (!metricBroadcaster.hasSessions()) {
+      return;
+    }
+
+    final List<String> texts = new ArrayList<>(ids.size());
     try {
-      jsonGenerator = jsonFactory.createGenerator(stream, JsonEncoding.UTF8);
+      for (final String id : ids) {
+        final MetricKey key = getKey(metricClass, id);
+        final MetricEntry entry = getEntries(metricClass).get(key);
+        if (entry == null) {
+          // removed with the metrics of its job
+          continue;
+        }
+        final ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        node.put("metricType", metricClass.getSimpleName());
+        if (key.jobId != null) {
+          node.put("jobId", key.jobId);
+        }
+        node.set("data", entry.toJsonNode());
+        texts.add(OBJECT_MAPPER.writeValueAsString(node));
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+    metricBroadcaster.broadcast(texts);
+  }
 
-      jsonGenerator.setCodec(objectMapper);
+  /**
+   * The key of a stored metric: the id of the metric, and the id of its job if the metric belongs to a job.
+   */
+  private static final class MetricKey {
+    private final String jobId;
+    private final String id;
 
-      jsonGenerator.writeStartObject();
-      jsonGenerator.writeFieldName("metricType");
-      jsonGenerator.writeString(metricClass.getSimpleName());
+    private MetricKey(final String jobId, final String id) {
+      this.jobId = jobId;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final MetricKey that = (MetricKey) o;
+      return Objects.equals(jobId, that.jobId) && id.equals(that.id);
+    }
 
-      jsonGenerator.writeFieldName("data");
-      jsonGenerator.writeObject(metric);
-      jsonGenerator.writeEndObject();
+    @Override
+    public int hashCode() {
+      return Objects.hash(jobId, id);
+    }
 
-      jsonGenerator.close();
+    @Override
+    public String toString() {
+      return jobId == null ? id : jobId + "/" + id;
+    }
+  }
 
-      metricBroadcaster.broadcast(stream.toString());
-    } catch (final IOException e) {
-      throw new RuntimeException(e);
+  /**
+   * The keys of the metrics removed with the metrics of a job, by their classes.
+   */
+  private static final class Removal {
+    private final long version;
+    private final Map<Class, List<String>> keys;
+
+    private Removal(final long version, final Map<Class, List<String>> keys) {
+      this.version = version;
+      this.keys = keys;
+    }
+  }
+
+  /**
+   * A stored metric, with the version of its latest change and the cached JSON tree of that version.
+   */
+  private static final class MetricEntry {
+    private final Metric metric;
+    private final String jobId;
+    private long version = 0;
+    private long jsonNodeVersion = -1;
+    private JsonNode jsonNode = null;
+
+    private MetricEntry(final Metric metric, final String jobId) {
+      this.metric = metric;
+      this.jobId = jobId;
+    }
+
+    private synchronized long getVersion() {
+      return version;
+    }
+
+    private synchronized JsonNode toJsonNode() {
+      if (jsonNodeVersion != version || jsonNode == null) {
+        jsonNode = OBJECT_MAPPER.valueToTree(metric);
+        jsonNodeVersion = version;
+      }
+      return jsonNode;
     }
   }
 }
@@ -133,10 +133,11 @@ public final class PlanStateManager {
       LOG.info("Update Plan from {} to {}", physicalPlan.getPlanId(), physicalPlanToUpdate.getPlanId());
     }
     this.planState = new PlanState();
-    this.metricStore.getOrCreateMetric(JobMetric.class, planId).setStageDAG(physicalPlanToUpdate.getStageDAG());
-    this.metricStore.triggerBroadcast(JobMetric.class, planId);
     this.physicalPlan = physicalPlanToUpdate;
     this.planId = physicalPlanToUpdate.getPlanId();
+    this.metricStore.updateMetric(JobMetric.class, planId,
+        jobMetric -> jobMetric.setStageDAG(physicalPlanToUpdate.getStageDAG()));
+    this.metricStore.triggerBroadcast(JobMetric.class, planId);
     this.maxScheduleAttempt = maxScheduleAttemptToSet;
     initializeStates();
   }
@@ -300,9 +301,13 @@ public final class PlanStateManager {
     final StateMachine taskState = getTaskStateHelper(taskId).getStateMachine();
     LOG.debug("Task State Transition: id {}, from {} to {}",
       new Object[]{taskId, taskState.getCurrentState(), newTaskState});
-    metricStore.getOrCreateMetric(TaskMetric.class, taskId)
-      .addEvent((TaskState.State) taskState.getCurrentState(), newTaskState);
+    metricStore.updateMetric(TaskMetric.class, taskId,
+      taskMetric -> taskMetric.addEvent((TaskState.State) taskState.getCurrentState(), newTaskState));
     metricStore.triggerBroadcast(TaskMetric.class, taskId);
+    if (newTaskState.equals(TaskState.State.COMPLETE)) {
+      metricStore.updateMetric(JobMetric.class, planId,
+        jobMetric -> jobMetric.getNumCompletedTasks().record(System.currentTimeMillis(), 1));
+    }
 
     try {
       taskState.setState(newTaskState);
@@ -378,8 +383,8 @@ public final class PlanStateManager {
     // Change stage state
     final StateMachine stageStateMachine = stageIdToState.get(stageId).getStateMachine();
 
-    metricStore.getOrCreateMetric(StageMetric.class, stageId)
-      .addEvent(getStageState(stageId), newStageState);
+    metricStore.updateMetric(StageMetric.class, stageId,
+      stageMetric -> stageMetric.addEvent(getStageState(stageId), newStageState));
     metricStore.triggerBroadcast(StageMetric.class, stageId);
 
     LOG.debug("Stage State Transition: id {} from {} to {}",
@@ -407,8 +412,8 @@ public final class PlanStateManager {
    * @param newState of the plan.
    */
   private void onPlanStateChanged(final PlanState.State newState) {
-    metricStore.getOrCreateMetric(JobMetric.class, planId)
-      .addEvent((PlanState.State) planState.getStateMachine().getCurrentState(), newState);
+    metricStore.updateMetric(JobMetric.class, planId,
+      jobMetric -> jobMetric.addEvent((PlanState.State) planState.getStateMachine().getCurrentState(), newState));
     metricStore.triggerBroadcast(JobMetric.class, planId);
 
 
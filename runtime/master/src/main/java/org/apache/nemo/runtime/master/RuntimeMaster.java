@@ -19,6 +19,7 @@ import com.google.protobuf.ByteString;
 import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.exception.*;
 import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.MessageContext;
@@ -39,6 +40,7 @@ import org.apache.reef.driver.context.ActiveContext;
 import org.apache.reef.driver.evaluator.AllocatedEvaluator;
 import org.apache.reef.driver.evaluator.FailedEvaluator;
 import org.apache.reef.tang.Configuration;
+import org.apache.reef.tang.annotations.Parameter;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.ServletHandler;
 import org.slf4j.Logger;
@@ -94,6 +96,7 @@ public final class RuntimeMaster {
   private CountDownLatch metricCountDownLatch;
   // REST API server for web metric visualization ui.
   private final Server metricServer;
+  private final String metricDumpPath;
 
   @Inject
   private RuntimeMaster(final Scheduler scheduler,
@@ -102,7 +105,8 @@ public final class RuntimeMaster {
                         final MessageEnvironment masterMessageEnvironment,
                         final ClientRPC clientRPC,
                         final MetricManagerMaster metricManagerMaster,
-                        final PlanStateManager planStateManager) {
+                        final PlanStateManager planStateManager,
+                        @Parameter(JobConf.MetricDumpPath.class) final String metricDumpPath) {
     // We would like to use a single thread for runtime master operations
     // since the processing logic in master takes a very short amount of time
     // compared to the job completion times of executed jobs
@@ -132,6 +136,7 @@ public final class RuntimeMaster {
     this.objectMapper = new ObjectMapper();
     this.metricServer = startRestMetricServer();
     this.planStateManager = planStateManager;
+    this.metricDumpPath = metricDumpPath;
   }
 
   private Server startRestMetricServer() {
@@ -201,6 +206,18 @@ public final class RuntimeMaster {
       Thread.currentThread().interrupt();
     }
 
+    if (!metricDumpPath.isEmpty()) {
+      // Dump after the flushed metrics queued on the RuntimeMaster thread are processed.
+      try {
+        runtimeMasterThread.submit(() -> MetricStore.getStore().dumpAllMetricToFile(metricDumpPath)).get();
+      } catch (final InterruptedException e) {
+        LOG.warn("Dumping the metrics interrupted: " + e);
+        Thread.currentThread().interrupt();
+      } catch (final ExecutionException e) {
+        LOG.warn("Failed to dump the metrics to " + metricDumpPath, e);
+      }
+    }
+
     runtimeMasterThread.execute(() -> {
       scheduler.terminate();
       try {
@@ -381,11 +398,7 @@ public final class RuntimeMaster {
         ((BatchScheduler) scheduler).updateDynOptData(message.getDataSizeMetricMsg().getPartitionSizeList());
         break;
       case MetricMessageReceived:
-        final List<ControlMessage.Metric> metricList = message.getMetricMsg().getMetricList();
-        metricList.forEach(metric ->
-            metricMessageHandler.onMetricMessageReceived(
-                metric.getMetricType(), metric.getMetricId(),
-                metric.getMetricField(), metric.getMetricValue().toByteArray()));
+        metricMessageHandler.onMetricMessageReceived(message.getMetricMsg());
         break;
       case ExecutorDataCollected:
         final String serializedData = message.getDataCollected().getData();
@@ -397,6 +410,11 @@ public final class RuntimeMaster {
       case MetricFlushed:
         metricCountDownLatch.countDown();
         break;
+      case ExecutorLoad:
+        final ControlMessage.ExecutorLoadMsg executorLoadMsg = message.getExecutorLoadMsg();
+        scheduler.onExecutorLoadReport(executorLoadMsg.getExecutorId(),
+            executorLoadMsg.getQueueDepth(), executorLoadMsg.getQueueWaitMs());
+        break;
       default:
         throw new IllegalMessageException(
             new Exception("This message should not be received by Master :" + message.getType()));
@@ -150,9 +150,10 @@ public final class ContainerManager {
         + ") allocated, will be used for [" + executorId + "]");
     pendingContextIdToResourceSpec.put(executorId, resourceSpecification);
 
-    // Poison handling
+    // Poison handling and task slots
     final Configuration poisonConfiguration = Tang.Factory.getTang().newConfigurationBuilder()
         .bindNamedParameter(JobConf.ExecutorPosionSec.class, String.valueOf(resourceSpecification.getPoisonSec()))
+        .bindNamedParameter(JobConf.ExecutorCapacity.class, String.valueOf(resourceSpecification.getCapacity()))
         .build();
 
     allocatedContainer.submitContext(Configurations.merge(executorConfiguration, poisonConfiguration));
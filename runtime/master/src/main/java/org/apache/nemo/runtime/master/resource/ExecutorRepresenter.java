@@ -21,8 +21,9 @@ import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.MessageSender;
+import org.apache.nemo.runtime.common.plan.StageTemplate;
 import org.apache.nemo.runtime.common.plan.Task;
-import org.apache.commons.lang3.SerializationUtils;
+import org.apache.nemo.runtime.common.plan.TaskCodec;
 import org.apache.reef.driver.context.ActiveContext;
 
 import javax.annotation.concurrent.NotThreadSafe;
@@ -51,6 +52,9 @@ public final class ExecutorRepresenter {
   private final Map<Task, Integer> runningTaskToAttempt;
   private final Set<Task> completeTasks;
   private final Set<Task> failedTasks;
+  private final Map<String, StageTemplate> sentStageTemplates;
+  private int reportedQueueDepth;
+  private long reportedQueueWaitMs;
   private final MessageSender<ControlMessage.Message> messageSender;
   private final ActiveContext activeContext;
   private final ExecutorService serializationExecutorService;
@@ -79,6 +83,9 @@ public final class ExecutorRepresenter {
     this.runningTaskToAttempt = new HashMap<>();
     this.completeTasks = new HashSet<>();
     this.failedTasks = new HashSet<>();
+    this.sentStageTemplates = new HashMap<>();
+    this.reportedQueueDepth = 0;
+    this.reportedQueueWaitMs = 0;
     this.activeContext = activeContext;
     this.serializationExecutorService = serializationExecutorService;
     this.nodeName = nodeName;
@@ -99,6 +106,9 @@ public final class ExecutorRepresenter {
 
   /**
    * Marks the Task as running, and sends scheduling message to the executor.
+   * The {@link StageTemplate} of the task is attached only to the first task of the stage sent to this executor.
+   * The templates which are outdated by the template of the task are evicted from the executor,
+   * once no task running in the executor uses them.
    * @param task
    */
   public void onTaskScheduled(final Task task) {
@@ -106,21 +116,58 @@ public final class ExecutorRepresenter {
         ? runningComplyingTasks : runningNonComplyingTasks).put(task.getTaskId(), task);
     runningTaskToAttempt.put(task, task.getAttemptIdx());
     failedTasks.remove(task);
+    final StageTemplate stageTemplate = task.getStageTemplate();
+    final boolean sendStageTemplate =
+        sentStageTemplates.putIfAbsent(stageTemplate.getTemplateId(), stageTemplate) == null;
+    final List<String> evictedStageTemplateIds = evictOutdatedStageTemplates(stageTemplate);
     serializationExecutorService.submit(() -> {
-      final byte[] serialized = SerializationUtils.serialize(task);
+      final ControlMessage.ScheduleTaskMsg.Builder scheduleTaskMsg = ControlMessage.ScheduleTaskMsg.newBuilder()
+          .setTaskId(task.getTaskId())
+          .setStageTemplateId(stageTemplate.getTemplateId())
+          .setIrVertexIdToReadable(ByteString.copyFrom(TaskCodec.encodeReadables(task.getIrVertexIdToReadable())))
+          .addAllEvictedStageTemplateIds(evictedStageTemplateIds);
+      if (sendStageTemplate) {
+        scheduleTaskMsg.setStageTemplate(ByteString.copyFrom(stageTemplate.getSerializedTemplate()));
+      }
       sendControlMessage(
           ControlMessage.Message.newBuilder()
               .setId(RuntimeIdManager.generateMessageId())
               .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
               .setType(ControlMessage.MessageType.ScheduleTask)
-              .setScheduleTaskMsg(
-                  ControlMessage.ScheduleTaskMsg.newBuilder()
-                      .setTask(ByteString.copyFrom(serialized))
-                      .build())
+              .setScheduleTaskMsg(scheduleTaskMsg.build())
               .build());
     });
   }
 
+  /**
+   * Forgets the templates sent to this executor which are outdated by the given template
+   * and not used by any running task.
+   * The tasks of an outdated template are not scheduled anymore, and the messages of the tasks which are not running
+   * have reached the executor, as the executor has reported their completion or failure.
+   * Therefore, the executor can safely evict the templates.
+   *
+   * @param stageTemplate the template of the task being scheduled.
+   * @return the ids of the templates to evict from the executor.
+   */
+  private List<String> evictOutdatedStageTemplates(final StageTemplate stageTemplate) {
+    if (sentStageTemplates.values().stream().noneMatch(sent -> sent.isOutdatedBy(stageTemplate))) {
+      return Collections.emptyList();
+    }
+    final Set<String> templateIdsInUse = Stream.concat(runningComplyingTasks.values().stream(),
+        runningNonComplyingTasks.values().stream())
+        .map(runningTask -> runningTask.getStageTemplate().getTemplateId())
+        .collect(Collectors.toSet());
+    final List<String> evictedStageTemplateIds = new ArrayList<>();
+    sentStageTemplates.values().removeIf(sent -> {
+      if (sent.isOutdatedBy(stageTemplate) && !templateIdsInUse.contains(sent.getTemplateId())) {
+        evictedStageTemplateIds.add(sent.getTemplateId());
+        return true;
+      }
+      return false;
+    });
+    return evictedStageTemplateIds;
+  }
+
   /**
    * Sends control message to the executor.
    * @param message Message object to send
@@ -156,6 +203,30 @@ public final class ExecutorRepresenter {
     return resourceSpecification.getCapacity();
   }
 
+  /**
+   * Updates the load of the task queue reported by the executor.
+   * @param queueDepth  the number of tasks waiting for a slot.
+   * @param queueWaitMs the recent average time tasks waited for a slot.
+   */
+  public void onLoadReported(final int queueDepth, final long queueWaitMs) {
+    this.reportedQueueDepth = queueDepth;
+    this.reportedQueueWaitMs = queueWaitMs;
+  }
+
+  /**
+   * @return the number of tasks waiting for a slot in the executor, as last reported by the executor.
+   */
+  public int getReportedQueueDepth() {
+    return reportedQueueDepth;
+  }
+
+  /**
+   * @return the recent average time tasks waited for a slot in the executor, as last reported by the executor.
+   */
+  public long getReportedQueueWaitMs() {
+    return reportedQueueWaitMs;
+  }
+
   /**
    * @return the current snapshot of set of Tasks that are running in this executor.
    */
@@ -81,6 +81,13 @@ public final class BatchScheduler implements Scheduler {
   private List<List<Stage>> sortedScheduleGroups;
   private List<DynOptDataHandler> dynOptDataHandlers;
 
+  /**
+   * The {@link StageTemplate}s built for the current plan, which are shared by all tasks (and attempts) of a stage.
+   * The version is bumped on every plan update so that executors never reuse a template of an outdated stage.
+   */
+  private final Map<String, StageTemplate> stageIdToTemplate;
+  private int planVersion;
+
   @Inject
   private BatchScheduler(final TaskDispatcher taskDispatcher,
                          final PendingTaskCollectionPointer pendingTaskCollectionPointer,
@@ -101,6 +108,8 @@ public final class BatchScheduler implements Scheduler {
     this.executorRegistry = executorRegistry;
     this.planStateManager = planStateManager;
     this.dynOptDataHandlers = new ArrayList<>();
+    this.stageIdToTemplate = new HashMap<>();
+    this.planVersion = 0;
     dynOptDataHandlers.add(new DataSkewDynOptDataHandler());
   }
 
@@ -150,6 +159,8 @@ public final class BatchScheduler implements Scheduler {
   private void updatePlan(final PhysicalPlan newPhysicalPlan,
                           final int maxScheduleAttempt) {
     planStateManager.updatePlan(newPhysicalPlan, maxScheduleAttempt);
+    stageIdToTemplate.clear();
+    planVersion++;
     this.sortedScheduleGroups = newPhysicalPlan.getStageDAG().getVertices().stream()
       .collect(Collectors.groupingBy(Stage::getScheduleGroup))
       .entrySet().stream()
@@ -231,6 +242,14 @@ public final class BatchScheduler implements Scheduler {
     }
   }
 
+  @Override
+  public void onExecutorLoadReport(final String executorId, final int queueDepth, final long queueWaitMs) {
+    executorRegistry.updateExecutor(executorId, (executor, state) -> {
+      executor.onLoadReported(queueDepth, queueWaitMs);
+      return Pair.of(executor, state);
+    });
+  }
+
   @Override
   public void onSpeculativeExecutionCheck() {
     MutableBoolean isNumOfCloneChanged = new MutableBoolean(false);
@@ -374,10 +393,17 @@ public final class BatchScheduler implements Scheduler {
       return Collections.emptyList();
     }
 
-    final List<StageEdge> stageIncomingEdges =
-      planStateManager.getPhysicalPlan().getStageDAG().getIncomingEdgesOf(stageToSchedule.getId());
-    final List<StageEdge> stageOutgoingEdges =
-      planStateManager.getPhysicalPlan().getStageDAG().getOutgoingEdgesOf(stageToSchedule.getId());
+    final StageTemplate stageTemplate = stageIdToTemplate.computeIfAbsent(stageToSchedule.getId(), stageId -> {
+      final PhysicalPlan physicalPlan = planStateManager.getPhysicalPlan();
+      return new StageTemplate(
+        physicalPlan.getPlanId() + "/" + stageId + "/v" + planVersion,
+        physicalPlan.getPlanId(),
+        planVersion,
+        stageToSchedule.getExecutionProperties(),
+        stageToSchedule.getSerializedIRDAG(),
+        physicalPlan.getStageDAG().getIncomingEdgesOf(stageId),
+        physicalPlan.getStageDAG().getOutgoingEdgesOf(stageId));
+    });
 
     // Create and return tasks.
     final List<Map<String, Readable>> vertexIdToReadables = stageToSchedule.getVertexIdToReadables();
@@ -388,14 +414,7 @@ public final class BatchScheduler implements Scheduler {
       final Set<String> blockIds = getOutputBlockIds(taskId);
       blockManagerMaster.onProducerTaskScheduled(taskId, blockIds);
       final int taskIdx = RuntimeIdManager.getIndexFromTaskId(taskId);
-      tasks.add(new Task(
-        planStateManager.getPhysicalPlan().getPlanId(),
-        taskId,
-        stageToSchedule.getExecutionProperties(),
-        stageToSchedule.getSerializedIRDAG(),
-        stageIncomingEdges,
-        stageOutgoingEdges,
-        vertexIdToReadables.get(taskIdx)));
+      tasks.add(new Task(taskId, stageTemplate, vertexIdToReadables.get(taskIdx)));
     });
     return tasks;
   }
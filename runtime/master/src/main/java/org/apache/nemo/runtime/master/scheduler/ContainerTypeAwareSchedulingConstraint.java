@@ -21,12 +21,14 @@ import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
 
 import javax.inject.Inject;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * This policy find executors which has corresponding container type.
  */
 @AssociatedProperty(ResourcePriorityProperty.class)
-public final class ContainerTypeAwareSchedulingConstraint implements SchedulingConstraint {
+public final class ContainerTypeAwareSchedulingConstraint implements IndexedSchedulingConstraint {
 
   @Inject
   private ContainerTypeAwareSchedulingConstraint() {
@@ -39,4 +41,13 @@ public final class ContainerTypeAwareSchedulingConstraint implements SchedulingC
     return executorPlacementPropertyValue.equals(ResourcePriorityProperty.NONE) ? true
         : executor.getContainerType().equals(executorPlacementPropertyValue);
   }
+
+  @Override
+  public Optional<Set<ExecutorRepresenter>> lookUpSchedulableExecutors(final ExecutorRegistry executorRegistry,
+                                                                      final Task task) {
+    final String executorPlacementPropertyValue = task.getPropertyValue(ResourcePriorityProperty.class)
+        .orElse(ResourcePriorityProperty.NONE);
+    return executorPlacementPropertyValue.equals(ResourcePriorityProperty.NONE) ? Optional.empty()
+        : Optional.of(executorRegistry.getRunningExecutorsOfContainerType(executorPlacementPropertyValue));
+  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupPropertyValue;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.plan.StageEdge;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.master.BlockManagerMaster;
+import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
+import org.apache.reef.annotations.audience.DriverSide;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import java.util.*;
+
+/**
+ * This policy places a task reading shuffled data on the executor which holds the most bytes of its key range,
+ * among the executors which are not loaded more than the others.
+ * Tasks without shuffled input, or whose input is not held by any of the candidates,
+ * are placed by {@link MinOccupancyFirstSchedulingPolicy}.
+ */
+@ThreadSafe
+@DriverSide
+public final class DataLocalityAwareSchedulingPolicy implements SchedulingPolicy {
+  private final BlockManagerMaster blockManagerMaster;
+  private final MinOccupancyFirstSchedulingPolicy minOccupancyFirstSchedulingPolicy;
+
+  @VisibleForTesting
+  @Inject
+  public DataLocalityAwareSchedulingPolicy(final BlockManagerMaster blockManagerMaster,
+                                           final MinOccupancyFirstSchedulingPolicy minOccupancyFirstSchedulingPolicy) {
+    this.blockManagerMaster = blockManagerMaster;
+    this.minOccupancyFirstSchedulingPolicy = minOccupancyFirstSchedulingPolicy;
+  }
+
+  @Override
+  public ExecutorRepresenter selectExecutor(final Collection<ExecutorRepresenter> executors, final Task task) {
+    final Map<String, Long> executorIdToBytes = getShuffledBytesPerExecutor(task);
+    if (executorIdToBytes.isEmpty()) {
+      return minOccupancyFirstSchedulingPolicy.selectExecutor(executors, task);
+    }
+
+    // Data locality must not pile tasks up on a few executors: only the executors with an idle slot,
+    // or the least occupied ones when every executor is busy, are considered.
+    final int minOccupancy = executors.stream().mapToInt(ExecutorRepresenter::getNumOfRunningTasks).min()
+        .orElseThrow(() -> new RuntimeException("Cannot find min occupancy"));
+    return executors.stream()
+        .filter(executor -> executor.getNumOfRunningTasks() < executor.getExecutorCapacity()
+            || executor.getNumOfRunningTasks() == minOccupancy)
+        .filter(executor -> executorIdToBytes.containsKey(executor.getExecutorId()))
+        .max(Comparator.comparingLong(executor -> executorIdToBytes.get(executor.getExecutorId())))
+        .orElseGet(() -> minOccupancyFirstSchedulingPolicy.selectExecutor(executors, task));
+  }
+
+  /**
+   * @param task the task to schedule.
+   * @return the map between the executor ids and the bytes of the shuffled input of the task they hold.
+   */
+  private Map<String, Long> getShuffledBytesPerExecutor(final Task task) {
+    final int taskIdx = RuntimeIdManager.getIndexFromTaskId(task.getTaskId());
+    final Map<String, Long> executorIdToBytes = new HashMap<>();
+    for (final StageEdge inEdge : task.getTaskIncomingEdges()) {
+      if (!CommunicationPatternProperty.Value.Shuffle.equals(inEdge.getDataCommunicationPattern())
+          || inEdge.getTaskIdxToKeyRange() == null) {
+        continue;
+      }
+      final KeyRange<Integer> keyRange = inEdge.getTaskIdxToKeyRange().get(taskIdx);
+      if (keyRange == null) {
+        continue;
+      }
+      blockManagerMaster.getPartitionBytesPerLocation(getBlockEdgeId(inEdge), keyRange)
+          .forEach((location, bytes) -> executorIdToBytes.merge(location, bytes, Long::sum));
+    }
+    return executorIdToBytes;
+  }
+
+  /**
+   * @param edge the incoming edge.
+   * @return the id of the edge under which the blocks of the edge are written.
+   */
+  private static String getBlockEdgeId(final StageEdge edge) {
+    final Optional<DuplicateEdgeGroupPropertyValue> duplicateDataProperty =
+        edge.getPropertyValue(DuplicateEdgeGroupProperty.class);
+    if (!duplicateDataProperty.isPresent() || duplicateDataProperty.get().getGroupSize() <= 1) {
+      return edge.getId();
+    }
+    return duplicateDataProperty.get().getRepresentativeEdgeId();
+  }
+}
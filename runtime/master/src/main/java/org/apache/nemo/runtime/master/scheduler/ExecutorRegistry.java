@@ -26,11 +26,13 @@ import javax.inject.Inject;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * (WARNING) This class must be thread-safe.
  * Maintains map between executor id and {@link ExecutorRepresenter}.
+ * The running executors are also indexed by container type, node, and slot availability,
+ * so that {@link IndexedSchedulingConstraint}s can look up the executors for a task without scanning all of them.
+ * The indexes are refreshed whenever an executor is registered or updated.
  */
 @DriverSide
 @ThreadSafe
@@ -46,9 +48,18 @@ public final class ExecutorRegistry {
 
   private final Map<String, Pair<ExecutorRepresenter, ExecutorState>> executors;
 
+  private final Set<ExecutorRepresenter> runningExecutors;
+  private final Set<ExecutorRepresenter> runningExecutorsWithFreeSlots;
+  private final Map<String, Set<ExecutorRepresenter>> runningExecutorsByContainerType;
+  private final Map<String, Set<ExecutorRepresenter>> runningExecutorsByNodeName;
+
   @Inject
   private ExecutorRegistry() {
     this.executors = new HashMap<>();
+    this.runningExecutors = new HashSet<>();
+    this.runningExecutorsWithFreeSlots = new HashSet<>();
+    this.runningExecutorsByContainerType = new HashMap<>();
+    this.runningExecutorsByNodeName = new HashMap<>();
   }
 
   synchronized void registerExecutor(final ExecutorRepresenter executor) {
@@ -57,11 +68,17 @@ public final class ExecutorRegistry {
       throw new IllegalArgumentException("Duplicate executor: " + executor.toString());
     } else {
       executors.put(executorId, Pair.of(executor, ExecutorState.RUNNING));
+      index(executor, ExecutorState.RUNNING);
     }
   }
 
+  /**
+   * Views the running executors.
+   * The set is read-only and reflects later updates, so it should not be used after the consumer returns.
+   * @param consumer of the running executors.
+   */
   public synchronized void viewExecutors(final Consumer<Set<ExecutorRepresenter>> consumer) {
-    consumer.accept(getRunningExecutors());
+    consumer.accept(Collections.unmodifiableSet(runningExecutors));
   }
 
   synchronized void updateExecutor(
@@ -71,13 +88,83 @@ public final class ExecutorRegistry {
     if (pair == null) {
       throw new IllegalArgumentException("Unknown executor id " + executorId);
     } else {
-      executors.put(executorId, updater.apply(pair.left(), pair.right()));
+      final Pair<ExecutorRepresenter, ExecutorState> updated = updater.apply(pair.left(), pair.right());
+      deindex(pair.left());
+      executors.put(executorId, updated);
+      index(updated.left(), updated.right());
+    }
+  }
+
+  /**
+   * @return the running executors whose complying running tasks are fewer than their capacity.
+   */
+  synchronized Set<ExecutorRepresenter> getRunningExecutorsWithFreeSlots() {
+    return Collections.unmodifiableSet(runningExecutorsWithFreeSlots);
+  }
+
+  /**
+   * @param containerType the type of the container.
+   * @return the running executors of the container type.
+   */
+  synchronized Set<ExecutorRepresenter> getRunningExecutorsOfContainerType(final String containerType) {
+    return Collections.unmodifiableSet(runningExecutorsByContainerType.getOrDefault(containerType,
+        Collections.emptySet()));
+  }
+
+  /**
+   * @param nodeName the name of the node.
+   * @return the running executors on the node.
+   */
+  synchronized Set<ExecutorRepresenter> getRunningExecutorsOnNode(final String nodeName) {
+    return Collections.unmodifiableSet(runningExecutorsByNodeName.getOrDefault(nodeName, Collections.emptySet()));
+  }
+
+  /**
+   * @param executorId the id of the executor.
+   * @return the executor if it is running, or {@link Optional#empty()} otherwise.
+   */
+  synchronized Optional<ExecutorRepresenter> getRunningExecutor(final String executorId) {
+    final Pair<ExecutorRepresenter, ExecutorState> pair = executors.get(executorId);
+    return pair != null && pair.right().equals(ExecutorState.RUNNING)
+        ? Optional.of(pair.left()) : Optional.empty();
+  }
+
+  private void index(final ExecutorRepresenter executor, final ExecutorState state) {
+    if (!state.equals(ExecutorState.RUNNING)) {
+      return;
+    }
+    runningExecutors.add(executor);
+    runningExecutorsByContainerType.computeIfAbsent(executor.getContainerType(), type -> new HashSet<>())
+        .add(executor);
+    runningExecutorsByNodeName.computeIfAbsent(executor.getNodeName(), node -> new HashSet<>()).add(executor);
+    if (executor.getNumOfComplyingRunningTasks() < executor.getExecutorCapacity()) {
+      runningExecutorsWithFreeSlots.add(executor);
+    }
+  }
+
+  private void deindex(final ExecutorRepresenter executor) {
+    runningExecutors.remove(executor);
+    runningExecutorsWithFreeSlots.remove(executor);
+    removeFromIndex(runningExecutorsByContainerType, executor.getContainerType(), executor);
+    removeFromIndex(runningExecutorsByNodeName, executor.getNodeName(), executor);
+  }
+
+  private static void removeFromIndex(final Map<String, Set<ExecutorRepresenter>> index,
+                                      final String key,
+                                      final ExecutorRepresenter executor) {
+    final Set<ExecutorRepresenter> indexedExecutors = index.get(key);
+    if (indexedExecutors != null) {
+      indexedExecutors.remove(executor);
+      if (indexedExecutors.isEmpty()) {
+        index.remove(key);
+      }
     }
   }
 
   synchronized void terminate() {
     for (final ExecutorRepresenter executor : getRunningExecutors()) {
       executor.shutDown();
+      deindex(executor);
       executors.put(executor.getExecutorId(), Pair.of(executor, ExecutorState.TERMINATED));
     }
   }
@@ -100,11 +187,7 @@ public final class ExecutorRegistry {
   }
 
   private Set<ExecutorRepresenter> getRunningExecutors() {
-    return executors.values()
-        .stream()
-        .filter(pair -> pair.right().equals(ExecutorState.RUNNING))
-        .map(Pair::left)
-        .collect(Collectors.toSet());
+    return new HashSet<>(runningExecutors);
   }
 
   @Override
@@ -21,12 +21,14 @@ import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
 
 import javax.inject.Inject;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * This policy finds executor that has free slot for a Task.
  */
 @AssociatedProperty(ResourceSlotProperty.class)
-public final class FreeSlotSchedulingConstraint implements SchedulingConstraint {
+public final class FreeSlotSchedulingConstraint implements IndexedSchedulingConstraint {
 
   @Inject
   private FreeSlotSchedulingConstraint() {
@@ -40,4 +42,14 @@ public final class FreeSlotSchedulingConstraint implements SchedulingConstraint
 
     return executor.getNumOfComplyingRunningTasks() < executor.getExecutorCapacity();
   }
+
+  @Override
+  public Optional<Set<ExecutorRepresenter>> lookUpSchedulableExecutors(final ExecutorRegistry executorRegistry,
+                                                                      final Task task) {
+    if (!task.getPropertyValue(ResourceSlotProperty.class).orElse(false)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(executorRegistry.getRunningExecutorsWithFreeSlots());
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.scheduler;
+
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
+import org.apache.reef.annotations.audience.DriverSide;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A {@link SchedulingConstraint} whose schedulable executors can be looked up from the indexes of
+ * {@link ExecutorRegistry}, instead of being tested one by one.
+ */
+@DriverSide
+@ThreadSafe
+public interface IndexedSchedulingConstraint extends SchedulingConstraint {
+  /**
+   * Looks up the running executors that satisfy this constraint.
+   * Must be called while viewing the executors with {@link ExecutorRegistry#viewExecutors}.
+   *
+   * @param executorRegistry the registry to look up.
+   * @param task             the task to schedule.
+   * @return the (read-only) set of executors satisfying this constraint,
+   *         or {@link Optional#empty()} if this constraint does not restrict the task.
+   */
+  Optional<Set<ExecutorRepresenter>> lookUpSchedulableExecutors(ExecutorRegistry executorRegistry, Task task);
+}
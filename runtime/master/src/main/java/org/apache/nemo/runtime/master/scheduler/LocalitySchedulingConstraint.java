@@ -41,7 +41,7 @@ import java.util.stream.Collectors;
 @ThreadSafe
 @DriverSide
 @AssociatedProperty(ResourceLocalityProperty.class)
-public final class LocalitySchedulingConstraint implements SchedulingConstraint {
+public final class LocalitySchedulingConstraint implements IndexedSchedulingConstraint {
   private final BlockManagerMaster blockManagerMaster;
 
   @Inject
@@ -98,19 +98,25 @@ public final class LocalitySchedulingConstraint implements SchedulingConstraint
     return new HashSet<>(sourceLocations);
   }
 
+  /**
+   * @param task the task to schedule.
+   * @return the names of the nodes where the source data of the task resides, empty if unknown.
+   */
+  private static Set<String> getSourceDataLocations(final Task task) {
+    try {
+      return getSourceDataLocations(task.getIrVertexIdToReadable().values());
+    } catch (final UnsupportedOperationException e) {
+      return Collections.emptySet();
+    } catch (final Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public boolean testSchedulability(final ExecutorRepresenter executor, final Task task) {
     if (task.getTaskIncomingEdges().isEmpty()) {
       // Source task
-      final Set<String> sourceLocations;
-      try {
-        sourceLocations = getSourceDataLocations(task.getIrVertexIdToReadable().values());
-      } catch (final UnsupportedOperationException e) {
-        return true;
-      } catch (final Exception e) {
-        throw new RuntimeException(e);
-      }
-
+      final Set<String> sourceLocations = getSourceDataLocations(task);
       if (sourceLocations.size() == 0) {
         return true;
       }
@@ -128,4 +134,28 @@ public final class LocalitySchedulingConstraint implements SchedulingConstraint
       }
     }
   }
+
+  @Override
+  public Optional<Set<ExecutorRepresenter>> lookUpSchedulableExecutors(final ExecutorRegistry executorRegistry,
+                                                                      final Task task) {
+    final Set<ExecutorRepresenter> schedulableExecutors = new HashSet<>();
+    if (task.getTaskIncomingEdges().isEmpty()) {
+      // Source task
+      final Set<String> sourceLocations = getSourceDataLocations(task);
+      if (sourceLocations.isEmpty()) {
+        return Optional.empty();
+      }
+      sourceLocations.forEach(location ->
+          schedulableExecutors.addAll(executorRegistry.getRunningExecutorsOnNode(location)));
+    } else {
+      // Non-source task.
+      final List<String> intermediateLocations = getIntermediateDataLocations(task);
+      if (intermediateLocations.isEmpty()) {
+        return Optional.empty();
+      }
+      intermediateLocations.forEach(executorId ->
+          executorRegistry.getRunningExecutor(executorId).ifPresent(schedulableExecutors::add));
+    }
+    return Optional.of(schedulableExecutors);
+  }
 }
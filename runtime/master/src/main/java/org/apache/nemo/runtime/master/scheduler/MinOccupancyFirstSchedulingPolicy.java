@@ -25,6 +25,7 @@ import java.util.*;
 
 /**
  * This policy chooses a set of Executors, on which have minimum running Tasks.
+ * Ties are broken by the queueing delay the executors reported, so that tasks go to the executor draining faster.
  */
 @ThreadSafe
 @DriverSide
@@ -47,7 +48,8 @@ public final class MinOccupancyFirstSchedulingPolicy implements SchedulingPolicy
 
     return executors.stream()
         .filter(executor -> executor.getNumOfRunningTasks() == minOccupancy.getAsInt())
-        .findFirst()
+        .min(Comparator.comparingLong(ExecutorRepresenter::getReportedQueueWaitMs)
+            .thenComparingInt(ExecutorRepresenter::getReportedQueueDepth))
         .orElseThrow(() -> new RuntimeException("No such executor"));
   }
 }
@@ -28,7 +28,7 @@ import java.util.*;
  * This constraint is to follow {@link ResourceSiteProperty}.
  */
 @AssociatedProperty(ResourceSiteProperty.class)
-public final class NodeShareSchedulingConstraint implements SchedulingConstraint {
+public final class NodeShareSchedulingConstraint implements IndexedSchedulingConstraint {
 
   @Inject
   private NodeShareSchedulingConstraint() {
@@ -62,4 +62,20 @@ public final class NodeShareSchedulingConstraint implements SchedulingConstraint
       throw new RuntimeException(String.format("Cannot schedule %s", task.getTaskId(), e));
     }
   }
+
+  @Override
+  public Optional<Set<ExecutorRepresenter>> lookUpSchedulableExecutors(final ExecutorRegistry executorRegistry,
+                                                                      final Task task) {
+    final Map<String, Integer> propertyValue = task.getPropertyValue(ResourceSiteProperty.class)
+        .orElseThrow(() -> new RuntimeException("ResourceSiteProperty expected"));
+    if (propertyValue.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(executorRegistry.getRunningExecutorsOnNode(
+          getNodeName(propertyValue, RuntimeIdManager.getIndexFromTaskId(task.getTaskId()))));
+    } catch (final IllegalStateException e) {
+      throw new RuntimeException(String.format("Cannot schedule %s", task.getTaskId(), e));
+    }
+  }
 }
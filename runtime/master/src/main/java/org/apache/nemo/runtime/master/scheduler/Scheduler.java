@@ -80,6 +80,15 @@ public interface Scheduler {
                                      @Nullable String taskPutOnHold,
                                      TaskState.RecoverableTaskFailureCause failureCause);
 
+  /**
+   * Called when an executor reports the load of its task queue.
+   *
+   * @param executorId  of the executor.
+   * @param queueDepth  the number of tasks waiting for a slot in the executor.
+   * @param queueWaitMs the recent average time tasks waited for a slot in the executor.
+   */
+  void onExecutorLoadReport(String executorId, int queueDepth, long queueWaitMs);
+
   /**
    * Called to check for speculative execution.
    */
@@ -15,6 +15,7 @@
  */
 package org.apache.nemo.runtime.master.scheduler;
 
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.nemo.runtime.master.PlanStateManager;
@@ -113,15 +114,26 @@ final class TaskDispatcher {
       }
 
       executorRegistry.viewExecutors(executors -> {
+        // Look up the executors from the indexes first, and then test only the remaining constraints one by one.
         final MutableObject<Set<ExecutorRepresenter>> candidateExecutors = new MutableObject<>(executors);
+        final List<SchedulingConstraint> constraintsToTest = new ArrayList<>();
         task.getExecutionProperties().forEachProperties(property -> {
           final Optional<SchedulingConstraint> constraint = schedulingConstraintRegistry.get(property.getClass());
-          if (constraint.isPresent() && !candidateExecutors.getValue().isEmpty()) {
-            candidateExecutors.setValue(candidateExecutors.getValue().stream()
-                .filter(e -> constraint.get().testSchedulability(e, task))
-                .collect(Collectors.toSet()));
+          if (!constraint.isPresent() || candidateExecutors.getValue().isEmpty()) {
+            return;
+          }
+          if (constraint.get() instanceof IndexedSchedulingConstraint) {
+            ((IndexedSchedulingConstraint) constraint.get()).lookUpSchedulableExecutors(executorRegistry, task)
+                .ifPresent(found -> candidateExecutors.setValue(intersect(candidateExecutors.getValue(), found)));
+          } else {
+            constraintsToTest.add(constraint.get());
           }
         });
+        if (!constraintsToTest.isEmpty() && !candidateExecutors.getValue().isEmpty()) {
+          candidateExecutors.setValue(candidateExecutors.getValue().stream()
+              .filter(e -> constraintsToTest.stream().allMatch(constraint -> constraint.testSchedulability(e, task)))
+              .collect(Collectors.toSet()));
+        }
         if (!candidateExecutors.getValue().isEmpty()) {
           // Select executor
           final ExecutorRepresenter selectedExecutor
@@ -130,8 +142,11 @@ final class TaskDispatcher {
           planStateManager.onTaskStateChanged(task.getTaskId(), TaskState.State.EXECUTING);
 
           LOG.info("{} scheduled to {}", task.getTaskId(), selectedExecutor.getExecutorId());
-          // send the task
-          selectedExecutor.onTaskScheduled(task);
+          // send the task, and refresh the indexes for the slot it takes
+          executorRegistry.updateExecutor(selectedExecutor.getExecutorId(), (executor, state) -> {
+            executor.onTaskScheduled(task);
+            return Pair.of(executor, state);
+          });
         } else {
           couldNotSchedule.add(task);
         }
@@ -145,6 +160,25 @@ final class TaskDispatcher {
     }
   }
 
+  /**
+   * @param executors         a set of executors.
+   * @param executorsToRetain another set of executors.
+   * @return the executors in both sets.
+   */
+  private static Set<ExecutorRepresenter> intersect(final Set<ExecutorRepresenter> executors,
+                                                    final Set<ExecutorRepresenter> executorsToRetain) {
+    final Set<ExecutorRepresenter> smaller = executors.size() <= executorsToRetain.size()
+        ? executors : executorsToRetain;
+    final Set<ExecutorRepresenter> larger = smaller == executors ? executorsToRetain : executors;
+    final Set<ExecutorRepresenter> intersection = new HashSet<>();
+    for (final ExecutorRepresenter executor : smaller) {
+      if (larger.contains(executor)) {
+        intersection.add(executor);
+      }
+    }
+    return intersection;
+  }
+
   /**
    * Signals to the condition on executor slot availability.
    */
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.servlet;
+
+import org.apache.nemo.runtime.common.metric.Metric;
+import org.apache.nemo.runtime.master.MetricStore;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet which handles the requests for the metrics of a class.
+ * The "id" parameter selects a single metric, and the "since" parameter selects the metrics changed after
+ * the version returned by a previous request. Without parameters, all metrics of the class are returned.
+ */
+abstract class MetricQueryServlet extends HttpServlet {
+  private final Class<? extends Metric> metricClass;
+
+  MetricQueryServlet(final Class<? extends Metric> metricClass) {
+    this.metricClass = metricClass;
+  }
+
+  @Override
+  protected final void doGet(final HttpServletRequest request, final HttpServletResponse response)
+          throws IOException {
+    final MetricStore metricStore = MetricStore.getStore();
+    final String id = request.getParameter("id");
+    final String sinceVersion = request.getParameter("since");
+    final String json;
+    try {
+      if (id != null) {
+        json = metricStore.dumpMetricToJson(metricClass, id);
+      } else if (sinceVersion != null) {
+        json = metricStore.dumpChangedMetricToJson(metricClass, Long.parseLong(sinceVersion));
+      } else {
+        json = metricStore.dumpMetricToJson(metricClass);
+      }
+    } catch (final NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid version: " + sinceVersion);
+      return;
+    }
+    response.setContentType("application/json");
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.getWriter().println(json);
+  }
+}
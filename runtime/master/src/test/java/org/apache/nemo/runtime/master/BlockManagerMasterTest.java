@@ -15,10 +15,15 @@
  */
 package org.apache.nemo.runtime.master;
 
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.ir.IdManager;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.exception.AbsentBlockException;
+import org.apache.nemo.runtime.common.message.MessageContext;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.apache.nemo.runtime.common.message.MessageListener;
 import org.apache.nemo.runtime.common.message.local.LocalMessageDispatcher;
 import org.apache.nemo.runtime.common.message.local.LocalMessageEnvironment;
 import org.apache.nemo.runtime.common.state.BlockState;
@@ -26,12 +31,19 @@ import org.apache.reef.tang.Injector;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -40,11 +52,14 @@ import static org.junit.Assert.assertTrue;
 public final class BlockManagerMasterTest {
   private final static int FIRST_ATTEMPT = 0;
   private final static int SECOND_ATTEMPT = 1;
+  private final static int PUSH_WAIT_TIME_MS = 1000;
+  private Injector dispatcherInjector;
   private BlockManagerMaster blockManagerMaster;
 
   @Before
   public void setUp() throws Exception {
-    final Injector injector = LocalMessageEnvironment.forkInjector(LocalMessageDispatcher.getInjector(),
+    dispatcherInjector = LocalMessageDispatcher.getInjector();
+    final Injector injector = LocalMessageEnvironment.forkInjector(dispatcherInjector,
         MessageEnvironment.MASTER_COMMUNICATION_ID);
     blockManagerMaster = injector.getInstance(BlockManagerMaster.class);
   }
@@ -157,6 +172,108 @@ public final class BlockManagerMasterTest {
     }
   }
 
+  /**
+   * Test the locations of subscribed blocks pushed as the blocks are committed.
+   */
+  @Test
+  public void testLocationSubscription() throws Exception {
+    final String edgeId = IdManager.newEdgeId();
+    final String executorId = RuntimeIdManager.generateExecutorId();
+    final String committedTaskId = RuntimeIdManager.generateTaskId("Stage0", 0, FIRST_ATTEMPT);
+    final String committedBlockId = RuntimeIdManager.generateBlockId(edgeId, committedTaskId);
+    final String inProgressTaskId = RuntimeIdManager.generateTaskId("Stage0", 1, FIRST_ATTEMPT);
+    final String inProgressBlockId = RuntimeIdManager.generateBlockId(edgeId, inProgressTaskId);
+    blockManagerMaster.onProducerTaskScheduled(committedTaskId, Collections.singleton(committedBlockId));
+    blockManagerMaster.onProducerTaskScheduled(inProgressTaskId, Collections.singleton(inProgressBlockId));
+    blockManagerMaster.onBlockStateChanged(committedBlockId, BlockState.State.AVAILABLE, executorId);
+
+    final BlockingQueue<ControlMessage.BlockLocationInfoMsg> pushedLocations = new LinkedBlockingQueue<>();
+    LocalMessageEnvironment.forkInjector(dispatcherInjector, executorId).getInstance(MessageEnvironment.class)
+        .setupListener(MessageEnvironment.BLOCK_MANAGER_WORKER_MESSAGE_LISTENER_ID,
+            new MessageListener<ControlMessage.Message>() {
+              @Override
+              public void onMessage(final ControlMessage.Message message) {
+                pushedLocations.addAll(message.getBlockLocationInfosMsg().getBlockLocationInfoList());
+              }
+
+              @Override
+              public void onMessageWithContext(final ControlMessage.Message message, final MessageContext context) {
+                throw new IllegalStateException();
+              }
+            });
+    final String[] wildcards = {RuntimeIdManager.generateBlockIdWildcard(edgeId, 0),
+        RuntimeIdManager.generateBlockIdWildcard(edgeId, 1), RuntimeIdManager.generateBlockIdWildcard(edgeId, 2)};
+    blockManagerMaster.new BlockManagerMasterControlMessageReceiver().onMessage(
+        ControlMessage.Message.newBuilder()
+            .setId(RuntimeIdManager.generateMessageId())
+            .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+            .setType(ControlMessage.MessageType.SubscribeBlockLocations)
+            .setSubscribeBlockLocationsMsg(ControlMessage.SubscribeBlockLocationsMsg.newBuilder()
+                .setExecutorId(executorId)
+                .addAllBlockIdWildcard(Arrays.asList(wildcards))
+                .build())
+            .build());
+
+    // The known locations are pushed at once.
+    final ControlMessage.BlockLocationInfoMsg committedLocation = pollPushedLocation(pushedLocations);
+    assertEquals(wildcards[0], committedLocation.getBlockIdWildcard());
+    assertEquals(committedBlockId, committedLocation.getBlockId());
+    assertEquals(executorId, committedLocation.getOwnerExecutorId());
+    final ControlMessage.BlockLocationInfoMsg absentLocation = pollPushedLocation(pushedLocations);
+    assertEquals(wildcards[2], absentLocation.getBlockIdWildcard());
+    assertFalse(absentLocation.hasOwnerExecutorId());
+    assertEquals(ControlMessage.BlockStateFromExecutor.NOT_AVAILABLE, absentLocation.getState());
+
+    // The block in progress is pushed when it is committed.
+    blockManagerMaster.onBlockStateChanged(inProgressBlockId, BlockState.State.AVAILABLE, executorId);
+    final ControlMessage.BlockLocationInfoMsg inProgressLocation = pollPushedLocation(pushedLocations);
+    assertEquals(wildcards[1], inProgressLocation.getBlockIdWildcard());
+    assertEquals(inProgressBlockId, inProgressLocation.getBlockId());
+    assertEquals(executorId, inProgressLocation.getOwnerExecutorId());
+    assertTrue(pushedLocations.isEmpty());
+  }
+
+  private static ControlMessage.BlockLocationInfoMsg pollPushedLocation(
+      final BlockingQueue<ControlMessage.BlockLocationInfoMsg> pushedLocations) throws InterruptedException {
+    final ControlMessage.BlockLocationInfoMsg location = pushedLocations.poll(PUSH_WAIT_TIME_MS, TimeUnit.MILLISECONDS);
+    assertNotNull(location);
+    return location;
+  }
+
+  /**
+   * Test the partition bytes per location, which follow the commits and losses of the blocks.
+   */
+  @Test
+  public void testPartitionBytesPerLocation() throws Exception {
+    final String edgeId = IdManager.newEdgeId();
+    final String executorId = RuntimeIdManager.generateExecutorId();
+    final KeyRange<Integer> keyRange = HashRange.of(0, 2, false);
+    final String[] blockIds = new String[3];
+    for (int srcTaskIndex = 0; srcTaskIndex < blockIds.length; srcTaskIndex++) {
+      final String taskId = RuntimeIdManager.generateTaskId("Stage0", srcTaskIndex, FIRST_ATTEMPT);
+      blockIds[srcTaskIndex] = RuntimeIdManager.generateBlockId(edgeId, taskId);
+      blockManagerMaster.onProducerTaskScheduled(taskId, Collections.singleton(blockIds[srcTaskIndex]));
+    }
+    final Map<Integer, Long> partitionSizes = new HashMap<>();
+    partitionSizes.put(0, 10L);
+    partitionSizes.put(1, 20L);
+    partitionSizes.put(2, 40L);
+    blockManagerMaster.onBlockStateChanged(blockIds[0], BlockState.State.AVAILABLE, executorId, partitionSizes);
+    blockManagerMaster.onBlockStateChanged(blockIds[1], BlockState.State.AVAILABLE, "remote", partitionSizes);
+    blockManagerMaster.onBlockStateChanged(blockIds[2], BlockState.State.AVAILABLE, executorId, partitionSizes);
+
+    final Map<String, Long> expected = new HashMap<>();
+    expected.put(executorId, 60L);
+    expected.put("remote", 30L);
+    assertEquals(expected, blockManagerMaster.getPartitionBytesPerLocation(edgeId, keyRange));
+    assertTrue(blockManagerMaster.getPartitionBytesPerLocation(IdManager.newEdgeId(), keyRange).isEmpty());
+
+    // The bytes of the lost blocks are not counted anymore.
+    blockManagerMaster.removeWorker(executorId);
+    assertEquals(Collections.singletonMap("remote", 30L),
+        blockManagerMaster.getPartitionBytesPerLocation(edgeId, keyRange));
+  }
+
   private Future<String> getSingleLocationFuture(final String blockId, final BlockState.State state) {
     final List<BlockManagerMaster.BlockRequestHandler> handlerList = blockManagerMaster.getBlockHandlers(blockId, state);
     assertEquals(1, handlerList.size());
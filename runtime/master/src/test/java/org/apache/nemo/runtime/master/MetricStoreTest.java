@@ -16,12 +16,22 @@
 package org.apache.nemo.runtime.master;
 
 import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.nemo.runtime.common.metric.ExecutorMetric;
 import org.apache.nemo.runtime.common.metric.JobMetric;
+import org.apache.nemo.runtime.common.metric.StageMetric;
+import org.apache.nemo.runtime.common.metric.TaskMetric;
+import org.apache.nemo.runtime.common.metric.VertexExecutionMetric;
+import org.apache.nemo.runtime.common.state.TaskState;
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -49,4 +59,106 @@ public final class MetricStoreTest {
     final TreeNode fieldNode = metricNode.get("id");
     assertTrue(fieldNode.isValueNode());
   }
+
+  @Test
+  public void testStageVertexMetrics() throws IOException {
+    final MetricStore metricStore = MetricStore.getStore();
+    metricStore.getOrCreateMetric(JobMetric.class, "vertexMetricJob");
+
+    // The vertex metrics of two tasks are aggregated.
+    for (int i = 0; i < 2; i++) {
+      final VertexExecutionMetric vertexMetric = new VertexExecutionMetric("testVertex");
+      vertexMetric.countProcessedElements(10);
+      vertexMetric.getTransformLatency().record(1000);
+      final ArrayList<VertexExecutionMetric> vertexMetrics = new ArrayList<>();
+      vertexMetrics.add(vertexMetric);
+      assertTrue(metricStore.updateMetricIfChanged(StageMetric.class, "testStage",
+          metric -> metric.processMetricMessage("vertexMetrics", SerializationUtils.serialize(vertexMetrics))));
+    }
+
+    final JsonNode vertexNode = new ObjectMapper().readTree(metricStore.dumpMetricToJson(StageMetric.class))
+        .get("StageMetric").get("vertexMetricJob/testStage").get("data").get("vertexMetrics").get("testVertex");
+    assertEquals(20, vertexNode.get("numProcessedElements").asLong());
+    assertEquals(2, vertexNode.get("transformLatency").get("count").asLong());
+    assertEquals(1000, vertexNode.get("transformLatency").get("p99").asLong());
+  }
+
+  @Test
+  public void testChangedMetricDump() throws IOException {
+    final MetricStore metricStore = MetricStore.getStore();
+    metricStore.getOrCreateMetric(JobMetric.class, "changedDumpJob");
+    metricStore.updateMetric(TaskMetric.class, "testTask1", metric -> { });
+    metricStore.updateMetric(TaskMetric.class, "testTask2", metric -> { });
+    final long version = metricStore.getVersion();
+
+    // Only the metric changed after the version is dumped.
+    assertFalse(metricStore.updateMetricIfChanged(TaskMetric.class, "testTask1", metric -> false));
+    metricStore.updateMetric(TaskMetric.class, "testTask2",
+        metric -> metric.processMetricMessage("containerId", "testExecutor"));
+    final JsonNode dump = new ObjectMapper().readTree(metricStore.dumpChangedMetricToJson(TaskMetric.class, version));
+    assertEquals(metricStore.getVersion(), dump.get("version").asLong());
+    assertFalse(dump.get("full").asBoolean());
+    final JsonNode taskMetricNode = dump.get("TaskMetric");
+    assertEquals(1, taskMetricNode.size());
+    assertEquals("testExecutor",
+        taskMetricNode.get("changedDumpJob/testTask2").get("data").get("containerId").asText());
+
+    // The cached JSON of a metric is renewed when it changes.
+    metricStore.updateMetric(TaskMetric.class, "testTask2",
+        metric -> metric.processMetricMessage("containerId", "otherExecutor"));
+    assertEquals("otherExecutor", new ObjectMapper().readTree(metricStore.dumpMetricToJson(TaskMetric.class))
+        .get("TaskMetric").get("changedDumpJob/testTask2").get("data").get("containerId").asText());
+  }
+
+  @Test
+  public void testTaskIdsAcrossJobs() {
+    final MetricStore metricStore = MetricStore.getStore();
+    metricStore.getOrCreateMetric(JobMetric.class, "firstJob");
+    metricStore.updateMetric(TaskMetric.class, "Stage0-0-0",
+        metric -> metric.processMetricMessage("containerId", "firstExecutor"));
+    metricStore.getOrCreateMetric(JobMetric.class, "secondJob");
+
+    // The same task id in the next job refers to a new metric.
+    assertEquals("", metricStore.getOrCreateMetric(TaskMetric.class, "Stage0-0-0").getContainerId());
+    assertEquals("firstExecutor",
+        ((TaskMetric) metricStore.getMetricMap(TaskMetric.class).get("firstJob/Stage0-0-0")).getContainerId());
+  }
+
+  @Test
+  public void testJobRetention() throws IOException {
+    final MetricStore metricStore = MetricStore.getStore();
+    try {
+      metricStore.setNumRetainedJobs(2);
+      long version = 0;
+      for (int i = 0; i < 3; i++) {
+        metricStore.getOrCreateMetric(JobMetric.class, "retentionJob" + i);
+        metricStore.updateMetric(TaskMetric.class, "retentionTask",
+            metric -> metric.addEvent(null, TaskState.State.READY));
+        metricStore.getOrCreateMetric(ExecutorMetric.class, "retentionExecutor" + i);
+        if (i == 1) {
+          version = metricStore.getVersion();
+        }
+      }
+
+      // The metrics of the oldest job are removed, except for the executor metrics.
+      assertFalse(metricStore.getMetricMap(JobMetric.class).containsKey("retentionJob0"));
+      assertFalse(metricStore.getMetricMap(TaskMetric.class).containsKey("retentionJob0/retentionTask"));
+      for (int i = 1; i < 3; i++) {
+        assertTrue(metricStore.getMetricMap(JobMetric.class).containsKey("retentionJob" + i));
+        assertTrue(metricStore.getMetricMap(TaskMetric.class).containsKey("retentionJob" + i + "/retentionTask"));
+      }
+      for (int i = 0; i < 3; i++) {
+        assertTrue(metricStore.getMetricMap(ExecutorMetric.class).containsKey("retentionExecutor" + i));
+      }
+
+      // The removed metrics are reported to the clients which polled before the removal.
+      final JsonNode dump = new ObjectMapper().readTree(metricStore.dumpChangedMetricToJson(TaskMetric.class, version));
+      assertFalse(dump.get("full").asBoolean());
+      assertEquals(1, dump.get("removed").size());
+      assertEquals("retentionJob0/retentionTask", dump.get("removed").get(0).asText());
+      assertTrue(dump.get("TaskMetric").has("retentionJob2/retentionTask"));
+    } finally {
+      metricStore.setNumRetainedJobs(Integer.MAX_VALUE);
+    }
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.resource;
+
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageSender;
+import org.apache.nemo.runtime.common.plan.StageTemplate;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.reef.driver.context.ActiveContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the {@link StageTemplate}s sent by {@link ExecutorRepresenter}.
+ */
+public final class ExecutorRepresenterTest {
+  private static final String STAGE_ID = RuntimeIdManager.generateStageId(0);
+
+  private List<ControlMessage.ScheduleTaskMsg> sentMsgs;
+  private ExecutorService serializationExecutorService;
+  private ExecutorRepresenter executorRepresenter;
+
+  @Before
+  public void setUp() {
+    sentMsgs = Collections.synchronizedList(new ArrayList<>());
+    final MessageSender<ControlMessage.Message> messageSender = new MessageSender<ControlMessage.Message>() {
+      @Override
+      public void send(final ControlMessage.Message message) {
+        sentMsgs.add(message.getScheduleTaskMsg());
+      }
+
+      @Override
+      public <U> CompletableFuture<U> request(final ControlMessage.Message message) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    serializationExecutorService = Executors.newSingleThreadExecutor();
+    executorRepresenter = new ExecutorRepresenter("executor", new ResourceSpecification("Compute", 2, 256),
+        messageSender, mock(ActiveContext.class), serializationExecutorService, "node");
+  }
+
+  @Test(timeout = 10000)
+  public void testStageTemplateSentOnce() throws Exception {
+    final StageTemplate template = createTemplate("plan", 1);
+    executorRepresenter.onTaskScheduled(new Task(taskId(0), template, Collections.emptyMap()));
+    executorRepresenter.onTaskScheduled(new Task(taskId(1), template, Collections.emptyMap()));
+    final List<ControlMessage.ScheduleTaskMsg> msgs = awaitSentMsgs();
+
+    assertEquals(2, msgs.size());
+    assertTrue(msgs.get(0).hasStageTemplate());
+    assertFalse(msgs.get(1).hasStageTemplate());
+    msgs.forEach(msg -> assertEquals(template.getTemplateId(), msg.getStageTemplateId()));
+  }
+
+  @Test(timeout = 10000)
+  public void testOutdatedStageTemplateEvictedWhenUnused() throws Exception {
+    final StageTemplate oldTemplate = createTemplate("plan", 1);
+    final StageTemplate newTemplate = createTemplate("plan", 2);
+    final StageTemplate newerTemplate = createTemplate("plan", 3);
+    executorRepresenter.onTaskScheduled(new Task(taskId(0), oldTemplate, Collections.emptyMap()));
+
+    // The old template is still used by a running task.
+    executorRepresenter.onTaskScheduled(new Task(taskId(1), newTemplate, Collections.emptyMap()));
+    // The old template is no longer used, while the new template still is.
+    executorRepresenter.onTaskExecutionComplete(taskId(0));
+    executorRepresenter.onTaskScheduled(new Task(taskId(2), newerTemplate, Collections.emptyMap()));
+    // The new template is no longer used.
+    executorRepresenter.onTaskExecutionComplete(taskId(1));
+    executorRepresenter.onTaskScheduled(new Task(taskId(3), newerTemplate, Collections.emptyMap()));
+    final List<ControlMessage.ScheduleTaskMsg> msgs = awaitSentMsgs();
+
+    assertEquals(4, msgs.size());
+    assertEquals(Collections.emptyList(), msgs.get(0).getEvictedStageTemplateIdsList());
+    assertEquals(Collections.emptyList(), msgs.get(1).getEvictedStageTemplateIdsList());
+    assertEquals(Collections.singletonList(oldTemplate.getTemplateId()),
+        msgs.get(2).getEvictedStageTemplateIdsList());
+    assertEquals(Collections.singletonList(newTemplate.getTemplateId()),
+        msgs.get(3).getEvictedStageTemplateIdsList());
+    assertEquals(Arrays.asList(true, true, true, false),
+        Arrays.asList(msgs.get(0).hasStageTemplate(), msgs.get(1).hasStageTemplate(),
+            msgs.get(2).hasStageTemplate(), msgs.get(3).hasStageTemplate()));
+  }
+
+  @Test(timeout = 10000)
+  public void testStageTemplateOfAnotherPlanEvicted() throws Exception {
+    final StageTemplate template = createTemplate("plan", 1);
+    final StageTemplate templateOfAnotherPlan = createTemplate("anotherPlan", 1);
+    executorRepresenter.onTaskScheduled(new Task(taskId(0), template, Collections.emptyMap()));
+    executorRepresenter.onTaskExecutionComplete(taskId(0));
+    executorRepresenter.onTaskScheduled(new Task(taskId(1), templateOfAnotherPlan, Collections.emptyMap()));
+    final List<ControlMessage.ScheduleTaskMsg> msgs = awaitSentMsgs();
+
+    assertEquals(Collections.singletonList(template.getTemplateId()), msgs.get(1).getEvictedStageTemplateIdsList());
+  }
+
+  private static String taskId(final int index) {
+    return RuntimeIdManager.generateTaskId(STAGE_ID, index, 0);
+  }
+
+  private static StageTemplate createTemplate(final String planId, final int planVersion) {
+    return new StageTemplate(planId + "/" + STAGE_ID + "/v" + planVersion, planId, planVersion,
+        new ExecutionPropertyMap<>(STAGE_ID), new byte[0], Collections.emptyList(), Collections.emptyList());
+  }
+
+  private List<ControlMessage.ScheduleTaskMsg> awaitSentMsgs() throws InterruptedException {
+    serializationExecutorService.shutdown();
+    serializationExecutorService.awaitTermination(10, TimeUnit.SECONDS);
+    return sentMsgs;
+  }
+}
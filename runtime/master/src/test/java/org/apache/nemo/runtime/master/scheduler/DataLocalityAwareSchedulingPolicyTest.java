@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.scheduler;
+
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataFlowProperty;
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.plan.Stage;
+import org.apache.nemo.runtime.common.plan.StageEdge;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.master.BlockManagerMaster;
+import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link DataLocalityAwareSchedulingPolicy}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ExecutorRepresenter.class, Task.class, Stage.class, BlockManagerMaster.class})
+public final class DataLocalityAwareSchedulingPolicyTest {
+  private static final String EDGE_ID = "edge";
+  private static final int TASK_IDX = 1;
+
+  private BlockManagerMaster blockManagerMaster;
+  private SchedulingPolicy schedulingPolicy;
+
+  @Before
+  public void setUp() throws InjectionException {
+    blockManagerMaster = mock(BlockManagerMaster.class);
+    when(blockManagerMaster.getPartitionBytesPerLocation(anyString(), any())).thenReturn(Collections.emptyMap());
+    schedulingPolicy = new DataLocalityAwareSchedulingPolicy(blockManagerMaster,
+        Tang.Factory.getTang().newInjector().getInstance(MinOccupancyFirstSchedulingPolicy.class));
+  }
+
+  private static ExecutorRepresenter mockExecutorRepresenter(final String executorId,
+                                                             final int numRunningTasks,
+                                                             final int capacity) {
+    final ExecutorRepresenter executorRepresenter = mock(ExecutorRepresenter.class);
+    when(executorRepresenter.getExecutorId()).thenReturn(executorId);
+    when(executorRepresenter.getNumOfRunningTasks()).thenReturn(numRunningTasks);
+    when(executorRepresenter.getExecutorCapacity()).thenReturn(capacity);
+    return executorRepresenter;
+  }
+
+  private static Task mockShuffleReadingTask(final KeyRange keyRange) {
+    final IRVertex srcVertex = new OperatorVertex(mock(Transform.class));
+    final ExecutionPropertyMap<EdgeExecutionProperty> edgeProperties = new ExecutionPropertyMap<>(EDGE_ID);
+    edgeProperties.put(CommunicationPatternProperty.of(CommunicationPatternProperty.Value.Shuffle));
+    edgeProperties.put(DataFlowProperty.of(DataFlowProperty.Value.Pull));
+    final Stage dstStage = mock(Stage.class);
+    when(dstStage.getParallelism()).thenReturn(TASK_IDX + 1);
+    final StageEdge inEdge = new StageEdge(EDGE_ID, edgeProperties, srcVertex,
+        new OperatorVertex(mock(Transform.class)), mock(Stage.class), dstStage);
+    inEdge.setTaskIdxToKeyRange(Collections.singletonMap(TASK_IDX, keyRange));
+
+    final Task task = mock(Task.class);
+    when(task.getTaskId()).thenReturn(RuntimeIdManager.generateTaskId("Stage0", TASK_IDX, 0));
+    when(task.getTaskIncomingEdges()).thenReturn(Collections.singletonList(inEdge));
+    return task;
+  }
+
+  private void putBytes(final KeyRange keyRange, final Map<String, Long> locationToBytes) {
+    when(blockManagerMaster.getPartitionBytesPerLocation(EDGE_ID, keyRange)).thenReturn(locationToBytes);
+  }
+
+  @Test
+  public void testPreferExecutorHoldingMostBytes() {
+    final KeyRange keyRange = HashRange.of(2, 4, false);
+    final Task task = mockShuffleReadingTask(keyRange);
+    final Map<String, Long> locationToBytes = new HashMap<>();
+    locationToBytes.put("a1", 200L);
+    locationToBytes.put("a2", 150L);
+    putBytes(keyRange, locationToBytes);
+
+    final ExecutorRepresenter a0 = mockExecutorRepresenter("a0", 0, 2);
+    final ExecutorRepresenter a1 = mockExecutorRepresenter("a1", 1, 2);
+    final ExecutorRepresenter a2 = mockExecutorRepresenter("a2", 1, 2);
+
+    assertEquals(a1, schedulingPolicy.selectExecutor(Arrays.asList(a0, a1, a2), task));
+  }
+
+  @Test
+  public void testSkipOverloadedExecutor() {
+    final KeyRange keyRange = HashRange.of(0, 1, false);
+    final Task task = mockShuffleReadingTask(keyRange);
+    putBytes(keyRange, Collections.singletonMap("a1", 100L));
+
+    final ExecutorRepresenter a0 = mockExecutorRepresenter("a0", 0, 2);
+    final ExecutorRepresenter a1 = mockExecutorRepresenter("a1", 2, 2);
+
+    assertEquals(a0, schedulingPolicy.selectExecutor(Arrays.asList(a0, a1), task));
+  }
+
+  @Test
+  public void testFallBackToMinOccupancy() {
+    final Task task = mock(Task.class);
+    when(task.getTaskId()).thenReturn(RuntimeIdManager.generateTaskId("Stage0", 0, 0));
+    when(task.getTaskIncomingEdges()).thenReturn(Collections.emptyList());
+
+    final ExecutorRepresenter a0 = mockExecutorRepresenter("a0", 1, 2);
+    final ExecutorRepresenter a1 = mockExecutorRepresenter("a1", 0, 2);
+
+    assertEquals(a1, schedulingPolicy.selectExecutor(Arrays.asList(a0, a1), task));
+  }
+}
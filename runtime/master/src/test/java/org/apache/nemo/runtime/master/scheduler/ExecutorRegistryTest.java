@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 Seoul National University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nemo.runtime.master.scheduler;
+
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the executor indexes of {@link ExecutorRegistry}.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(ExecutorRepresenter.class)
+public final class ExecutorRegistryTest {
+
+  private static ExecutorRepresenter mockExecutorRepresenter(final String executorId,
+                                                             final String containerType,
+                                                             final String nodeName) {
+    final ExecutorRepresenter executorRepresenter = mock(ExecutorRepresenter.class);
+    when(executorRepresenter.getExecutorId()).thenReturn(executorId);
+    when(executorRepresenter.getContainerType()).thenReturn(containerType);
+    when(executorRepresenter.getNodeName()).thenReturn(nodeName);
+    when(executorRepresenter.getExecutorCapacity()).thenReturn(1);
+    when(executorRepresenter.getNumOfComplyingRunningTasks()).thenReturn(0);
+    return executorRepresenter;
+  }
+
+  @Test
+  public void testIndexes() throws InjectionException {
+    final ExecutorRegistry executorRegistry = Tang.Factory.getTang().newInjector()
+        .getInstance(ExecutorRegistry.class);
+    final ExecutorRepresenter a0 = mockExecutorRepresenter("a0", "Compute", "node0");
+    final ExecutorRepresenter a1 = mockExecutorRepresenter("a1", "Compute", "node1");
+    final ExecutorRepresenter a2 = mockExecutorRepresenter("a2", "Transient", "node1");
+    executorRegistry.registerExecutor(a0);
+    executorRegistry.registerExecutor(a1);
+    executorRegistry.registerExecutor(a2);
+
+    assertEquals(new HashSet<>(Arrays.asList(a0, a1)), executorRegistry.getRunningExecutorsOfContainerType("Compute"));
+    assertEquals(new HashSet<>(Arrays.asList(a1, a2)), executorRegistry.getRunningExecutorsOnNode("node1"));
+    assertEquals(new HashSet<>(Arrays.asList(a0, a1, a2)), executorRegistry.getRunningExecutorsWithFreeSlots());
+
+    // a1 takes its only slot.
+    when(a1.getNumOfComplyingRunningTasks()).thenReturn(1);
+    executorRegistry.updateExecutor("a1", (executor, state) -> Pair.of(executor, state));
+    assertEquals(new HashSet<>(Arrays.asList(a0, a2)), executorRegistry.getRunningExecutorsWithFreeSlots());
+
+    // a2 fails.
+    executorRegistry.updateExecutor("a2",
+        (executor, state) -> Pair.of(executor, ExecutorRegistry.ExecutorState.FAILED));
+    assertEquals(Collections.singleton(a1), executorRegistry.getRunningExecutorsOnNode("node1"));
+    assertEquals(Collections.singleton(a0), executorRegistry.getRunningExecutorsWithFreeSlots());
+    assertEquals(Optional.empty(), executorRegistry.getRunningExecutor("a2"));
+    executorRegistry.viewExecutors(executors -> assertEquals(new HashSet<>(Arrays.asList(a0, a1)), executors));
+  }
+}
@@ -65,5 +65,18 @@ public final class MinOccupancyFirstSchedulingPolicyTest {
 
     assertEquals(a0, schedulingPolicy.selectExecutor(executorRepresenterList, task));
   }
-}
 
+  @Test
+  public void testTieBreakByReportedQueueWait() throws InjectionException {
+    final SchedulingPolicy schedulingPolicy = Tang.Factory.getTang().newInjector()
+        .getInstance(MinOccupancyFirstSchedulingPolicy.class);
+    final ExecutorRepresenter a0 = mockExecutorRepresenter(1);
+    final ExecutorRepresenter a1 = mockExecutorRepresenter(1);
+    when(a0.getReportedQueueWaitMs()).thenReturn(500L);
+    when(a1.getReportedQueueWaitMs()).thenReturn(10L);
+
+    final Task task = mock(Task.class);
+
+    assertEquals(a1, schedulingPolicy.selectExecutor(Arrays.asList(a0, a1), task));
+  }
+}